@@ -0,0 +1,76 @@
+package uk.gov.dwp.carersallowance.configuration;
+
+import org.springframework.context.MessageSource;
+import org.springframework.context.support.ReloadableResourceBundleMessageSource;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Properties;
+
+import static uk.gov.dwp.carersallowance.utils.BenchmarkUtils.intArgument;
+import static uk.gov.dwp.carersallowance.utils.BenchmarkUtils.measure;
+
+/**
+ * Compares message lookups through the ReloadableResourceBundleMessageSource as it was configured in WebConfig with
+ * the MessageCatalog: every key of messages_en.properties without arguments, the keys with arguments, and keys with
+ * no message, as when a field has no validations or transformations.
+ *
+ * gradle benchmark -Pbenchmark=configuration.MessageCatalogBenchmark -PbenchmarkArgs=[rounds]
+ */
+public class MessageCatalogBenchmark {
+    private static final Object[] ARGS = new Object[]{"<a>", "</a>"};
+
+    private final List<String> keys = new ArrayList<>();
+    private final List<String> keysWithArgs = new ArrayList<>();
+    private final List<String> missingKeys = new ArrayList<>();
+
+    public MessageCatalogBenchmark() throws Exception {
+        final Properties properties = new Properties();
+        try (InputStream inputStream = MessageCatalogBenchmark.class.getClassLoader().getResourceAsStream("messages_en.properties")) {
+            properties.load(inputStream);
+        }
+        for (final String key : properties.stringPropertyNames()) {
+            keys.add(key);
+            if (properties.getProperty(key).contains("{0}")) {
+                keysWithArgs.add(key);
+            }
+            missingKeys.add(key + ".validation.transformations");
+        }
+    }
+
+    private static void run(final String name, final MessageSource messageSource, final List<String> keys, final Object[] args, final int rounds) throws Exception {
+        final Locale locale = Locale.getDefault();
+        measure(name + ", found", rounds, (long)rounds * keys.size(), "lookup", iterations -> {
+            long found = 0;
+            for (int round = 0; round < iterations; round++) {
+                for (final String key : keys) {
+                    if (messageSource.getMessage(key, args, null, locale) != null) {
+                        found++;
+                    }
+                }
+            }
+            return found;
+        });
+    }
+
+    public static void main(final String[] args) throws Exception {
+        final int rounds = intArgument(args, 0, 2000);
+        final MessageCatalogBenchmark benchmark = new MessageCatalogBenchmark();
+
+        final ReloadableResourceBundleMessageSource reloadable = new ReloadableResourceBundleMessageSource();
+        reloadable.setBasenames("classpath:messages");
+        reloadable.setCacheSeconds(10);
+        reloadable.setDefaultEncoding("UTF-8");
+        final MessageCatalog catalog = new MessageCatalog("classpath:messages");
+
+        System.out.println(benchmark.keys.size() + " keys, " + benchmark.keysWithArgs.size() + " with arguments");
+        run("reloadable, no arguments", reloadable, benchmark.keys, null, rounds);
+        run("catalog, no arguments", catalog, benchmark.keys, null, rounds);
+        run("reloadable, arguments", reloadable, benchmark.keysWithArgs, ARGS, rounds);
+        run("catalog, arguments", catalog, benchmark.keysWithArgs, ARGS, rounds);
+        run("reloadable, missing", reloadable, benchmark.missingKeys, null, rounds);
+        run("catalog, missing", catalog, benchmark.missingKeys, null, rounds);
+    }
+}
@@ -0,0 +1,111 @@
+package uk.gov.dwp.carersallowance.controller;
+
+import org.springframework.context.MessageSource;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.ui.ExtendedModelMap;
+import uk.gov.dwp.carersallowance.controller.defaultcontoller.DefaultFormController;
+import uk.gov.dwp.carersallowance.session.SessionManager;
+import uk.gov.dwp.carersallowance.sessiondata.Session;
+import uk.gov.dwp.carersallowance.transformations.TransformationManager;
+import uk.gov.dwp.carersallowance.utils.FunctionsTestUtils;
+import uk.gov.dwp.carersallowance.utils.MessageSourceTestUtils;
+import uk.gov.dwp.carersallowance.validations.FormValidationsRegistry;
+
+import javax.servlet.http.HttpServletRequest;
+
+import static uk.gov.dwp.carersallowance.utils.BenchmarkUtils.intArgument;
+import static uk.gov.dwp.carersallowance.utils.BenchmarkUtils.measure;
+import static uk.gov.dwp.carersallowance.utils.BenchmarkUtils.readReplicaClaim;
+
+/**
+ * Measures the heap allocated and the CPU time taken by each POST of /about-you/your-details, valid and invalid,
+ * through DefaultFormController, with the session holding the fully populated replica claim.
+ *
+ * gradle benchmark -Pbenchmark=controller.FormPostAllocationBenchmark -PbenchmarkArgs=[posts]
+ */
+public class FormPostAllocationBenchmark {
+    private static final String PAGE = "/about-you/your-details";
+
+    private final DefaultFormController controller;
+    private final Session session;
+
+    public FormPostAllocationBenchmark() throws Exception {
+        final MessageSource messageSource = MessageSourceTestUtils.loadMessageSource("messages.properties");
+        FunctionsTestUtils.initFunctions(messageSource);
+        final PageOrder pageOrder = new PageOrder(messageSource, "claim");
+        final FormValidationsRegistry registry = new FormValidationsRegistry(messageSource, pageOrder);
+        registry.compileAll();
+        session = new Session("benchmark", readReplicaClaim());
+        controller = new DefaultFormController(new BenchmarkSessionManager(session), messageSource, new TransformationManager(messageSource), pageOrder, registry,
+                new PageDescriptorRegistry(messageSource, pageOrder));
+    }
+
+    private static MockHttpServletRequest post(final boolean valid) {
+        final MockHttpServletRequest request = new MockHttpServletRequest("POST", PAGE);
+        request.setServletPath(PAGE);
+        request.addParameter("pageName", PAGE);
+        request.addParameter("carerTitle", valid ? "Mr" : "");
+        request.addParameter("carerFirstName", valid ? "Joe" : "");
+        request.addParameter("carerMiddleName", "");
+        request.addParameter("carerSurname", valid ? "Bloggs" : "");
+        request.addParameter("carerNationalInsuranceNumber", valid ? "AB123456C" : "");
+        request.addParameter("carerDateOfBirth_day", valid ? "1" : "");
+        request.addParameter("carerDateOfBirth_month", valid ? "1" : "");
+        request.addParameter("carerDateOfBirth_year", valid ? "1970" : "");
+        return request;
+    }
+
+    /**
+     * The requests are built before they are measured, so only the post itself is counted.
+     */
+    private void run(final String name, final int posts, final boolean valid) throws Exception {
+        final MockHttpServletRequest[] requests = new MockHttpServletRequest[posts];
+        for (int post = 0; post < posts; post++) {
+            requests[post] = post(valid);
+        }
+        measure(name + ", redirects", posts, "post", count -> {
+            long redirects = 0;
+            for (int post = 0; post < count; post++) {
+                final String view = controller.postForm(requests[post], new ExtendedModelMap());
+                if (view != null && view.startsWith("redirect:")) {
+                    redirects++;
+                }
+            }
+            return redirects;
+        });
+    }
+
+    public static void main(final String[] args) throws Exception {
+        final int posts = intArgument(args, 0, 20000);
+        final FormPostAllocationBenchmark benchmark = new FormPostAllocationBenchmark();
+        System.out.println(benchmark.session.getAttributeNames().size() + " session attributes");
+        benchmark.run("valid", posts, true);
+        benchmark.run("invalid", posts, false);
+    }
+
+    /**
+     * Always returns the benchmark's session.
+     */
+    private static class BenchmarkSessionManager extends SessionManager {
+        private final Session session;
+
+        private BenchmarkSessionManager(final Session session) {
+            super(null, null, null, null, null, null, null);
+            this.session = session;
+        }
+
+        @Override
+        public String getSessionIdFromCookie(final HttpServletRequest request) {
+            return session.getSessionId();
+        }
+
+        @Override
+        public Session getSession(final String sessionId) {
+            return session;
+        }
+
+        @Override
+        public void saveSession(final Session session) {
+        }
+    }
+}
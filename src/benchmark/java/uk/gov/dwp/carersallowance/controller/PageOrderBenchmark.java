@@ -0,0 +1,42 @@
+package uk.gov.dwp.carersallowance.controller;
+
+import org.springframework.context.MessageSource;
+import uk.gov.dwp.carersallowance.sessiondata.Session;
+import uk.gov.dwp.carersallowance.utils.MessageSourceTestUtils;
+
+import java.util.List;
+
+import static uk.gov.dwp.carersallowance.utils.BenchmarkUtils.intArgument;
+import static uk.gov.dwp.carersallowance.utils.BenchmarkUtils.measure;
+import static uk.gov.dwp.carersallowance.utils.BenchmarkUtils.readReplicaClaim;
+
+/**
+ * Times next and previous page resolution for every page of the claim, with the session holding the fully populated
+ * replica claim.
+ *
+ * gradle benchmark -Pbenchmark=controller.PageOrderBenchmark -PbenchmarkArgs=[iterations]
+ */
+public class PageOrderBenchmark {
+    public static void main(final String[] args) throws Exception {
+        final int iterations = intArgument(args, 0, 2000);
+        final MessageSource messageSource = MessageSourceTestUtils.loadMessageSource("messages.properties");
+        final PageOrder pageOrder = new PageOrder(messageSource, "claim");
+        final List<String> pages = pageOrder.getAllPages();
+        final Session session = new Session("benchmark", readReplicaClaim());
+        System.out.println(pages.size() + " pages");
+        measure("next and previous, pages found", iterations, 2L * iterations * pages.size(), "navigation", count -> {
+            long found = 0;
+            for (int iteration = 0; iteration < count; iteration++) {
+                for (final String page : pages) {
+                    if (pageOrder.getNextPage(page, session, false) != null) {
+                        found++;
+                    }
+                    if (pageOrder.getPreviousPage(page, session) != null) {
+                        found++;
+                    }
+                }
+            }
+            return found;
+        });
+    }
+}
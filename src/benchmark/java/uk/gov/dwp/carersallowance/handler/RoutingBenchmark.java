@@ -0,0 +1,69 @@
+package uk.gov.dwp.carersallowance.handler;
+
+import org.springframework.context.support.StaticApplicationContext;
+import org.springframework.mock.web.MockHttpServletRequest;
+import uk.gov.dwp.carersallowance.configuration.MessageCatalog;
+import uk.gov.dwp.carersallowance.controller.PageDescriptorRegistry;
+import uk.gov.dwp.carersallowance.controller.PageOrder;
+import uk.gov.dwp.carersallowance.controller.defaultcontoller.DefaultFormController;
+import uk.gov.dwp.carersallowance.transformations.TransformationManager;
+import uk.gov.dwp.carersallowance.validations.FormValidationsRegistry;
+
+import static uk.gov.dwp.carersallowance.utils.BenchmarkUtils.intArgument;
+import static uk.gov.dwp.carersallowance.utils.BenchmarkUtils.measure;
+
+/**
+ * Measures the CPU time taken and the heap allocated by FilteredRequestMappingHandlerMapping to route a static
+ * resource, a data driven page and a path that is neither, with the exclusions from WebConfig and the messages from
+ * a MessageCatalog.
+ *
+ * gradle benchmark -Pbenchmark=handler.RoutingBenchmark -PbenchmarkArgs=[requests]
+ */
+public class RoutingBenchmark {
+    private final FilteredRequestMappingHandlerMapping handlerMapping;
+
+    public RoutingBenchmark() throws Exception {
+        final MessageCatalog messageSource = new MessageCatalog("classpath:messages");
+        final PageOrder pageOrder = new PageOrder(messageSource, "claim");
+        final PageDescriptorRegistry pageDescriptorRegistry = new PageDescriptorRegistry(messageSource, pageOrder);
+        pageDescriptorRegistry.reload();
+        final DefaultFormController controller = new DefaultFormController(null, messageSource, new TransformationManager(messageSource), pageOrder,
+                new FormValidationsRegistry(messageSource, pageOrder), pageDescriptorRegistry);
+
+        final StaticApplicationContext applicationContext = new StaticApplicationContext();
+        applicationContext.getBeanFactory().registerSingleton("defaultFormController", controller);
+        applicationContext.refresh();
+
+        handlerMapping = new FilteredRequestMappingHandlerMapping();
+        handlerMapping.setExclude("/javascript/**");
+        handlerMapping.setExclude("/stylesheet/**");
+        handlerMapping.setExclude("/images/**");
+        handlerMapping.setExclude("/icons/**");
+        handlerMapping.setExclude("/assets/images/**");
+        handlerMapping.setApplicationContext(applicationContext);
+        handlerMapping.afterPropertiesSet();
+    }
+
+    private void run(final String path, final int requests) throws Exception {
+        final MockHttpServletRequest request = new MockHttpServletRequest("GET", path);
+        request.setServletPath(path);
+        measure(path + ", handled", requests, "request", iterations -> {
+            long handled = 0;
+            for (int count = 0; count < iterations; count++) {
+                if (handlerMapping.getHandlerInternal(request) != null) {
+                    handled++;
+                }
+            }
+            return handled;
+        });
+    }
+
+    public static void main(final String[] args) throws Exception {
+        final int requests = intArgument(args, 0, 500000);
+        final RoutingBenchmark benchmark = new RoutingBenchmark();
+        benchmark.run("/assets/images/gov.uk_logotype.png", requests);
+        benchmark.run("/about-you/your-details", requests);
+        benchmark.run("/your-income/employment/job-details", requests);
+        benchmark.run("/no/such/page", requests);
+    }
+}
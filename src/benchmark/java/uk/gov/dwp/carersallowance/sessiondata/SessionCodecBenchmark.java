@@ -0,0 +1,72 @@
+package uk.gov.dwp.carersallowance.sessiondata;
+
+import com.thoughtworks.xstream.XStream;
+import com.thoughtworks.xstream.io.xml.StaxDriver;
+
+import javax.xml.bind.DatatypeConverter;
+import java.util.Map;
+
+import static uk.gov.dwp.carersallowance.utils.BenchmarkUtils.intArgument;
+import static uk.gov.dwp.carersallowance.utils.BenchmarkUtils.measure;
+import static uk.gov.dwp.carersallowance.utils.BenchmarkUtils.readReplicaClaim;
+
+/**
+ * Compares payload size and encode / decode cost of the session codecs against the original new-XStream-per-call
+ * path, using the replica claim as the session contents. The results of each encode are the characters of the base64
+ * payload sent to the session data service.
+ *
+ * gradle benchmark -Pbenchmark=sessiondata.SessionCodecBenchmark -PbenchmarkArgs=[iterations]
+ */
+public class SessionCodecBenchmark {
+    private static XStream createXStream() {
+        final XStream xStream = new XStream(new StaxDriver());
+        xStream.alias("map", java.util.Map.class);
+        xStream.alias("map", java.util.HashMap.class);
+        return xStream;
+    }
+
+    private static String legacyEncode(final Map<String, Object> data) {
+        return DatatypeConverter.printBase64Binary(createXStream().toXML(data).getBytes());
+    }
+
+    private static void run(final String name, final SessionCodec codec, final Map<String, Object> data, final int iterations) throws Exception {
+        final String payload = DatatypeConverter.printBase64Binary(codec.encode(data));
+        measure(name + " encode, chars", iterations, "call", count -> {
+            long length = 0;
+            for (int index = 0; index < count; index++) {
+                length += DatatypeConverter.printBase64Binary(codec.encode(data)).length();
+            }
+            return length;
+        });
+        measure(name + " decode, values", iterations, "call", count -> {
+            long values = 0;
+            for (int index = 0; index < count; index++) {
+                values += codec.decode(DatatypeConverter.parseBase64Binary(payload)).size();
+            }
+            return values;
+        });
+    }
+
+    public static void main(final String... args) throws Exception {
+        final int iterations = intArgument(args, 0, 10000);
+        final Map<String, Object> data = readReplicaClaim();
+        System.out.println("session attributes: " + data.size());
+        final String legacyPayload = legacyEncode(data);
+        measure("xstream (new per call) encode, chars", iterations, "call", count -> {
+            long length = 0;
+            for (int index = 0; index < count; index++) {
+                length += legacyEncode(data).length();
+            }
+            return length;
+        });
+        measure("xstream (new per call) decode, values", iterations, "call", count -> {
+            long values = 0;
+            for (int index = 0; index < count; index++) {
+                values += ((Map<?, ?>)createXStream().fromXML(new String(DatatypeConverter.parseBase64Binary(legacyPayload)))).size();
+            }
+            return values;
+        });
+        run("xstream (shared)", new XStreamSessionCodec(), data, iterations);
+        run("binary", new BinarySessionCodec(), data, iterations);
+    }
+}
@@ -0,0 +1,124 @@
+package uk.gov.dwp.carersallowance.sessiondata;
+
+import com.sun.management.GarbageCollectionNotificationInfo;
+import gov.dwp.carers.monitor.Counters;
+import org.springframework.boot.actuate.metrics.GaugeService;
+
+import javax.management.NotificationEmitter;
+import javax.management.openmbean.CompositeData;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.withSettings;
+import static uk.gov.dwp.carersallowance.utils.BenchmarkUtils.intArgument;
+import static uk.gov.dwp.carersallowance.utils.BenchmarkUtils.readReplicaClaim;
+
+/**
+ * Compares GC behaviour of the in process session stores while holding many claims in progress: fills the store
+ * with copies of the replica claim, then loads, changes and saves random sessions. Reports the heap left after a
+ * full GC and the number, total and longest of the GC pauses seen during the churn, rather than the cost of each call.
+ *
+ * Run each store, map or offheap, in its own JVM with the same heap settings, e.g.
+ * gradle benchmark -Pbenchmark=sessiondata.SessionStoreGcBenchmark -PbenchmarkArgs="map 20000 200000" -PbenchmarkJvmArgs=-Xmx2g
+ */
+public class SessionStoreGcBenchmark {
+    private final Map<String, Object> claim;
+    private final int sessions;
+    private final int operations;
+    private final AtomicLong pauses = new AtomicLong();
+    private final AtomicLong pauseMillis = new AtomicLong();
+    private final AtomicLong longestPauseMillis = new AtomicLong();
+
+    public SessionStoreGcBenchmark(final int sessions, final int operations) throws Exception {
+        this.sessions = sessions;
+        this.operations = operations;
+        claim = readReplicaClaim();
+    }
+
+    private void listenForPauses() {
+        for (final GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            ((NotificationEmitter)gc).addNotificationListener((notification, handback) -> {
+                if (GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION.equals(notification.getType())) {
+                    final long duration = GarbageCollectionNotificationInfo.from((CompositeData)notification.getUserData()).getGcInfo().getDuration();
+                    pauses.incrementAndGet();
+                    pauseMillis.addAndGet(duration);
+                    longestPauseMillis.accumulateAndGet(duration, Math::max);
+                }
+            }, null, null);
+        }
+    }
+
+    private void run(final String name, final SessionDataService store) {
+        final long start = System.nanoTime();
+        for (int index = 0; index < sessions; index++) {
+            store.saveSessionData(new Session("session-" + index, copy(claim)));
+        }
+        final long fillMillis = (System.nanoTime() - start) / 1000000;
+        System.gc();
+        final long heapAfterFill = usedHeap();
+
+        listenForPauses();
+        final Random random = new Random(42);
+        final long churnStart = System.nanoTime();
+        for (int operation = 0; operation < operations; operation++) {
+            final Session session = store.getSessionData("session-" + random.nextInt(sessions));
+            session.setAttribute("carerSurname", "Bloggs" + operation);
+            store.saveSessionData(session);
+        }
+        final long churnMillis = (System.nanoTime() - churnStart) / 1000000;
+
+        System.out.println(String.format("%-8s %6d sessions  fill %6d ms  heap after full GC %6d MB  churn %7d ops %6d ms  GC pauses %5d total %6d ms longest %5d ms",
+                name, sessions, fillMillis, heapAfterFill / (1024 * 1024), operations, churnMillis, pauses.get(), pauseMillis.get(), longestPauseMillis.get()));
+    }
+
+    /**
+     * Each session gets its own strings, as it would when they arrive in separate requests.
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> T copy(final T value) {
+        if (value instanceof String) {
+            return (T)new String((String)value);
+        }
+        if (value instanceof String[]) {
+            final String[] copy = ((String[])value).clone();
+            Arrays.setAll(copy, index -> copy(copy[index]));
+            return (T)copy;
+        }
+        if (value instanceof List) {
+            final List<Object> copy = new ArrayList<>();
+            ((List<Object>)value).forEach(item -> copy.add(copy(item)));
+            return (T)copy;
+        }
+        if (value instanceof Map) {
+            final Map<Object, Object> copy = new HashMap<>();
+            ((Map<Object, Object>)value).forEach((key, item) -> copy.put(copy(key), copy(item)));
+            return (T)copy;
+        }
+        return value;
+    }
+
+    private static long usedHeap() {
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    public static void main(final String... args) throws Exception {
+        final String store = args.length > 0 ? args[0] : "offheap";
+        final SessionStoreGcBenchmark benchmark = new SessionStoreGcBenchmark(intArgument(args, 1, 20000), intArgument(args, 2, 200000));
+        final Counters counters = mock(Counters.class, withSettings().stubOnly());
+        final GaugeService gaugeService = mock(GaugeService.class, withSettings().stubOnly());
+        if ("map".equals(store)) {
+            benchmark.run(store, new SessionDataMapServiceImpl(90, Long.MAX_VALUE, counters, gaugeService));
+        } else {
+            final SessionCodecFactory sessionCodecFactory = new SessionCodecFactory(SessionCodecFactory.BINARY, new XStreamSessionCodec(), new BinarySessionCodec());
+            benchmark.run(store, new SessionDataOffHeapServiceImpl(90, 4L * 1024 * 1024 * 1024, 16 * 1024 * 1024, sessionCodecFactory, counters, gaugeService));
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package uk.gov.dwp.carersallowance.transformations;
+
+import org.springframework.context.MessageSource;
+import org.springframework.context.support.ReloadableResourceBundleMessageSource;
+
+import static uk.gov.dwp.carersallowance.utils.BenchmarkUtils.intArgument;
+import static uk.gov.dwp.carersallowance.utils.BenchmarkUtils.measure;
+
+/**
+ * Measures the CPU time and heap taken by each getTransformedValue call for the session and validation
+ * transformations of a field that has two, one or no transformations, using the message source configured as in
+ * WebConfig.
+ *
+ * gradle benchmark -Pbenchmark=transformations.TransformationManagerBenchmark -PbenchmarkArgs=[calls]
+ */
+public class TransformationManagerBenchmark {
+    private static final String[] KEY_FORMATS = {"%s.transformations", "%s.validation.transformations"};
+    private static final String[] FIELDS = {"carerNationalInsuranceNumber", "carerPostcode", "carerFirstName"};
+    private static final String[] VALUES = {"AB 12 34 56 C", "ab1 2cd", "JOE"};
+
+    public static void main(final String[] args) throws Exception {
+        final int calls = intArgument(args, 0, 200000);
+        final ReloadableResourceBundleMessageSource reloadableMessageSource = new ReloadableResourceBundleMessageSource();
+        reloadableMessageSource.setBasenames("classpath:messages");
+        reloadableMessageSource.setCacheSeconds(10);
+        reloadableMessageSource.setDefaultEncoding("UTF-8");
+        final MessageSource messageSource = reloadableMessageSource;
+        final TransformationManager transformationManager = new TransformationManager(messageSource);
+        for (final String keyFormat : KEY_FORMATS) {
+            for (int field = 0; field < FIELDS.length; field++) {
+                final String name = FIELDS[field];
+                final String value = VALUES[field];
+                measure(String.format(keyFormat, name) + ", chars", calls, "call", iterations -> {
+                    long length = 0;
+                    for (int call = 0; call < iterations; call++) {
+                        length += ((String)transformationManager.getTransformedValue(name, value, keyFormat, messageSource)).length();
+                    }
+                    return length;
+                });
+            }
+        }
+    }
+}
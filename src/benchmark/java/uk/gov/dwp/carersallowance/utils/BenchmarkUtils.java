@@ -0,0 +1,55 @@
+package uk.gov.dwp.carersallowance.utils;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+
+/**
+ * Shared by the benchmarks: runs an operation once to warm up, then again while measuring the CPU time and the heap
+ * allocated by the current thread, and prints both per call with the results the operation counted, which are used so
+ * that its work is not optimised away.
+ *
+ * gradle benchmark -Pbenchmark=xml.XmlReaderBenchmark -PbenchmarkArgs=2000
+ */
+public final class BenchmarkUtils {
+    private static final com.sun.management.ThreadMXBean THREAD_MX_BEAN = (com.sun.management.ThreadMXBean)ManagementFactory.getThreadMXBean();
+
+    public interface Operation {
+        /**
+         * @return a count of the results, e.g. the values read
+         */
+        long run(int iterations) throws Exception;
+    }
+
+    private BenchmarkUtils() {
+    }
+
+    public static int intArgument(final String[] args, final int index, final int defaultValue) {
+        return args.length > index ? Integer.parseInt(args[index]) : defaultValue;
+    }
+
+    public static void measure(final String name, final int iterations, final String unit, final Operation operation) throws Exception {
+        measure(name, iterations, iterations, unit, operation);
+    }
+
+    /**
+     * @param calls the number of calls made by the given iterations, e.g. a lookup of every key in each iteration
+     */
+    public static void measure(final String name, final int iterations, final long calls, final String unit, final Operation operation) throws Exception {
+        operation.run(iterations);
+        final long threadId = Thread.currentThread().getId();
+        final long allocatedBefore = THREAD_MX_BEAN.getThreadAllocatedBytes(threadId);
+        final long cpuBefore = THREAD_MX_BEAN.getCurrentThreadCpuTime();
+        final long results = operation.run(iterations);
+        final long cpu = THREAD_MX_BEAN.getCurrentThreadCpuTime() - cpuBefore;
+        final long allocated = THREAD_MX_BEAN.getThreadAllocatedBytes(threadId) - allocatedBefore;
+        System.out.println(String.format("%-40s %12.1f ns cpu/%s %10d bytes/%s %10.1f results/%s",
+                name, (double)cpu / calls, unit, allocated / calls, unit, (double)results / calls, unit));
+    }
+
+    /**
+     * @return the session values of ReplicaDefaultClaim.xml, the fully populated claim
+     */
+    public static Map<String, Object> readReplicaClaim() throws Exception {
+        return ClaimTestUtils.readReplicaClaim();
+    }
+}
@@ -0,0 +1,85 @@
+package uk.gov.dwp.carersallowance.validations;
+
+import org.springframework.context.MessageSource;
+import uk.gov.dwp.carersallowance.controller.PageOrder;
+import uk.gov.dwp.carersallowance.session.FieldCollection;
+import uk.gov.dwp.carersallowance.sessiondata.Session;
+import uk.gov.dwp.carersallowance.sessiondata.SessionFieldValues;
+import uk.gov.dwp.carersallowance.utils.MessageSourceTestUtils;
+
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static uk.gov.dwp.carersallowance.utils.BenchmarkUtils.intArgument;
+import static uk.gov.dwp.carersallowance.utils.BenchmarkUtils.measure;
+import static uk.gov.dwp.carersallowance.utils.BenchmarkUtils.readReplicaClaim;
+
+/**
+ * Times the claim form's dependency checks against the fully populated replica claim: every field of every page
+ * against the page's validation dependencies, as when the page is posted, and every page against the page
+ * dependencies, as during navigation. The page's fields are checked one at a time, or through one evaluation per
+ * page as FormValidations does.
+ *
+ * gradle benchmark -Pbenchmark=validations.DependenciesBenchmark -PbenchmarkArgs=[iterations]
+ */
+public class DependenciesBenchmark {
+    private final List<Dependencies> pageDependencies = new ArrayList<>();
+    private final List<List<String>> pageFields = new ArrayList<>();
+    private final Dependencies navigationDependencies;
+    private final List<String> pages;
+    private final Map<String, String[]> fieldValues;
+    private int checksPerIteration;
+
+    public DependenciesBenchmark() throws Exception {
+        final MessageSource messageSource = MessageSourceTestUtils.loadMessageSource("messages.properties");
+        pages = new PageOrder(messageSource, "claim").getAllPages();
+        for (final String page : pages) {
+            final String[] fields = FieldCollection.getFields(messageSource, page);
+            if (fields != null) {
+                try {
+                    pageDependencies.add(new Dependencies(messageSource, "%s.validation.dependency", Arrays.asList(fields), Arrays.asList(fields)));
+                    pageFields.add(Arrays.asList(fields));
+                    checksPerIteration += fields.length;
+                } catch (ParseException e) {
+                    System.out.println("Skipping " + page + ", " + e.getMessage());
+                }
+            }
+        }
+        checksPerIteration += pages.size();
+        navigationDependencies = new Dependencies(messageSource, "%s.dependency", pages, null);
+        fieldValues = new SessionFieldValues(new Session("benchmark", readReplicaClaim()));
+    }
+
+    private long check(final int iterations, final boolean perPage) {
+        long fulfilled = 0;
+        for (int iteration = 0; iteration < iterations; iteration++) {
+            for (int page = 0; page < pageDependencies.size(); page++) {
+                final Dependencies dependencies = pageDependencies.get(page);
+                final Dependencies.Evaluation evaluation = perPage ? dependencies.evaluate(fieldValues) : null;
+                for (final String field : pageFields.get(page)) {
+                    if (perPage ? evaluation.areDependenciesFulfilled(field) : dependencies.areDependenciesFulfilled(field, fieldValues)) {
+                        fulfilled++;
+                    }
+                }
+            }
+            for (final String page : pages) {
+                if (navigationDependencies.areDependenciesFulfilled(page, fieldValues)) {
+                    fulfilled++;
+                }
+            }
+        }
+        return fulfilled;
+    }
+
+    public static void main(final String[] args) throws Exception {
+        final int iterations = intArgument(args, 0, 5000);
+        final DependenciesBenchmark benchmark = new DependenciesBenchmark();
+        System.out.println(benchmark.pageDependencies.size() + " pages, " + benchmark.checksPerIteration + " checks");
+        final long checks = (long)iterations * benchmark.checksPerIteration;
+        measure("per-field, fulfilled", iterations, checks, "check", count -> benchmark.check(count, false));
+        measure("per-page, fulfilled", iterations, checks, "check", count -> benchmark.check(count, true));
+    }
+}
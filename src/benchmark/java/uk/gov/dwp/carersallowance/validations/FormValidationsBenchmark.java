@@ -0,0 +1,86 @@
+package uk.gov.dwp.carersallowance.validations;
+
+import org.springframework.context.MessageSource;
+import org.springframework.context.support.ReloadableResourceBundleMessageSource;
+import uk.gov.dwp.carersallowance.controller.PageOrder;
+import uk.gov.dwp.carersallowance.session.FieldCollection;
+import uk.gov.dwp.carersallowance.transformations.TransformationManager;
+import uk.gov.dwp.carersallowance.utils.FunctionsTestUtils;
+
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static uk.gov.dwp.carersallowance.utils.BenchmarkUtils.intArgument;
+import static uk.gov.dwp.carersallowance.utils.BenchmarkUtils.measure;
+
+/**
+ * Compares the cost of validating a POST when the page's FormValidations are built for every request with looking
+ * them up in the FormValidationsRegistry. Posts every page of the claim that compiles in turn, with a few values filled in, using
+ * the message source configured as in WebConfig.
+ *
+ * gradle benchmark -Pbenchmark=validations.FormValidationsBenchmark -PbenchmarkArgs=[posts]
+ */
+public class FormValidationsBenchmark {
+    private final MessageSource messageSource;
+    private final List<String> pages;
+    private final FormValidationsRegistry registry;
+    private final TransformationManager transformationManager;
+    private final Map<String, String[]> values;
+
+    public FormValidationsBenchmark() throws Exception {
+        final ReloadableResourceBundleMessageSource reloadableMessageSource = new ReloadableResourceBundleMessageSource();
+        reloadableMessageSource.setBasenames("classpath:messages");
+        reloadableMessageSource.setCacheSeconds(10);
+        reloadableMessageSource.setDefaultEncoding("UTF-8");
+        messageSource = reloadableMessageSource;
+        transformationManager = new TransformationManager(messageSource);
+        FunctionsTestUtils.initFunctions(messageSource);
+        final PageOrder pageOrder = new PageOrder(messageSource, "claim");
+        pages = new ArrayList<>();
+        for (final String page : pageOrder.getAllPages()) {
+            final String[] fields = FieldCollection.getFields(messageSource, page);
+            try {
+                if (fields != null) {
+                    new FormValidations(messageSource, page, fields);
+                    pages.add(page);
+                }
+            } catch (ParseException e) {
+                System.out.println("Skipping " + page + ", " + e.getMessage());
+            }
+        }
+        registry = new FormValidationsRegistry(messageSource, pageOrder);
+        registry.compileAll();
+        values = new HashMap<>();
+        values.put("carerFirstName", new String[]{"Joe"});
+        values.put("carerSurname", new String[]{"Bloggs"});
+        values.put("carerDateOfBirth_day", new String[]{"1"});
+        values.put("carerDateOfBirth_month", new String[]{"1"});
+        values.put("carerDateOfBirth_year", new String[]{"1970"});
+    }
+
+    private long post(final int posts, final boolean compiled) throws Exception {
+        long errors = 0;
+        for (int post = 0; post < posts; post++) {
+            final String page = pages.get(post % pages.size());
+            final String[] fields = FieldCollection.getFields(messageSource, page);
+            final Map<String, String[]> request = new HashMap<>(values);
+            for (final String field : fields) {
+                request.putIfAbsent(field, new String[]{""});
+            }
+            final FormValidations validations = compiled ? registry.getFormValidations(page, fields) : new FormValidations(messageSource, page, fields);
+            errors += validations.validate(new ValidationSummary(), messageSource, transformationManager, request, new HashMap<>()).getFormErrors().size();
+        }
+        return errors;
+    }
+
+    public static void main(final String[] args) throws Exception {
+        final int posts = intArgument(args, 0, 20000);
+        final FormValidationsBenchmark benchmark = new FormValidationsBenchmark();
+        System.out.println(benchmark.pages.size() + " pages, " + benchmark.registry.size() + " compiled");
+        measure("per-post, errors", posts, "post", count -> benchmark.post(count, false));
+        measure("registry, errors", posts, "post", count -> benchmark.post(count, true));
+    }
+}
@@ -0,0 +1,102 @@
+package uk.gov.dwp.carersallowance.xml;
+
+import org.w3c.dom.Document;
+import org.xml.sax.InputSource;
+import uk.gov.dwp.carersallowance.configuration.MessageCatalog;
+import uk.gov.dwp.carersallowance.utils.xml.CompactXmlWriter;
+import uk.gov.dwp.carersallowance.utils.xml.XmlPrettyPrinter;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.stream.StreamResult;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.Map;
+
+import static uk.gov.dwp.carersallowance.utils.BenchmarkUtils.intArgument;
+import static uk.gov.dwp.carersallowance.utils.BenchmarkUtils.measure;
+import static uk.gov.dwp.carersallowance.utils.BenchmarkUtils.readReplicaClaim;
+
+/**
+ * Measures the CPU time and heap allocated to build the xml of the replica claim as a document and write it with
+ * the LSSerializer or the CompactXmlWriter, and the heap held by a claim's document and xml while it is submitted.
+ * The last two compare preparing a claim for signing as it was, written out, stripped of comments, parsed again and
+ * transformed with a new Transformer, with the ClaimSigningPipeline's normalise and transform of the built document
+ * with a Transformer that is kept; the JDK stands in for XMLMessageHelper.
+ *
+ * gradle benchmark -Pbenchmark=xml.ClaimXmlBenchmark -PbenchmarkArgs=[claims]
+ */
+public class ClaimXmlBenchmark {
+    private static final int HELD = 200;
+
+    private final MemoryMXBean memoryMXBean = ManagementFactory.getMemoryMXBean();
+    private final XmlClaimBuilder xmlBuilder;
+    private final Map<String, Object> values;
+
+    private interface Stage {
+        Object run(Document document) throws Exception;
+    }
+
+    public ClaimXmlBenchmark() throws Exception {
+        xmlBuilder = new XmlClaimBuilder("DWPBody", new MessageCatalog("classpath:messages"), new ServerSideResolveArgs(), new MappingRegistry("xml.mapping.claim"), 65);
+        values = readReplicaClaim();
+    }
+
+    private static String transform(final Transformer transformer, final Document document) throws Exception {
+        document.normalizeDocument();
+        final StringWriter writer = new StringWriter();
+        transformer.transform(new DOMSource(document), new StreamResult(writer));
+        return writer.toString();
+    }
+
+    private static String parseAndTransform(final Document built) throws Exception {
+        final String xml = XmlPrettyPrinter.xmlToString(built, false, true).replaceAll("<!--[\\s\\S]*?-->", "");
+        final DocumentBuilderFactory documentBuilderFactory = DocumentBuilderFactory.newInstance();
+        documentBuilderFactory.setNamespaceAware(true);
+        final Document parsed = documentBuilderFactory.newDocumentBuilder().parse(new InputSource(new StringReader(xml)));
+        return transform(TransformerFactory.newInstance().newTransformer(), parsed);
+    }
+
+    private long heldPerClaim(final Stage stage) throws Exception {
+        final Object[] held = new Object[HELD * 2];
+        System.gc();
+        final long before = memoryMXBean.getHeapMemoryUsage().getUsed();
+        for (int count = 0; count < HELD; count++) {
+            held[count * 2] = xmlBuilder.buildDocument(values);
+            held[count * 2 + 1] = stage.run((Document)held[count * 2]);
+        }
+        System.gc();
+        final long after = memoryMXBean.getHeapMemoryUsage().getUsed();
+        return held.length > 0 ? (after - before) / HELD : 0;
+    }
+
+    private void run(final String name, final Stage stage, final int claims) throws Exception {
+        measure(name + ", chars", claims, "claim", iterations -> {
+            long length = 0;
+            for (int count = 0; count < iterations; count++) {
+                final Object xml = stage.run(xmlBuilder.buildDocument(values));
+                length += xml == null ? 0 : xml.toString().length();
+            }
+            return length;
+        });
+        System.out.println(String.format("%-40s %10d bytes held/claim", name, heldPerClaim(stage)));
+    }
+
+    public static void main(final String[] args) throws Exception {
+        final int claims = intArgument(args, 0, 2000);
+        final ClaimXmlBenchmark benchmark = new ClaimXmlBenchmark();
+        benchmark.run("build document", document -> null, claims);
+        benchmark.run("build, LSSerializer", document -> XmlPrettyPrinter.xmlToString(document, false, true), claims);
+        benchmark.run("build, CompactXmlWriter", document -> CompactXmlWriter.xmlToString(document, true), claims);
+        benchmark.run("build, write, parse, transform", ClaimXmlBenchmark::parseAndTransform, claims);
+        final Transformer transformer = TransformerFactory.newInstance().newTransformer();
+        benchmark.run("build, transform", document -> {
+            document.getDomConfig().setParameter("namespaces", Boolean.FALSE);
+            return transform(transformer, document);
+        }, claims);
+    }
+}
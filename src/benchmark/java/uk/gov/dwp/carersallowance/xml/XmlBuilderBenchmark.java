@@ -0,0 +1,62 @@
+package uk.gov.dwp.carersallowance.xml;
+
+import uk.gov.dwp.carersallowance.configuration.MessageCatalog;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static uk.gov.dwp.carersallowance.utils.BenchmarkUtils.intArgument;
+import static uk.gov.dwp.carersallowance.utils.BenchmarkUtils.measure;
+import static uk.gov.dwp.carersallowance.utils.BenchmarkUtils.readReplicaClaim;
+
+/**
+ * Measures the CPU time taken and the heap allocated by XmlClaimBuilder to build the document of the replica claim,
+ * and of a maximal claim with as many breaks in care and jobs as the claim allows.
+ *
+ * gradle benchmark -Pbenchmark=xml.XmlBuilderBenchmark -PbenchmarkArgs=[claims]
+ */
+public class XmlBuilderBenchmark {
+    private static final int MAXIMUM_ENTRIES = 10;
+
+    private final XmlClaimBuilder xmlBuilder;
+    private final Map<String, Object> replica;
+    private final Map<String, Object> maximal;
+
+    public XmlBuilderBenchmark() throws Exception {
+        xmlBuilder = new XmlClaimBuilder("DWPBody", new MessageCatalog("classpath:messages"), new ServerSideResolveArgs(), new MappingRegistry("xml.mapping.claim"), 65);
+        replica = readReplicaClaim();
+        maximal = new HashMap<>(replica);
+        for (final Map.Entry<String, Object> entry : maximal.entrySet()) {
+            if (entry.getValue() instanceof List) {
+                entry.setValue(fill((List<?>)entry.getValue()));
+            }
+        }
+    }
+
+    private static List<Object> fill(final List<?> entries) {
+        final List<Object> filled = new ArrayList<>();
+        while (filled.size() < MAXIMUM_ENTRIES) {
+            filled.addAll(entries);
+        }
+        return filled;
+    }
+
+    private void run(final String name, final Map<String, Object> values, final int claims) throws Exception {
+        measure(name, claims, "claim", iterations -> {
+            long elements = 0;
+            for (int count = 0; count < iterations; count++) {
+                elements += xmlBuilder.buildDocument(values).getElementsByTagName("*").getLength();
+            }
+            return elements;
+        });
+    }
+
+    public static void main(final String[] args) throws Exception {
+        final int claims = intArgument(args, 0, 2000);
+        final XmlBuilderBenchmark benchmark = new XmlBuilderBenchmark();
+        benchmark.run("replica claim, elements", benchmark.replica, claims);
+        benchmark.run("maximal claim, elements", benchmark.maximal, claims);
+    }
+}
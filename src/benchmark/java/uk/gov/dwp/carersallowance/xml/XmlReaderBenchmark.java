@@ -0,0 +1,24 @@
+package uk.gov.dwp.carersallowance.xml;
+
+import static uk.gov.dwp.carersallowance.utils.BenchmarkUtils.intArgument;
+import static uk.gov.dwp.carersallowance.utils.BenchmarkUtils.measure;
+
+/**
+ * Measures the CPU time taken and the heap allocated by XmlClaimReader to read ReplicaDefaultClaim.xml into session
+ * values, including reading and parsing the file.
+ *
+ * gradle benchmark -Pbenchmark=xml.XmlReaderBenchmark -PbenchmarkArgs=[claims]
+ */
+public class XmlReaderBenchmark {
+    public static void main(final String[] args) throws Exception {
+        final int claims = intArgument(args, 0, 2000);
+        final MappingRegistry mappingRegistry = new MappingRegistry("xml.mapping.claim");
+        measure("replica claim, values", claims, "claim", iterations -> {
+            long values = 0;
+            for (int count = 0; count < iterations; count++) {
+                values += new XmlClaimReader("ReplicaDefaultClaim.xml", true, mappingRegistry).getValues().size();
+            }
+            return values;
+        });
+    }
+}
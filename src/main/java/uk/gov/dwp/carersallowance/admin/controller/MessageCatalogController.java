@@ -0,0 +1,53 @@
+package uk.gov.dwp.carersallowance.admin.controller;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RestController;
+import uk.gov.dwp.carersallowance.configuration.MessageCatalog;
+
+import javax.inject.Inject;
+import java.io.IOException;
+
+/**
+ * Reads the messages again after they have been edited, only when messages.reload.enabled is set. The MessageCatalog
+ * rebuilds everything built from the messages in the same reload, and if any of it cannot be rebuilt the reload fails
+ * without changing anything.
+ */
+@RestController
+public class MessageCatalogController {
+    private static final Logger LOG = LoggerFactory.getLogger(MessageCatalogController.class);
+
+    public static final String RELOAD_PAGE = "/admin-interface/messages/reload";
+
+    private final MessageCatalog messageCatalog;
+    private final boolean reloadEnabled;
+
+    @Inject
+    public MessageCatalogController(final MessageCatalog messageCatalog,
+                                    final @Value("${messages.reload.enabled}") boolean reloadEnabled) {
+        this.messageCatalog = messageCatalog;
+        this.reloadEnabled = reloadEnabled;
+    }
+
+    @RequestMapping(value = RELOAD_PAGE, method = RequestMethod.POST)
+    public ResponseEntity<String> reload() {
+        if (reloadEnabled == false) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+        LOG.info("STARTED {} MessageCatalogController.reload", RELOAD_PAGE);
+        try {
+            final int messages = messageCatalog.reload();
+            return new ResponseEntity<>("Reloaded " + messages + " messages", HttpStatus.OK);
+        } catch (IOException | RuntimeException e) {
+            LOG.error("Unable to reload the messages, the current messages and everything built from them are kept.", e);
+            return new ResponseEntity<>("Unable to reload the messages: " + e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
+        } finally {
+            LOG.info("ENDED {} MessageCatalogController.reload", RELOAD_PAGE);
+        }
+    }
+}
@@ -8,8 +8,8 @@ import javax.servlet.http.HttpSession;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.MessageSource;
 import org.springframework.context.NoSuchMessageException;
-import org.springframework.context.support.ReloadableResourceBundleMessageSource;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.util.StringUtils;
@@ -25,10 +25,10 @@ public class TextEditTagController {
 
     private static final String CURRENT_PAGE  = "/admin-interface/textedit.tag";
 
-    private ReloadableResourceBundleMessageSource messageSource;
+    private MessageSource messageSource;
 
     @Autowired
-    public TextEditTagController(ReloadableResourceBundleMessageSource messageSource) {
+    public TextEditTagController(MessageSource messageSource) {
         this.messageSource = messageSource;
     }
 
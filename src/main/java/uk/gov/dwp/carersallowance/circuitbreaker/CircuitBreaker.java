@@ -0,0 +1,161 @@
+package uk.gov.dwp.carersallowance.circuitbreaker;
+
+import gov.dwp.carers.monitor.Counters;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.actuate.metrics.GaugeService;
+import org.springframework.web.client.HttpClientErrorException;
+
+import java.time.Clock;
+import java.util.concurrent.Semaphore;
+import java.util.function.Supplier;
+
+/**
+ * Guards the calls to one downstream service so that when it slows down or fails the request threads do not all
+ * pile up waiting on it.
+ *
+ * The bulkhead allows at most maxConcurrentCalls calls in flight, further calls are rejected straight away. After
+ * failureThreshold consecutive failures the breaker opens and rejects every call for openMillis, then lets a single
+ * probe call through: the breaker closes if it succeeds and opens again if it fails. A 4xx response means the
+ * service is up and does not count as a failure, an Error does. Rejections throw CircuitBreakerRejectedException.
+ *
+ * Reports gauges circuit.{name}.state (0 closed, 1 half open, 2 open) and circuit.{name}.in.flight, and counts
+ * circuit-{name}-opened, circuit-{name}-rejected and circuit-{name}-bulkhead-full.
+ */
+public class CircuitBreaker {
+    private static final Logger LOG = LoggerFactory.getLogger(CircuitBreaker.class);
+
+    public enum State {
+        CLOSED, HALF_OPEN, OPEN
+    }
+
+    private final String name;
+    private final int maxConcurrentCalls;
+    private final int failureThreshold;
+    private final long openMillis;
+    private final GaugeService gaugeService;
+    private final Counters counters;
+    private final Clock clock;
+    private final Semaphore bulkhead;
+    private State state;
+    private int failures;
+    private long openedAt;
+    private boolean probing;
+
+    public CircuitBreaker(final String name, final int maxConcurrentCalls, final int failureThreshold, final long openMillis,
+                          final GaugeService gaugeService, final Counters counters) {
+        this(name, maxConcurrentCalls, failureThreshold, openMillis, gaugeService, counters, Clock.systemUTC());
+    }
+
+    CircuitBreaker(final String name, final int maxConcurrentCalls, final int failureThreshold, final long openMillis,
+                   final GaugeService gaugeService, final Counters counters, final Clock clock) {
+        this.name = name;
+        this.maxConcurrentCalls = maxConcurrentCalls;
+        this.failureThreshold = failureThreshold;
+        this.openMillis = openMillis;
+        this.gaugeService = gaugeService;
+        this.counters = counters;
+        this.clock = clock;
+        this.bulkhead = new Semaphore(maxConcurrentCalls);
+        this.state = State.CLOSED;
+    }
+
+    public <T> T execute(final Supplier<T> call) {
+        final boolean probe = acquirePermission();
+        if (bulkhead.tryAcquire() == false) {
+            if (probe) {
+                endProbe();
+            }
+            counters.incrementMetric("circuit-" + name + "-bulkhead-full");
+            throw new CircuitBreakerRejectedException(name + " bulkhead full, " + maxConcurrentCalls + " calls in flight.");
+        }
+        gaugeService.submit("circuit." + name + ".in.flight", maxConcurrentCalls - bulkhead.availablePermits());
+        try {
+            final T result = call.get();
+            onSuccess(probe);
+            return result;
+        } catch (HttpClientErrorException hcee) {
+            onSuccess(probe);
+            throw hcee;
+        } catch (RuntimeException | Error e) {
+            onFailure(probe);
+            throw e;
+        } finally {
+            bulkhead.release();
+        }
+    }
+
+    public synchronized State getState() {
+        if (state == State.OPEN && clock.millis() - openedAt >= openMillis) {
+            return State.HALF_OPEN;
+        }
+        return state;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return true if this call is the half open probe
+     */
+    private synchronized boolean acquirePermission() {
+        if (state == State.OPEN) {
+            if (clock.millis() - openedAt < openMillis) {
+                counters.incrementMetric("circuit-" + name + "-rejected");
+                throw new CircuitBreakerRejectedException(name + " circuit breaker is open.");
+            }
+            transition(State.HALF_OPEN);
+        }
+        if (state == State.HALF_OPEN) {
+            if (probing) {
+                counters.incrementMetric("circuit-" + name + "-rejected");
+                throw new CircuitBreakerRejectedException(name + " circuit breaker is half open, waiting on the probe call.");
+            }
+            probing = true;
+            return true;
+        }
+        return false;
+    }
+
+    private synchronized void endProbe() {
+        probing = false;
+    }
+
+    private synchronized void onSuccess(final boolean probe) {
+        if (probe) {
+            probing = false;
+            transition(State.CLOSED);
+        }
+        if (state == State.CLOSED) {
+            failures = 0;
+        }
+    }
+
+    /**
+     * Calls started before the breaker opened that fail afterwards do not extend the open period.
+     */
+    private synchronized void onFailure(final boolean probe) {
+        if (probe) {
+            probing = false;
+            open();
+        } else if (state == State.CLOSED && ++failures >= failureThreshold) {
+            open();
+        }
+    }
+
+    private void open() {
+        openedAt = clock.millis();
+        counters.incrementMetric("circuit-" + name + "-opened");
+        transition(State.OPEN);
+    }
+
+    private void transition(final State to) {
+        if (state != to) {
+            LOG.warn("{} circuit breaker {} -> {}.", name, state, to);
+            state = to;
+            failures = 0;
+            gaugeService.submit("circuit." + name + ".state", to.ordinal());
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package uk.gov.dwp.carersallowance.circuitbreaker;
+
+import gov.dwp.exceptions.DwpRuntimeException;
+
+/**
+ * Thrown instead of calling the downstream service while its circuit breaker is open or its bulkhead is full.
+ */
+public class CircuitBreakerRejectedException extends DwpRuntimeException {
+    private static final long serialVersionUID = 2783410356921784377L;
+
+    public CircuitBreakerRejectedException(final String message) {
+        super(message);
+    }
+}
@@ -1,14 +1,27 @@
 package uk.gov.dwp.carersallowance.configuration;
 
+import gov.dwp.carers.monitor.Counters;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.HttpClients;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.metrics.GaugeService;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.client.ClientHttpRequestFactory;
 import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.web.client.RestTemplate;
+import uk.gov.dwp.carersallowance.circuitbreaker.CircuitBreaker;
+
+import javax.inject.Named;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Created by peterwhitehead on 30/06/2016.
+ *
+ * The session data service and claim received each get their own connection pool and circuit breaker, so a slow
+ * claim submission cannot starve session loads of connections.
  */
 @Configuration
 public class C3Configuration {
@@ -16,16 +29,82 @@ public class C3Configuration {
     private Integer readTimeout;
     @Value("${rest-connection-timeout}")
     private Integer connectionTimeout;
+    @Value("${rest-lease-timeout}")
+    private Integer leaseTimeout;
+    @Value("${rest-idle-timeout}")
+    private Integer idleTimeout;
+    @Value("${rest-keep-alive}")
+    private Integer keepAlive;
+    @Value("${sd.max.connections}")
+    private Integer sessionDataMaxConnections;
+    @Value("${cr.max.connections}")
+    private Integer claimReceivedMaxConnections;
+    @Value("${sd.max.concurrent.calls}")
+    private Integer sessionDataMaxConcurrentCalls;
+    @Value("${cr.max.concurrent.calls}")
+    private Integer claimReceivedMaxConcurrentCalls;
+    @Value("${circuit-failure-threshold}")
+    private Integer circuitFailureThreshold;
+    @Value("${circuit-open-timeout}")
+    private Long circuitOpenTimeout;
+
+    @Bean(destroyMethod = "close")
+    public CloseableHttpClient sessionDataHttpClient(final GaugeService gaugeService, final Counters counters) {
+        return httpClient(new InstrumentedConnectionManager("sd", sessionDataMaxConnections, gaugeService, counters));
+    }
+
+    @Bean(destroyMethod = "close")
+    public CloseableHttpClient claimReceivedHttpClient(final GaugeService gaugeService, final Counters counters) {
+        return httpClient(new InstrumentedConnectionManager("cr", claimReceivedMaxConnections, gaugeService, counters));
+    }
+
+    @Bean
+    public RestTemplate sessionDataRestTemplate(final @Named("sessionDataHttpClient") CloseableHttpClient httpClient) {
+        return new RestTemplate(clientHttpRequestFactory(httpClient));
+    }
+
+    @Bean
+    public RestTemplate claimReceivedRestTemplate(final @Named("claimReceivedHttpClient") CloseableHttpClient httpClient) {
+        return new RestTemplate(clientHttpRequestFactory(httpClient));
+    }
+
+    @Bean
+    public CircuitBreaker sessionDataCircuitBreaker(final GaugeService gaugeService, final Counters counters) {
+        return new CircuitBreaker("sd", sessionDataMaxConcurrentCalls, circuitFailureThreshold, circuitOpenTimeout, gaugeService, counters);
+    }
 
     @Bean
-    public RestTemplate restTemplate() {
-        return new RestTemplate(clientHttpRequestFactory());
+    public CircuitBreaker claimReceivedCircuitBreaker(final GaugeService gaugeService, final Counters counters) {
+        return new CircuitBreaker("cr", claimReceivedMaxConcurrentCalls, circuitFailureThreshold, circuitOpenTimeout, gaugeService, counters);
+    }
+
+    /**
+     * Idle connections are closed by a background thread rather than found stale on the next request.
+     */
+    private CloseableHttpClient httpClient(final InstrumentedConnectionManager connectionManager) {
+        return HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setKeepAliveStrategy(keepAliveStrategy())
+                .evictExpiredConnections()
+                .evictIdleConnections((long)idleTimeout, TimeUnit.MILLISECONDS)
+                .build();
+    }
+
+    /**
+     * Keeps connections for as long as the server allows, but no longer than rest-keep-alive when it does not say.
+     */
+    private ConnectionKeepAliveStrategy keepAliveStrategy() {
+        return (response, context) -> {
+            final long serverKeepAlive = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+            return serverKeepAlive > 0 ? serverKeepAlive : keepAlive;
+        };
     }
 
-    private ClientHttpRequestFactory clientHttpRequestFactory() {
-        final HttpComponentsClientHttpRequestFactory factory = new HttpComponentsClientHttpRequestFactory();
+    private ClientHttpRequestFactory clientHttpRequestFactory(final CloseableHttpClient httpClient) {
+        final HttpComponentsClientHttpRequestFactory factory = new HttpComponentsClientHttpRequestFactory(httpClient);
         factory.setReadTimeout(readTimeout);
         factory.setConnectTimeout(connectionTimeout);
+        factory.setConnectionRequestTimeout(leaseTimeout);
         factory.setBufferRequestBody(false);
         return factory;
     }
@@ -0,0 +1,65 @@
+package uk.gov.dwp.carersallowance.configuration;
+
+import gov.dwp.carers.monitor.Counters;
+import org.apache.http.HttpClientConnection;
+import org.apache.http.conn.ConnectionPoolTimeoutException;
+import org.apache.http.conn.ConnectionRequest;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.pool.PoolStats;
+import org.springframework.boot.actuate.metrics.GaugeService;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Connection pool for one downstream service that reports how long each request waited to lease a connection and
+ * how busy the pool is, as gauges http.pool.{name}.lease.wait (ms), .leased, .available, .pending and .max, and
+ * counts leases that timed out waiting as http-pool-{name}-lease-timeout.
+ */
+public class InstrumentedConnectionManager extends PoolingHttpClientConnectionManager {
+    private final String name;
+    private final GaugeService gaugeService;
+    private final Counters counters;
+
+    public InstrumentedConnectionManager(final String name, final int maxConnections, final GaugeService gaugeService, final Counters counters) {
+        this.name = name;
+        this.gaugeService = gaugeService;
+        this.counters = counters;
+        setMaxTotal(maxConnections);
+        setDefaultMaxPerRoute(maxConnections);
+    }
+
+    @Override
+    public ConnectionRequest requestConnection(final HttpRoute route, final Object state) {
+        final ConnectionRequest request = super.requestConnection(route, state);
+        return new ConnectionRequest() {
+            @Override
+            public HttpClientConnection get(final long timeout, final TimeUnit tunit) throws InterruptedException, ExecutionException, ConnectionPoolTimeoutException {
+                final long start = System.nanoTime();
+                try {
+                    return request.get(timeout, tunit);
+                } catch (ConnectionPoolTimeoutException cpte) {
+                    counters.incrementMetric("http-pool-" + name + "-lease-timeout");
+                    throw cpte;
+                } finally {
+                    gaugeService.submit("http.pool." + name + ".lease.wait", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+                    submitPoolStats();
+                }
+            }
+
+            @Override
+            public boolean cancel() {
+                return request.cancel();
+            }
+        };
+    }
+
+    private void submitPoolStats() {
+        final PoolStats stats = getTotalStats();
+        gaugeService.submit("http.pool." + name + ".leased", stats.getLeased());
+        gaugeService.submit("http.pool." + name + ".available", stats.getAvailable());
+        gaugeService.submit("http.pool." + name + ".pending", stats.getPending());
+        gaugeService.submit("http.pool." + name + ".max", stats.getMax());
+    }
+}
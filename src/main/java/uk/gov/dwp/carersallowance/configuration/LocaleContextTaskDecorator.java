@@ -0,0 +1,27 @@
+package uk.gov.dwp.carersallowance.configuration;
+
+import org.springframework.context.i18n.LocaleContextHolder;
+import org.springframework.context.i18n.SimpleLocaleContext;
+import org.springframework.core.task.TaskDecorator;
+
+import java.util.Locale;
+
+/**
+ * Runs each task in the locale of the thread that submitted it, e.g. a claim sent in the background is built and
+ * emailed in the language the claimant used.
+ */
+public class LocaleContextTaskDecorator implements TaskDecorator {
+    @Override
+    public Runnable decorate(final Runnable runnable) {
+        // resolve it now, the request's own LocaleContext reads the request, which is recycled once it has completed
+        final Locale locale = LocaleContextHolder.getLocale();
+        return () -> {
+            LocaleContextHolder.setLocaleContext(new SimpleLocaleContext(locale));
+            try {
+                runnable.run();
+            } finally {
+                LocaleContextHolder.resetLocaleContext();
+            }
+        };
+    }
+}
@@ -0,0 +1,278 @@
+package uk.gov.dwp.carersallowance.configuration;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.support.AbstractMessageSource;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The messages, read once from the basename's properties files (UTF-8) into a table per supported locale, with the
+ * MessageFormat of each message compiled up front. A locale's table holds the messages of the basename_language_country,
+ * basename_language files, then those of the default locale, then the basename file, in the order that
+ * ReloadableResourceBundleMessageSource looks them up in.
+ *
+ * The locale comes from the request (the language parameter or cookie), so only the supported locales and the default
+ * locale have tables. Any other locale is looked up in its language's table, or else the default locale's, which gives
+ * the same messages as long as there are no files for it.
+ *
+ * The files are not checked for changes, reload() reads them again and replaces all the tables at once, so a lookup
+ * always sees either the old messages or the new ones. Anything built from the messages registers a ReloadListener
+ * to be rebuilt in the same reload: each is prepared from the new messages, which only the reloading thread sees,
+ * and only once they all have been are the new messages and everything built from them made current.
+ */
+public class MessageCatalog extends AbstractMessageSource {
+    private static final Logger LOG = LoggerFactory.getLogger(MessageCatalog.class);
+
+    public static final List<Locale> SUPPORTED_LOCALES = Collections.unmodifiableList(Arrays.asList(new Locale("en"), new Locale("cy")));
+
+    private final String basename;
+    private final ResourceLoader resourceLoader;
+    private final List<Locale> locales;
+    private final List<ReloadListener> reloadListeners = new CopyOnWriteArrayList<>();
+    private volatile Snapshot snapshot;
+    private volatile Thread reloadingThread;
+    private Snapshot reloading;         // only read by the reloading thread
+
+    /**
+     * Rebuilds something built from the messages when they are reloaded.
+     */
+    public interface ReloadListener {
+        /**
+         * Builds everything from the reloaded messages without using it yet, throwing if it cannot be built.
+         *
+         * @return makes what was built current, only called once every listener has been prepared
+         */
+        Runnable prepareReload();
+    }
+
+    public MessageCatalog(final String basename) throws IOException {
+        this(basename, new DefaultResourceLoader(), SUPPORTED_LOCALES);
+    }
+
+    MessageCatalog(final String basename, final ResourceLoader resourceLoader, final List<Locale> supportedLocales) throws IOException {
+        this.basename = basename;
+        this.resourceLoader = resourceLoader;
+        this.locales = new ArrayList<>();
+        this.locales.add(Locale.getDefault());
+        for (final Locale locale : supportedLocales) {
+            if (locales.contains(locale) == false) {
+                locales.add(locale);
+            }
+        }
+        reload();
+    }
+
+    public void addReloadListener(final ReloadListener reloadListener) {
+        reloadListeners.add(reloadListener);
+    }
+
+    /**
+     * Reads the files again and builds the table of every supported locale, then has every ReloadListener prepared from
+     * them. If a file cannot be read, or any listener fails, the current messages and everything built from them are
+     * kept; the other listeners are still prepared before this fails, so every failure is reported.
+     *
+     * @return the number of messages in the default locale's table
+     */
+    public synchronized int reload() throws IOException {
+        final long start = System.nanoTime();
+        final Snapshot reloaded = new Snapshot();
+        for (final Locale locale : locales) {
+            reloaded.tables.put(locale, buildTable(reloaded, locale));
+        }
+        final List<Runnable> commits = prepareReloadListeners(reloaded);
+        snapshot = reloaded;
+        for (final Runnable commit : commits) {
+            commit.run();
+        }
+        final int size = reloaded.tables.get(Locale.getDefault()).size();
+        LOG.info("Loaded {} messages for locales {} from {} in {} ms.",
+                size, reloaded.tables.keySet(), reloaded.files.keySet(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        return size;
+    }
+
+    private List<Runnable> prepareReloadListeners(final Snapshot reloaded) {
+        final List<Runnable> commits = new ArrayList<>();
+        IllegalStateException failure = null;
+        reloading = reloaded;
+        reloadingThread = Thread.currentThread();
+        try {
+            for (final ReloadListener reloadListener : reloadListeners) {
+                try {
+                    commits.add(reloadListener.prepareReload());
+                } catch (RuntimeException e) {
+                    LOG.error("Unable to rebuild {} from the reloaded messages.", reloadListener, e);
+                    if (failure == null) {
+                        failure = new IllegalStateException("Unable to rebuild everything built from the reloaded messages");
+                    }
+                    failure.addSuppressed(e);
+                }
+            }
+        } finally {
+            reloadingThread = null;
+            reloading = null;
+        }
+        if (failure != null) {
+            throw failure;
+        }
+        return commits;
+    }
+
+    /**
+     * @return the codes of every message in the locale, e.g. to find the keys ending in .fields
+     */
+    public Set<String> getCodes(final Locale locale) {
+        return getTable(locale).keySet();
+    }
+
+    @Override
+    protected String resolveCodeWithoutArguments(final String code, final Locale locale) {
+        final Message message = getTable(locale).get(code);
+        return message == null ? null : message.text;
+    }
+
+    @Override
+    protected MessageFormat resolveCode(final String code, final Locale locale) {
+        final Message message = getTable(locale).get(code);
+        if (message == null) {
+            return null;
+        }
+        // a message that did not compile fails here, as it does in the other message sources
+        return message.format != null ? message.format : createMessageFormat(message.text, locale);
+    }
+
+    /**
+     * @return the locale's table, else its language's, else the default locale's; tables are never added here
+     */
+    private Map<String, Message> getTable(final Locale locale) {
+        // while the listeners are prepared, the reloading thread alone reads the reloaded messages
+        final Map<Locale, Map<String, Message>> tables = reloadingThread == Thread.currentThread() ? reloading.tables : snapshot.tables;
+        Map<String, Message> table = locale == null ? null : tables.get(locale);
+        if (table == null && locale != null && (locale.getCountry().isEmpty() == false || locale.getVariant().isEmpty() == false)) {
+            table = tables.get(new Locale(locale.getLanguage()));
+        }
+        return table != null ? table : tables.get(Locale.getDefault());
+    }
+
+    private Map<String, Message> buildTable(final Snapshot target, final Locale locale) throws IOException {
+        final List<String> filenames = getFilenames(locale);
+        final Map<String, Message> table = new HashMap<>();
+        for (int index = filenames.size() - 1; index >= 0; index--) {
+            for (final Map.Entry<String, String> entry : getFile(target, filenames.get(index)).entrySet()) {
+                table.put(entry.getKey(), new Message(entry.getValue(), compile(entry.getKey(), entry.getValue(), locale)));
+            }
+        }
+        return Collections.unmodifiableMap(table);
+    }
+
+    private Map<String, String> getFile(final Snapshot target, final String filename) throws IOException {
+        final Map<String, String> file = target.files.get(filename);
+        if (file != null) {
+            return file;
+        }
+        final Map<String, String> loaded = loadFile(filename);
+        target.files.put(filename, loaded);
+        return loaded;
+    }
+
+    private MessageFormat compile(final String code, final String text, final Locale locale) {
+        try {
+            return createMessageFormat(text, locale);
+        } catch (IllegalArgumentException e) {
+            LOG.debug("Message {} ({}) is not a valid message format: {}", code, locale, e.getMessage());
+            return null;
+        }
+    }
+
+    private Map<String, String> loadFile(final String filename) throws IOException {
+        final Resource resource = resourceLoader.getResource(filename + ".properties");
+        if (resource.exists() == false) {
+            return Collections.emptyMap();
+        }
+        final Properties properties = new Properties();
+        try (Reader reader = new InputStreamReader(resource.getInputStream(), StandardCharsets.UTF_8)) {
+            properties.load(reader);
+        }
+        final Map<String, String> file = new HashMap<>();
+        for (final String key : properties.stringPropertyNames()) {
+            file.put(key, properties.getProperty(key));
+        }
+        return Collections.unmodifiableMap(file);
+    }
+
+    /**
+     * @return the files for the locale, most specific first, e.g. messages_en_GB, messages_en, then those of the
+     * default locale, then messages
+     */
+    private List<String> getFilenames(final Locale locale) {
+        final List<String> filenames = new ArrayList<>(getLocaleFilenames(locale));
+        if (locale.equals(Locale.getDefault()) == false) {
+            for (final String filename : getLocaleFilenames(Locale.getDefault())) {
+                if (filenames.contains(filename) == false) {
+                    filenames.add(filename);
+                }
+            }
+        }
+        filenames.add(basename);
+        return filenames;
+    }
+
+    private List<String> getLocaleFilenames(final Locale locale) {
+        final List<String> filenames = new ArrayList<>(3);
+        final StringBuilder filename = new StringBuilder(basename).append('_');
+        if (locale.getLanguage().isEmpty() == false) {
+            filename.append(locale.getLanguage());
+            filenames.add(0, filename.toString());
+        }
+        filename.append('_');
+        if (locale.getCountry().isEmpty() == false) {
+            filename.append(locale.getCountry());
+            filenames.add(0, filename.toString());
+        }
+        if (locale.getVariant().isEmpty() == false && (locale.getLanguage().isEmpty() == false || locale.getCountry().isEmpty() == false)) {
+            filename.append('_').append(locale.getVariant());
+            filenames.add(0, filename.toString());
+        }
+        return filenames;
+    }
+
+    public String toString() {
+        return getClass().getName() + ": basename=" + basename + ", locales=" + snapshot.tables.keySet();
+    }
+
+    /**
+     * Only changed while it is built, before it replaces the current one.
+     */
+    private static class Snapshot {
+        private final Map<String, Map<String, String>> files = new HashMap<>();
+        private final Map<Locale, Map<String, Message>> tables = new HashMap<>();
+    }
+
+    private static class Message {
+        private final String text;
+        private final MessageFormat format;
+
+        private Message(final String text, final MessageFormat format) {
+            this.text = text;
+            this.format = format;
+        }
+    }
+}
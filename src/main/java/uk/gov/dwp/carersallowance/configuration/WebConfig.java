@@ -1,15 +1,16 @@
 package uk.gov.dwp.carersallowance.configuration;
 
+import java.io.IOException;
 import java.util.Locale;
 import java.util.concurrent.Executor;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.MessageSource;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Primary;
-import org.springframework.context.support.ReloadableResourceBundleMessageSource;
 import org.springframework.core.task.SimpleAsyncTaskExecutor;
 import org.springframework.expression.ParseException;
 import org.springframework.scheduling.annotation.EnableAsync;
@@ -26,12 +27,20 @@ import org.springframework.web.servlet.view.JstlView;
 
 import uk.gov.dwp.carersallowance.controller.PageOrder;
 import uk.gov.dwp.carersallowance.handler.FilteredRequestMappingHandlerMapping;
+import uk.gov.dwp.carersallowance.handler.SessionUnitOfWorkInterceptor;
 
 @EnableWebMvc
 @EnableAsync
 @Configuration
 @ComponentScan(basePackages = {"uk.gov.dwp.carersallowance", "gov.dwp.carers"})
 public class WebConfig extends WebMvcConfigurerAdapter {
+    private final SessionUnitOfWorkInterceptor sessionUnitOfWorkInterceptor;
+
+    @Autowired
+    public WebConfig(final SessionUnitOfWorkInterceptor sessionUnitOfWorkInterceptor) {
+        this.sessionUnitOfWorkInterceptor = sessionUnitOfWorkInterceptor;
+    }
+
     @Override
     public void configureDefaultServletHandling(final DefaultServletHandlerConfigurer configurer) {
         configurer.enable();
@@ -39,7 +48,9 @@ public class WebConfig extends WebMvcConfigurerAdapter {
 
     @Bean
     public Executor taskExecutor() {
-        return new SimpleAsyncTaskExecutor();
+        final SimpleAsyncTaskExecutor taskExecutor = new SimpleAsyncTaskExecutor();
+        taskExecutor.setTaskDecorator(new LocaleContextTaskDecorator());
+        return taskExecutor;
     }
 
     @Override
@@ -73,10 +84,15 @@ public class WebConfig extends WebMvcConfigurerAdapter {
         return new PageOrder(messageSource, claimFormName);
     }
 
+    /**
+     * Built here rather than by the MVC config, so it does not get the interceptors added in addInterceptors and
+     * is given them itself; it routes every data driven page.
+     */
     @Bean
     public FilteredRequestMappingHandlerMapping addRequestHandler() {
         FilteredRequestMappingHandlerMapping filteredRequestMappingHandlerMapping = new FilteredRequestMappingHandlerMapping();
         filteredRequestMappingHandlerMapping.setOrder(0);
+        filteredRequestMappingHandlerMapping.setInterceptors(localeChangeInterceptor(), sessionUnitOfWorkInterceptor);
         filteredRequestMappingHandlerMapping.setExclude("/javascript/**");
         filteredRequestMappingHandlerMapping.setExclude("/stylesheet/**");
         filteredRequestMappingHandlerMapping.setExclude("/images/**");
@@ -88,6 +104,7 @@ public class WebConfig extends WebMvcConfigurerAdapter {
     @Override
     public void addInterceptors(final InterceptorRegistry registry) {
         registry.addInterceptor(localeChangeInterceptor());
+        registry.addInterceptor(sessionUnitOfWorkInterceptor);
     }
 
     @Bean
@@ -108,11 +125,7 @@ public class WebConfig extends WebMvcConfigurerAdapter {
     }
 
     @Bean
-    public ReloadableResourceBundleMessageSource messageSource() {
-        final ReloadableResourceBundleMessageSource messageSource = new ReloadableResourceBundleMessageSource();
-        messageSource.setBasenames("classpath:messages");
-        messageSource.setCacheSeconds(10); //reload messages every 10 seconds
-        messageSource.setDefaultEncoding("UTF-8");
-        return messageSource;
+    public MessageCatalog messageSource() throws IOException {
+        return new MessageCatalog("classpath:messages");   // reloaded through MessageCatalogController
     }
 }
\ No newline at end of file
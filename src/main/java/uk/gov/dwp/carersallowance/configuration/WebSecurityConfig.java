@@ -1,17 +1,41 @@
 package uk.gov.dwp.carersallowance.configuration;
 
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpMethod;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configuration.WebSecurityConfigurerAdapter;
+import uk.gov.dwp.carersallowance.admin.controller.MessageCatalogController;
+
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Created by peterwhitehead on 04/10/2016.
+ *
+ * The messages can only be reloaded from the addresses in messages.reload.addresses, e.g. the server itself. The reload
+ * is called by the deployment rather than from a page, so it has no CSRF token.
  */
 @EnableWebSecurity
 public class WebSecurityConfig extends WebSecurityConfigurerAdapter {
+    private final String reloadAccess;
+
+    @Autowired
+    public WebSecurityConfig(final @Value("${messages.reload.addresses}") String reloadAddresses) {
+        final List<String> access = new ArrayList<>();
+        for (final String address : reloadAddresses.split(",")) {
+            if (address.trim().isEmpty() == false) {
+                access.add("hasIpAddress('" + address.trim() + "')");
+            }
+        }
+        this.reloadAccess = access.isEmpty() ? "denyAll" : String.join(" or ", access);
+    }
 
     @Override
     protected void configure(final HttpSecurity http) throws Exception {
+        http.authorizeRequests().antMatchers(HttpMethod.POST, MessageCatalogController.RELOAD_PAGE).access(reloadAccess);
+        http.csrf().ignoringAntMatchers(MessageCatalogController.RELOAD_PAGE);
         http.authorizeRequests().antMatchers("/**").permitAll();
         http.headers().frameOptions().sameOrigin().httpStrictTransportSecurity().disable();
     }
@@ -2,7 +2,6 @@ package uk.gov.dwp.carersallowance.controller;
 
 import java.text.ParseException;
 import java.util.Arrays;
-import java.util.Locale;
 import java.util.Map;
 
 import javax.servlet.http.HttpServletRequest;
@@ -16,9 +15,11 @@ import org.springframework.ui.Model;
 import org.springframework.web.servlet.mvc.multiaction.NoSuchRequestHandlingMethodException;
 import uk.gov.dwp.carersallowance.session.*;
 import uk.gov.dwp.carersallowance.sessiondata.Session;
+import uk.gov.dwp.carersallowance.sessiondata.SessionFieldValues;
 import uk.gov.dwp.carersallowance.transformations.TransformationManager;
 import uk.gov.dwp.carersallowance.utils.*;
 import uk.gov.dwp.carersallowance.validations.FormValidations;
+import uk.gov.dwp.carersallowance.validations.FormValidationsRegistry;
 import uk.gov.dwp.carersallowance.validations.ValidationSummary;
 
 // TODO SuppressWarnings temporary, all complaints largely true. Remove them later and re-analyze
@@ -30,21 +31,27 @@ public class AbstractFormController {
     protected static final String HTTP_POST = "POST";
     protected static final String HTTP_GET = "GET";
 
+    private static final String[] READ_ONLY_FIELDS = new String[]{"dateOfClaim_day", "dateOfClaim_month", "dateOfClaim_year", "careeFirstName", "careeSurname", "language", "isOriginGB", "carerFirstName", "carerSurname", "employerName"};
+
     protected final MessageSource  messageSource;
     protected final SessionManager sessionManager;
     private final TransformationManager transformationManager;
     private final PageOrder pageOrdering;
-    private ValidationSummary validationSummary;
+    private final FormValidationsRegistry formValidationsRegistry;
+    private final PageDescriptorRegistry pageDescriptorRegistry;
 
     public AbstractFormController(final SessionManager sessionManager,
                                   final MessageSource messageSource,
                                   final TransformationManager transformationManager,
-                                  final PageOrder pageOrdering) {
+                                  final PageOrder pageOrdering,
+                                  final FormValidationsRegistry formValidationsRegistry,
+                                  final PageDescriptorRegistry pageDescriptorRegistry) {
         this.sessionManager = sessionManager;
         this.messageSource = messageSource;
         this.transformationManager = transformationManager;
         this.pageOrdering = pageOrdering;
-        this.validationSummary = new ValidationSummary();
+        this.formValidationsRegistry = formValidationsRegistry;
+        this.pageDescriptorRegistry = pageDescriptorRegistry;
     }
 
     protected String getPageName() {
@@ -53,14 +60,13 @@ public class AbstractFormController {
 
     public MessageSource     getMessageSource()             { return messageSource; }
     public Session           getSession(String sessionId)   { return sessionManager.getSession(sessionId); }
-    public ValidationSummary getValidationSummary()         { return validationSummary; }
 
     public String[] getSharedFields() {
         return null;
     }
 
     public String[] getReadOnlyFields() {
-        return new String[]{"dateOfClaim_day", "dateOfClaim_month", "dateOfClaim_year", "careeFirstName", "careeSurname", "language", "isOriginGB", "carerFirstName", "carerSurname", "employerName"};
+        return READ_ONLY_FIELDS;
     }
 
     public String getForm(HttpServletRequest request, Model model) {
@@ -85,14 +91,14 @@ public class AbstractFormController {
             // it would also remove the distinction between shared & readonly fields and ordinary fields
             // so we probably could verify if a field name was duplicated.
             // So probably best to stick to a list of fields, but make it data driven (in messages.properties)
-            String[] fields = FieldCollection.getFields(messageSource, currentPage);
-            String[] additionalFields = FieldCollection.getFields(messageSource, currentPage, ".additional.fields.for.model");
-            if(fields == null || fields.length == 0) {
-                fields = FieldCollection.getFields(messageSource, getPageName());
-                additionalFields = FieldCollection.getFields(messageSource, getPageName(), ".additional.fields.for.model");
+            PageDescriptor page = pageDescriptorRegistry.getPageDescriptor(currentPage);
+            if(page == null || page.getFields().length == 0) {
+                page = pageDescriptorRegistry.getPageDescriptor(getPageName());
+            }
+            if(page != null) {
+                copyFromSessionToModel(session, page.getFields(), model);
+                copyFromSessionToModel(session, page.getAdditionalFields(), model);
             }
-            copyFromSessionToModel(session, fields, model);
-            copyFromSessionToModel(session, additionalFields, model);
             copyFromSessionToModel(session, getSharedFields(), model);
             copyFromSessionToModel(session, getReadOnlyFields(), model);
 
@@ -133,19 +139,17 @@ public class AbstractFormController {
             LOG.debug("request.getParameterMap() = {}", request.getParameterMap());
 
             final String pageName = request.getParameter("pageName");
-            final String[] fields = FieldCollection.getFields(messageSource, pageName);
+            final String[] fields = pageDescriptorRegistry.getFields(pageName);
             final String currentPage = PropertyUtils.getCurrentPage(request);
 
-            getValidationSummary().reset();
-
             final Session session = sessionManager.getSession(sessionManager.getSessionIdFromCookie(request));
 
-            Map<String, String[]> existingFieldValues = CollectionUtils.getAllFieldValues(session);
+            final Map<String, String[]> existingFieldValues = new SessionFieldValues(session);
 
-            validate(fields, request.getParameterMap(), existingFieldValues);
+            final ValidationSummary validationSummary = validate(pageName, fields, request.getParameterMap(), existingFieldValues);
 
-            if (hasErrors()) {
-                return processPageErrors(request, fields, model);
+            if (validationSummary.hasFormErrors()) {
+                return processPageErrors(request, fields, model, validationSummary);
             }
 
             copyFromRequestToSession(session, request, fields);
@@ -255,43 +259,44 @@ public class AbstractFormController {
         }
     }
 
-    protected boolean hasErrors() {
-        return validationSummary.hasFormErrors();
-    }
-
     /**
+     * The controllers are shared by every request thread, so the results are returned rather than kept.
+     *
+     * @param pageName the page the form was posted from
      * @param fields the names of the fields the form uses (from the resource bundle)
      * @param fieldValues all the values from the form being validated
      * @param existingFieldValues the current session values
+     * @return the errors found in this request's values
      */
-    protected void validate(String[] fields, Map<String, String[]> fieldValues, Map<String, String[]> existingFieldValues) {
+    protected ValidationSummary validate(String pageName, String[] fields, Map<String, String[]> fieldValues, Map<String, String[]> existingFieldValues) {
         LOG.trace("Starting AbstractFormController.validate");
 
+        final ValidationSummary validationSummary = new ValidationSummary();
         if(fields == null) {
-            return;
+            return validationSummary;
         }
 
         try {
-            FormValidations validations = new FormValidations(this.getMessageSource(), "pageName not known", fields);
-            LOG.info("validations = {}", validations);
+            FormValidations validations = formValidationsRegistry.getFormValidations(pageName, fields);
+            LOG.debug("validations = {}", validations);
 
             LOG.debug("\tfieldValue Names = {}", fieldValues.keySet());
             for(String fieldValueName: fieldValues.keySet()) {
                 LOG.debug("\tfieldValues: '{}' = '{}'", fieldValueName, new LoggingObjectWrapper(fieldValues.get(fieldValueName)));
             }
 
-            LOG.debug("validation summary before = {}", getValidationSummary());
-            validations.validate(getValidationSummary(), getMessageSource(), transformationManager, fieldValues, existingFieldValues);
-            LOG.debug("validation summary after = {}", getValidationSummary());
+            validations.validate(validationSummary, getMessageSource(), transformationManager, fieldValues, existingFieldValues);
+            LOG.debug("validation summary = {}", validationSummary);
         } catch (ParseException e) {
             throw new IllegalStateException("Unable to read validation configuration.", e);
         }
 
         LOG.trace("Ending AbstractFormController.validate");
+        return validationSummary;
     }
 
     public boolean supportsRequest(HttpServletRequest request) {
-        LOG.info("Started AbstractFormController.supportsRequest");
+        LOG.trace("Started AbstractFormController.supportsRequest");
         Parameters.validateMandatoryArgs(request, "request");
         try {
             String method = request.getMethod();
@@ -301,17 +306,15 @@ public class AbstractFormController {
             }
 
             String path = request.getServletPath();
-            LOG.info("method = {}, path = {}", method, path);
-            String fieldsKey = path + ".fields";
-            String fields = getMessageSource().getMessage(fieldsKey, null, null, Locale.getDefault()); // If there are no fields, but is an entry do we get null or ""?
-            if (fields == null) {
-                LOG.info("Unsupported request: {}", path);
+            LOG.debug("method = {}, path = {}", method, path);
+            if (pageDescriptorRegistry.getPageDescriptor(path) == null) {
+                LOG.debug("Unsupported request: {}", path);
                 return false;
             }
             return true;
 
         } finally {
-            LOG.info("Ending AbstractFormController.supportsRequest");
+            LOG.trace("Ending AbstractFormController.supportsRequest");
         }
     }
 
@@ -357,15 +360,14 @@ public class AbstractFormController {
 
             final String pageName = request.getParameter("pageName");
             final String currentPage = PropertyUtils.getCurrentPage(request);
-            final String[] fields = FieldCollection.getFields(messageSource, pageName);
-
-            getValidationSummary().reset();
+            final String[] fields = pageDescriptorRegistry.getFields(pageName);
 
             final Session session = sessionManager.getSession(sessionManager.getSessionIdFromCookie(request));
 
-            String changeDeletePage = pageOrdering.deleteChangeRecord(idToDelete, idToChange, currentPage, session, getValidationSummary());
-            if (hasErrors()) {
-                return processPageErrors(request, fields, model);
+            final ValidationSummary validationSummary = new ValidationSummary();
+            String changeDeletePage = pageOrdering.deleteChangeRecord(idToDelete, idToChange, currentPage, session, validationSummary);
+            if (validationSummary.hasFormErrors()) {
+                return processPageErrors(request, fields, model, validationSummary);
             }
             sessionManager.saveSession(session);
             return changeDeletePage + "#";
@@ -377,14 +379,14 @@ public class AbstractFormController {
         }
     }
 
-    private String processPageErrors(final HttpServletRequest request, final String[] fields, final Model model) {
+    private String processPageErrors(final HttpServletRequest request, final String[] fields, final Model model, final ValidationSummary validationSummary) {
         LOG.info("there are validation errors, re-showing form");
         String form = getForm(request, model);
 
         // add the values of the current form to the model as well as the session values
         copyFromRequestToModel(request, fields, model);
         copyFromRequestToModel(request, getSharedFields(), model);
-        model.addAttribute("validationErrors", getValidationSummary());
+        model.addAttribute("validationErrors", validationSummary);
 
         return form;
     }
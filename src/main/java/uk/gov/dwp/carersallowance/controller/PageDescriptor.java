@@ -0,0 +1,28 @@
+package uk.gov.dwp.carersallowance.controller;
+
+import uk.gov.dwp.carersallowance.utils.LoggingObjectWrapper;
+
+/**
+ * A page's field lists, read once from its pageName.fields and pageName.additional.fields.for.model messages.
+ * The arrays are shared by every request and must not be modified.
+ */
+public class PageDescriptor {
+    private final String pageName;
+    private final String[] fields;
+    private final String[] additionalFields;
+
+    public PageDescriptor(final String pageName, final String[] fields, final String[] additionalFields) {
+        this.pageName = pageName;
+        this.fields = fields;
+        this.additionalFields = additionalFields;
+    }
+
+    public String   getPageName()         { return pageName; }
+    public String[] getFields()           { return fields; }
+    public String[] getAdditionalFields() { return additionalFields; }
+
+    public String toString() {
+        return getClass().getName() + ": pageName=" + pageName + ", fields=" + new LoggingObjectWrapper(fields)
+                + ", additionalFields=" + new LoggingObjectWrapper(additionalFields);
+    }
+}
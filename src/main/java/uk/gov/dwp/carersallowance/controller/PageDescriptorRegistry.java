@@ -0,0 +1,126 @@
+package uk.gov.dwp.carersallowance.controller;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.MessageSource;
+import org.springframework.stereotype.Component;
+import uk.gov.dwp.carersallowance.configuration.MessageCatalog;
+import uk.gov.dwp.carersallowance.session.FieldCollection;
+import uk.gov.dwp.carersallowance.utils.C3Constants;
+
+import javax.annotation.PostConstruct;
+import javax.inject.Inject;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The PageDescriptor of each page, so a request finds its page's fields with one map lookup rather than reading and
+ * splitting the messages again. Every page with a pageName.fields message is read at startup when the messages are
+ * a MessageCatalog, so any other path is known not to be a page without looking it up. With any other MessageSource
+ * the pages of the claim are read at startup, and any other page the first time it is requested; a path that is
+ * not a page is not kept.
+ *
+ * reload() reads the pages again and replaces them all at once, and is done whenever a MessageCatalog is reloaded.
+ */
+@Component
+public class PageDescriptorRegistry {
+    private static final Logger LOG = LoggerFactory.getLogger(PageDescriptorRegistry.class);
+
+    private static final String FIELDS = ".fields";
+    private static final String ADDITIONAL_FIELDS = ".additional.fields.for.model";
+
+    private final MessageSource messageSource;
+    private final PageOrder pageOrder;
+    private volatile Map<String, PageDescriptor> descriptors;
+
+    @Inject
+    public PageDescriptorRegistry(final MessageSource messageSource, final PageOrder pageOrder) {
+        this.messageSource = messageSource;
+        this.pageOrder = pageOrder;
+        this.descriptors = new ConcurrentHashMap<>();
+        if (messageSource instanceof MessageCatalog) {
+            ((MessageCatalog)messageSource).addReloadListener(this::prepareReload);
+        }
+    }
+
+    @PostConstruct
+    public void reload() {
+        prepareReload().run();
+    }
+
+    /**
+     * Reads every page from the messages without replacing the current ones.
+     *
+     * @return replaces the current pages with those read
+     */
+    public Runnable prepareReload() {
+        final long start = System.nanoTime();
+        final Map<String, PageDescriptor> reloaded = new ConcurrentHashMap<>();
+        for (final String pageName : getPageNames()) {
+            final PageDescriptor descriptor = read(pageName);
+            if (descriptor != null) {
+                reloaded.put(pageName, descriptor);
+            }
+        }
+        LOG.info("Read {} pages in {} ms.", reloaded.size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        return () -> descriptors = reloaded;
+    }
+
+    /**
+     * @return the page's descriptor, or null if it has no pageName.fields message
+     */
+    public PageDescriptor getPageDescriptor(final String pageName) {
+        if (pageName == null) {
+            return null;
+        }
+        final Map<String, PageDescriptor> current = descriptors;
+        final PageDescriptor descriptor = current.get(pageName);
+        if (descriptor != null) {
+            return descriptor;
+        }
+        if (messageSource instanceof MessageCatalog) {
+            return null;
+        }
+        final PageDescriptor read = read(pageName);
+        if (read != null) {
+            LOG.info("Read page {}.", pageName);
+            current.put(pageName, read);
+        }
+        return read;
+    }
+
+    /**
+     * @return the page's fields, or null if it is not a page
+     */
+    public String[] getFields(final String pageName) {
+        final PageDescriptor descriptor = getPageDescriptor(pageName);
+        return descriptor == null ? null : descriptor.getFields();
+    }
+
+    public int size() {
+        return descriptors.size();
+    }
+
+    private Set<String> getPageNames() {
+        final Set<String> pageNames = new LinkedHashSet<>(pageOrder.getAllPages());
+        if (messageSource instanceof MessageCatalog) {
+            for (final String code : ((MessageCatalog)messageSource).getCodes(C3Constants.CONFIGURATION_LOCALE)) {
+                if (code.endsWith(FIELDS)) {
+                    pageNames.add(code.substring(0, code.length() - FIELDS.length()));
+                }
+            }
+        }
+        return pageNames;
+    }
+
+    private PageDescriptor read(final String pageName) {
+        final String[] fields = FieldCollection.getFields(messageSource, pageName);
+        if (fields == null) {
+            return null;
+        }
+        return new PageDescriptor(pageName, fields, FieldCollection.getFields(messageSource, pageName, ADDITIONAL_FIELDS));
+    }
+}
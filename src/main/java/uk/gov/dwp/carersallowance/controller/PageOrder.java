@@ -4,26 +4,37 @@ import java.text.ParseException;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
-import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
 
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.context.MessageSource;
+import org.springframework.context.i18n.LocaleContextHolder;
 
+import uk.gov.dwp.carersallowance.configuration.MessageCatalog;
 import uk.gov.dwp.carersallowance.session.UnknownRecordException;
 import uk.gov.dwp.carersallowance.sessiondata.Session;
+import uk.gov.dwp.carersallowance.sessiondata.SessionFieldValues;
 import uk.gov.dwp.carersallowance.subform.SubFormProcessing;
-import uk.gov.dwp.carersallowance.utils.CollectionUtils;
+import uk.gov.dwp.carersallowance.utils.C3Constants;
 import uk.gov.dwp.carersallowance.utils.KeyValue;
 import uk.gov.dwp.carersallowance.utils.Parameters;
 import uk.gov.dwp.carersallowance.validations.Dependencies;
-import uk.gov.dwp.carersallowance.validations.Dependency;
+import uk.gov.dwp.carersallowance.validations.Dependency.PageDependency;
 import uk.gov.dwp.carersallowance.validations.ValidationSummary;
 
 /**
  * @author David Hutchinson (drh@elegantsolutions.co.uk) on 4 Jan 2017.
+ *
+ * The page flow is compiled when the form is loaded: each entry of the page list is indexed, carries the name its
+ * dependency is held under and the nested form it opens, and the subform entry and exit conditions are parsed, so
+ * moving between pages does no message lookups or list searches. The session values are read once per move.
+ *
+ * The page flow is not rebuilt when a MessageCatalog is reloaded, so a reload that changes any of the messages it is
+ * read from is refused; the service has to be restarted to change it.
  */
 public class PageOrder {
     private static final Logger LOG = LoggerFactory.getLogger(PageOrder.class);
@@ -48,6 +59,15 @@ public class PageOrder {
     private SubFormProcessing       subFormProcessing;
     private MessageSource           messageSource;
 
+    private Map<String, Integer>    pageIndex;
+    private Map<String, PageOrder>  pageOrders;
+    private String[]                dependencyNames;
+    private PageOrder[]             stepForms;
+    private boolean[]               checkDependencyOnPrevious;
+    private PageDependency          firstPageDependency;
+    private String                  firstPage;
+    private PageDependency          nextParentPageDependency;
+
     public PageOrder(final MessageSource messageSource, final String formName) throws ParseException {
         this(messageSource, formName, false, null);
     }
@@ -63,6 +83,11 @@ public class PageOrder {
             this.messageSource = messageSource;
 
             init(messageSource, formName);
+            if (isNestedForm == false && messageSource instanceof MessageCatalog) {
+                final MessageCatalog messageCatalog = (MessageCatalog)messageSource;
+                final Map<String, String> pageFlow = readPageFlow(messageCatalog);
+                messageCatalog.addReloadListener(() -> checkPageFlowUnchanged(pageFlow, readPageFlow(messageCatalog)));
+            }
 
         } finally {
             LOG.trace("Started PageOrder.initPageList");
@@ -104,6 +129,98 @@ public class PageOrder {
             dependencyFieldList.add(subFormPseudoFieldName);
         }
         dependencies = new Dependencies(messageSource, PAGE_DEPENDENCY_KEY_FORMAT, dependencyFieldList, referenceFields);
+
+        compileSteps();
+    }
+
+    /**
+     * Builds the transition table for this form's page list, nested forms are already compiled by now.
+     */
+    private void compileSteps() throws ParseException {
+        final int size = pageList.size();
+        pageIndex = new HashMap<>();
+        dependencyNames = new String[size];
+        stepForms = new PageOrder[size];
+        checkDependencyOnPrevious = new boolean[size];
+        final String previousPageExceptions = getMessage(String.format(PREVIOUS_PAGE_EXCEPTIONS, formName));
+        for (int index = 0; index < size; index++) {
+            final String page = pageList.get(index);
+            pageIndex.putIfAbsent(page, index);
+            dependencyNames[index] = convertNestedDeclarationToPseudoFieldName(page);
+            if (isNestedFormFieldName(page)) {
+                final String nestedFormName = page.substring(NESTED_FORM_PREFIX.length()).trim();
+                if (nestedForms.containsKey(nestedFormName) == false) {
+                    throw new IllegalArgumentException("Unknown nested form: " + nestedFormName);
+                }
+                stepForms[index] = nestedForms.get(nestedFormName);
+            }
+            checkDependencyOnPrevious[index] = previousPageExceptions != null && previousPageExceptions.contains(dependencyNames[index]) == false;
+        }
+
+        // the form that handles each page: this one for its own entries, otherwise the nested form holding it
+        pageOrders = new HashMap<>();
+        for (final String page : pageList) {
+            pageOrders.putIfAbsent(page, this);
+        }
+        for (final PageOrder nestedForm : nestedForms.values()) {
+            for (final String page : nestedForm.pageOrders.keySet()) {
+                pageOrders.putIfAbsent(page, nestedForm);
+            }
+        }
+
+        firstPageDependency = parsePageDependency(String.format(FIRST_PAGE_DEPENDENCY, formName));
+        firstPage = getMessage(String.format(FIRST_PAGE, formName));
+        final String pseudoFieldName = String.format(SUBFORM_PSEUDO_FIELDNAME, formName);
+        nextParentPageDependency = parsePageDependency(String.format(NEXT_PARENT_PAGE_DEPENDENCY_KEY_FORMAT, pseudoFieldName));
+    }
+
+    /**
+     * @return the messages the page flow of every form is read from, e.g. form.claim.pages, subform.claim.employment.*,
+     * claim.previous.page.exceptions and /breaks/break-in-hospital.dependency
+     */
+    private static Map<String, String> readPageFlow(final MessageCatalog messageCatalog) {
+        final Map<String, String> pageFlow = new HashMap<>();
+        for (final String code : messageCatalog.getCodes(C3Constants.CONFIGURATION_LOCALE)) {
+            if ((code.startsWith("form.") && code.endsWith(".pages"))
+                    || code.startsWith("subform.")
+                    || code.endsWith(".previous.page.exceptions")
+                    || (code.startsWith("/") && code.endsWith(".dependency"))) {
+                pageFlow.put(code, messageCatalog.getMessage(code, null, null, C3Constants.CONFIGURATION_LOCALE));
+            }
+        }
+        return pageFlow;
+    }
+
+    private static Runnable checkPageFlowUnchanged(final Map<String, String> pageFlow, final Map<String, String> reloaded) {
+        final Set<String> changed = new TreeSet<>();
+        for (final Map.Entry<String, String> entry : pageFlow.entrySet()) {
+            if (entry.getValue().equals(reloaded.get(entry.getKey())) == false) {
+                changed.add(entry.getKey());
+            }
+        }
+        for (final String code : reloaded.keySet()) {
+            if (pageFlow.containsKey(code) == false) {
+                changed.add(code);
+            }
+        }
+        if (changed.isEmpty() == false) {
+            throw new IllegalStateException("The page flow cannot be reloaded, restart to change: " + changed);
+        }
+        return () -> {};
+    }
+
+    private PageDependency parsePageDependency(final String key) throws ParseException {
+        final String pageDependency = getMessage(key);
+        return pageDependency == null ? null : PageDependency.parse(pageDependency);
+    }
+
+    private static boolean isFulfilled(final PageDependency pageDependency, final Session session, final boolean returnOnNull) {
+        return pageDependency == null ? returnOnNull : pageDependency.isFulfilled(session.getData());
+    }
+
+    private int indexOf(final String page) {
+        final Integer index = pageIndex.get(page);
+        return index == null ? -1 : index;
     }
 
     private List<String> initPageList(final MessageSource messageSource, final String pagesKeyName) {
@@ -136,24 +253,27 @@ public class PageOrder {
      * If current page is blank, then return the first page
      */
     public String getNextPage(final String currentPage, final Session session, final Boolean previousPage) {
-        String nextPage;
+        return getNextPage(currentPage, session, new SessionFieldValues(session), previousPage);
+    }
+
+    private String getNextPage(final String currentPage, final Session session, final Map<String, String[]> fieldValues, final Boolean previousPage) {
+        int nextIndex;
         if (StringUtils.isBlank(currentPage)) {
-            String firstPageDependency = String.format(FIRST_PAGE_DEPENDENCY, formName);
-            if (previousPage == false && Dependency.pageDependencyFulfilled(session.getData(), getMessage(firstPageDependency), Boolean.FALSE)) {
-                return getMessage(String.format(FIRST_PAGE, formName));
+            if (previousPage == false && isFulfilled(firstPageDependency, session, false)) {
+                return firstPage;
             } else {
-                nextPage = pageList.get(0);
+                nextIndex = 0;
             }
         } else {
             // check if we are on a nested form
             final PageOrder currentPageOrder = getCurrentPageOrder(currentPage);
             if (currentPageOrder != this) {
-                return currentPageOrder.getNextPage(currentPage, session, previousPage);
+                return currentPageOrder.getNextPage(currentPage, session, fieldValues, previousPage);
             }
 
-            int index = pageList.indexOf(currentPage);
+            int index = indexOf(currentPage);
             if (index == -1 || index == (pageList.size() -1)) {
-                if (currentPageOrder.isNestedForm() == false) {
+                if (isNestedForm == false) {
                     return null;  // not found or last
                 }
 
@@ -161,33 +281,24 @@ public class PageOrder {
                 // the start page in a nested form has a different dependency that the nested form itself
                 // so by using the first page dependency it can loop back to any page in the nested form.
                 // Therefore also need to explicitly check the subform dependency (and therefore exit) criteria
-                final String subFormName = currentPageOrder.getFormName();
-                final String pseudoFieldName = String.format(SUBFORM_PSEUDO_FIELDNAME, subFormName);
-                final String nextParentPageDependency = String.format(NEXT_PARENT_PAGE_DEPENDENCY_KEY_FORMAT, pseudoFieldName);
-                final PageOrder parentForm = currentPageOrder.getParentForm();
-                if (Dependency.pageDependencyFulfilled(session.getData(), getMessage(nextParentPageDependency), Boolean.TRUE)) {
+                if (isFulfilled(nextParentPageDependency, session, true)) {
                     // return to the point we dropped out of the parent
-                    final String nestedFormName = String.format(NESTED_FORM_FORMAT, subFormName);
-                    return parentForm.getNextPage(nestedFormName, session, previousPage);
+                    final String nestedFormName = String.format(NESTED_FORM_FORMAT, formName);
+                    return parentForm.getNextPage(nestedFormName, session, fieldValues, previousPage);
                 } else {
-                    nextPage = pageList.get(0);
+                    nextIndex = 0;
                 }
             } else {
-                nextPage = pageList.get(index + 1);
+                nextIndex = index + 1;
             }
         }
 
-        String dependencyNextPage = nextPage;
-        if (isNestedFormFieldName(nextPage)) {
-            dependencyNextPage = convertNestedDeclarationToPseudoFieldName(nextPage);
+        final String nextPage = pageList.get(nextIndex);
+        if (areDependenciesFulfilled(fieldValues, dependencyNames[nextIndex]) == false) {
+            return getNextPage(nextPage, session, fieldValues, previousPage);
         }
-        if (areDependenciesFulfilled(CollectionUtils.getAllFieldValues(session), dependencyNextPage) == false) {
-            return getNextPage(nextPage, session, previousPage);
-        }
-
-        nextPage = getPage(nextPage, session, previousPage);
 
-        return nextPage;
+        return getPage(nextIndex, session, fieldValues, previousPage);
     }
 
     private boolean areDependenciesFulfilled(final Map<String, String[]> session, final String pseudoFieldName) {
@@ -220,20 +331,24 @@ public class PageOrder {
      * If current page is blank, then return the first page
      */
     public String getPreviousPage(final String currentPage, final Session session) {
-        String previousPage;
+        return getPreviousPage(currentPage, session, new SessionFieldValues(session));
+    }
+
+    private String getPreviousPage(final String currentPage, final Session session, final Map<String, String[]> fieldValues) {
+        int previousIndex;
         if (StringUtils.isBlank(currentPage)) {
-            previousPage = pageList.get(0);
+            previousIndex = 0;
 
         } else {
             // get the correct PageOrder object
             final PageOrder currentPageOrder = getCurrentPageOrder(currentPage);
             if (currentPageOrder != this) {
-                return currentPageOrder.getPreviousPage(currentPage, session);
+                return currentPageOrder.getPreviousPage(currentPage, session, fieldValues);
             }
 
-            int index = pageList.indexOf(currentPage);
+            int index = indexOf(currentPage);
             if (index == -1 || index == 0) { // if not found or the first page
-                if (currentPageOrder.isNestedForm() == false) {
+                if (isNestedForm == false) {
                     // top level form, so there is no previous
                     return null;
                 }
@@ -242,58 +357,56 @@ public class PageOrder {
                 // goes to the page of the parent just prior to the nested form entry
                 // unless dependencies don't allow in which case the one before that
                 // and so on
-                final PageOrder parentForm = currentPageOrder.getParentForm();
-                final String subFormName = currentPageOrder.getFormName();
-                final String nestedFormName = String.format(NESTED_FORM_FORMAT, subFormName); // e.g. subform=breaks
-                return parentForm.getPreviousPage(nestedFormName, session);
+                final String nestedFormName = String.format(NESTED_FORM_FORMAT, formName); // e.g. subform=breaks
+                return parentForm.getPreviousPage(nestedFormName, session, fieldValues);
             } else {
-                previousPage = pageList.get(index - 1);
+                previousIndex = index - 1;
             }
         }
 
         // if the previous page has dependencies that are not satisfied iterate backwards
-        String dependencyPreviousPage = previousPage;
-        if (isNestedFormFieldName(previousPage)) {
-            dependencyPreviousPage = convertNestedDeclarationToPseudoFieldName(previousPage);
-        }
-        final String previousPageExceptions = getMessage(String.format(PREVIOUS_PAGE_EXCEPTIONS, formName));
-        if ((previousPageExceptions != null && !previousPageExceptions.contains(dependencyPreviousPage)) && areDependenciesFulfilled(CollectionUtils.getAllFieldValues(session), dependencyPreviousPage) == false) {
-            return getPreviousPage(previousPage, session);
+        final String previousPage = pageList.get(previousIndex);
+        if (checkDependencyOnPrevious[previousIndex] && areDependenciesFulfilled(fieldValues, dependencyNames[previousIndex]) == false) {
+            return getPreviousPage(previousPage, session, fieldValues);
         }
 
-        previousPage = getPage(previousPage, session, true);
-
-        return previousPageOnEmpty(currentPage, previousPage, session);
+        return previousPageOnEmpty(currentPage, getPage(previousIndex, session, fieldValues, true), session);
     }
 
-    private String getPage(final String page, final Session session, final Boolean previousPage) {
-        if (isNestedFormFieldName(page)) {   // e.g. subform=breaks
-            final String nestedFormName = page.substring(NESTED_FORM_PREFIX.length()).trim();
-            if (nestedForms.containsKey(nestedFormName) == false) {
-                throw new IllegalArgumentException("Unknown nested form: " + nestedFormName);
-            }
-            final PageOrder nestedForm = nestedForms.get(nestedFormName);
-            return nestedForm.getNextPage(null, session, previousPage);
+    private String getPage(final int index, final Session session, final Map<String, String[]> fieldValues, final Boolean previousPage) {
+        final PageOrder nestedForm = stepForms[index];   // e.g. subform=breaks
+        if (nestedForm != null) {
+            return nestedForm.getNextPage(null, session, fieldValues, previousPage);
         }
-        return page;
+        return pageList.get(index);
     }
 
-    private PageOrder getCurrentPageOrder(String currentPage) {
-        if (pageList.contains(currentPage)) {
-            return this;
+    /**
+     * @return the pages of this form and of all its nested forms, without the subform=<name> placeholders
+     */
+    public List<String> getAllPages() {
+        final List<String> pages = new ArrayList<>();
+        for (final String pageName : pageList) {
+            if (isNestedFormFieldName(pageName) == false) {
+                pages.add(pageName);
+            }
         }
-
         for (final PageOrder nestedForm : nestedForms.values()) {
-            if (nestedForm.getCurrentPageOrder(currentPage) != null) {
-                return nestedForm;
-            }
+            pages.addAll(nestedForm.getAllPages());
         }
+        return pages;
+    }
 
-        return null;
+    private PageOrder getCurrentPageOrder(String currentPage) {
+        return currentPage == null ? null : pageOrders.get(currentPage);
     }
 
     private String getMessage(final String code) {
-        return messageSource.getMessage(code, null, null, Locale.getDefault());
+        return messageSource.getMessage(code, null, null, C3Constants.CONFIGURATION_LOCALE);
+    }
+
+    private String getText(final String code) {
+        return messageSource.getMessage(code, null, null, LocaleContextHolder.getLocale());
     }
 
     public String toString() {
@@ -315,14 +428,12 @@ public class PageOrder {
 
     public Boolean isLastPage(final String currentPage) {
         PageOrder pageOrder = getCurrentPageOrder(currentPage);
-        List<String> pageList = pageOrder.getPageList();
-        return pageList.indexOf(currentPage) == pageList.size()-1;
+        return pageOrder.indexOf(currentPage) == pageOrder.getPageList().size()-1;
     }
 
     public Boolean isFirstPage(final String currentPage) {
         PageOrder pageOrder = getCurrentPageOrder(currentPage);
-        List<String> pageList = pageOrder.getPageList();
-        return pageList.indexOf(currentPage) == 0;
+        return pageOrder.indexOf(currentPage) == 0;
     }
 
     public SubFormProcessing getSubFormProcessorForPage(final String currentPage) {
@@ -337,7 +448,7 @@ public class PageOrder {
 
     public String getNextPageInList(final String currentPage, final Session session) {
         PageOrder pageOrder = getCurrentPageOrder(currentPage);
-        int pageIndex = pageOrder.getPageList().indexOf(currentPage);
+        int pageIndex = pageOrder.indexOf(currentPage);
         if (pageIndex == -1 || pageIndex+1 > pageOrder.getPageList().size()-1) {
             return null;
         }
@@ -345,7 +456,7 @@ public class PageOrder {
         if (isNestedFormFieldName(page)) {   // e.g. subform=breaks
             final String nestedFormName = page.substring(NESTED_FORM_PREFIX.length()).trim();
             final PageOrder nestedForm = nestedForms.get(nestedFormName);
-            if (nestedForm.areDependenciesFulfilled(CollectionUtils.getAllFieldValues(session), nestedForm.getPageList().get(0))) {
+            if (nestedForm.areDependenciesFulfilled(new SessionFieldValues(session), nestedForm.getPageList().get(0))) {
                 return nestedForm.getPageList().get(0);
             }
         }
@@ -387,7 +498,7 @@ public class PageOrder {
                 return getSubFormProcessorForCollection(collectionName).processEditRowInCollection(idToChange, session);
             }
         } catch (UnknownRecordException ure) {
-            validationSummary.addFormError(idToChange, getMessage(currentPage + ".pageTitle"),  getMessage("edit.record"));
+            validationSummary.addFormError(idToChange, getText(currentPage + ".pageTitle"),  getText("edit.record"));
         }
         return null;
     }
@@ -396,7 +507,7 @@ public class PageOrder {
         try {
             return getSubFormProcessorForCollection(collectionName).processDeleteRowInCollection(idToDelete, currentPage, session);
         } catch (UnknownRecordException ure) {
-            validationSummary.addFormError(idToDelete, getMessage(currentPage + ".pageTitle"),  getMessage("delete.record"));
+            validationSummary.addFormError(idToDelete, getText(currentPage + ".pageTitle"),  getText("delete.record"));
         }
         return null;
     }
@@ -8,9 +8,11 @@ import org.springframework.stereotype.Controller;
 
 import uk.gov.dwp.carersallowance.controller.AbstractFormController;
 
+import uk.gov.dwp.carersallowance.controller.PageDescriptorRegistry;
 import uk.gov.dwp.carersallowance.controller.PageOrder;
 import uk.gov.dwp.carersallowance.session.SessionManager;
 import uk.gov.dwp.carersallowance.transformations.TransformationManager;
+import uk.gov.dwp.carersallowance.validations.FormValidationsRegistry;
 
 /**
  * General request handler for basic request.
@@ -28,8 +30,10 @@ public class DefaultFormController extends AbstractFormController {
     public DefaultFormController(final SessionManager sessionManager,
                                  final MessageSource messageSource,
                                  final TransformationManager transformationManager,
-                                 final PageOrder pageClaimOrder) {
-        super(sessionManager, messageSource, transformationManager, pageClaimOrder);
+                                 final PageOrder pageClaimOrder,
+                                 final FormValidationsRegistry formValidationsRegistry,
+                                 final PageDescriptorRegistry pageDescriptorRegistry) {
+        super(sessionManager, messageSource, transformationManager, pageClaimOrder, formValidationsRegistry, pageDescriptorRegistry);
     }
 }
 
@@ -18,11 +18,12 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
 
 import uk.gov.dwp.carersallowance.controller.AbstractFormController;
-
+import uk.gov.dwp.carersallowance.controller.PageDescriptorRegistry;
 import uk.gov.dwp.carersallowance.controller.PageOrder;
 import uk.gov.dwp.carersallowance.session.SessionManager;
 import uk.gov.dwp.carersallowance.sessiondata.Session;
 import uk.gov.dwp.carersallowance.transformations.TransformationManager;
+import uk.gov.dwp.carersallowance.validations.FormValidationsRegistry;
 import uk.gov.dwp.carersallowance.utils.LoadFile;
 
 @Controller
@@ -40,8 +41,10 @@ public class PreviewController extends AbstractFormController {
                              final MessageSource messageSource,
                              final TransformationManager transformationManager,
                              final PreviewPageProcessing previewPageProcessing,
-                             final PageOrder pageOrder) {
-        super(sessionManager, messageSource, transformationManager, pageOrder);
+                             final PageOrder pageOrder,
+                             final FormValidationsRegistry formValidationsRegistry,
+                             final PageDescriptorRegistry pageDescriptorRegistry) {
+        super(sessionManager, messageSource, transformationManager, pageOrder, formValidationsRegistry, pageDescriptorRegistry);
         this.previewPageProcessing = previewPageProcessing;
         this.previewMappings = loadPreviewMappings();
     }
@@ -70,8 +73,10 @@ public class PreviewController extends AbstractFormController {
         session.setAttribute("beenInPreview", true);
         setReturnToSummaryHash(session, model);
         previewPageProcessing.createParametersForPreviewPage(model, session);
-        sessionManager.saveSession(session);
-        return super.getForm(request, model);
+        final String view = super.getForm(request, model);
+        // the claim is submitted from here, so the session data service must hold it rather than the write behind queue
+        sessionManager.flushSession(session);
+        return view;
     }
 
     @RequestMapping(value=CURRENT_PAGE, method = RequestMethod.POST)
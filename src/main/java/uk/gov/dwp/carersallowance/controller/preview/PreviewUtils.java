@@ -3,6 +3,7 @@ package uk.gov.dwp.carersallowance.controller.preview;
 import org.apache.commons.lang3.ArrayUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.context.MessageSource;
+import org.springframework.context.i18n.LocaleContextHolder;
 import org.springframework.stereotype.Component;
 import org.springframework.ui.Model;
 import uk.gov.dwp.carersallowance.sessiondata.Session;
@@ -13,7 +14,6 @@ import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.time.temporal.ChronoUnit;
 import java.util.Arrays;
-import java.util.Locale;
 import java.util.stream.Collectors;
 
 /**
@@ -165,7 +165,7 @@ public class PreviewUtils {
         if (code == null) {
             return code;
         }
-        return messageSource.getMessage(code, null, null, Locale.getDefault());
+        return messageSource.getMessage(code, null, null, LocaleContextHolder.getLocale());
     }
 
     public String getOnlyDetailsMessage(final String value) {
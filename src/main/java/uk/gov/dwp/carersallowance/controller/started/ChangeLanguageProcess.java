@@ -1,6 +1,5 @@
 package uk.gov.dwp.carersallowance.controller.started;
 
-import org.apache.commons.lang3.LocaleUtils;
 import org.springframework.stereotype.Component;
 import org.springframework.util.StringUtils;
 import org.springframework.web.servlet.LocaleResolver;
@@ -9,7 +8,6 @@ import uk.gov.dwp.carersallowance.utils.C3Constants;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
-import java.util.Locale;
 
 /**
  * Created by peterwhitehead on 19/01/2017.
@@ -22,11 +20,10 @@ public class ChangeLanguageProcess {
     }
 
     private void setLanguage(final HttpServletRequest request, final HttpServletResponse response, final String newLanguage) {
-        Locale locale = LocaleUtils.toLocale(newLanguage);
         LocaleResolver localeResolver = RequestContextUtils.getLocaleResolver(request);
         if (localeResolver != null) {
+            // the rest of the request sees the new locale through LocaleContextHolder, other requests are unaffected
             localeResolver.setLocale(request, response, StringUtils.parseLocaleString(newLanguage));
-            Locale.setDefault(locale);
         }
     }
 
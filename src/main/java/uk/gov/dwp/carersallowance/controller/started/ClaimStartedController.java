@@ -10,12 +10,11 @@ import org.springframework.web.bind.annotation.RequestMethod;
 import uk.gov.dwp.carersallowance.controller.defaultcontoller.DefaultFormController;
 import uk.gov.dwp.carersallowance.session.SessionManager;
 import uk.gov.dwp.carersallowance.utils.C3Constants;
-import uk.gov.dwp.carersallowance.xml.XmlClaimReader;
+import uk.gov.dwp.carersallowance.xml.MappingRegistry;
 
 import javax.inject.Inject;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
-import java.net.URL;
 
 /**
  * Created by peterwhitehead on 22/12/2016.
@@ -27,7 +26,7 @@ public class ClaimStartedController {
     private final Boolean replicaEnabledProperty;
     private final String replicaDataFileProperty;
     private final DefaultFormController defaultFormController;
-    private final URL xmlMappingFile;
+    private final MappingRegistry mappingRegistry;
     private final ChangeLanguageProcess changeLanguageProcess;
     private final SessionManager sessionManager;
 
@@ -37,7 +36,7 @@ public class ClaimStartedController {
     public ClaimStartedController(final @Value("${replica.enabled}") Boolean replicaEnabledProperty,
                                   final @Value("${replica.datafile}") String replicaDataFileProperty,
                                   final DefaultFormController defaultFormController,
-                                  final @Value("${xml.mappingFile}") String mappingFile,
+                                  final MappingRegistry mappingRegistry,
                                   final ChangeLanguageProcess changeLanguageProcess,
                                   final SessionManager sessionManager) {
         this.replicaEnabledProperty = replicaEnabledProperty;
@@ -45,14 +44,14 @@ public class ClaimStartedController {
         this.defaultFormController = defaultFormController;
         this.changeLanguageProcess = changeLanguageProcess;
         this.sessionManager = sessionManager;
-        this.xmlMappingFile = XmlClaimReader.class.getClassLoader().getResource(mappingFile);
+        this.mappingRegistry = mappingRegistry;
     }
 
     @RequestMapping(value = CURRENT_PAGE, method = RequestMethod.GET)
     public String getForm(final HttpServletRequest request, final HttpServletResponse response, final Model model) {
         if (request.getQueryString() == null || !request.getQueryString().contains("changing=true")) {
             changeLanguageProcess.processChangeLanguage(request, response);
-            sessionManager.createSessionVariables(request, response, getReplicateDataFile(), xmlMappingFile, C3Constants.CLAIM);
+            sessionManager.createSessionVariables(request, response, getReplicateDataFile(), mappingRegistry, C3Constants.CLAIM);
         }
         defaultFormController.getForm(request, model);
         return CURRENT_PAGE;
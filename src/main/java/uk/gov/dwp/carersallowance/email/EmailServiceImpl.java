@@ -5,6 +5,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.MessageSource;
+import org.springframework.context.i18n.LocaleContextHolder;
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.stereotype.Component;
 import uk.gov.dwp.carersallowance.database.TransactionIdService;
@@ -15,7 +16,6 @@ import javax.inject.Inject;
 import javax.mail.Message;
 import javax.mail.internet.InternetAddress;
 import javax.mail.internet.MimeMessage;
-import java.util.Locale;
 
 /**
  * Created by peterwhitehead on 06/01/2017.
@@ -63,7 +63,7 @@ public class EmailServiceImpl implements EmailService {
 
     private void sendCircsEmail(final Session session, final String transactionId, final String emailBody) throws Exception {
         final Boolean isWelshCommunication = C3Constants.YES.equals(session.getAttribute("welshCommunication"));
-        final String subject = messageSource.getMessage("subject.cofc", null, null, Locale.getDefault());
+        final String subject = messageSource.getMessage("subject.cofc", null, null, LocaleContextHolder.getLocale());
         send(transactionId, subject, getEmailAddress(session), emailBody);
     }
 
@@ -85,9 +85,9 @@ public class EmailServiceImpl implements EmailService {
 
     private String claimEmailSubject(final Session session, final Boolean isWelshCommuniction) {
         if (isClaimEmployment(session) || hasSelfEmploymentPensionsAndExpenses(session)) {
-            return messageSource.getMessage("subject.claim.employed", null, null, Locale.getDefault());
+            return messageSource.getMessage("subject.claim.employed", null, null, LocaleContextHolder.getLocale());
         }
-        return messageSource.getMessage("subject.claim.notemployed", null, null, Locale.getDefault());
+        return messageSource.getMessage("subject.claim.notemployed", null, null, LocaleContextHolder.getLocale());
     }
 
     private Boolean hasSelfEmploymentPensionsAndExpenses(final Session session) {
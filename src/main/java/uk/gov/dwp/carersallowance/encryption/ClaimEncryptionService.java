@@ -1,6 +1,7 @@
 package uk.gov.dwp.carersallowance.encryption;
 
 import uk.gov.dwp.carersallowance.sessiondata.Session;
+import uk.gov.dwp.carersallowance.sessiondata.SessionDelta;
 
 import java.util.Map;
 
@@ -10,4 +11,5 @@ import java.util.Map;
 public interface ClaimEncryptionService {
     Session encryptClaim(final Session session);
     Session decryptClaim(final Session session);
+    SessionDelta encryptDelta(final SessionDelta delta);
 }
@@ -8,6 +8,8 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.MessageSource;
 import org.springframework.stereotype.Service;
 import uk.gov.dwp.carersallowance.sessiondata.Session;
+import uk.gov.dwp.carersallowance.sessiondata.SessionDelta;
+import uk.gov.dwp.carersallowance.utils.C3Constants;
 
 import javax.xml.bind.DatatypeConverter;
 import java.util.*;
@@ -27,7 +29,7 @@ public class ClaimEncryptionServiceImpl implements ClaimEncryptionService {
     public ClaimEncryptionServiceImpl(@Value("${cacheEncryptionEnabled}") final Boolean cacheEncryptionEnabled, final MessageSource messageSource) {
         this.cacheEncryptionEnabled = cacheEncryptionEnabled;
         encryptorAES = new EncryptorAES();
-        final String fields = messageSource.getMessage(ENCRYPTION_FIELDS, null, null, Locale.getDefault());
+        final String fields = messageSource.getMessage(ENCRYPTION_FIELDS, null, null, C3Constants.CONFIGURATION_LOCALE);
         if (StringUtils.isEmpty(fields)) {
             fieldsToEncrypt = new ArrayList<>();
         } else {
@@ -47,6 +49,24 @@ public class ClaimEncryptionServiceImpl implements ClaimEncryptionService {
         return processList(session, false);
     }
 
+    /**
+     * Encrypts only the changed attributes, into a copy so the session itself keeps its plain values.
+     */
+    @Override
+    public SessionDelta encryptDelta(final SessionDelta delta) {
+        if (cacheEncryptionEnabled == false) {
+            return delta;
+        }
+        final Map<String, Object> changed = new HashMap<>(delta.getChangedAttributes());
+        for (final String field : fieldsToEncrypt) {
+            final Object value = changed.get(field);
+            if (value != null) {
+                changed.put(field, encrypt(value));
+            }
+        }
+        return delta.withChangedAttributes(changed);
+    }
+
     private Session processList(final Session session, final Boolean encrypt) {
         if (cacheEncryptionEnabled) {
             for (final String field : fieldsToEncrypt) {
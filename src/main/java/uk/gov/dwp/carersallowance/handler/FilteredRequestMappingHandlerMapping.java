@@ -32,11 +32,16 @@ import uk.gov.dwp.carersallowance.controller.defaultcontoller.DefaultFormControl
 public class FilteredRequestMappingHandlerMapping extends RequestMappingHandlerMapping {
     private static final Logger LOG = LoggerFactory.getLogger(FilteredRequestMappingHandlerMapping.class);
 
+    private static final String ANY_PATH_BELOW = "/**";
+
     private AntPathMatcher pathMatcher;
+    private List<String>   excludePrefixes;
     private List<String>   excludePatterns;
+    private volatile HandlerMethod defaultControllerMethod;
 
     public FilteredRequestMappingHandlerMapping() {
         pathMatcher = new AntPathMatcher();
+        excludePrefixes = new ArrayList<>();
         excludePatterns = new ArrayList<>();
     }
 
@@ -49,6 +54,9 @@ public class FilteredRequestMappingHandlerMapping extends RequestMappingHandlerM
         // from "not handling" a request (e.g. for excluded paths)
     }
 
+    /**
+     * A pattern of the form /path/** is matched as a prefix, any other pattern with the AntPathMatcher
+     */
     public void setExclude(String pattern) {
         if (StringUtils.isBlank(pattern)) {
             return;
@@ -56,7 +64,42 @@ public class FilteredRequestMappingHandlerMapping extends RequestMappingHandlerM
 
         String trimmed = pattern.trim();
         LOG.info("setting exclude path {}", trimmed);
-        excludePatterns.add(trimmed);
+        String prefix = StringUtils.removeEnd(trimmed, ANY_PATH_BELOW);
+        if (trimmed.endsWith(ANY_PATH_BELOW) && pathMatcher.isPattern(prefix) == false) {
+            excludePrefixes.add(prefix);
+        } else {
+            excludePatterns.add(trimmed);
+        }
+    }
+
+    private boolean isExcluded(String path) {
+        for (String prefix : excludePrefixes) {
+            // as /path/** matches /path, /path/ and everything below it, but not /pathname
+            if (path.startsWith(prefix) && (path.length() == prefix.length() || path.charAt(prefix.length()) == '/')) {
+                LOG.debug("Excluding Path({}) as it is below {}", path, prefix);
+                return true;
+            }
+        }
+        for (String pattern : excludePatterns) {
+            if (pathMatcher.match(pattern, path)) {
+                LOG.debug("Excluding Path({}) as it matches {}", path, pattern);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * The default controller's handleRequest, looked up the first time it is needed and then shared by every request
+     */
+    private HandlerMethod getDefaultControllerMethod() throws NoSuchMethodException {
+        HandlerMethod handlerMethod = defaultControllerMethod;
+        if (handlerMethod == null) {
+            Object controller = getApplicationContext().getBean(DefaultFormController.class);
+            handlerMethod = new HandlerMethod(controller, "handleRequest", HttpServletRequest.class, HttpServletResponse.class, Model.class);
+            defaultControllerMethod = handlerMethod;
+        }
+        return handlerMethod;
     }
 
     private HandlerMethod getDefaultControllerMethod(HttpServletRequest request) {
@@ -67,17 +110,11 @@ public class FilteredRequestMappingHandlerMapping extends RequestMappingHandlerM
             }
 
             try {
-                String path = request.getRequestURI();
-                Object controller = getApplicationContext().getBean(DefaultFormController.class);
-
-                AbstractFormController defaultController = null;
-                if (controller instanceof DefaultFormController) {
-                    defaultController = (DefaultFormController)controller;
-                }
-                if (defaultController == null || defaultController.supportsRequest(request) == false) {
+                HandlerMethod handlerMethod = getDefaultControllerMethod();
+                AbstractFormController defaultController = (AbstractFormController)handlerMethod.getBean();
+                if (defaultController.supportsRequest(request) == false) {
                     return null;
                 }
-                HandlerMethod handlerMethod = new HandlerMethod(controller, "handleRequest", HttpServletRequest.class, HttpServletResponse.class, Model.class);
                 return handlerMethod;
             } catch (NoSuchMethodException e) {
                 LOG.error("Unsupported request", e);
@@ -111,11 +148,8 @@ public class FilteredRequestMappingHandlerMapping extends RequestMappingHandlerM
         }
 
         String path = request.getServletPath(); // from the end of the application path until the args
-        for (String pattern: excludePatterns) {
-            if (pathMatcher.match(pattern, path)) {
-                LOG.debug("Excluding Path({}) as it matches {}", path, pattern);
-                return null;
-            }
+        if (isExcluded(path)) {
+            return null;
         }
 
         HandlerMethod method = super.getHandlerInternal(request);
@@ -0,0 +1,44 @@
+package uk.gov.dwp.carersallowance.handler;
+
+import javax.inject.Inject;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.ModelAndView;
+import org.springframework.web.servlet.handler.HandlerInterceptorAdapter;
+
+import uk.gov.dwp.carersallowance.session.SessionManager;
+
+/**
+ * Wraps each handler in a session unit of work, so the session is loaded at most once per request and saved at most
+ * once. The save happens in postHandle, before the view is rendered or the redirect sent, so the browser can't
+ * request the next page before it has been written. If the handler throws, the saves it had already asked for are
+ * written in afterCompletion, as they were when each save was written straight away.
+ */
+@Component
+public class SessionUnitOfWorkInterceptor extends HandlerInterceptorAdapter {
+    private final SessionManager sessionManager;
+
+    @Inject
+    public SessionUnitOfWorkInterceptor(final SessionManager sessionManager) {
+        this.sessionManager = sessionManager;
+    }
+
+    @Override
+    public boolean preHandle(final HttpServletRequest request, final HttpServletResponse response, final Object handler) throws Exception {
+        sessionManager.beginUnitOfWork(request);
+        return true;
+    }
+
+    @Override
+    public void postHandle(final HttpServletRequest request, final HttpServletResponse response, final Object handler, final ModelAndView modelAndView) throws Exception {
+        sessionManager.endUnitOfWork(request, true);
+    }
+
+    @Override
+    public void afterCompletion(final HttpServletRequest request, final HttpServletResponse response, final Object handler, final Exception ex) throws Exception {
+        // only still open if the handler threw
+        sessionManager.endUnitOfWork(request, true);
+    }
+}
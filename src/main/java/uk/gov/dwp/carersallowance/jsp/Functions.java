@@ -11,6 +11,7 @@ import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.context.MessageSource;
+import org.springframework.context.i18n.LocaleContextHolder;
 import org.springframework.stereotype.Component;
 
 import uk.gov.dwp.carersallowance.encryption.FieldEncryptionServiceImpl;
@@ -245,7 +246,7 @@ public class Functions {
     public static String prop(final String code, final String... args) {
         LOG.trace("Started Functions.prop");
         try {
-            return messageSource.getMessage(code, args, null, Locale.getDefault());
+            return messageSource.getMessage(code, args, null, LocaleContextHolder.getLocale());
         } finally {
             LOG.trace("Ending Functions.prop");
         }
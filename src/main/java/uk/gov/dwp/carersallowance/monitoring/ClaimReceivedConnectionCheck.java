@@ -6,26 +6,35 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Component;
 import org.springframework.web.client.RestTemplate;
+import uk.gov.dwp.carersallowance.circuitbreaker.CircuitBreaker;
+import uk.gov.dwp.carersallowance.circuitbreaker.CircuitBreakerRejectedException;
 
 import javax.inject.Inject;
+import javax.inject.Named;
 
 /**
  * Created by peterwhitehead on 28/06/2016.
+ *
+ * The ping goes through the claim received circuit breaker, so while it is half open the check can be the probe
+ * call that closes it. While it is open the ping is not made and the breaker's state is reported.
  */
 @Component
 public class ClaimReceivedConnectionCheck extends CADSHealthCheck {
 
     private final String crUrl;
     private final RestTemplate restTemplate;
+    private final CircuitBreaker circuitBreaker;
 
     @Inject
     public ClaimReceivedConnectionCheck(final @Value("${application.name}") String applicationName,
                                         final @Value("${application.version}") String applicationVersion,
                                         final @Value("${cr.url}") String crUrl,
-                                        final RestTemplate restTemplate) {
+                                        final @Named("claimReceivedRestTemplate") RestTemplate restTemplate,
+                                        final @Named("claimReceivedCircuitBreaker") CircuitBreaker circuitBreaker) {
         super(applicationName, applicationVersion.replace("-SNAPSHOT", ""), "-connection-cr");
         this.crUrl = crUrl;
         this.restTemplate = restTemplate;
+        this.circuitBreaker = circuitBreaker;
     }
 
     @Override
@@ -33,12 +42,14 @@ public class ClaimReceivedConnectionCheck extends CADSHealthCheck {
         CADSHealthCheck.Result rtnMsg;
         try {
             final String submissionServerEndpoint = crUrl + "/ping";
-            final ResponseEntity<String> response = restTemplate.getForEntity(submissionServerEndpoint, String.class);
+            final ResponseEntity<String> response = circuitBreaker.execute(() -> restTemplate.getForEntity(submissionServerEndpoint, String.class));
             if (response.getStatusCode().value() == HttpStatus.SC_OK) {
                 rtnMsg = CADSHealthCheck.Result.healthy();
             } else {
                 rtnMsg = Result.unhealthy("Claim received ping failed: " + response.getStatusCode().value() + ".");
             }
+        } catch (CircuitBreakerRejectedException cbre) {
+            rtnMsg = Result.unhealthy("Claim received circuit breaker " + circuitBreaker.getState() + ".");
         } catch (Exception e) {
             rtnMsg = Result.unhealthy(e);
         }
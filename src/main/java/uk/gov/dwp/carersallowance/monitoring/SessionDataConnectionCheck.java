@@ -6,26 +6,35 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Component;
 import org.springframework.web.client.RestTemplate;
+import uk.gov.dwp.carersallowance.circuitbreaker.CircuitBreaker;
+import uk.gov.dwp.carersallowance.circuitbreaker.CircuitBreakerRejectedException;
 
 import javax.inject.Inject;
+import javax.inject.Named;
 
 /**
  * Created by peterwhitehead on 28/06/2016.
+ *
+ * The ping goes through the session data circuit breaker, so while it is half open the check can be the probe
+ * call that closes it. While it is open the ping is not made and the breaker's state is reported.
  */
 @Component
 public class SessionDataConnectionCheck extends CADSHealthCheck {
 
     private final String crUrl;
     private final RestTemplate restTemplate;
+    private final CircuitBreaker circuitBreaker;
 
     @Inject
     public SessionDataConnectionCheck(final @Value("${application.name}") String applicationName,
                                       final @Value("${application.version}") String applicationVersion,
                                       final @Value("${sd.url}") String crUrl,
-                                      final RestTemplate restTemplate) {
+                                      final @Named("sessionDataRestTemplate") RestTemplate restTemplate,
+                                      final @Named("sessionDataCircuitBreaker") CircuitBreaker circuitBreaker) {
         super(applicationName, applicationVersion.replace("-SNAPSHOT", ""), "-connection-sd");
         this.crUrl = crUrl;
         this.restTemplate = restTemplate;
+        this.circuitBreaker = circuitBreaker;
     }
 
     @Override
@@ -33,12 +42,14 @@ public class SessionDataConnectionCheck extends CADSHealthCheck {
         Result rtnMsg;
         try {
             final String submissionServerEndpoint = crUrl + "/ping";
-            final ResponseEntity<String> response = restTemplate.getForEntity(submissionServerEndpoint, String.class);
+            final ResponseEntity<String> response = circuitBreaker.execute(() -> restTemplate.getForEntity(submissionServerEndpoint, String.class));
             if (response.getStatusCode().value() == HttpStatus.SC_OK) {
                 rtnMsg = Result.healthy();
             } else {
                 rtnMsg = Result.unhealthy("Session data ping failed: " + response.getStatusCode().value() + ".");
             }
+        } catch (CircuitBreakerRejectedException cbre) {
+            rtnMsg = Result.unhealthy("Session data circuit breaker " + circuitBreaker.getState() + ".");
         } catch (Exception e) {
             rtnMsg = Result.unhealthy(e);
         }
@@ -6,6 +6,7 @@ import java.util.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.context.MessageSource;
+import uk.gov.dwp.carersallowance.utils.C3Constants;
 import uk.gov.dwp.carersallowance.utils.LoggingObjectWrapper;
 import uk.gov.dwp.carersallowance.utils.Parameters;
 
@@ -24,7 +25,7 @@ public final class FieldCollection {
             return null;
         }
 
-        String fieldNameList = messageSource.getMessage(pageName + fieldName, null, null, Locale.getDefault());
+        String fieldNameList = messageSource.getMessage(pageName + fieldName, null, null, C3Constants.CONFIGURATION_LOCALE);
         LOG.debug("fieldNameList = {}", fieldNameList);
         if (fieldNameList == null) {
             return null;
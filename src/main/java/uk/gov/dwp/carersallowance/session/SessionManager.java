@@ -1,6 +1,6 @@
 package uk.gov.dwp.carersallowance.session;
 
-import java.net.URL;
+import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.UUID;
@@ -12,13 +12,20 @@ import javax.servlet.http.HttpServletResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.i18n.LocaleContextHolder;
 import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
 
+import gov.dwp.carers.monitor.Counters;
 import uk.gov.dwp.carersallowance.encryption.ClaimEncryptionService;
 import uk.gov.dwp.carersallowance.utils.C3Constants;
+import uk.gov.dwp.carersallowance.xml.MappingRegistry;
 import uk.gov.dwp.carersallowance.xml.XmlClaimReader;
 import uk.gov.dwp.carersallowance.sessiondata.Session;
 import uk.gov.dwp.carersallowance.sessiondata.SessionDataFactory;
+import uk.gov.dwp.carersallowance.sessiondata.SessionDataService;
+import uk.gov.dwp.carersallowance.sessiondata.SessionDelta;
 
 @Service
 public class SessionManager {
@@ -29,26 +36,61 @@ public class SessionManager {
     private final ClaimEncryptionService claimEncryptionService;
     private final String originTag;
     private final String xmlSchemaVersion;
+    private final Counters counters;
+    private final SessionWriteBehind sessionWriteBehind;
 
     @Inject
     public SessionManager(final CookieManager cookieManager,
                           final SessionDataFactory sessionDataFactory,
                           final ClaimEncryptionService claimEncryptionService,
                           @Value("${origin.tag}") final String originTag,
-                          @Value("${xml.schema.version}") final String xmlSchemaVersion){
+                          @Value("${xml.schema.version}") final String xmlSchemaVersion,
+                          final Counters counters,
+                          final SessionWriteBehind sessionWriteBehind){
         this.cookieManager = cookieManager;
         this.sessionDataFactory = sessionDataFactory;
         this.claimEncryptionService = claimEncryptionService;
         this.originTag = originTag;
         this.xmlSchemaVersion = xmlSchemaVersion;
+        this.counters = counters;
+        this.sessionWriteBehind = sessionWriteBehind;
     }
 
     public String createSessionId() {
         return UUID.randomUUID().toString();
     }
 
+    /**
+     * Inside a request unit of work the session is loaded once and the same instance handed back on every call.
+     */
     public Session getSession(final String sessionId) {
-        return claimEncryptionService.decryptClaim(sessionDataFactory.getSessionDataService().getSessionData(sessionId));
+        final SessionUnitOfWork unitOfWork = getUnitOfWork();
+        if (unitOfWork != null) {
+            final Session session = unitOfWork.getSession(sessionId);
+            if (session != null) {
+                counters.incrementMetric("session-reuse-count");
+                return session;
+            }
+        }
+        final Session session = loadSession(sessionId);
+        if (unitOfWork != null) {
+            unitOfWork.addSession(session);
+        }
+        return session;
+    }
+
+    /**
+     * A save still waiting to be written behind is newer than what the session data service holds.
+     */
+    private Session loadSession(final String sessionId) {
+        counters.incrementMetric("session-load-count");
+        Session stored = sessionWriteBehind.isEnabled() ? sessionWriteBehind.getSession(sessionId) : null;
+        if (stored == null) {
+            stored = sessionDataFactory.getSessionDataService().getSessionData(sessionId);
+        }
+        final Session session = claimEncryptionService.decryptClaim(stored);
+        session.markClean();
+        return session;
     }
 
     private Session createSession(final String sessionId, final String claimType) {
@@ -56,26 +98,122 @@ public class SessionManager {
     }
 
     public void removeSession(final String sessionId) {
+        final SessionUnitOfWork unitOfWork = getUnitOfWork();
+        if (unitOfWork != null) {
+            unitOfWork.detach(sessionId);
+        }
+        sessionWriteBehind.discard(sessionId);
         sessionDataFactory.getSessionDataService().removeSessionData(sessionId);
     }
 
+    /**
+     * A session handed out by the current request unit of work is written when the request completes,
+     * otherwise it is written straight away.
+     */
     public void saveSession(final Session session) {
-        sessionDataFactory.getSessionDataService().saveSessionData(claimEncryptionService.encryptClaim(session));
+        final SessionUnitOfWork unitOfWork = getUnitOfWork();
+        if (unitOfWork != null && unitOfWork.isAttached(session)) {
+            unitOfWork.requestSave(session);
+            return;
+        }
+        writeSession(session);
+    }
+
+    /**
+     * Writes the session now if it has changed, along with any earlier save still queued to be written behind, and
+     * takes it out of the request unit of work. For sessions that are about to be handed to another thread or must
+     * be in the session data service before the user moves on.
+     */
+    public void flushSession(final Session session) {
+        final SessionUnitOfWork unitOfWork = getUnitOfWork();
+        if (unitOfWork != null) {
+            unitOfWork.detach(session.getSessionId());
+        }
+        flush(session);
+        sessionWriteBehind.flush(session.getSessionId());
+    }
+
+    public void beginUnitOfWork(final HttpServletRequest request) {
+        if (request.getAttribute(SessionUnitOfWork.REQUEST_ATTRIBUTE) == null) {
+            request.setAttribute(SessionUnitOfWork.REQUEST_ATTRIBUTE, new SessionUnitOfWork());
+        }
+    }
+
+    /**
+     * Ends the request unit of work, writing the sessions a save was requested for that have changed.
+     * Does nothing if the unit of work has already ended.
+     *
+     * @param save false to discard pending saves
+     */
+    public void endUnitOfWork(final HttpServletRequest request, final boolean save) {
+        final SessionUnitOfWork unitOfWork = (SessionUnitOfWork)request.getAttribute(SessionUnitOfWork.REQUEST_ATTRIBUTE);
+        if (unitOfWork == null) {
+            return;
+        }
+        request.removeAttribute(SessionUnitOfWork.REQUEST_ATTRIBUTE);
+        final List<Session> sessions = unitOfWork.getSessionsToSave();
+        if (save) {
+            sessions.forEach(this::flush);
+        } else if (sessions.isEmpty() == false) {
+            LOG.info("Discarding unsaved changes to {} session(s)", sessions.size());
+        }
+    }
+
+    private void flush(final Session session) {
+        if (session.isModified()) {
+            counters.incrementMetric("session-flush-count");
+            writeSession(session);
+        } else {
+            counters.incrementMetric("session-flush-skipped-count");
+        }
+    }
+
+    private SessionUnitOfWork getUnitOfWork() {
+        final RequestAttributes requestAttributes = RequestContextHolder.getRequestAttributes();
+        if (requestAttributes == null) {
+            return null;
+        }
+        return (SessionUnitOfWork)requestAttributes.getAttribute(SessionUnitOfWork.REQUEST_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+    }
+
+    /**
+     * Sends just the changed attributes when the session data service holds the version the session was loaded at,
+     * nothing if none have changed, otherwise (or if the service rejects the delta) a full snapshot. With write behind
+     * on the full snapshot is queued instead, as coalesced saves cannot be sent as a single delta.
+     */
+    private void writeSession(final Session session) {
+        if (sessionWriteBehind.isEnabled()) {
+            sessionWriteBehind.save(claimEncryptionService.encryptClaim(session));
+            return;
+        }
+        final SessionDataService sessionDataService = sessionDataFactory.getSessionDataService();
+        if (session.getVersion() != null) {
+            final SessionDelta delta = session.createDelta();
+            if (delta.isEmpty()) {
+                counters.incrementMetric("session-save-skipped-count");
+                return;
+            }
+            LOG.debug("Saving session delta {}", delta);
+            if (sessionDataService.saveSessionDataDelta(claimEncryptionService.encryptDelta(delta))) {
+                return;
+            }
+        }
+        sessionDataService.saveSessionData(claimEncryptionService.encryptClaim(session));
     }
 
-    public void createSessionVariables(final HttpServletRequest request, final HttpServletResponse response, final String xmlFile, final URL mappingFile, final String claimType) {
+    public void createSessionVariables(final HttpServletRequest request, final HttpServletResponse response, final String xmlFile, final MappingRegistry mappingRegistry, final String claimType) {
         cookieManager.addVersionCookie(response);
         cookieManager.addGaCookie(request, response);
-        createSessionData(request, response, xmlFile, mappingFile, claimType);
+        createSessionData(request, response, xmlFile, mappingRegistry, claimType);
     }
 
-    private void createSessionData(final HttpServletRequest request, final HttpServletResponse response, final String xmlFile, final URL mappingFile, final String claimType) {
+    private void createSessionData(final HttpServletRequest request, final HttpServletResponse response, final String xmlFile, final MappingRegistry mappingRegistry, final String claimType) {
         final String sessionId = createSessionId();
         Session session = createSession(sessionId, claimType);
         request.setAttribute(Session.SESSION_ID, sessionId);
         cookieManager.addSessionCookie(response, sessionId);
         if (xmlFile != null && xmlFile.length() > 0) {
-            loadReplicaData(session, xmlFile, mappingFile);
+            loadReplicaData(session, xmlFile, mappingRegistry);
         }
         session.setAttribute("xmlVersion", xmlSchemaVersion);
         session.setAttribute("originTag", originTag);
@@ -86,16 +224,16 @@ public class SessionManager {
     }
 
     private void setLanguage(final Session session) {
-        Locale locale = Locale.getDefault();
+        Locale locale = LocaleContextHolder.getLocale();
         final String localeLang = locale.getLanguage();
         session.setAttribute("language", C3Constants.WELSH_LANG.equals(localeLang) ? C3Constants.WELSH : C3Constants.ENGLISH);
     }
 
-    private void loadReplicaData(Session session, final String xmlFile, final URL mappingFile) {
+    private void loadReplicaData(Session session, final String xmlFile, final MappingRegistry mappingRegistry) {
         try {
             LOG.info("Using XMLFile " + xmlFile);
-            LOG.info("Using mapping file " + mappingFile);
-            XmlClaimReader claimReader = new XmlClaimReader(xmlFile, true, mappingFile);
+            LOG.info("Using mapping file " + mappingRegistry.getMappingName());
+            XmlClaimReader claimReader = new XmlClaimReader(xmlFile, true, mappingRegistry);
 
             Map<String, Object> values = claimReader.getValues();
             for (String name : values.keySet()) {
@@ -0,0 +1,75 @@
+package uk.gov.dwp.carersallowance.session;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import uk.gov.dwp.carersallowance.sessiondata.Session;
+
+/**
+ * The sessions loaded while handling a single request. Every SessionManager.getSession call in the request gets the
+ * same Session instance back, and saveSession only records that a save is wanted; the write happens once when the
+ * request completes. Only used from the request thread so it is not thread safe.
+ */
+public class SessionUnitOfWork {
+    public static final String REQUEST_ATTRIBUTE = SessionUnitOfWork.class.getName();
+
+    private final Map<String, Session> sessions;
+    private final Set<String> saveRequested;
+
+    public SessionUnitOfWork() {
+        this.sessions = new LinkedHashMap<>();
+        this.saveRequested = new HashSet<>();
+    }
+
+    public Session getSession(final String sessionId) {
+        return sessions.get(sessionId);
+    }
+
+    public void addSession(final Session session) {
+        sessions.put(session.getSessionId(), session);
+    }
+
+    /**
+     * @return true if this exact instance is the one handed out for its session id
+     */
+    public boolean isAttached(final Session session) {
+        return session != null && sessions.get(session.getSessionId()) == session;
+    }
+
+    public void requestSave(final Session session) {
+        saveRequested.add(session.getSessionId());
+    }
+
+    public void detach(final String sessionId) {
+        sessions.remove(sessionId);
+        saveRequested.remove(sessionId);
+    }
+
+    /**
+     * @return the sessions a save was requested for, in the order they were loaded
+     */
+    public List<Session> getSessionsToSave() {
+        final List<Session> toSave = new ArrayList<>();
+        for (final Session session : sessions.values()) {
+            if (saveRequested.contains(session.getSessionId())) {
+                toSave.add(session);
+            }
+        }
+        return toSave;
+    }
+
+    @Override
+    public String toString() {
+        StringBuffer buffer = new StringBuffer();
+        buffer.append(this.getClass().getName()).append("@").append(System.identityHashCode(this));
+        buffer.append("=[");
+        buffer.append("sessions = ").append(sessions.keySet());
+        buffer.append(", saveRequested = ").append(saveRequested);
+        buffer.append("]");
+        return buffer.toString();
+    }
+}
@@ -0,0 +1,283 @@
+package uk.gov.dwp.carersallowance.session;
+
+import gov.dwp.carers.monitor.Counters;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.metrics.GaugeService;
+import org.springframework.stereotype.Component;
+import uk.gov.dwp.carersallowance.sessiondata.Session;
+import uk.gov.dwp.carersallowance.sessiondata.SessionDataFactory;
+
+import javax.annotation.PreDestroy;
+import javax.inject.Inject;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Optional write behind for session saves, so the user's redirect does not wait on the session data service.
+ *
+ * A save records a snapshot, a copy of the (already encrypted) session, and a worker hands it to the session data
+ * service later, so it is only encoded once. Saves for a session already waiting replace its snapshot, so only the
+ * newest is sent. Until the write completes getSession on this node is answered with a copy of the snapshot. Writes
+ * for one session never overlap, so an older snapshot cannot overwrite a newer one. When
+ * session.write.behind.queue.size sessions are waiting, further saves are written on the calling thread instead.
+ *
+ * A failed write keeps its snapshot and is retried by a worker after a backoff that doubles with each failure, from
+ * RETRY_MIN_MILLIS up to RETRY_MAX_MILLIS, until it is written, discarded or replaced by a newer save. A forced flush
+ * that fails throws as well.
+ */
+@Component
+public class SessionWriteBehind {
+    private static final Logger LOG = LoggerFactory.getLogger(SessionWriteBehind.class);
+    private static final int LOCK_STRIPES = 64;
+    static final long RETRY_MIN_MILLIS = 1000;
+    static final long RETRY_MAX_MILLIS = 60000;
+
+    private final boolean enabled;
+    private final int queueSize;
+    private final SessionDataFactory sessionDataFactory;
+    private final Counters counters;
+    private final GaugeService gaugeService;
+    private final ScheduledExecutorService executor;
+    private final Map<String, Pending> pending;
+    private final Map<String, Pending> inFlight;
+    private final Object[] locks;
+
+    @Inject
+    public SessionWriteBehind(final @Value("${session.write.behind}") Boolean enabled,
+                              final @Value("${session.write.behind.threads}") Integer threads,
+                              final @Value("${session.write.behind.queue.size}") Integer queueSize,
+                              final SessionDataFactory sessionDataFactory,
+                              final Counters counters,
+                              final GaugeService gaugeService) {
+        this(enabled, queueSize, sessionDataFactory, counters, gaugeService, enabled ? createExecutor(threads) : null);
+    }
+
+    SessionWriteBehind(final Boolean enabled, final Integer queueSize, final SessionDataFactory sessionDataFactory,
+                       final Counters counters, final GaugeService gaugeService, final ScheduledExecutorService executor) {
+        this.enabled = enabled;
+        this.queueSize = queueSize;
+        this.sessionDataFactory = sessionDataFactory;
+        this.counters = counters;
+        this.gaugeService = gaugeService;
+        this.executor = executor;
+        this.pending = new HashMap<>();
+        this.inFlight = new HashMap<>();
+        this.locks = new Object[LOCK_STRIPES];
+        for (int lock = 0; lock < LOCK_STRIPES; lock++) {
+            locks[lock] = new Object();
+        }
+    }
+
+    private static ScheduledExecutorService createExecutor(final Integer threads) {
+        final AtomicInteger count = new AtomicInteger();
+        return Executors.newScheduledThreadPool(threads, runnable -> {
+            final Thread thread = new Thread(runnable, "session-write-behind-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Queues the session to be written, or writes it now if the queue is full.
+     */
+    public void save(final Session session) {
+        final String sessionId = session.getSessionId();
+        final Session snapshot = session.copy();
+        session.markClean();
+        final Pending entry;
+        final boolean submit;
+        synchronized (this) {
+            entry = enqueue(sessionId, snapshot);
+            submit = entry != null && entry.queued == false;
+            if (submit) {
+                entry.queued = true;
+            }
+            gaugeService.submit("session.write.behind.depth", pending.size());
+        }
+        if (submit) {
+            executor.execute(() -> flushQuietly(sessionId));
+        } else if (entry == null) {
+            counters.incrementMetric("session-write-behind-backpressure");
+            LOG.debug("Session write behind queue full, writing sessionId:{} on the request thread.", sessionId);
+            synchronized (lockFor(sessionId)) {
+                write(sessionId, snapshot);
+            }
+        }
+    }
+
+    /**
+     * @return the entry now holding the snapshot, or null if the queue is full
+     */
+    private Pending enqueue(final String sessionId, final Session snapshot) {
+        Pending entry = pending.get(sessionId);
+        if (entry != null) {
+            entry.snapshot = snapshot;
+            counters.incrementMetric("session-write-behind-coalesced");
+        } else if (pending.size() < queueSize) {
+            entry = new Pending(snapshot);
+            pending.put(sessionId, entry);
+            counters.incrementMetric("session-write-behind-queued");
+        }
+        return entry;
+    }
+
+    /**
+     * @return a copy of the snapshot not yet written for the session, or null if there is none
+     */
+    public Session getSession(final String sessionId) {
+        final Session snapshot;
+        synchronized (this) {
+            Pending entry = pending.get(sessionId);
+            if (entry == null) {
+                entry = inFlight.get(sessionId);
+            }
+            if (entry == null) {
+                return null;
+            }
+            snapshot = entry.snapshot;
+        }
+        counters.incrementMetric("session-write-behind-read");
+        return snapshot.copy();
+    }
+
+    /**
+     * Writes any snapshot waiting for the session now, waiting for a write already under way to finish first.
+     *
+     * @throws uk.gov.dwp.carersallowance.sessiondata.SessionDataServiceException if the write fails
+     */
+    public void flush(final String sessionId) {
+        if (enabled) {
+            flush(sessionId, true);
+        }
+    }
+
+    /**
+     * Drops any snapshot waiting for the session, once a write already under way has finished.
+     */
+    public void discard(final String sessionId) {
+        if (enabled == false) {
+            return;
+        }
+        synchronized (lockFor(sessionId)) {
+            synchronized (this) {
+                pending.remove(sessionId);
+            }
+        }
+    }
+
+    public synchronized int getQueueDepth() {
+        return pending.size();
+    }
+
+    /**
+     * Writes everything still waiting before the application stops.
+     */
+    @PreDestroy
+    public void shutdown() {
+        if (enabled == false) {
+            return;
+        }
+        executor.shutdown();
+        final List<String> sessionIds;
+        synchronized (this) {
+            sessionIds = new ArrayList<>(pending.keySet());
+        }
+        LOG.info("Writing {} queued session(s) before shutdown.", sessionIds.size());
+        sessionIds.forEach(this::flushQuietly);
+        try {
+            executor.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void flushQuietly(final String sessionId) {
+        try {
+            flush(sessionId, false);
+        } catch (RuntimeException e) {
+            LOG.error("Session write behind failed for sessionId:{}, keeping it to retry. {}", sessionId, e.getMessage());
+        }
+    }
+
+    private void flush(final String sessionId, final boolean forced) {
+        synchronized (lockFor(sessionId)) {
+            final Pending entry;
+            synchronized (this) {
+                entry = pending.remove(sessionId);
+                if (entry == null) {
+                    return;
+                }
+                inFlight.put(sessionId, entry);
+            }
+            if (forced) {
+                counters.incrementMetric("session-write-behind-forced");
+            }
+            try {
+                write(sessionId, entry.snapshot);
+                gaugeService.submit("session.write.behind.latency", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - entry.queuedNanos));
+            } catch (RuntimeException e) {
+                counters.incrementMetric("session-write-behind-failed");
+                final long retryMillis;
+                synchronized (this) {
+                    // a newer save already waiting is written instead, and carries its own retries
+                    entry.queued = pending.putIfAbsent(sessionId, entry) == null;
+                    retryMillis = entry.queued ? Math.min(RETRY_MAX_MILLIS, RETRY_MIN_MILLIS << Math.min(entry.failures++, 16)) : 0;
+                }
+                if (retryMillis > 0) {
+                    scheduleRetry(sessionId, entry, retryMillis);
+                }
+                throw e;
+            } finally {
+                synchronized (this) {
+                    inFlight.remove(sessionId);
+                    gaugeService.submit("session.write.behind.depth", pending.size());
+                }
+            }
+        }
+    }
+
+    private void scheduleRetry(final String sessionId, final Pending entry, final long retryMillis) {
+        try {
+            executor.schedule(() -> flushQuietly(sessionId), retryMillis, TimeUnit.MILLISECONDS);
+            counters.incrementMetric("session-write-behind-retry");
+        } catch (RejectedExecutionException ree) {
+            // shutting down, left for flush
+            synchronized (this) {
+                entry.queued = false;
+            }
+        }
+    }
+
+    private void write(final String sessionId, final Session snapshot) {
+        sessionDataFactory.getSessionDataService().saveSessionData(snapshot);
+    }
+
+    private Object lockFor(final String sessionId) {
+        return locks[(sessionId.hashCode() & Integer.MAX_VALUE) % LOCK_STRIPES];
+    }
+
+    private static class Pending {
+        private final long queuedNanos;
+        private Session snapshot;
+        private boolean queued;
+        private int failures;
+
+        private Pending(final Session snapshot) {
+            this.queuedNanos = System.nanoTime();
+            this.snapshot = snapshot;
+        }
+    }
+}
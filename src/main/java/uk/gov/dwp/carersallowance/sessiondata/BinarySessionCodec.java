@@ -0,0 +1,238 @@
+package uk.gov.dwp.carersallowance.sessiondata;
+
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compact binary session payload format.
+ *
+ * Layout: the magic bytes "C3S", a version byte, an entry count, then for each entry a length prefixed UTF-8 key
+ * followed by a tagged value. Lengths and counts are unsigned varints, string lengths are stored plus one so that
+ * zero can mark a null, keys included. Only the value types the claim actually puts in the session are supported:
+ * String, String[], Boolean and (nested) List / Map field collections.
+ */
+@Component
+public class BinarySessionCodec implements SessionCodec {
+    static final byte[] MAGIC = {'C', '3', 'S'};
+    static final byte VERSION = 1;
+
+    private static final byte TAG_NULL = 0;
+    private static final byte TAG_STRING = 1;
+    private static final byte TAG_STRING_ARRAY = 2;
+    private static final byte TAG_TRUE = 3;
+    private static final byte TAG_FALSE = 4;
+    private static final byte TAG_LIST = 5;
+    private static final byte TAG_MAP = 6;
+
+    public static boolean isBinaryPayload(final byte[] payload) {
+        if (payload == null || payload.length < MAGIC.length + 1) {
+            return false;
+        }
+        for (int index = 0; index < MAGIC.length; index++) {
+            if (payload[index] != MAGIC[index]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public byte[] encode(final Map<String, Object> data) {
+        final Writer writer = new Writer(data.size() * 24);
+        writer.writeRaw(MAGIC);
+        writer.writeByte(VERSION);
+        writer.writeMap(data);
+        return writer.toByteArray();
+    }
+
+    @Override
+    public Map<String, Object> decode(final byte[] payload) {
+        if (isBinaryPayload(payload) == false) {
+            throw new SessionDataServiceException("Session payload is not in binary session format.");
+        }
+        if (payload[MAGIC.length] != VERSION) {
+            throw new SessionDataServiceException("Unsupported binary session format version:" + payload[MAGIC.length] + ".");
+        }
+        final Reader reader = new Reader(payload, MAGIC.length + 1);
+        final Map<String, Object> data = reader.readMap();
+        if (reader.position != payload.length) {
+            throw new SessionDataServiceException("Binary session payload has " + (payload.length - reader.position) + " trailing bytes.");
+        }
+        return data;
+    }
+
+    private static final class Writer extends ByteArrayOutputStream {
+        Writer(final int size) {
+            super(size);
+        }
+
+        void writeByte(final int value) {
+            write(value);
+        }
+
+        void writeRaw(final byte[] value) {
+            write(value, 0, value.length);
+        }
+
+        void writeVarInt(int value) {
+            while ((value & ~0x7F) != 0) {
+                write((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            write(value);
+        }
+
+        void writeNullableString(final String value) {
+            if (value == null) {
+                writeVarInt(0);
+            } else {
+                final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                writeVarInt(bytes.length + 1);
+                writeRaw(bytes);
+            }
+        }
+
+        void writeMap(final Map<?, ?> map) {
+            writeVarInt(map.size());
+            for (final Map.Entry<?, ?> entry : map.entrySet()) {
+                if (entry.getKey() != null && entry.getKey() instanceof String == false) {
+                    throw new SessionDataServiceException("Session map key is not a String:" + entry.getKey() + ".");
+                }
+                writeNullableString((String)entry.getKey());
+                writeValue(entry.getValue());
+            }
+        }
+
+        void writeValue(final Object value) {
+            if (value == null) {
+                writeByte(TAG_NULL);
+            } else if (value instanceof String) {
+                writeByte(TAG_STRING);
+                writeNullableString((String)value);
+            } else if (value instanceof String[]) {
+                final String[] values = (String[])value;
+                writeByte(TAG_STRING_ARRAY);
+                writeVarInt(values.length);
+                for (final String element : values) {
+                    writeNullableString(element);
+                }
+            } else if (value instanceof Boolean) {
+                writeByte((Boolean)value ? TAG_TRUE : TAG_FALSE);
+            } else if (value instanceof List) {
+                final List<?> values = (List<?>)value;
+                writeByte(TAG_LIST);
+                writeVarInt(values.size());
+                for (final Object element : values) {
+                    writeValue(element);
+                }
+            } else if (value instanceof Map) {
+                writeByte(TAG_MAP);
+                writeMap((Map<?, ?>)value);
+            } else {
+                throw new SessionDataServiceException("Unsupported session value type:" + value.getClass().getName() + ".");
+            }
+        }
+    }
+
+    private static final class Reader {
+        private final byte[] buffer;
+        private int position;
+
+        Reader(final byte[] buffer, final int position) {
+            this.buffer = buffer;
+            this.position = position;
+        }
+
+        byte readByte() {
+            if (position >= buffer.length) {
+                throw new SessionDataServiceException("Binary session payload is truncated.");
+            }
+            return buffer[position++];
+        }
+
+        int readVarInt() {
+            int value = 0;
+            for (int shift = 0; shift < 32; shift += 7) {
+                final byte current = readByte();
+                value |= (current & 0x7F) << shift;
+                if ((current & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new SessionDataServiceException("Binary session payload has a malformed length.");
+        }
+
+        /**
+         * Every entry or element takes at least one byte, so a count larger than the bytes left is corrupt and is
+         * refused before anything is sized from it.
+         */
+        int readCount() {
+            final int count = readVarInt();
+            if (count < 0 || count > buffer.length - position) {
+                throw new SessionDataServiceException("Binary session payload has a count of " + count + " with " + (buffer.length - position) + " bytes left.");
+            }
+            return count;
+        }
+
+        String readString(final int length) {
+            if (length < 0 || length > buffer.length - position) {
+                throw new SessionDataServiceException("Binary session payload is truncated.");
+            }
+            final String value = new String(buffer, position, length, StandardCharsets.UTF_8);
+            position += length;
+            return value;
+        }
+
+        String readNullableString() {
+            final int length = readVarInt();
+            return length == 0 ? null : readString(length - 1);
+        }
+
+        Map<String, Object> readMap() {
+            final int size = readCount();
+            final Map<String, Object> map = new HashMap<>(Math.max(16, (int)(size / 0.75f) + 1));
+            for (int index = 0; index < size; index++) {
+                final String key = readNullableString();
+                map.put(key, readValue());
+            }
+            return map;
+        }
+
+        Object readValue() {
+            final byte tag = readByte();
+            switch (tag) {
+                case TAG_NULL:
+                    return null;
+                case TAG_STRING:
+                    return readNullableString();
+                case TAG_STRING_ARRAY:
+                    final String[] values = new String[readCount()];
+                    for (int index = 0; index < values.length; index++) {
+                        values[index] = readNullableString();
+                    }
+                    return values;
+                case TAG_TRUE:
+                    return Boolean.TRUE;
+                case TAG_FALSE:
+                    return Boolean.FALSE;
+                case TAG_LIST:
+                    final int size = readCount();
+                    final List<Object> list = new ArrayList<>(size);
+                    for (int index = 0; index < size; index++) {
+                        list.add(readValue());
+                    }
+                    return list;
+                case TAG_MAP:
+                    return readMap();
+                default:
+                    throw new SessionDataServiceException("Unknown binary session value tag:" + tag + ".");
+            }
+        }
+    }
+}
@@ -3,24 +3,38 @@ package uk.gov.dwp.carersallowance.sessiondata;
 import org.apache.commons.lang3.StringUtils;
 import uk.gov.dwp.carersallowance.utils.Parameters;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
 /**
  * Created by peterwhitehead on 22/12/2016.
+ *
+ * Tracks which attributes have changed since the session was loaded or last saved so that only those need to be
+ * sent to the session data service. Only setAttribute and removeAttribute count as changes, so callers that update a
+ * List or Map value (a field collection) in place must set it back once they have done so.
  */
 public class Session {
     private String sessionId;
     private Map<String, Object> data;
+    private final Set<String> changedAttributes;
+    private long generation;
+    private Long version;
+    private boolean trusted;
     public static final String SESSION_ID = "sessionId";
 
     public Session(String sessionId, Map<String, Object> data) {
         Parameters.validateMandatoryArgs(new Object[]{sessionId, data}, new String[]{ Session.SESSION_ID, "data" });
         this.sessionId = sessionId;
         this.data = data;
+        this.changedAttributes = new HashSet<>();
     }
 
     public Session() {
@@ -31,15 +45,22 @@ public class Session {
         this(sessionId, new HashMap<>());
     }
 
+    /**
+     * @return a read only view of the attributes, changes must go through setAttribute / removeAttribute
+     */
     public Map<String, Object> getData() {
-        return data;
+        return Collections.unmodifiableMap(data);
     }
 
     public void setAttribute(final String name, final Object value) {
         if (StringUtils.isEmpty(name)) {
             return;
         }
-        data.put(name, value);
+        final boolean present = data.containsKey(name);
+        final Object previous = data.put(name, value);
+        if (present == false || isMutable(value) || Objects.deepEquals(previous, value) == false) {
+            attributeChanged(name);
+        }
     }
 
     public Object getAttribute(final String name) {
@@ -51,18 +72,141 @@ public class Session {
     }
 
     public void removeAttribute(String fieldName) {
-        data.remove(fieldName);
+        if (data.containsKey(fieldName)) {
+            data.remove(fieldName);
+            attributeChanged(fieldName);
+        }
     }
 
     public String getSessionId() {
         return sessionId;
     }
 
+    /**
+     * @return incremented on every change, used to tell whether the session changed after a delta was taken
+     */
+    public long getGeneration() {
+        return generation;
+    }
+
+    /**
+     * @return the version held by the session data service that this session was loaded from or last saved as,
+     * null when the service did not supply one
+     */
+    public Long getVersion() {
+        return version;
+    }
+
+    /**
+     * @return true when the session came from this node's cache without the session data service confirming its
+     * version, so a delta against that version may be refused
+     */
+    public boolean isTrusted() {
+        return trusted;
+    }
+
+    public void markTrusted() {
+        this.trusted = true;
+    }
+
+    public Boolean isModified() {
+        return changedAttributes.isEmpty() == false;
+    }
+
+    public Set<String> getChangedAttributeNames() {
+        return Collections.unmodifiableSet(changedAttributes);
+    }
+
+    /**
+     * Forget the changes made so far without touching the version, e.g. after the values have been decrypted on load.
+     */
+    public void markClean() {
+        changedAttributes.clear();
+    }
+
+    public void markSaved(final Long version) {
+        this.version = version;
+        this.trusted = false;
+        markClean();
+    }
+
+    /**
+     * Mark a delta as saved. If the session changed after the delta was taken the changes are kept, so they
+     * are sent again with the next save rather than lost.
+     */
+    public void markSaved(final SessionDelta delta, final Long version) {
+        this.version = version;
+        this.trusted = false;
+        if (generation == delta.getGeneration()) {
+            markClean();
+        }
+    }
+
+    public SessionDelta createDelta() {
+        final Map<String, Object> changed = new HashMap<>();
+        final Set<String> removed = new HashSet<>();
+        for (final String name : changedAttributes) {
+            if (data.containsKey(name)) {
+                changed.put(name, data.get(name));
+            } else {
+                removed.add(name);
+            }
+        }
+        return new SessionDelta(this, version, generation, changed, removed);
+    }
+
+    private void attributeChanged(final String name) {
+        changedAttributes.add(name);
+        generation++;
+    }
+
+    /**
+     * @return a new, unsaved session holding a copy of the attributes that shares no arrays or field collections
+     * with this one
+     */
+    public Session copy() {
+        return new Session(sessionId, copyData(data));
+    }
+
+    static Map<String, Object> copyData(final Map<String, Object> data) {
+        final Map<String, Object> copy = new HashMap<>();
+        for (final Map.Entry<String, Object> entry : data.entrySet()) {
+            copy.put(entry.getKey(), copyValue(entry.getValue()));
+        }
+        return copy;
+    }
+
+    /**
+     * Strings and Booleans are immutable, arrays and field collections are not.
+     */
+    @SuppressWarnings("unchecked")
+    static Object copyValue(final Object value) {
+        if (value instanceof String[]) {
+            return ((String[])value).clone();
+        }
+        if (value instanceof List) {
+            final List<Object> copy = new ArrayList<>();
+            for (final Object item : (List<Object>)value) {
+                copy.add(copyValue(item));
+            }
+            return copy;
+        }
+        if (value instanceof Map) {
+            return new HashMap<>((Map<String, Object>)value);
+        }
+        return value;
+    }
+
+    private static boolean isMutable(final Object value) {
+        return value instanceof List || value instanceof Map;
+    }
+
     public String toString() {
         StringBuffer buffer = new StringBuffer();
         buffer.append(this.getClass().getName()).append("@").append(System.identityHashCode(this));
         buffer.append("=[");
         buffer.append("sessionId = ").append(sessionId);
+        buffer.append(", version = ").append(version);
         buffer.append(", data = ").append(data);
         buffer.append("]");
         return buffer.toString();
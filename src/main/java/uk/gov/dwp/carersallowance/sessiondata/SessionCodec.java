@@ -0,0 +1,12 @@
+package uk.gov.dwp.carersallowance.sessiondata;
+
+import java.util.Map;
+
+/**
+ * Converts the session attribute map to and from the payload bytes stored by the session data service.
+ * Implementations must be thread safe as a single instance is shared by all requests.
+ */
+public interface SessionCodec {
+    byte[] encode(final Map<String, Object> data);
+    Map<String, Object> decode(final byte[] payload);
+}
@@ -0,0 +1,46 @@
+package uk.gov.dwp.carersallowance.sessiondata;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.inject.Inject;
+
+/**
+ * Selects the codec used to write session payloads from session.data.codec (binary or xstream).
+ * Payloads are always read with the codec that wrote them so either format can be loaded whichever is configured.
+ */
+@Component
+public class SessionCodecFactory {
+    public static final String BINARY = "binary";
+    public static final String XSTREAM = "xstream";
+
+    private final SessionCodec writeCodec;
+    private final XStreamSessionCodec xStreamSessionCodec;
+    private final BinarySessionCodec binarySessionCodec;
+
+    @Inject
+    public SessionCodecFactory(final @Value("${session.data.codec}") String codecName,
+                               final XStreamSessionCodec xStreamSessionCodec,
+                               final BinarySessionCodec binarySessionCodec) {
+        this.xStreamSessionCodec = xStreamSessionCodec;
+        this.binarySessionCodec = binarySessionCodec;
+        if (BINARY.equalsIgnoreCase(codecName)) {
+            writeCodec = binarySessionCodec;
+        } else if (XSTREAM.equalsIgnoreCase(codecName)) {
+            writeCodec = xStreamSessionCodec;
+        } else {
+            throw new IllegalArgumentException("Unknown session.data.codec:" + codecName + ", expecting " + BINARY + " or " + XSTREAM);
+        }
+    }
+
+    public SessionCodec getSessionCodec() {
+        return writeCodec;
+    }
+
+    public SessionCodec getSessionCodec(final byte[] payload) {
+        if (BinarySessionCodec.isBinaryPayload(payload)) {
+            return binarySessionCodec;
+        }
+        return xStreamSessionCodec;
+    }
+}
@@ -7,13 +7,19 @@ public class SessionData {
     private String sessionId;
     private String payload;
     private String minutesSinceLastActive;
+    private String version;
 
     public SessionData() {}
 
     public SessionData(final String sessionId, final String payload, final String minutesSinceLastActive) {
+        this(sessionId, payload, minutesSinceLastActive, null);
+    }
+
+    public SessionData(final String sessionId, final String payload, final String minutesSinceLastActive, final String version) {
         this.sessionId = sessionId;
         this.payload = payload;
         this.minutesSinceLastActive = minutesSinceLastActive;
+        this.version = version;
     }
 
     public String getSessionId() {
@@ -39,4 +45,12 @@ public class SessionData {
     public void setMinutesSinceLastActive(String minutesSinceLastActive) {
         this.minutesSinceLastActive = minutesSinceLastActive;
     }
+
+    public String getVersion() {
+        return version;
+    }
+
+    public void setVersion(String version) {
+        this.version = version;
+    }
 }
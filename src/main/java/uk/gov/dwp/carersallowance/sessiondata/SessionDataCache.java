@@ -0,0 +1,202 @@
+package uk.gov.dwp.carersallowance.sessiondata;
+
+import gov.dwp.carers.monitor.Counters;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.inject.Inject;
+import java.time.Clock;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Near cache of the sessions this node has loaded or saved, as held by the session data service (i.e. still
+ * encrypted), together with the version the service holds them at. A cached session normally only needs the service
+ * to confirm its version is still current. When the load balancer keeps each user on one node (session affinity), a
+ * session that has been confirmed several times in a row is then trusted without asking for a short while. Without
+ * affinity another node may have saved the session in the meantime, so nothing is trusted.
+ *
+ * Least recently used sessions are dropped once the cache is full, a size of 0 turns it off.
+ */
+@Component
+public class SessionDataCache {
+    private static final Logger LOG = LoggerFactory.getLogger(SessionDataCache.class);
+    static final int STICKY_CONFIRMATIONS = 3;
+
+    private final int maxEntries;
+    private final long trustMillis;
+    private final long expiryMillis;
+    private final Counters counters;
+    private final Clock clock;
+    private final Map<String, Entry> entries;
+
+    @Inject
+    public SessionDataCache(final @Value("${session.data.cache.size}") Integer maxEntries,
+                            final @Value("${session.data.cache.trust.millis}") Long trustMillis,
+                            final @Value("${session.data.cache.affinity}") Boolean affinity,
+                            final @Value("${session.data.claim.expiry}") Integer claimExpiryTime,
+                            final Counters counters) {
+        this(maxEntries, trustMillis, affinity, claimExpiryTime, counters, Clock.systemUTC());
+    }
+
+    SessionDataCache(final Integer maxEntries, final Long trustMillis, final Boolean affinity, final Integer claimExpiryTime, final Counters counters, final Clock clock) {
+        this.maxEntries = maxEntries;
+        if (trustMillis > 0 && affinity == false) {
+            LOG.warn("session.data.cache.trust.millis is ignored as session.data.cache.affinity is not set, every cached session is checked.");
+        }
+        this.trustMillis = affinity ? trustMillis : 0;
+        this.expiryMillis = TimeUnit.MINUTES.toMillis(claimExpiryTime);
+        this.counters = counters;
+        this.clock = clock;
+        this.entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<String, Entry> eldest) {
+                if (size() > SessionDataCache.this.maxEntries) {
+                    counters.incrementMetric("session-cache-eviction");
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * @return a copy of the cached session if it can be used without asking the session data service, otherwise null
+     */
+    public synchronized Session getTrusted(final String sessionId) {
+        if (trustMillis <= 0) {
+            return null;
+        }
+        final Entry entry = getEntry(sessionId);
+        if (entry == null || entry.confirmations < STICKY_CONFIRMATIONS || clock.millis() - entry.validated > trustMillis) {
+            return null;
+        }
+        counters.incrementMetric("session-cache-trusted-hit");
+        final Session session = entry.toSession(sessionId);
+        session.markTrusted();
+        return session;
+    }
+
+    /**
+     * @return the version of the cached session to check with the session data service, or null if it is not cached
+     */
+    public synchronized Long getVersion(final String sessionId) {
+        final Entry entry = getEntry(sessionId);
+        if (entry == null) {
+            counters.incrementMetric("session-cache-miss");
+            return null;
+        }
+        return entry.version;
+    }
+
+    /**
+     * The session data service still holds the version returned by getVersion.
+     *
+     * @return a copy of the cached session, or null if it has been replaced or dropped since
+     */
+    public synchronized Session confirm(final String sessionId, final Long version) {
+        final Entry entry = getEntry(sessionId);
+        if (entry == null || entry.version.equals(version) == false) {
+            return null;
+        }
+        entry.confirmations++;
+        entry.validated = clock.millis();
+        counters.incrementMetric("session-cache-hit");
+        return entry.toSession(sessionId);
+    }
+
+    /**
+     * The session data service has moved on from the cached version, so another node has saved the session.
+     */
+    public synchronized void stale(final String sessionId) {
+        counters.incrementMetric("session-cache-stale");
+        entries.remove(sessionId);
+    }
+
+    public synchronized void invalidate(final String sessionId) {
+        entries.remove(sessionId);
+    }
+
+    /**
+     * Caches a copy of the session data as held by the session data service at the given version,
+     * sessions of services that do not version them are not cached.
+     */
+    public synchronized void put(final String sessionId, final Map<String, Object> data, final Long version) {
+        if (maxEntries <= 0 || version == null) {
+            entries.remove(sessionId);
+            return;
+        }
+        final Entry previous = entries.get(sessionId);
+        final Entry entry = new Entry(Session.copyData(data), version, clock.millis());
+        if (previous != null) {
+            entry.confirmations = previous.confirmations;
+        }
+        entries.put(sessionId, entry);
+    }
+
+    /**
+     * Applies a delta the session data service accepted to the cached copy, as long as the copy is the version
+     * the delta was made against.
+     */
+    public synchronized void apply(final SessionDelta delta, final Long version) {
+        final Entry entry = entries.get(delta.getSessionId());
+        if (entry == null || version == null || entry.version.equals(delta.getBaseVersion()) == false) {
+            entries.remove(delta.getSessionId());
+            return;
+        }
+        for (final String name : delta.getRemovedAttributes()) {
+            entry.data.remove(name);
+        }
+        for (final Map.Entry<String, Object> changed : delta.getChangedAttributes().entrySet()) {
+            entry.data.put(changed.getKey(), Session.copyValue(changed.getValue()));
+        }
+        entry.version = version;
+        entry.validated = clock.millis();
+        entry.accessed = entry.validated;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Sessions idle for longer than the claim expiry are left to the session data service to time out.
+     */
+    private Entry getEntry(final String sessionId) {
+        final Entry entry = entries.get(sessionId);
+        if (entry == null) {
+            return null;
+        }
+        final long now = clock.millis();
+        if (now - entry.accessed > expiryMillis) {
+            entries.remove(sessionId);
+            return null;
+        }
+        entry.accessed = now;
+        return entry;
+    }
+
+    private static class Entry {
+        private final Map<String, Object> data;
+        private Long version;
+        private long validated;
+        private long accessed;
+        private int confirmations;
+
+        private Entry(final Map<String, Object> data, final Long version, final long now) {
+            this.data = data;
+            this.version = version;
+            this.validated = now;
+            this.accessed = now;
+        }
+
+        private Session toSession(final String sessionId) {
+            final Session session = new Session(sessionId, Session.copyData(data));
+            session.markSaved(version);
+            return session;
+        }
+    }
+}
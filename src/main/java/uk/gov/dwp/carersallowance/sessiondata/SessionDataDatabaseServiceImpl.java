@@ -5,16 +5,21 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.*;
 import org.springframework.stereotype.Service;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.web.client.HttpStatusCodeException;
 import org.springframework.web.client.RestClientException;
 import org.springframework.web.client.RestTemplate;
+import uk.gov.dwp.carersallowance.circuitbreaker.CircuitBreaker;
+import uk.gov.dwp.carersallowance.circuitbreaker.CircuitBreakerRejectedException;
 import uk.gov.dwp.carersallowance.session.NoSessionException;
 import uk.gov.dwp.carersallowance.utils.C3Constants;
 import utils.XorEncryption;
-import com.thoughtworks.xstream.XStream;
-import com.thoughtworks.xstream.io.xml.StaxDriver;
 
+import javax.inject.Named;
 import javax.xml.bind.DatatypeConverter;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.Map;
 
 /**
@@ -23,27 +28,31 @@ import java.util.Map;
 @Service
 public class SessionDataDatabaseServiceImpl implements SessionDataService {
     private static final Logger LOG = LoggerFactory.getLogger(SessionDataDatabaseServiceImpl.class);
+    public static final String DELTA_CHANGED = "changed";
+    public static final String DELTA_REMOVED = "removed";
 
     private final String sdUrl;
     private final String sdKey;
     private final Integer claimExpiryTime;
     private final RestTemplate restTemplate;
+    private final SessionCodecFactory sessionCodecFactory;
+    private final SessionDataCache sessionDataCache;
+    private final CircuitBreaker circuitBreaker;
 
     public SessionDataDatabaseServiceImpl(final @Value("${sd.url}") String sdUrl,
                                           final @Value("${session.data.uuid.secret.key}") String sdKey,
                                           final @Value("${session.data.claim.expiry}") Integer claimExpiryTime,
-                                          final RestTemplate restTemplate) {
+                                          final @Named("sessionDataRestTemplate") RestTemplate restTemplate,
+                                          final SessionCodecFactory sessionCodecFactory,
+                                          final SessionDataCache sessionDataCache,
+                                          final @Named("sessionDataCircuitBreaker") CircuitBreaker circuitBreaker) {
         this.sdUrl = sdUrl;
         this.sdKey = sdKey;
         this.claimExpiryTime = claimExpiryTime;
         this.restTemplate = restTemplate;
-    }
-
-    private XStream createXStream() {
-        XStream xStream = new XStream(new StaxDriver());
-        xStream.alias("map", java.util.Map.class);
-        xStream.alias("map", java.util.HashMap.class);
-        return xStream;
+        this.sessionCodecFactory = sessionCodecFactory;
+        this.sessionDataCache = sessionDataCache;
+        this.circuitBreaker = circuitBreaker;
     }
 
     @Override
@@ -68,12 +77,71 @@ public class SessionDataDatabaseServiceImpl implements SessionDataService {
         return session;
     }
 
+    /**
+     * Sends the changed attributes and removed attribute names, encoded with the session codec, to
+     * /session/savedelta/{id}/{baseVersion}. The service answers 409 CONFLICT when it does not hold that version.
+     *
+     * A session trusted from the cache may be behind one saved by another node, sending it in full would overwrite
+     * that, so on a conflict it is loaded again (checking it has not timed out) and the changes are sent against the
+     * version loaded. Any other conflict, or one after reloading, is left to a full save.
+     */
+    @Override
+    public Boolean saveSessionDataDelta(final SessionDelta delta) {
+        if (delta.getBaseVersion() == null) {
+            return false;
+        }
+        try {
+            try {
+                sendDelta(delta);
+            } catch (SessionVersionConflictException svce) {
+                if (delta.getSession().isTrusted() == false) {
+                    throw svce;
+                }
+                sessionDataCache.stale(delta.getSessionId());
+                LOG.info("Session data service does not hold trusted version:{} for sessionId:{}, reloading it to apply the changes.", delta.getBaseVersion(), delta.getSessionId());
+                sendDelta(rebase(delta));
+            }
+            return true;
+        } catch (SessionVersionConflictException svce) {
+            sessionDataCache.stale(delta.getSessionId());
+            LOG.info("Session data service does not hold base version:{} for sessionId:{}, full save needed.", delta.getBaseVersion(), delta.getSessionId());
+            return false;
+        } catch (SessionDataServiceException sdse) {
+            sessionDataCache.invalidate(delta.getSessionId());
+            throw sdse;
+        }
+    }
+
+    private void sendDelta(final SessionDelta delta) {
+        final Map<String, Object> changes = new HashMap<>();
+        changes.put(DELTA_CHANGED, new HashMap<>(delta.getChangedAttributes()));
+        changes.put(DELTA_REMOVED, new ArrayList<>(delta.getRemovedAttributes()));
+        final String message = DatatypeConverter.printBase64Binary(sessionCodecFactory.getSessionCodec().encode(changes));
+        final String response = processRequest(message, delta.getSessionId(), "/session/savedelta/" + XorEncryption.encryptUuid(delta.getSessionId(), sdKey) + "/" + delta.getBaseVersion(), HttpMethod.POST);
+        final Long version = parseVersion(response);
+        delta.getSession().markSaved(delta, version);
+        sessionDataCache.apply(delta, version);
+    }
+
+    /**
+     * @return the delta's changes against the version the session data service holds now
+     */
+    private SessionDelta rebase(final SessionDelta delta) {
+        final Session latest = getSessionFromSessionData(delta.getSessionId());
+        return new SessionDelta(delta.getSession(), latest.getVersion(), delta.getGeneration(), delta.getChangedAttributes(), delta.getRemovedAttributes());
+    }
+
     @Override
     public void removeSessionData(final String sessionId) {
+        sessionDataCache.invalidate(sessionId);
         processRequest("", sessionId, "/session/delete/" + XorEncryption.encryptUuid(sessionId, sdKey), HttpMethod.DELETE);
     }
 
     private Session getSessionFromSessionData(final String sessionId) {
+        final Session cached = getSessionFromCache(sessionId);
+        if (cached != null) {
+            return cached;
+        }
         final SessionData sessionData = processRequest(sessionId, "/session/load/" + XorEncryption.encryptUuid(sessionId, sdKey), HttpMethod.POST);
 
         if (isEmpty(sessionData)) {
@@ -82,10 +150,36 @@ public class SessionDataDatabaseServiceImpl implements SessionDataService {
         if ((sessionData.getMinutesSinceLastActive() != null && Integer.valueOf(sessionData.getMinutesSinceLastActive()) > claimExpiryTime)) {
             throw new SessionTimeoutException("Session timed out, last active:" + sessionData.getMinutesSinceLastActive() + " timeout period:" + claimExpiryTime);
         }
-        final String xml = new String(DatatypeConverter.parseBase64Binary(sessionData.getPayload()));
-        XStream xStream = createXStream();
-        Map<String, Object> data = (Map<String, Object>)xStream.fromXML(xml);
-        return new Session(sessionId, data);
+        final byte[] payload = DatatypeConverter.parseBase64Binary(sessionData.getPayload());
+        final Map<String, Object> data = sessionCodecFactory.getSessionCodec(payload).decode(payload);
+        final Session session = new Session(sessionId, data);
+        session.markSaved(parseVersion(sessionData.getVersion()));
+        sessionDataCache.put(sessionId, data, session.getVersion());
+        return session;
+    }
+
+    /**
+     * Asks the session data service whether it still holds the cached version, POST /session/checkversion/{id}/{version}
+     * answers 200 OK if so and 409 CONFLICT if not. Any other failure drops the cached copy and falls back to a full load.
+     */
+    private Session getSessionFromCache(final String sessionId) {
+        final Session trusted = sessionDataCache.getTrusted(sessionId);
+        if (trusted != null) {
+            return trusted;
+        }
+        final Long version = sessionDataCache.getVersion(sessionId);
+        if (version == null) {
+            return null;
+        }
+        try {
+            processRequest("", sessionId, "/session/checkversion/" + XorEncryption.encryptUuid(sessionId, sdKey) + "/" + version, HttpMethod.POST);
+            return sessionDataCache.confirm(sessionId, version);
+        } catch (SessionVersionConflictException svce) {
+            sessionDataCache.stale(sessionId);
+        } catch (SessionDataServiceException sdse) {
+            sessionDataCache.invalidate(sessionId);
+        }
+        return null;
     }
 
     private Boolean isEmpty(SessionData sessionData) {
@@ -93,20 +187,46 @@ public class SessionDataDatabaseServiceImpl implements SessionDataService {
     }
 
     private void saveSessionToSessionData(final Session session) {
-        XStream xStream = createXStream();
-        final String xmlMessage = xStream.toXML(session.getData());
-        final String xml = DatatypeConverter.printBase64Binary(xmlMessage.getBytes());
-        processRequest(xml, session.getSessionId(), "/session/save/" + XorEncryption.encryptUuid(session.getSessionId(), sdKey), HttpMethod.POST);
+        final byte[] payload = sessionCodecFactory.getSessionCodec().encode(session.getData());
+        final String message = DatatypeConverter.printBase64Binary(payload);
+        final String response;
+        try {
+            response = processRequest(message, session.getSessionId(), "/session/save/" + XorEncryption.encryptUuid(session.getSessionId(), sdKey), HttpMethod.POST);
+        } catch (SessionDataServiceException sdse) {
+            sessionDataCache.invalidate(session.getSessionId());
+            throw sdse;
+        }
+        session.markSaved(parseVersion(response));
+        sessionDataCache.put(session.getSessionId(), session.getData(), session.getVersion());
+    }
+
+    /**
+     * Services that do not version sessions answer with an empty body, leaving the version unknown.
+     */
+    private Long parseVersion(final String version) {
+        if (StringUtils.isNumeric(StringUtils.trimToNull(version))) {
+            return Long.valueOf(version.trim());
+        }
+        return null;
     }
 
     private String processRequest(final String message, final String sessionId, final String url, final HttpMethod method) {
         try {
             LOG.debug("Sending request {}{} to session data database.", sdUrl, url);
-            final ResponseEntity<String> response = restTemplate.exchange(sdUrl + url, method, createRequest(message), String.class);
+            final ResponseEntity<String> response = circuitBreaker.execute(() -> restTemplate.exchange(sdUrl + url, method, createRequest(message), String.class));
             return processResponse(response, sessionId);
+        } catch (HttpStatusCodeException hsce) {
+            if (hsce.getStatusCode().value() == org.apache.http.HttpStatus.SC_CONFLICT) {
+                throw new SessionVersionConflictException("Session data service version conflict: " + hsce.getStatusCode().value() + ".", hsce);
+            }
+            LOG.error("session data service is unavailable! {}. sessionId:{}.", hsce.getMessage(), sessionId, hsce);
+            throw new SessionDataServiceException("Session data service is unavailable! " + hsce.getMessage() + ".", hsce);
         } catch (RestClientException rce) {
             LOG.error("session data service is unavailable! {}. sessionId:{}.", rce.getMessage(), sessionId, rce);
             throw new SessionDataServiceException("Session data service is unavailable! " + rce.getMessage() + ".", rce);
+        } catch (CircuitBreakerRejectedException cbre) {
+            LOG.warn("session data service call not made, {} sessionId:{}.", cbre.getMessage(), sessionId);
+            throw new SessionDataServiceException("Session data service is unavailable! " + cbre.getMessage(), cbre);
         } catch (SessionDataServiceException mde) {
             throw mde;
         } catch (Exception e) {
@@ -120,11 +240,14 @@ public class SessionDataDatabaseServiceImpl implements SessionDataService {
     private SessionData processRequest(final String sessionId, final String url, final HttpMethod method) {
         try {
             LOG.debug("Sending request {}{} to session data database.", sdUrl, url);
-            final ResponseEntity<SessionData> response = restTemplate.exchange(sdUrl + url, method, createRequest(""), SessionData.class);
+            final ResponseEntity<SessionData> response = circuitBreaker.execute(() -> restTemplate.exchange(sdUrl + url, method, createRequest(""), SessionData.class));
             return processResponse(response, sessionId, true);
         } catch (RestClientException rce) {
             LOG.error("session data service is unavailable! {}. sessionId:{}.", rce.getMessage(), sessionId, rce);
             throw new SessionDataServiceException("Session data service is unavailable! " + rce.getMessage() + ".", rce);
+        } catch (CircuitBreakerRejectedException cbre) {
+            LOG.warn("session data service call not made, {} sessionId:{}.", cbre.getMessage(), sessionId);
+            throw new SessionDataServiceException("Session data service is unavailable! " + cbre.getMessage(), cbre);
         } catch (SessionDataServiceException mde) {
             throw mde;
         } catch (Exception e) {
@@ -165,6 +288,9 @@ public class SessionDataDatabaseServiceImpl implements SessionDataService {
             case org.apache.http.HttpStatus.SC_SERVICE_UNAVAILABLE:
                 LOG.error("Session data service response - SERVICE_UNAVAILABLE:{} :{}. sessionId:{}.", responseStatus, response, sessionId);
                 throw new SessionDataServiceException("Session data service is Unavailable.");
+            case org.apache.http.HttpStatus.SC_CONFLICT:
+                LOG.info("Session data service response - CONFLICT:{} :{}. sessionId:{}.", responseStatus, response, sessionId);
+                throw new SessionVersionConflictException("Session data service version conflict: " + responseStatus + ". sessionId:" + sessionId + ".");
             case org.apache.http.HttpStatus.SC_UNSUPPORTED_MEDIA_TYPE:
                 LOG.error("Session data service response - UNSUPPORTED_MEDIA_TYPE:{} :{}. sessionId:{}. This should not happen.", responseStatus, response, sessionId);
                 throw new SessionDataServiceException("Session data service returned unsupported media type: " + responseStatus + " : " + response + ". sessionId:" + sessionId + ".");
@@ -11,22 +11,31 @@ import javax.inject.Inject;
 @Component
 public class SessionDataFactory {
     private final Boolean useSessionDataDB;
+    private final Boolean useOffHeap;
     private final SessionDataDatabaseServiceImpl sessionDataDatabaseService;
     private final SessionDataMapServiceImpl sessionDataMapService;
+    private final SessionDataOffHeapServiceImpl sessionDataOffHeapService;
 
     @Inject
     public SessionDataFactory(final @Value("${session.data.to.db}") Boolean useSessionDataDB,
+                              final @Value("${session.data.offheap}") Boolean useOffHeap,
                               final SessionDataDatabaseServiceImpl sessionDataDatabaseService,
-                              final SessionDataMapServiceImpl sessionDataMapService) {
+                              final SessionDataMapServiceImpl sessionDataMapService,
+                              final SessionDataOffHeapServiceImpl sessionDataOffHeapService) {
         this.useSessionDataDB = useSessionDataDB;
+        this.useOffHeap = useOffHeap;
         this.sessionDataDatabaseService = sessionDataDatabaseService;
         this.sessionDataMapService = sessionDataMapService;
+        this.sessionDataOffHeapService = sessionDataOffHeapService;
     }
 
     public SessionDataService getSessionDataService() {
         if (useSessionDataDB) {
             return sessionDataDatabaseService;
         }
+        if (useOffHeap) {
+            return sessionDataOffHeapService;
+        }
         return sessionDataMapService;
     }
 }
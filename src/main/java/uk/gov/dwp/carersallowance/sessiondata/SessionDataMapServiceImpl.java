@@ -1,48 +1,306 @@
 package uk.gov.dwp.carersallowance.sessiondata;
 
+import gov.dwp.carers.monitor.Counters;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.metrics.GaugeService;
 import org.springframework.stereotype.Service;
 import uk.gov.dwp.carersallowance.session.NoSessionException;
 import uk.gov.dwp.carersallowance.utils.C3Constants;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.inject.Inject;
+import java.time.Clock;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Created by peterwhitehead on 22/12/2016.
+ *
+ * In process session store for running without the session data service. Sessions idle for longer than
+ * session.data.claim.expiry minutes are dropped, and once the estimated size of all the sessions goes over
+ * session.data.map.max.bytes the least recently used are evicted.
+ *
+ * Sessions are looked up in a ConcurrentHashMap. The lock is only held for the least recently used order, the
+ * expiry schedule and the budget, a session's size is estimated before it is taken. The expiry schedule is also
+ * advanced every tick by an executor, so a node that is not being used still frees its expired sessions.
  */
 @Service
 public class SessionDataMapServiceImpl implements SessionDataService {
-    private Map<String, Session> sessions;
+    private static final Logger LOG = LoggerFactory.getLogger(SessionDataMapServiceImpl.class);
+    private static final long TICK_MILLIS = TimeUnit.MINUTES.toMillis(1);
 
-    public SessionDataMapServiceImpl() {
-        sessions = new ConcurrentHashMap<>();
+    private final long expiryMillis;
+    private final long tickMillis;
+    private final long maxBytes;
+    private final Counters counters;
+    private final GaugeService gaugeService;
+    private final Clock clock;
+    private final ScheduledExecutorService executor;
+    private final Map<String, Entry> sessions;
+    private final Map<String, Entry> recency;   // guarded by this, least recently used first
+    private final SessionExpiryWheel expiryWheel;
+    private long estimatedBytes;
+
+    @Inject
+    public SessionDataMapServiceImpl(final @Value("${session.data.claim.expiry}") Integer claimExpiryTime,
+                                     final @Value("${session.data.map.max.bytes}") Long maxBytes,
+                                     final Counters counters,
+                                     final GaugeService gaugeService) {
+        this(claimExpiryTime, maxBytes, counters, gaugeService, Clock.systemUTC(), TICK_MILLIS, createExecutor());
+    }
+
+    SessionDataMapServiceImpl(final Integer claimExpiryTime, final Long maxBytes, final Counters counters, final GaugeService gaugeService, final Clock clock, final long tickMillis) {
+        this(claimExpiryTime, maxBytes, counters, gaugeService, clock, tickMillis, null);
+    }
+
+    SessionDataMapServiceImpl(final Integer claimExpiryTime, final Long maxBytes, final Counters counters, final GaugeService gaugeService, final Clock clock, final long tickMillis,
+                              final ScheduledExecutorService executor) {
+        this.expiryMillis = TimeUnit.MINUTES.toMillis(claimExpiryTime);
+        this.tickMillis = tickMillis;
+        this.maxBytes = maxBytes;
+        this.counters = counters;
+        this.gaugeService = gaugeService;
+        this.clock = clock;
+        this.executor = executor;
+        this.sessions = new ConcurrentHashMap<>();
+        this.recency = new LinkedHashMap<>(16, 0.75f, true);
+        this.expiryWheel = new SessionExpiryWheel(tickMillis, expiryMillis, clock.millis());
+    }
+
+    private static ScheduledExecutorService createExecutor() {
+        return Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "session-store-expiry");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PostConstruct
+    public void start() {
+        if (executor != null) {
+            executor.scheduleAtFixedRate(this::expireIdleSessionsQuietly, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
     }
 
     @Override
     public Session getSessionData(final String sessionId) {
-        Session session = sessions.get(sessionId);
-        if (session == null) {
+        final Entry entry = sessions.get(sessionId);
+        if (entry == null || touch(sessionId, entry) == false) {
             throw new NoSessionException("No Session for Session ID: " + sessionId);
         }
-        return session;
+        return entry.session;
     }
 
     @Override
     public Session createSessionData(final String sessionId, final String claimType) {
         final Session session = new Session(sessionId);
         session.setAttribute(C3Constants.KEY, claimType);
-        sessions.put(sessionId, session);
+        store(session, estimateBytes(session));
         return session;
     }
 
     @Override
     public Session saveSessionData(final Session session) {
-        sessions.put(session.getSessionId(), session);
+        store(session, estimateBytes(session));
+        session.markClean();
         return session;
     }
 
+    /**
+     * Sessions are held by reference so there is nothing to ship, a full save is always as cheap.
+     */
     @Override
-    public void removeSessionData(final String sessionId) {
+    public Boolean saveSessionDataDelta(final SessionDelta delta) {
+        return false;
+    }
+
+    @Override
+    public synchronized void removeSessionData(final String sessionId) {
+        remove(sessionId);
+        updateGauges();
+    }
+
+    public int getLiveSessions() {
+        return sessions.size();
+    }
+
+    public synchronized long getEstimatedBytes() {
+        return estimatedBytes;
+    }
+
+    private synchronized void expireIdleSessionsQuietly() {
+        try {
+            expireIdleSessions();
+        } catch (RuntimeException e) {
+            LOG.error("Unable to expire idle sessions.", e);
+        }
+    }
+
+    /**
+     * Drops the sessions whose expiry tick has passed and that have not been active since.
+     *
+     * @return the current time
+     */
+    private long expireIdleSessions() {
+        final long now = clock.millis();
+        final List<String> due = expiryWheel.advance(now);
+        int expired = 0;
+        for (final String sessionId : due) {
+            final Entry entry = sessions.get(sessionId);
+            if (entry == null) {
+                continue;
+            }
+            if (now - entry.lastActive >= expiryMillis) {
+                remove(sessionId);
+                counters.incrementMetric("session-store-expired");
+                expired++;
+            } else if (entry.scheduledTick <= now / tickMillis) {
+                entry.scheduledTick = expiryWheel.schedule(sessionId, entry.lastActive + expiryMillis);
+            }
+        }
+        if (expired > 0) {
+            LOG.info("Expired {} idle session(s), {} live.", expired, sessions.size());
+            updateGauges();
+        }
+        return now;
+    }
+
+    private synchronized void store(final Session session, final long bytes) {
+        final long now = expireIdleSessions();
+        final String sessionId = session.getSessionId();
+        Entry entry = recency.get(sessionId);
+        if (entry == null) {
+            entry = new Entry(session);
+            recency.put(sessionId, entry);
+            sessions.put(sessionId, entry);
+        } else {
+            estimatedBytes -= entry.bytes;
+            entry.session = session;
+        }
+        entry.bytes = bytes;
+        estimatedBytes += entry.bytes;
+        schedule(sessionId, entry, now);
+        evictOverBudget(sessionId);
+        updateGauges();
+    }
+
+    /**
+     * Moves the session to the most recently used end and pushes back its expiry.
+     *
+     * @return false if the session has expired or been removed since it was looked up
+     */
+    private synchronized boolean touch(final String sessionId, final Entry entry) {
+        final long now = expireIdleSessions();
+        if (recency.get(sessionId) != entry) {
+            return false;
+        }
+        schedule(sessionId, entry, now);
+        return true;
+    }
+
+    private void schedule(final String sessionId, final Entry entry, final long now) {
+        entry.lastActive = now;
+        final long deadline = now + expiryMillis;
+        if (entry.scheduledTick < deadline / tickMillis + 1) {
+            entry.scheduledTick = expiryWheel.schedule(sessionId, deadline);
+        }
+    }
+
+    /**
+     * Evicts least recently used sessions, never the one just stored, until back under the memory budget.
+     */
+    private void evictOverBudget(final String keep) {
+        final Iterator<Map.Entry<String, Entry>> iterator = recency.entrySet().iterator();
+        while (estimatedBytes > maxBytes && iterator.hasNext()) {
+            final Map.Entry<String, Entry> eldest = iterator.next();
+            if (eldest.getKey().equals(keep)) {
+                continue;
+            }
+            iterator.remove();
+            sessions.remove(eldest.getKey());
+            estimatedBytes -= eldest.getValue().bytes;
+            counters.incrementMetric("session-store-evicted");
+            LOG.warn("Session store over budget of {} bytes, evicted sessionId:{}.", maxBytes, eldest.getKey());
+        }
+    }
+
+    private void remove(final String sessionId) {
         sessions.remove(sessionId);
+        final Entry entry = recency.remove(sessionId);
+        if (entry != null) {
+            estimatedBytes -= entry.bytes;
+        }
+    }
+
+    private void updateGauges() {
+        gaugeService.submit("session.store.live", sessions.size());
+        gaugeService.submit("session.store.bytes", estimatedBytes);
+    }
+
+    /**
+     * Rough heap footprint of a session on a 64 bit JVM with compressed oops, close enough to budget with.
+     */
+    static long estimateBytes(final Session session) {
+        long bytes = 128;
+        for (final Map.Entry<String, Object> attribute : session.getData().entrySet()) {
+            bytes += 48 + estimateBytes(attribute.getKey()) + estimateBytes(attribute.getValue());
+        }
+        return bytes;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static long estimateBytes(final Object value) {
+        if (value instanceof String) {
+            return 40 + 2 * ((String)value).length();
+        }
+        if (value instanceof String[]) {
+            long bytes = 16 + 4 * ((String[])value).length;
+            for (final String item : (String[])value) {
+                bytes += estimateBytes(item);
+            }
+            return bytes;
+        }
+        if (value instanceof List) {
+            long bytes = 40;
+            for (final Object item : (List<Object>)value) {
+                bytes += 4 + estimateBytes(item);
+            }
+            return bytes;
+        }
+        if (value instanceof Map) {
+            long bytes = 64;
+            for (final Map.Entry<Object, Object> entry : ((Map<Object, Object>)value).entrySet()) {
+                bytes += 32 + estimateBytes(entry.getKey()) + estimateBytes(entry.getValue());
+            }
+            return bytes;
+        }
+        return 0;
+    }
+
+    private static class Entry {
+        private volatile Session session;
+        private long lastActive;
+        private long bytes;
+        private long scheduledTick;
+
+        private Entry(final Session session) {
+            this.session = session;
+        }
     }
 }
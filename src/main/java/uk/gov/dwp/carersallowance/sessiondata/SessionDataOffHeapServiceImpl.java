@@ -0,0 +1,338 @@
+package uk.gov.dwp.carersallowance.sessiondata;
+
+import gov.dwp.carers.monitor.Counters;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.metrics.GaugeService;
+import org.springframework.stereotype.Service;
+import uk.gov.dwp.carersallowance.session.NoSessionException;
+import uk.gov.dwp.carersallowance.utils.C3Constants;
+
+import javax.inject.Inject;
+import java.nio.ByteBuffer;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In process session store that keeps the encoded sessions outside the heap, in direct ByteBuffer slabs, so that
+ * a node holding tens of thousands of claims in progress does not carry them through every garbage collection.
+ * Only the index of session id to slab, offset and length lives on the heap.
+ *
+ * Payloads are appended to the slabs and a save leaves the previous copy behind as dead space. When no slab has
+ * room and no more can be allocated, the slab with the most dead space is compacted in place, and if that is not
+ * enough the least recently used sessions are evicted. Idle sessions expire as in SessionDataMapServiceImpl.
+ *
+ * The lock only guards the slabs and the index, sessions are encoded and decoded outside it.
+ */
+@Service
+public class SessionDataOffHeapServiceImpl implements SessionDataService {
+    private static final Logger LOG = LoggerFactory.getLogger(SessionDataOffHeapServiceImpl.class);
+    private static final long TICK_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
+    private final long expiryMillis;
+    private final long tickMillis;
+    private final int slabBytes;
+    private final int maxSlabs;
+    private final SessionCodecFactory sessionCodecFactory;
+    private final Counters counters;
+    private final GaugeService gaugeService;
+    private final Clock clock;
+    private final List<Slab> slabs;
+    private final Map<String, Slot> index;
+    private final SessionExpiryWheel expiryWheel;
+    private long liveBytes;
+
+    @Inject
+    public SessionDataOffHeapServiceImpl(final @Value("${session.data.claim.expiry}") Integer claimExpiryTime,
+                                         final @Value("${session.data.offheap.max.bytes}") Long maxBytes,
+                                         final @Value("${session.data.offheap.slab.bytes}") Integer slabBytes,
+                                         final SessionCodecFactory sessionCodecFactory,
+                                         final Counters counters,
+                                         final GaugeService gaugeService) {
+        this(claimExpiryTime, maxBytes, slabBytes, sessionCodecFactory, counters, gaugeService, Clock.systemUTC(), TICK_MILLIS);
+    }
+
+    SessionDataOffHeapServiceImpl(final Integer claimExpiryTime, final Long maxBytes, final Integer slabBytes, final SessionCodecFactory sessionCodecFactory,
+                                  final Counters counters, final GaugeService gaugeService, final Clock clock, final long tickMillis) {
+        this.expiryMillis = TimeUnit.MINUTES.toMillis(claimExpiryTime);
+        this.tickMillis = tickMillis;
+        this.slabBytes = slabBytes;
+        this.maxSlabs = (int)Math.max(1, maxBytes / slabBytes);
+        this.sessionCodecFactory = sessionCodecFactory;
+        this.counters = counters;
+        this.gaugeService = gaugeService;
+        this.clock = clock;
+        this.slabs = new ArrayList<>();
+        this.index = new LinkedHashMap<>();
+        this.expiryWheel = new SessionExpiryWheel(tickMillis, expiryMillis, clock.millis());
+    }
+
+    /**
+     * Only copying the payload out of its slab holds the lock, it is decoded after the lock has been released.
+     */
+    @Override
+    public Session getSessionData(final String sessionId) {
+        final byte[] payload = read(sessionId);
+        return new Session(sessionId, sessionCodecFactory.getSessionCodec(payload).decode(payload));
+    }
+
+    @Override
+    public Session createSessionData(final String sessionId, final String claimType) {
+        final Session session = new Session(sessionId);
+        session.setAttribute(C3Constants.KEY, claimType);
+        store(sessionId, encode(session));
+        return session;
+    }
+
+    /**
+     * The session is encoded before the lock is taken, only finding room for the payload and indexing it holds it.
+     */
+    @Override
+    public Session saveSessionData(final Session session) {
+        store(session.getSessionId(), encode(session));
+        session.markClean();
+        return session;
+    }
+
+    /**
+     * A delta would have to be decoded, applied and encoded again here, which is what a full save does anyway.
+     */
+    @Override
+    public Boolean saveSessionDataDelta(final SessionDelta delta) {
+        return false;
+    }
+
+    @Override
+    public synchronized void removeSessionData(final String sessionId) {
+        free(index.remove(sessionId));
+        updateGauges();
+    }
+
+    public synchronized int getLiveSessions() {
+        return index.size();
+    }
+
+    public synchronized long getLiveBytes() {
+        return liveBytes;
+    }
+
+    public synchronized long getAllocatedBytes() {
+        return (long)slabs.size() * slabBytes;
+    }
+
+    private synchronized byte[] read(final String sessionId) {
+        final long now = expireIdleSessions();
+        final Slot slot = index.get(sessionId);
+        if (slot == null) {
+            throw new NoSessionException("No Session for Session ID: " + sessionId);
+        }
+        touch(sessionId, slot, now);
+        final byte[] payload = new byte[slot.length];
+        slabs.get(slot.slab).read(slot.offset, payload);
+        return payload;
+    }
+
+    private byte[] encode(final Session session) {
+        final byte[] payload = sessionCodecFactory.getSessionCodec().encode(session.getData());
+        if (payload.length > slabBytes) {
+            throw new SessionDataServiceException("Session of " + payload.length + " bytes does not fit in a slab of " + slabBytes + " bytes. sessionId:" + session.getSessionId() + ".");
+        }
+        return payload;
+    }
+
+    private synchronized void store(final String sessionId, final byte[] payload) {
+        final long now = expireIdleSessions();
+        Slot slot = index.remove(sessionId);
+        free(slot);
+        if (slot == null) {
+            slot = new Slot();
+        }
+        final int slabIndex = allocate(payload.length, sessionId);
+        final Slab slab = slabs.get(slabIndex);
+        slot.slab = slabIndex;
+        slot.offset = slab.append(payload);
+        slot.length = payload.length;
+        slab.live += payload.length;
+        liveBytes += payload.length;
+        index.put(sessionId, slot);
+        touch(sessionId, slot, now);
+        updateGauges();
+    }
+
+    /**
+     * @return the index of a slab with room for the payload, compacting or evicting to make room if need be
+     */
+    private int allocate(final int length, final String sessionId) {
+        while (true) {
+            for (int slab = 0; slab < slabs.size(); slab++) {
+                if (slabs.get(slab).free() >= length) {
+                    return slab;
+                }
+            }
+            if (slabs.size() < maxSlabs) {
+                slabs.add(new Slab(ByteBuffer.allocateDirect(slabBytes)));
+                return slabs.size() - 1;
+            }
+            final int fragmented = mostFragmented();
+            if (slabs.get(fragmented).dead() + slabs.get(fragmented).free() >= length) {
+                compact(fragmented);
+                return fragmented;
+            }
+            evictEldest(sessionId);
+        }
+    }
+
+    private int mostFragmented() {
+        int fragmented = 0;
+        for (int slab = 1; slab < slabs.size(); slab++) {
+            if (slabs.get(slab).dead() > slabs.get(fragmented).dead()) {
+                fragmented = slab;
+            }
+        }
+        return fragmented;
+    }
+
+    /**
+     * Slides the live payloads of the slab down over the dead space, in offset order so nothing is overwritten
+     * before it has been moved.
+     */
+    private void compact(final int slabIndex) {
+        final Slab slab = slabs.get(slabIndex);
+        final List<Slot> live = new ArrayList<>();
+        for (final Slot slot : index.values()) {
+            if (slot.slab == slabIndex) {
+                live.add(slot);
+            }
+        }
+        live.sort(Comparator.comparingInt(slot -> slot.offset));
+        slab.used = 0;
+        for (final Slot slot : live) {
+            final int offset = slab.used;
+            if (offset != slot.offset) {
+                final byte[] payload = new byte[slot.length];
+                slab.read(slot.offset, payload);
+                slab.write(offset, payload);
+                slot.offset = offset;
+            }
+            slab.used += slot.length;
+        }
+        counters.incrementMetric("session-offheap-compaction");
+        LOG.debug("Compacted slab {}, {} sessions {} bytes live.", slabIndex, live.size(), slab.live);
+    }
+
+    private void evictEldest(final String keep) {
+        final Iterator<Map.Entry<String, Slot>> iterator = index.entrySet().iterator();
+        while (iterator.hasNext()) {
+            final Map.Entry<String, Slot> eldest = iterator.next();
+            if (eldest.getKey().equals(keep) == false) {
+                iterator.remove();
+                free(eldest.getValue());
+                counters.incrementMetric("session-offheap-evicted");
+                LOG.warn("Off heap session store full, evicted sessionId:{}.", eldest.getKey());
+                return;
+            }
+        }
+        throw new SessionDataServiceException("Off heap session store has no room for sessionId:" + keep + ".");
+    }
+
+    private void free(final Slot slot) {
+        if (slot != null) {
+            slabs.get(slot.slab).live -= slot.length;
+            liveBytes -= slot.length;
+        }
+    }
+
+    private long expireIdleSessions() {
+        final long now = clock.millis();
+        int expired = 0;
+        for (final String sessionId : expiryWheel.advance(now)) {
+            final Slot slot = index.get(sessionId);
+            if (slot == null) {
+                continue;
+            }
+            if (now - slot.lastActive >= expiryMillis) {
+                free(index.remove(sessionId));
+                counters.incrementMetric("session-offheap-expired");
+                expired++;
+            } else if (slot.scheduledTick <= now / tickMillis) {
+                slot.scheduledTick = expiryWheel.schedule(sessionId, slot.lastActive + expiryMillis);
+            }
+        }
+        if (expired > 0) {
+            LOG.info("Expired {} idle session(s), {} live.", expired, index.size());
+            updateGauges();
+        }
+        return now;
+    }
+
+    /**
+     * Moves the session to the most recently used end and pushes back its expiry.
+     */
+    private void touch(final String sessionId, final Slot slot, final long now) {
+        index.remove(sessionId);
+        index.put(sessionId, slot);
+        slot.lastActive = now;
+        final long deadline = now + expiryMillis;
+        if (slot.scheduledTick < deadline / tickMillis + 1) {
+            slot.scheduledTick = expiryWheel.schedule(sessionId, deadline);
+        }
+    }
+
+    private void updateGauges() {
+        gaugeService.submit("session.offheap.live", index.size());
+        gaugeService.submit("session.offheap.bytes", liveBytes);
+        gaugeService.submit("session.offheap.allocated", getAllocatedBytes());
+    }
+
+    private static class Slot {
+        private int slab;
+        private int offset;
+        private int length;
+        private long lastActive;
+        private long scheduledTick;
+    }
+
+    private static class Slab {
+        private final ByteBuffer buffer;
+        private int used;
+        private int live;
+
+        private Slab(final ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        private int free() {
+            return buffer.capacity() - used;
+        }
+
+        private int dead() {
+            return used - live;
+        }
+
+        private int append(final byte[] payload) {
+            final int offset = used;
+            write(offset, payload);
+            used += payload.length;
+            return offset;
+        }
+
+        private void write(final int offset, final byte[] payload) {
+            final ByteBuffer target = buffer.duplicate();
+            target.position(offset);
+            target.put(payload);
+        }
+
+        private void read(final int offset, final byte[] payload) {
+            final ByteBuffer source = buffer.duplicate();
+            source.position(offset);
+            source.get(payload);
+        }
+    }
+}
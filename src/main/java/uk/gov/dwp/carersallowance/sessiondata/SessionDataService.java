@@ -6,6 +6,12 @@ package uk.gov.dwp.carersallowance.sessiondata;
 public interface SessionDataService {
     Session getSessionData(final String sessionId);
     Session saveSessionData(final Session session);
+
+    /**
+     * Save only the attributes that changed since the delta's base version.
+     * @return false if the store has no matching base version, the caller must then save a full snapshot
+     */
+    Boolean saveSessionDataDelta(final SessionDelta delta);
     void removeSessionData(final String sessionId);
     Session createSessionData(final String sessionId, final String claimType);
 }
@@ -0,0 +1,63 @@
+package uk.gov.dwp.carersallowance.sessiondata;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The attributes of a session that changed since its base version, see Session.createDelta.
+ */
+public class SessionDelta {
+    private final Session session;
+    private final Long baseVersion;
+    private final long generation;
+    private final Map<String, Object> changedAttributes;
+    private final Set<String> removedAttributes;
+
+    public SessionDelta(final Session session, final Long baseVersion, final long generation, final Map<String, Object> changedAttributes, final Set<String> removedAttributes) {
+        this.session = session;
+        this.baseVersion = baseVersion;
+        this.generation = generation;
+        this.changedAttributes = Collections.unmodifiableMap(changedAttributes);
+        this.removedAttributes = Collections.unmodifiableSet(removedAttributes);
+    }
+
+    /**
+     * @return a copy of this delta carrying different attribute values, e.g. once encrypted
+     */
+    public SessionDelta withChangedAttributes(final Map<String, Object> changedAttributes) {
+        return new SessionDelta(session, baseVersion, generation, changedAttributes, removedAttributes);
+    }
+
+    public Session getSession() {
+        return session;
+    }
+
+    public String getSessionId() {
+        return session.getSessionId();
+    }
+
+    public Long getBaseVersion() {
+        return baseVersion;
+    }
+
+    public long getGeneration() {
+        return generation;
+    }
+
+    public Map<String, Object> getChangedAttributes() {
+        return changedAttributes;
+    }
+
+    public Set<String> getRemovedAttributes() {
+        return removedAttributes;
+    }
+
+    public Boolean isEmpty() {
+        return changedAttributes.isEmpty() && removedAttributes.isEmpty();
+    }
+
+    public String toString() {
+        return this.getClass().getName() + "=[sessionId = " + getSessionId() + ", baseVersion = " + baseVersion + ", changed = " + changedAttributes.keySet() + ", removed = " + removedAttributes + "]";
+    }
+}
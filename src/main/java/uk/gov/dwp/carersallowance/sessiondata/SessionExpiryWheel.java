@@ -0,0 +1,57 @@
+package uk.gov.dwp.carersallowance.sessiondata;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Hashed timing wheel of session ids. Each slot holds the sessions due to expire in one tick, so finding the
+ * expired sessions only looks at the slots passed since the last advance rather than at every session.
+ *
+ * A session rescheduled to a later tick is not removed from its earlier slot, the caller checks each id
+ * returned by advance against the session's actual last activity. Not thread safe.
+ */
+public class SessionExpiryWheel {
+    private final long tickMillis;
+    private final List<Set<String>> slots;
+    private long currentTick;
+
+    /**
+     * @param horizonMillis the furthest ahead a session will be scheduled
+     */
+    public SessionExpiryWheel(final long tickMillis, final long horizonMillis, final long nowMillis) {
+        this.tickMillis = tickMillis;
+        final int size = (int)(horizonMillis / tickMillis) + 3;
+        this.slots = new ArrayList<>(size);
+        for (int slot = 0; slot < size; slot++) {
+            slots.add(new HashSet<>());
+        }
+        this.currentTick = nowMillis / tickMillis;
+    }
+
+    /**
+     * @return the tick the session was scheduled for, the first one to start after the deadline
+     */
+    public long schedule(final String sessionId, final long deadlineMillis) {
+        final long tick = Math.max(deadlineMillis / tickMillis + 1, currentTick + 1);
+        slots.get((int)(tick % slots.size())).add(sessionId);
+        return tick;
+    }
+
+    /**
+     * @return the sessions scheduled for the ticks that have started since the last advance
+     */
+    public List<String> advance(final long nowMillis) {
+        final long nowTick = nowMillis / tickMillis;
+        final List<String> due = new ArrayList<>();
+        final long ticks = Math.min(nowTick - currentTick, slots.size());
+        for (long tick = 1; tick <= ticks; tick++) {
+            final Set<String> slot = slots.get((int)((currentTick + tick) % slots.size()));
+            due.addAll(slot);
+            slot.clear();
+        }
+        currentTick = Math.max(currentTick, nowTick);
+        return due;
+    }
+}
@@ -0,0 +1,100 @@
+package uk.gov.dwp.carersallowance.sessiondata;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * A read only view of the session's field values, in the form they are posted: a String attribute is seen as a
+ * single element array, a String[] as itself and any other attribute (field collections etc.) is not seen at all.
+ *
+ * Nothing is copied, each value is looked up in the session when it is asked for, so the view always reflects the
+ * session's current values. Reading through the view does not mark any attribute as changed.
+ */
+public class SessionFieldValues extends AbstractMap<String, String[]> {
+    private final Map<String, Object> data;
+    private Set<Map.Entry<String, String[]>> entrySet;
+
+    public SessionFieldValues(final Session session) {
+        this.data = session.getData();
+    }
+
+    @Override
+    public String[] get(final Object name) {
+        return toFieldValues(data.get(name));
+    }
+
+    @Override
+    public boolean containsKey(final Object name) {
+        return get(name) != null;
+    }
+
+    @Override
+    public Set<Map.Entry<String, String[]>> entrySet() {
+        if (entrySet == null) {
+            entrySet = new EntrySet();
+        }
+        return entrySet;
+    }
+
+    private static String[] toFieldValues(final Object value) {
+        if (value instanceof String) {
+            return new String[]{(String)value};
+        } else if (value instanceof String[]) {
+            return (String[])value;
+        }
+        return null;
+    }
+
+    private class EntrySet extends AbstractSet<Map.Entry<String, String[]>> {
+        @Override
+        public Iterator<Map.Entry<String, String[]>> iterator() {
+            return new EntryIterator(data.entrySet().iterator());
+        }
+
+        @Override
+        public int size() {
+            int size = 0;
+            for (final Object value : data.values()) {
+                if (value instanceof String || value instanceof String[]) {
+                    size++;
+                }
+            }
+            return size;
+        }
+    }
+
+    private static class EntryIterator implements Iterator<Map.Entry<String, String[]>> {
+        private final Iterator<Map.Entry<String, Object>> attributes;
+        private Map.Entry<String, String[]> next;
+
+        private EntryIterator(final Iterator<Map.Entry<String, Object>> attributes) {
+            this.attributes = attributes;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (next == null && attributes.hasNext()) {
+                final Map.Entry<String, Object> attribute = attributes.next();
+                final String[] values = toFieldValues(attribute.getValue());
+                if (values != null) {
+                    next = new SimpleImmutableEntry<>(attribute.getKey(), values);
+                }
+            }
+            return next != null;
+        }
+
+        @Override
+        public Map.Entry<String, String[]> next() {
+            if (hasNext() == false) {
+                throw new NoSuchElementException();
+            }
+            final Map.Entry<String, String[]> entry = next;
+            next = null;
+            return entry;
+        }
+    }
+}
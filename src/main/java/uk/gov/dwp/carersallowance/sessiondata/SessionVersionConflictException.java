@@ -0,0 +1,15 @@
+package uk.gov.dwp.carersallowance.sessiondata;
+
+/**
+ * The session data service does not hold the base version a delta was taken from.
+ */
+public class SessionVersionConflictException extends SessionDataServiceException {
+    private static final long serialVersionUID = 4937114452311098712L;
+
+    public SessionVersionConflictException(String message) {
+        super(message);
+    }
+    public SessionVersionConflictException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,34 @@
+package uk.gov.dwp.carersallowance.sessiondata;
+
+import com.thoughtworks.xstream.XStream;
+import com.thoughtworks.xstream.io.xml.StaxDriver;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+/**
+ * Original XML session payload format. Kept so sessions saved before the binary codec was introduced can still be read.
+ * XStream is thread safe once configured so a single instance is reused.
+ */
+@Component
+public class XStreamSessionCodec implements SessionCodec {
+    private final XStream xStream;
+
+    public XStreamSessionCodec() {
+        xStream = new XStream(new StaxDriver());
+        xStream.alias("map", java.util.Map.class);
+        xStream.alias("map", java.util.HashMap.class);
+    }
+
+    @Override
+    public byte[] encode(final Map<String, Object> data) {
+        return xStream.toXML(data).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Map<String, Object> decode(final byte[] payload) {
+        return (Map<String, Object>)xStream.fromXML(new String(payload, StandardCharsets.UTF_8));
+    }
+}
@@ -8,6 +8,7 @@ import org.springframework.util.CollectionUtils;
 import uk.gov.dwp.carersallowance.session.FieldCollection;
 import uk.gov.dwp.carersallowance.session.UnknownRecordException;
 import uk.gov.dwp.carersallowance.sessiondata.Session;
+import uk.gov.dwp.carersallowance.utils.C3Constants;
 import uk.gov.dwp.carersallowance.utils.Parameters;
 import uk.gov.dwp.carersallowance.validations.Dependency;
 
@@ -79,7 +80,7 @@ public class SubFormProcessing {
     }
 
     private String getMessage(final String code) {
-        return messageSource.getMessage(code, null, null, Locale.getDefault());
+        return messageSource.getMessage(code, null, null, C3Constants.CONFIGURATION_LOCALE);
     }
 
     private String deleteFieldCollectionRecord(final Session session, final String idToDelete, final String currentPage, final String fieldCollectionName, final String idField) {
@@ -99,6 +100,7 @@ public class SubFormProcessing {
 
             if (foundIndex != null) {
                 fieldCollectionList.remove(foundIndex.intValue());
+                session.setAttribute(fieldCollectionName, fieldCollectionList);
             } else {
                 throw new UnknownRecordException("Unknown record id: " + idToDelete);
             }
@@ -220,6 +222,7 @@ public class SubFormProcessing {
                     throw new IllegalArgumentException("Unknown record ID: " + recordId);
                 }
             }
+            session.setAttribute(fieldCollectionName, fieldCollection);
             LOG.debug("fieldCollection after = {}", fieldCollection);
             LOG.debug("getFieldCollections('<fieldCollectionName>') = {}", getFieldCollections(session, fieldCollectionName, false));
 
@@ -0,0 +1,88 @@
+package uk.gov.dwp.carersallowance.submission;
+
+import gov.dwp.carers.xml.helpers.XMLMessageHelper;
+import gov.dwp.carers.xml.signing.SigningException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.actuate.metrics.GaugeService;
+import org.springframework.stereotype.Component;
+import org.w3c.dom.Document;
+import uk.gov.dwp.carersallowance.utils.xml.CompactXmlWriter;
+import uk.gov.dwp.carersallowance.xml.XmlBuilder;
+
+import javax.inject.Inject;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.transform.Transformer;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Builds a claim's xml and signs it in one pass. The document built from the session is normalised and transformed
+ * as it is, rather than being written out, stripped of comments (it has none) and parsed again. Transformers are
+ * kept for the next claim, at most one for each claim being signed at the same time.
+ *
+ * The time taken by each stage is submitted as the gauges claim.xml.build, .normalise, .transform and .sign (ms).
+ */
+@Component
+public class ClaimSigningPipeline {
+    private static final Logger LOG = LoggerFactory.getLogger(ClaimSigningPipeline.class);
+
+    private final XmlBuilder xmlBuilder;
+    private final Supplier<XMLMessageHelper> xmlMessageHelpers;
+    private final GaugeService gaugeService;
+    private final Queue<Transformer> transformers = new ConcurrentLinkedQueue<>();
+
+    @Inject
+    public ClaimSigningPipeline(final XmlBuilder xmlBuilder, final GaugeService gaugeService) {
+        this(xmlBuilder, XMLMessageHelper::new, gaugeService);
+    }
+
+    ClaimSigningPipeline(final XmlBuilder xmlBuilder, final Supplier<XMLMessageHelper> xmlMessageHelpers, final GaugeService gaugeService) {
+        this.xmlBuilder = xmlBuilder;
+        this.xmlMessageHelpers = xmlMessageHelpers;
+        this.gaugeService = gaugeService;
+    }
+
+    public String buildSignedClaim(final Map<String, Object> values, final String transactionId) throws ParserConfigurationException {
+        long start = System.nanoTime();
+        final Document document = xmlBuilder.buildDocument(values);
+        start = submit("build", start);
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("xml:{}", CompactXmlWriter.xmlToString(document, true));
+        }
+
+        final XMLMessageHelper xmlMessageHelper = xmlMessageHelpers.get();
+        try {
+            // the built nodes have no namespaces, without this normalizeDocument reports an error for every one of them
+            document.getDomConfig().setParameter("namespaces", Boolean.FALSE);
+            xmlMessageHelper.normaliseDocument(document);
+            start = submit("normalise", start);
+
+            final Transformer transformer = borrowTransformer(xmlMessageHelper);
+            final String xml = xmlMessageHelper.transformXml(transformer, document);
+            transformers.offer(transformer);
+            start = submit("transform", start);
+
+            final String signedXml = xmlMessageHelper.signXml(xml, transactionId);
+            submit("sign", start);
+            return signedXml;
+        } catch (Exception e) {
+            LOG.error("Unable to sign xml:{}", e.getMessage(), e);
+            throw new SigningException("Unable to sign xml", e);
+        }
+    }
+
+    private Transformer borrowTransformer(final XMLMessageHelper xmlMessageHelper) throws Exception {
+        final Transformer transformer = transformers.poll();
+        return transformer == null ? xmlMessageHelper.createDefaultTransformer() : transformer;
+    }
+
+    private long submit(final String stage, final long start) {
+        final long now = System.nanoTime();
+        gaugeService.submit("claim.xml." + stage, (now - start) / (double)TimeUnit.MILLISECONDS.toNanos(1));
+        return now;
+    }
+}
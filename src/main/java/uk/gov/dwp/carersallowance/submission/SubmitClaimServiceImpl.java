@@ -1,8 +1,6 @@
 package uk.gov.dwp.carersallowance.submission;
 
 import gov.dwp.carers.monitor.Counters;
-import gov.dwp.carers.xml.helpers.XMLMessageHelper;
-import gov.dwp.carers.xml.signing.SigningException;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -13,7 +11,8 @@ import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Component;
 import org.springframework.web.client.RestClientException;
 import org.springframework.web.client.RestTemplate;
-import org.w3c.dom.Document;
+import uk.gov.dwp.carersallowance.circuitbreaker.CircuitBreaker;
+import uk.gov.dwp.carersallowance.circuitbreaker.CircuitBreakerRejectedException;
 import uk.gov.dwp.carersallowance.database.Status;
 import uk.gov.dwp.carersallowance.database.TransactionIdService;
 import uk.gov.dwp.carersallowance.email.EmailService;
@@ -24,9 +23,9 @@ import uk.gov.dwp.carersallowance.utils.C3Constants;
 import uk.gov.dwp.carersallowance.utils.Parameters;
 import uk.gov.dwp.carersallowance.utils.xml.ClaimXmlUtil;
 import uk.gov.dwp.carersallowance.utils.xml.XPathMappingList;
-import uk.gov.dwp.carersallowance.xml.XmlBuilder;
 
 import javax.inject.Inject;
+import javax.inject.Named;
 import javax.servlet.http.HttpServletRequest;
 import javax.xml.parsers.ParserConfigurationException;
 import java.io.IOException;
@@ -45,7 +44,8 @@ public class SubmitClaimServiceImpl implements SubmitClaimService {
     private final MessageSource messageSource;
     private final Counters counters;
     private final EmailService emailService;
-    private final XmlBuilder xmlBuilder;
+    private final ClaimSigningPipeline claimSigningPipeline;
+    private final CircuitBreaker circuitBreaker;
 
     private static final Integer JS_ENABLED = 1;
     private static final Integer JS_DISABLED = 0;
@@ -53,14 +53,15 @@ public class SubmitClaimServiceImpl implements SubmitClaimService {
     private static final Integer CHANGE_CIRCUMSTANCES = 2;
 
     @Inject
-    public SubmitClaimServiceImpl(final RestTemplate restTemplate,
+    public SubmitClaimServiceImpl(final @Named("claimReceivedRestTemplate") RestTemplate restTemplate,
                                   @Value("${cr.url}") final String crUrl,
                                   final SessionManager sessionManager,
                                   final TransactionIdService transactionIdService,
                                   final MessageSource messageSource,
                                   final Counters counters,
                                   final EmailService emailService,
-                                  final XmlBuilder xmlBuilder) {
+                                  final ClaimSigningPipeline claimSigningPipeline,
+                                  final @Named("claimReceivedCircuitBreaker") CircuitBreaker circuitBreaker) {
         this.restTemplate = restTemplate;
         this.crUrl = crUrl;
         this.sessionManager = sessionManager;
@@ -68,7 +69,8 @@ public class SubmitClaimServiceImpl implements SubmitClaimService {
         this.messageSource = messageSource;
         this.counters = counters;
         this.emailService = emailService;
-        this.xmlBuilder = xmlBuilder;
+        this.claimSigningPipeline = claimSigningPipeline;
+        this.circuitBreaker = circuitBreaker;
     }
 
     @Override
@@ -96,6 +98,8 @@ public class SubmitClaimServiceImpl implements SubmitClaimService {
     public String retrieveTransactionId(final Session session) {
         final String transactionId = getTransactionId(session);
         saveTransactionId(transactionId, session);
+        // the session goes to the async sendClaim next, which removes it once sent, so don't leave it to the end of the request
+        sessionManager.flushSession(session);
         return transactionId;
     }
 
@@ -117,10 +121,12 @@ public class SubmitClaimServiceImpl implements SubmitClaimService {
 
             final String submitUrl = crUrl + "/submission";
             LOG.info("Posting claim to :{}", submitUrl);
-            final ResponseEntity<String> responseRest = restTemplate.exchange(submitUrl, HttpMethod.POST, requestRest, String.class);
+            final ResponseEntity<String> responseRest = circuitBreaker.execute(() -> restTemplate.exchange(submitUrl, HttpMethod.POST, requestRest, String.class));
 
             LOG.debug("RESPONSE:{}", responseRest.getStatusCode());
             processResponse(responseRest, transactionId, session, emailBody);
+        } catch (CircuitBreakerRejectedException cbre) {
+            LOG.error("sendClaim not sent for transactionId:{}, {}", transactionId, cbre.getMessage());
         } catch (RestClientException rce) {
             LOG.error("sendClaim error:", rce);
         } catch (Exception e) {
@@ -169,12 +175,7 @@ public class SubmitClaimServiceImpl implements SubmitClaimService {
         Map<String, Object> sessionMap = new HashMap<>(session.getData());
         sessionMap.put("dateTimeGenerated", ClaimXmlUtil.currentDateTime("dd-MM-yyyy HH:mm"));
 
-        xmlBuilder.loadValuesIntoXML(sessionMap);
-        final String xml = xmlBuilder.render(true, false);
-
-        LOG.debug("xml:{}", xml);
-
-        final String signedXml = signClaim(xml, transactionId);
+        final String signedXml = claimSigningPipeline.buildSignedClaim(sessionMap, transactionId);
         LOG.debug("signedXml:{}", signedXml);
         return signedXml;
     }
@@ -182,7 +183,6 @@ public class SubmitClaimServiceImpl implements SubmitClaimService {
     private void saveTransactionId(final String transactionId, final Session session) {
         if (session.getAttribute(C3Constants.TRANSACTION_ID) == null) {
             session.setAttribute(C3Constants.TRANSACTION_ID, transactionId);
-            sessionManager.saveSession(session);
         }
     }
 
@@ -194,20 +194,6 @@ public class SubmitClaimServiceImpl implements SubmitClaimService {
         return transactionId;
     }
 
-    private String signClaim(final String xmlClaim, final String transactionId) {
-        final String xmlString = xmlClaim.replaceAll("<!--[\\s\\S]*?-->", "");
-        final XMLMessageHelper xMLMessageHelper = new XMLMessageHelper();
-        try {
-            final Document document = xMLMessageHelper.createDocument(xmlString);
-            xMLMessageHelper.normaliseDocument(document);
-            final String xmlStringTransformed = xMLMessageHelper.transformXml(xMLMessageHelper.createDefaultTransformer(), document);
-            return xMLMessageHelper.signXml(xmlStringTransformed, transactionId);
-        } catch (Exception e) {
-            LOG.error("Unable to sign xml:{}", e.getMessage(), e);
-            throw new SigningException("Unable to sign xml", e);
-        }
-    }
-
     //need to get email body before request is overwritten
     public String getEmailBody(final HttpServletRequest request, final Session session) {
         try {
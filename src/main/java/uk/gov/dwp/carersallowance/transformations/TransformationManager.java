@@ -5,19 +5,54 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.context.MessageSource;
 import org.springframework.stereotype.Service;
+import uk.gov.dwp.carersallowance.configuration.MessageCatalog;
+import uk.gov.dwp.carersallowance.utils.C3Constants;
 import uk.gov.dwp.carersallowance.utils.Parameters;
 
+import javax.inject.Inject;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Created by peterwhitehead on 29/12/2016.
+ *
+ * The transformations of a field are read from its message (e.g. carerPostcode.transformations = uppercase) the
+ * first time they are needed and kept as a single composed Transformation. reload() drops them all so they are read
+ * again, and is done whenever a MessageCatalog is reloaded.
  */
 @Service
 public class TransformationManager {
     private static final Logger LOG = LoggerFactory.getLogger(TransformationManager.class);
 
+    private static final Transformation NO_TRANSFORMATION = value -> value;
+
+    private volatile Pipelines pipelines;
+
+    @Inject
+    public TransformationManager(final MessageSource messageSource) {
+        this.pipelines = new Pipelines(messageSource);
+        if (messageSource instanceof MessageCatalog) {
+            ((MessageCatalog)messageSource).addReloadListener(this::prepareReload);
+        }
+    }
+
+    /**
+     * Drops every pipeline, so each is read again from the messages the next time it is needed.
+     */
+    public void reload() {
+        pipelines = new Pipelines(pipelines.messageSource);
+        LOG.info("Dropped the field transformations, they are read again from the messages.");
+    }
+
+    /**
+     * Nothing is read until the reloaded messages are current, so this only drops the pipelines then.
+     */
+    public Runnable prepareReload() {
+        return this::reload;
+    }
+
     private List<Transformation> getTransformations(final String transformationsKey, final MessageSource messageSource) {
         LOG.trace("Started AbstractFormController.getTransformations");
         try {
@@ -27,7 +62,7 @@ public class TransformationManager {
             }
 
             List<Transformation> list = new ArrayList<>();
-            String transformationList = messageSource.getMessage(transformationsKey, null, null, Locale.getDefault());
+            String transformationList = messageSource.getMessage(transformationsKey, null, null, C3Constants.CONFIGURATION_LOCALE);
             if(transformationList != null) {
                 String[] transformationNames = transformationList.split(",");
                 for(String transformationName : transformationNames ) {
@@ -48,7 +83,40 @@ public class TransformationManager {
         }
     }
 
-    private Object applySessionTransformations(final String fieldName, final Object fieldValue, final List<Transformation> transformations) {
+    private static Transformation compose(final List<Transformation> transformations) {
+        Transformation composed = NO_TRANSFORMATION;
+        if (transformations != null) {
+            for (final Transformation transformation : transformations) {
+                final Transformation previous = composed;
+                composed = previous == NO_TRANSFORMATION ? transformation : value -> transformation.transform(previous.transform(value));
+            }
+        }
+        return composed;
+    }
+
+    private Transformation getPipeline(final String fieldName, final String transformation, final MessageSource messageSource) {
+        Pipelines current = pipelines;
+        if (messageSource != current.messageSource) {
+            // the pipelines were read from other messages
+            current = new Pipelines(messageSource);
+            pipelines = current;
+        }
+        Map<String, Transformation> fieldPipelines = current.byFormat.get(transformation);
+        if (fieldPipelines == null) {
+            current.byFormat.putIfAbsent(transformation, new ConcurrentHashMap<>());
+            fieldPipelines = current.byFormat.get(transformation);
+        }
+        final Transformation pipeline = fieldPipelines.get(fieldName);
+        if (pipeline != null) {
+            return pipeline;
+        }
+        final String transformationsKey = String.format(transformation, fieldName);
+        final Transformation compiled = compose(getTransformations(transformationsKey, messageSource));
+        fieldPipelines.put(fieldName, compiled);
+        return compiled;
+    }
+
+    private Object applySessionTransformations(final String fieldName, final Object fieldValue, final Transformation transformation) {
         Parameters.validateMandatoryArgs(fieldName,  "fieldName");
         if (fieldValue == null) {
             return null;
@@ -58,7 +126,7 @@ public class TransformationManager {
             String[] fieldValues = (String[])fieldValue;
             String[] transformedValues = new String[fieldValues.length];
             for (int index = 0; index < fieldValues.length; index++) {
-                Object value = applySessionTransformations(fieldName, fieldValues[index], transformations);
+                Object value = applySessionTransformations(fieldName, fieldValues[index], transformation);
                 if (value == null || value instanceof String) {
                     transformedValues[index] = (String)value;
                 } else {
@@ -72,16 +140,23 @@ public class TransformationManager {
             throw new IllegalArgumentException("Expected fieldValue of type String when transforming " + fieldName + ", but received " + fieldValue.getClass().getName());
         }
 
-        String value = (String)fieldValue;
-        for (Transformation transformation: transformations) {
-            value = transformation.transform(value);
-        }
-        return value;
+        return transformation.transform((String)fieldValue);
     }
 
     public Object getTransformedValue(final String fieldName, final Object fieldValue, final String transformation, final MessageSource messageSource) {
-        String transformationsKey = String.format(transformation, fieldName);
-        List<Transformation> transformations = getTransformations(transformationsKey, messageSource);
-        return applySessionTransformations(fieldName, fieldValue, transformations);
+        Parameters.validateMandatoryArgs(fieldName,  "fieldName");
+        return applySessionTransformations(fieldName, fieldValue, getPipeline(fieldName, transformation, messageSource));
+    }
+
+    /**
+     * The pipelines read from one MessageSource, replaced as a whole rather than cleared while they are in use.
+     */
+    private static class Pipelines {
+        private final MessageSource messageSource;
+        private final Map<String, Map<String, Transformation>> byFormat = new ConcurrentHashMap<>();    // key format, then field name
+
+        private Pipelines(final MessageSource messageSource) {
+            this.messageSource = messageSource;
+        }
     }
 }
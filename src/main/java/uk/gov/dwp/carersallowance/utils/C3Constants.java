@@ -1,5 +1,7 @@
 package uk.gov.dwp.carersallowance.utils;
 
+import java.util.Locale;
+
 /**
  * Created by peterwhitehead on 11/01/2017.
  */
@@ -16,4 +18,6 @@ public class C3Constants {
     public static final String WELSH = "Welsh";
     public static final String ENGLISH_LANG = "en";
     public static final String ENGLISH = "English";
+    /** the locale the page flow, fields, validations and transformations are read in, they are the same in every language */
+    public static final Locale CONFIGURATION_LOCALE = Locale.getDefault();
 }
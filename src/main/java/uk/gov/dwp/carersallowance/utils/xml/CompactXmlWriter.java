@@ -0,0 +1,138 @@
+package uk.gov.dwp.carersallowance.utils.xml;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+
+import uk.gov.dwp.carersallowance.utils.Parameters;
+
+/**
+ * Writes a DOM straight to a Writer with no formatting, escaping exactly as the LSSerializer does, so the output is
+ * the same as XmlPrettyPrinter gave without looking up a DOM implementation and building a serializer for every
+ * document. Only elements, attributes and text are supported, which is all the claim xml has.
+ *
+ * The StAX XMLStreamWriter is not used because it escapes differently, e.g. carriage returns and characters
+ * outside the basic multilingual plane are written as they are rather than as character references.
+ */
+public final class CompactXmlWriter {
+    private static final String XML_DECLARATION = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>";
+    private static final int INITIAL_SIZE = 32 * 1024;
+
+    private CompactXmlWriter() {}
+
+    public static String xmlToString(final Node xml, final boolean includeXmlDeclaration) {
+        StringWriter writer = new StringWriter(INITIAL_SIZE);
+        try {
+            write(xml, includeXmlDeclaration, writer);
+        } catch (IOException e) {
+            throw new IllegalStateException("StringWriter failed", e);
+        }
+        return writer.toString();
+    }
+
+    public static void write(final Node xml, final boolean includeXmlDeclaration, final Writer writer) throws IOException {
+        Parameters.validateMandatoryArgs(new Object[]{xml}, new String[]{"xml"});
+        if (includeXmlDeclaration) {
+            writer.write(XML_DECLARATION);
+            writer.write(System.lineSeparator());
+        }
+        writeNode(xml, writer);
+    }
+
+    private static void writeNode(final Node node, final Writer writer) throws IOException {
+        switch (node.getNodeType()) {
+            case Node.DOCUMENT_NODE:
+                writeChildren(node, writer);
+                break;
+            case Node.ELEMENT_NODE:
+                writeElement(node, writer);
+                break;
+            case Node.TEXT_NODE:
+                writeEscaped(node.getNodeValue(), false, writer);
+                break;
+            default:
+                throw new IllegalArgumentException("Unsupported node type: " + node.getNodeType() + " (" + node.getNodeName() + ")");
+        }
+    }
+
+    private static void writeElement(final Node element, final Writer writer) throws IOException {
+        writer.write('<');
+        writer.write(element.getNodeName());
+        NamedNodeMap attributes = element.getAttributes();
+        for (int index = 0; index < attributes.getLength(); index++) {
+            Node attribute = attributes.item(index);
+            writer.write(' ');
+            writer.write(attribute.getNodeName());
+            writer.write("=\"");
+            writeEscaped(attribute.getNodeValue(), true, writer);
+            writer.write('"');
+        }
+        if (hasContent(element)) {
+            writer.write('>');
+            writeChildren(element, writer);
+            writer.write("</");
+            writer.write(element.getNodeName());
+            writer.write('>');
+        } else {
+            writer.write("/>");
+        }
+    }
+
+    private static void writeChildren(final Node node, final Writer writer) throws IOException {
+        for (Node child = node.getFirstChild(); child != null; child = child.getNextSibling()) {
+            writeNode(child, writer);
+        }
+    }
+
+    /**
+     * @return false if the element has no children or only empty text, which the LSSerializer writes as <element/>
+     */
+    private static boolean hasContent(final Node element) {
+        for (Node child = element.getFirstChild(); child != null; child = child.getNextSibling()) {
+            if (child.getNodeType() != Node.TEXT_NODE || child.getNodeValue().isEmpty() == false) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void writeEscaped(final String value, final boolean attribute, final Writer writer) throws IOException {
+        int start = 0;
+        for (int index = 0; index < value.length(); index++) {
+            char character = value.charAt(index);
+            String replacement;
+            if (character == '&') {
+                replacement = "&amp;";
+            } else if (character == '<') {
+                replacement = "&lt;";
+            } else if (character == '>') {
+                replacement = attribute ? null : "&gt;";
+            } else if (character == '"') {
+                replacement = attribute ? "&quot;" : null;
+            } else if (character == '\r') {
+                replacement = "&#xd;";
+            } else if (character == '\n' || character == '\t') {
+                replacement = attribute ? "&#x" + Integer.toHexString(character) + ";" : null;
+            } else if (Character.isHighSurrogate(character) && index + 1 < value.length() && Character.isLowSurrogate(value.charAt(index + 1))) {
+                writer.write(value, start, index - start);
+                writer.write("&#x" + Integer.toHexString(value.codePointAt(index)) + ";");
+                index++;
+                start = index + 1;
+                continue;
+            } else if (character < 0x20 || (character >= 0xD800 && character <= 0xDFFF) || character >= 0xFFFE) {
+                throw new IllegalArgumentException("The character '" + character + "' is an invalid XML character");
+            } else {
+                replacement = null;
+            }
+            if (replacement != null) {
+                writer.write(value, start, index - start);
+                writer.write(replacement);
+                start = index + 1;
+            }
+        }
+        writer.write(value, start, value.length() - start);
+    }
+}
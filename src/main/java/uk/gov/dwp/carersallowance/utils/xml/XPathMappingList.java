@@ -14,6 +14,7 @@ public class XPathMappingList {
     private List<XPathMapping>        list;
     private Map<String, XPathMapping> valueMap;   // XPathMapping.value vs XPathMapping
     private Map<String, XPathMapping> xpathMap;  // XPathMapping vs XPathMapping.value
+    private Map<String, XPathMapping> unqualifiedXPathMap;  // XPathMapping.xpath vs the first XPathMapping
 
     private List<XPathMapping>        immutableList;
     private Map<String, XPathMapping> immutableValueMap;
@@ -23,6 +24,7 @@ public class XPathMappingList {
         list = new ArrayList<>();
         valueMap = new HashMap<>();
         xpathMap = new HashMap<>();
+        unqualifiedXPathMap = new HashMap<>();
     }
 
     public void add(List<String> mappings) throws MappingException {
@@ -91,6 +93,9 @@ public class XPathMappingList {
         }
 
         xpathMap.put(qualifiedXPath, item);
+        if(item.getXpath() != null) {
+            unqualifiedXPathMap.putIfAbsent(item.getXpath(), item);
+        }
 
         immutableList = null;
         immutableValueMap = null;
@@ -124,6 +129,14 @@ public class XPathMappingList {
         }
     }
 
+    /**
+     * @return the first mapping of the xpath without its processing instruction, e.g. for both
+     * DWPBody/.../Answer/Line[@order="1"] and [@order="2"] the one for DWPBody/.../Answer/Line[@order="1"]
+     */
+    public XPathMapping getByXPath(String xpath) {
+        return unqualifiedXPathMap.get(xpath);
+    }
+
     public static class MappingException extends Exception {
         private static final long serialVersionUID = 3130605572024786063L;
 
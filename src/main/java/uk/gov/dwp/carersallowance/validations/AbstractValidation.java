@@ -6,6 +6,7 @@ import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.context.MessageSource;
+import org.springframework.context.i18n.LocaleContextHolder;
 
 import uk.gov.dwp.carersallowance.jsp.Functions;
 import uk.gov.dwp.carersallowance.jsp.ResolveArgs;
@@ -30,13 +31,13 @@ public abstract class AbstractValidation implements Validation {
      * @return the message or null if it does not exist
      */
     protected String getFieldLabel(MessageSource messageSource, String fieldName, String...args) {
-        String fieldTitle = messageSource.getMessage(fieldName + ".label", args, "{" + fieldName + ".label}", Locale.getDefault());
+        String fieldTitle = messageSource.getMessage(fieldName + ".label", args, "{" + fieldName + ".label}", LocaleContextHolder.getLocale());
         return fieldTitle;
     }
 
     private String[] getFieldLabelArgs(MessageSource messageSource, String fieldName, Map<String, String[]> existingFieldValues) {
         try {
-            String fieldTitleArgs = messageSource.getMessage(fieldName + ".label.args", null, null, Locale.getDefault());
+            String fieldTitleArgs = messageSource.getMessage(fieldName + ".label.args", null, null, LocaleContextHolder.getLocale());
 
             if(StringUtils.isBlank(fieldTitleArgs)) {
                 return null;
@@ -150,7 +151,7 @@ public abstract class AbstractValidation implements Validation {
             String[] errorPrefixes = new String[]{fieldCondition, fieldName, condition, errorType};
             for(String prefix : errorPrefixes) {
                 String errorTextKey = String.format(ERROR_TEXT_KEY_FORMAT, StringUtils.defaultString(prefix));
-                String message = messageSource.getMessage(errorTextKey, null, null, Locale.getDefault());
+                String message = messageSource.getMessage(errorTextKey, null, null, LocaleContextHolder.getLocale());
                 LOG.debug("errorTextKey = {}, message = {}", errorTextKey, message);
                 if(StringUtils.isNotBlank(message)) {
                     LOG.debug("using message");
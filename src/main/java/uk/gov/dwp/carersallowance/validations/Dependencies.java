@@ -2,9 +2,9 @@ package uk.gov.dwp.carersallowance.validations;
 
 import java.text.ParseException;
 import java.util.Arrays;
+import java.util.BitSet;
 import java.util.HashMap;
 import java.util.List;
-import java.util.Locale;
 import java.util.Map;
 
 import org.apache.commons.lang.StringUtils;
@@ -12,6 +12,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.context.MessageSource;
 
+import uk.gov.dwp.carersallowance.utils.C3Constants;
 import uk.gov.dwp.carersallowance.utils.Parameters;
 import uk.gov.dwp.carersallowance.utils.PropertyUtils;
 
@@ -21,10 +22,16 @@ import uk.gov.dwp.carersallowance.utils.PropertyUtils;
 public class Dependencies {
     private static final Logger LOG = LoggerFactory.getLogger(Dependencies.class);
 
+    private static final int NO_PARENT = -1;
+
     private Map<String, Dependency> dependencies;
+    private Map<String, Integer> nodeIds;
+    private Dependency[] nodes;
+    private int[] parents;
 
     public Dependencies(MessageSource messageSource, String dependencyKeyFormat, List<String> fields, List<String> referenceFields) throws ParseException {
         dependencies = initDependencies(messageSource, dependencyKeyFormat, fields, referenceFields);
+        compile();
     }
 
     private Map<String, Dependency> initDependencies(MessageSource messageSource, String dependencyKeyFormat, List<String> fields, List<String> referenceFields) throws ParseException {
@@ -35,7 +42,7 @@ public class Dependencies {
             Map<String, Dependency> results = new HashMap<>();
             for(String field: fields) {
                 String key = String.format(dependencyKeyFormat, field);                                 // e.g. nameAndOrganisation.validation.dependency
-                String rawDependency = messageSource.getMessage(key, null, null, Locale.getDefault());  // e.g. thirdParty=no
+                String rawDependency = messageSource.getMessage(key, null, null, C3Constants.CONFIGURATION_LOCALE);  // e.g. thirdParty=no
                 LOG.debug("{} = {}", key, rawDependency);
                 if(rawDependency != null) {
                     rawDependency = PropertyUtils.trimQuotes(rawDependency);
@@ -81,47 +88,112 @@ public class Dependencies {
         }
     }
 
+    /**
+     * Numbers the fields that have a dependency and links each one to the dependency of the field it depends on, so
+     * a check walks the chain by index rather than looking every link up by name. Fails if a chain leads back to a
+     * field already on it, as checking that field would never end.
+     */
+    private void compile() throws ParseException {
+        nodeIds = new HashMap<>();
+        nodes = new Dependency[dependencies.size()];
+        final String[] names = new String[dependencies.size()];
+        for (final Map.Entry<String, Dependency> dependency : dependencies.entrySet()) {
+            final int node = nodeIds.size();
+            nodeIds.put(dependency.getKey(), node);
+            names[node] = dependency.getKey();
+            nodes[node] = dependency.getValue();
+        }
+        parents = new int[nodes.length];
+        for (int node = 0; node < nodes.length; node++) {
+            // an aggregate dependency is complete in itself, only a single one is enabled by its dependant field
+            final Integer parent = nodes[node] instanceof Dependency.AggregateDependency ? null : nodeIds.get(nodes[node].getDependantField());
+            parents[node] = parent == null ? NO_PARENT : parent;
+        }
+
+        final int[] checkedBy = new int[nodes.length];
+        Arrays.fill(checkedBy, -1);
+        for (int start = 0; start < nodes.length; start++) {
+            int node = start;
+            while (node != NO_PARENT && checkedBy[node] == -1) {
+                checkedBy[node] = start;
+                node = parents[node];
+            }
+            // a chain that reaches a node checked from an earlier start joins one already known to end
+            if (node != NO_PARENT && checkedBy[node] == start) {
+                throw new ParseException("Circular dependency: " + describeChain(names, node), 0);
+            }
+        }
+    }
+
+    private String describeChain(final String[] names, final int first) {
+        final StringBuilder chain = new StringBuilder(names[first]);
+        int node = first;
+        do {
+            node = parents[node];
+            chain.append(" -> ").append(names[node]);
+        } while (node != first);
+        return chain.toString();
+    }
+
     /**
      * Report whether all the dependencies for this field are fulfilled
      * and therefore all the validations are in force (e.g. the conditions
      * for an enclosing fold-out have been fulfilled)
      */
     public boolean areDependenciesFulfilled(String field, Map<String, String[]> fieldValues) {
-        LOG.trace("Started FormValidations.areDependenciesFulfilled");
-        try {
-            Parameters.validateMandatoryArgs(field, "field");
-            LOG.debug("Checking dependencies for field: '{}'", field);
-
-            Dependency dependency = dependencies.get(field);
-            if (dependency == null) {
-                // this field has no dependencies, so the validations are all enabled
-                LOG.debug("No dependencies for field, skipping");
-                return true;
-            }
-
-            boolean fulfilled;
-            Dependency.AggregateDependency aggregateDependency = null;
-            if (dependency instanceof Dependency.AggregateDependency) {
-                aggregateDependency = (Dependency.AggregateDependency)dependency;
-                fulfilled = aggregateDependency.isFulfilled(fieldValues);
-            } else {
-                String[] values = fieldValues.get(dependency.getDependantField());
-                LOG.debug("dependent field({}) required value = {}, actual value = {}", dependency.getDependantField(), dependency.getFieldValue(), values == null ? null : Arrays.asList(values));
-                fulfilled = dependency.isFulfilled(values);
-            }
-            if (fulfilled == false) {
-                LOG.debug("condition is not fulfilled");
+        Parameters.validateMandatoryArgs(field, "field");
+        final Integer start = nodeIds.get(field);
+        if (start == null) {
+            // this field has no dependencies, so the validations are all enabled
+            return true;
+        }
+        for (int node = start; node != NO_PARENT; node = parents[node]) {
+            if (isConditionMet(nodes[node], fieldValues) == false) {
                 return false;
             }
+        }
+        return true;
+    }
+
+    private static boolean isConditionMet(final Dependency dependency, final Map<String, String[]> fieldValues) {
+        if (dependency instanceof Dependency.AggregateDependency) {
+            return ((Dependency.AggregateDependency)dependency).isFulfilled(fieldValues);
+        }
+        return dependency.isFulfilled(fieldValues.get(dependency.getDependantField()));
+    }
+
+    /**
+     * @return the checks against one set of field values, each dependency is checked at most once however many
+     * fields share it, so use one evaluation for all the fields of a request
+     */
+    public Evaluation evaluate(final Map<String, String[]> fieldValues) {
+        return new Evaluation(fieldValues);
+    }
+
+    public class Evaluation {
+        private final Map<String, String[]> fieldValues;
+        private final BitSet checked;
+        private final BitSet fulfilled;
+
+        private Evaluation(final Map<String, String[]> fieldValues) {
+            this.fieldValues = fieldValues;
+            this.checked = new BitSet(nodes.length);
+            this.fulfilled = new BitSet(nodes.length);
+        }
+
+        public boolean areDependenciesFulfilled(final String field) {
+            final Integer node = nodeIds.get(field);
+            // no node means this field has no dependencies, so the validations are all enabled
+            return node == null || isFulfilled(node);
+        }
 
-            // make sure the dependent field is enabled.
-            LOG.debug("Condition is met, checking parent dependencies");
-            if (aggregateDependency != null) {
-                return true;
+        private boolean isFulfilled(final int node) {
+            if (checked.get(node) == false) {
+                final boolean result = isConditionMet(nodes[node], fieldValues) && (parents[node] == NO_PARENT || isFulfilled(parents[node]));
+                checked.set(node);
+                fulfilled.set(node, result);
             }
-            return areDependenciesFulfilled(dependency.getDependantField(), fieldValues);
-        } finally {
-            LOG.trace("Ending FormValidations.areDependenciesFulfilled");
+            return fulfilled.get(node);
         }
     }
 
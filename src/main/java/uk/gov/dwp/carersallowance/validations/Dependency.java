@@ -250,31 +250,57 @@ public class Dependency {
             return returnOnNull;
         }
         try {
-            String[] nextDependencies = StringUtils.substringBefore(pageDependency, "|").split("&");
-            String[] orDependencies = StringUtils.substringAfter(pageDependency, "|").split("\\|");
-            Boolean dependenciesMet = Boolean.FALSE;
+            return PageDependency.parse(pageDependency).isFulfilled(data);
+        } catch (ParseException pe) {
+            //do nothing
+        }
+        return true;
+    }
+
+    /**
+     * A page dependency parsed once so it can be checked against many sessions, e.g.
+     * moreBreaksInCare=no&breaks_none=none|breaks_respite=yes. It is fulfilled when the session holds the value of
+     * any one of the conditions, whichever side of an & or | it is.
+     */
+    public static class PageDependency {
+        private final List<Dependency> dependencies;
+
+        private PageDependency(final List<Dependency> dependencies) {
+            this.dependencies = dependencies;
+        }
+
+        public static PageDependency parse(final String pageDependency) throws ParseException {
+            final List<Dependency> dependencies = new ArrayList<>();
+            final String[] nextDependencies = StringUtils.substringBefore(pageDependency, "|").split("&");
+            final String[] orDependencies = StringUtils.substringAfter(pageDependency, "|").split("\\|");
             for (final String nextDependency : nextDependencies) {
-                final Dependency dependency = Dependency.parseSingleLine(nextDependency);
-                if (dependenciesMet == Boolean.FALSE && dependency.getDependantField() != null && data.get(dependency.getDependantField()) != null) {
-                    dependenciesMet = data.get(dependency.getDependantField()).equals(dependency.getFieldValue());
-                }
+                addDependency(dependencies, nextDependency);
             }
-            Boolean dependenciesOrMet = Boolean.FALSE;
             for (final String orDependency : orDependencies) {
-                final Dependency dependency = Dependency.parseSingleLine(orDependency);
-                if (dependency != null) {
-                    if (dependency.getDependantField() != null && data.get(dependency.getDependantField()) != null) {
-                        dependenciesOrMet = data.get(dependency.getDependantField()).equals(dependency.getFieldValue());
-                    }
-                    if (dependenciesOrMet == Boolean.TRUE) {
-                        break;
-                    }
+                addDependency(dependencies, orDependency);
+            }
+            return new PageDependency(dependencies);
+        }
+
+        private static void addDependency(final List<Dependency> dependencies, final String singleLine) throws ParseException {
+            final Dependency dependency = Dependency.parseSingleLine(singleLine);
+            if (dependency != null && dependency.getDependantField() != null) {
+                dependencies.add(dependency);
+            }
+        }
+
+        public boolean isFulfilled(final Map<String, Object> data) {
+            for (final Dependency dependency : dependencies) {
+                final Object value = data.get(dependency.getDependantField());
+                if (value != null && value.equals(dependency.getFieldValue())) {
+                    return true;
                 }
             }
-            return dependenciesMet || dependenciesOrMet;
-        } catch (ParseException pe) {
-            //do nothing
+            return false;
+        }
+
+        public String toString() {
+            return dependencies.toString();
         }
-        return true;
     }
 }
\ No newline at end of file
@@ -5,7 +5,6 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
-import java.util.Locale;
 import java.util.Map;
 
 import org.apache.commons.lang3.StringUtils;
@@ -14,6 +13,7 @@ import org.slf4j.LoggerFactory;
 import org.springframework.context.MessageSource;
 
 import uk.gov.dwp.carersallowance.transformations.TransformationManager;
+import uk.gov.dwp.carersallowance.utils.C3Constants;
 import uk.gov.dwp.carersallowance.utils.Parameters;
 import uk.gov.dwp.carersallowance.utils.PropertyUtils;
 
@@ -55,7 +55,7 @@ public class FormValidations {
             validations = initValidations(messageSource, fields);
 
             LOG.debug("Configuring global regex");
-            String globalRegex = PropertyUtils.trimQuotes(messageSource.getMessage(GLOBAL_REGEX_VALIDATION_KEY, null, null, Locale.getDefault()));
+            String globalRegex = PropertyUtils.trimQuotes(messageSource.getMessage(GLOBAL_REGEX_VALIDATION_KEY, null, null, C3Constants.CONFIGURATION_LOCALE));
             globalRegexValidation = new RegexValidation(GLOBAL_REGEX_VALIDATION_KEY, globalRegex);
 
         } catch(RuntimeException e) {
@@ -70,7 +70,7 @@ public class FormValidations {
     public List<String>      getFields()   { return fields; }
 
     private static String getMessage(MessageSource messageSource, String key) {
-        return messageSource.getMessage(key, null, null, Locale.getDefault());
+        return messageSource.getMessage(key, null, null, C3Constants.CONFIGURATION_LOCALE);
     }
 
     private static List<String> getFields(MessageSource messageSource, String fieldNamesKey) {
@@ -170,7 +170,7 @@ public class FormValidations {
                     }
 
                     String paramName = additionalKey.substring(key.length() + 1);
-                    String paramValue = messageSource.getMessage(additionalKey, null, null, Locale.getDefault());
+                    String paramValue = messageSource.getMessage(additionalKey, null, null, C3Constants.CONFIGURATION_LOCALE);
                     LOG.debug("paramName = {}, paramValue = {}", paramName, paramValue);
                     params.put(paramName, paramValue);
                 }
@@ -194,6 +194,7 @@ public class FormValidations {
             }
 
             LOG.debug("Validating Fields: {}", fields);
+            final Dependencies.Evaluation dependencyEvaluation = dependencies.evaluate(requestFieldValues);
             for(String field: fields) {
                 LOG.debug("validating {}", field);
 
@@ -208,7 +209,7 @@ public class FormValidations {
                     continue;
                 }
 
-                if(dependencies.areDependenciesFulfilled(field, requestFieldValues) == false) {
+                if(dependencyEvaluation.areDependenciesFulfilled(field) == false) {
                     LOG.debug("Skipping. Unfulfilled dependencies for field {}: it is not enabled", field);
                     continue;
                 }
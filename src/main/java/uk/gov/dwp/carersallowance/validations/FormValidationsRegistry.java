@@ -0,0 +1,144 @@
+package uk.gov.dwp.carersallowance.validations;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.MessageSource;
+import org.springframework.stereotype.Component;
+import uk.gov.dwp.carersallowance.configuration.MessageCatalog;
+import uk.gov.dwp.carersallowance.controller.PageOrder;
+import uk.gov.dwp.carersallowance.session.FieldCollection;
+
+import javax.annotation.PostConstruct;
+import javax.inject.Inject;
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The compiled FormValidations of each page, so a form submission does not have to read the validation keys from
+ * the messages and parse them again. Every page of the claim is compiled at startup, any other page the first time
+ * it is posted.
+ *
+ * A page is compiled again when its field list no longer matches the one it was compiled for. reload() compiles every
+ * page again and replaces them all at once, and is done whenever a MessageCatalog is reloaded.
+ */
+@Component
+public class FormValidationsRegistry {
+    private static final Logger LOG = LoggerFactory.getLogger(FormValidationsRegistry.class);
+
+    private final MessageSource messageSource;
+    private final PageOrder pageOrder;
+    private volatile Map<String, Entry> entries;
+
+    @Inject
+    public FormValidationsRegistry(final MessageSource messageSource, final PageOrder pageOrder) {
+        this.messageSource = messageSource;
+        this.pageOrder = pageOrder;
+        this.entries = new ConcurrentHashMap<>();
+        if (messageSource instanceof MessageCatalog) {
+            ((MessageCatalog)messageSource).addReloadListener(this::prepareReload);
+        }
+    }
+
+    /**
+     * Compiles every page of the claim and reports what was compiled. A page that cannot be compiled is reported
+     * and left to fail when it is posted, as it would have done before.
+     */
+    @PostConstruct
+    public void compileAll() {
+        entries = compilePages(new ArrayList<>());
+    }
+
+    /**
+     * Compiles every page of the claim again and replaces them all at once, failing without replacing any if a page
+     * that compiled before no longer does.
+     */
+    public void reload() {
+        prepareReload().run();
+    }
+
+    /**
+     * Compiles every page of the claim from the reloaded messages without replacing the current ones, failing if a
+     * page that compiled before no longer does so the reload is reported as failed.
+     *
+     * @return replaces the current pages with those compiled
+     */
+    public Runnable prepareReload() {
+        final List<String> failed = new ArrayList<>();
+        final Map<String, Entry> compiled = compilePages(failed);
+        failed.retainAll(entries.keySet());
+        if (!failed.isEmpty()) {
+            throw new IllegalStateException("Unable to compile validations for pages: " + failed);
+        }
+        return () -> entries = compiled;
+    }
+
+    /**
+     * @param failed the pages that cannot be compiled are added to it
+     */
+    private Map<String, Entry> compilePages(final List<String> failed) {
+        final long start = System.nanoTime();
+        int fieldCount = 0;
+        final List<String> compiled = new ArrayList<>();
+        final Map<String, Entry> entries = new ConcurrentHashMap<>();
+        for (final String pageName : pageOrder.getAllPages()) {
+            final String[] fields = FieldCollection.getFields(messageSource, pageName);
+            if (fields == null || entries.containsKey(pageName)) {
+                continue;
+            }
+            try {
+                entries.put(pageName, compile(pageName, fields));
+                compiled.add(pageName);
+                fieldCount += fields.length;
+            } catch (ParseException | RuntimeException e) {
+                LOG.error("Unable to compile validations for page {}.", pageName, e);
+                failed.add(pageName);
+            }
+        }
+        LOG.info("Compiled validations for {} pages ({} fields) in {} ms, failed: {}.",
+                compiled.size(), fieldCount, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), failed);
+        LOG.debug("Compiled pages: {}", compiled);
+        return entries;
+    }
+
+    /**
+     * @param pageName the page the fields were posted from
+     * @param fields the page's fields, from its pageName.fields message
+     */
+    public FormValidations getFormValidations(final String pageName, final String[] fields) throws ParseException {
+        final Entry entry = entries.get(pageName);
+        if (entry != null && entry.isCurrent(fields)) {
+            return entry.formValidations;
+        }
+        LOG.info("Compiling validations for page {}.", pageName);
+        final Entry compiled = compile(pageName, fields);
+        entries.put(pageName, compiled);
+        return compiled.formValidations;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    private Entry compile(final String pageName, final String[] fields) throws ParseException {
+        return new Entry(new FormValidations(messageSource, pageName, fields), fields);
+    }
+
+    private static class Entry {
+        private final FormValidations formValidations;
+        private final String[] fields;
+
+        private Entry(final FormValidations formValidations, final String[] fields) {
+            this.formValidations = formValidations;
+            this.fields = fields;
+        }
+
+        private boolean isCurrent(final String[] currentFields) {
+            return Arrays.equals(fields, currentFields);
+        }
+    }
+}
@@ -1,11 +1,11 @@
 package uk.gov.dwp.carersallowance.validations;
 
-import java.util.Locale;
 import java.util.Map;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.context.MessageSource;
+import uk.gov.dwp.carersallowance.utils.C3Constants;
 
 /**
  * TODO convert this to a spring service at some point (need to convert FormValidations first)
@@ -102,7 +102,7 @@ public class ValidationFactory {
      * Resolve references and remove enclosing quotes.
      */
     private String cleanupConditionValue(String code) {
-        String referencedMessageValue = messageSource.getMessage(trimQuotes(code), null, null, Locale.getDefault());
+        String referencedMessageValue = messageSource.getMessage(trimQuotes(code), null, null, C3Constants.CONFIGURATION_LOCALE);
         if (referencedMessageValue == null) {
             return code;
         }
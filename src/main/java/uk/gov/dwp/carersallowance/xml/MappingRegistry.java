@@ -0,0 +1,102 @@
+package uk.gov.dwp.carersallowance.xml;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import uk.gov.dwp.carersallowance.utils.LoadFile;
+import uk.gov.dwp.carersallowance.utils.xml.XPathMappingList;
+
+import javax.inject.Inject;
+import java.io.IOException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The claim's xml mappings, read from the classpath and checked once at startup and shared by the XmlClaimBuilder and
+ * the XmlClaimReader. Each field collection (the breaks in care by who was away and where, and the jobs) has its own
+ * mapping in xmlMapping.collection, e.g. xml.mapping.claim.breaksdphospital; collection names are not case sensitive.
+ */
+@Component
+public class MappingRegistry {
+    public static final String[] CLAIM_COLLECTIONS = {
+        "breaksyouhospital", "breaksdphospital", "breaksyourespite", "breaksdprespite", "breaksother", "JobDetails"
+    };
+
+    private final String mappingName;
+    private final XPathMappingList mappings;
+    private final Map<String, XPathMappingList> collectionMappings;
+    private final MappingTrie mappingTrie;
+
+    @Inject
+    public MappingRegistry(@Value("${xml.mapping}") final String xmlMapping) throws IOException, XPathMappingList.MappingException {
+        this(xmlMapping, CLAIM_COLLECTIONS);
+    }
+
+    public MappingRegistry(final String xmlMapping, final String... collections) throws IOException, XPathMappingList.MappingException {
+        this.mappingName = xmlMapping;
+        this.mappings = loadXPathMappings(xmlMapping);
+        Map<String, XPathMappingList> collectionMappings = new HashMap<>();
+        for (String collection : collections) {
+            collectionMappings.put(collection.toLowerCase(), loadXPathMappings(xmlMapping + "." + collection.toLowerCase()));
+        }
+        this.collectionMappings = Collections.unmodifiableMap(collectionMappings);
+        this.mappingTrie = new MappingTrie(mappings);
+    }
+
+    /**
+     * Mappings with no field collections, for xml that has none.
+     */
+    public MappingRegistry(final XPathMappingList mappings) {
+        this.mappingName = null;
+        this.mappings = mappings;
+        this.collectionMappings = Collections.emptyMap();
+        this.mappingTrie = new MappingTrie(mappings);
+    }
+
+    private static XPathMappingList loadXPathMappings(final String xmlMapping) throws IOException, XPathMappingList.MappingException {
+        URL xmlMappingUrl = MappingRegistry.class.getClassLoader().getResource(xmlMapping);
+        if (xmlMappingUrl == null) {
+            throw new IOException("Unable to find xml mapping: " + xmlMapping);
+        }
+        List<String> xmlMappings = LoadFile.readLines(xmlMappingUrl);
+        XPathMappingList mappings = new XPathMappingList();
+        mappings.add(xmlMappings);
+        if (mappings.getList().isEmpty()) {
+            throw new XPathMappingList.MappingException("xml mapping: " + xmlMapping + " has no mappings");
+        }
+        return mappings;
+    }
+
+    public String getMappingName() {
+        return mappingName;
+    }
+
+    public XPathMappingList getMappings() {
+        return mappings;
+    }
+
+    MappingTrie getMappingTrie() {
+        return mappingTrie;
+    }
+
+    /**
+     * @return the mappings of the field collection, or null if it has none
+     */
+    public XPathMappingList getCollectionMappings(final String collection) {
+        return collection == null ? null : collectionMappings.get(collection.toLowerCase());
+    }
+
+    /**
+     * @return the mappings and those of every field collection
+     */
+    public Collection<XPathMappingList> getAllMappings() {
+        List<XPathMappingList> allMappings = new ArrayList<>();
+        allMappings.add(mappings);
+        allMappings.addAll(collectionMappings.values());
+        return allMappings;
+    }
+}
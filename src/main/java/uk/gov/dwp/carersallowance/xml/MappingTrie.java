@@ -0,0 +1,106 @@
+package uk.gov.dwp.carersallowance.xml;
+
+import uk.gov.dwp.carersallowance.utils.xml.XPathMapping;
+import uk.gov.dwp.carersallowance.utils.xml.XPathMappingList;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The element paths of the mappings as a trie with one node for each element name and its active attributes, e.g.
+ * Line[@order="1"], so XmlReader finds the path and the mapping of each element from its parent's node rather than
+ * building the path and searching the mappings for it. The trie is not changed once built, so it is shared by every
+ * reader; elements that are not in it, e.g. those of the field collections, are given nodes that are not added to it.
+ *
+ * As before a path is mapped by its elements up to the first attribute, so both Line[@order="1"] and Line[@order="2"]
+ * take the first mapping of Line.
+ */
+final class MappingTrie {
+    private static final String PATH_SEPARATOR = "/";
+
+    private final XPathMappingList mappings;
+    private final PathNode root;
+
+    MappingTrie(final XPathMappingList mappings) {
+        this.mappings = mappings;
+        this.root = new PathNode();
+        for (XPathMapping mapping : mappings.getList()) {
+            String xPath = mapping.getXpath();
+            if (xPath != null) {
+                root.add(xPath.split(PATH_SEPARATOR));
+                String processingInstruction = mapping.getProcessingInstruction();
+                if (processingInstruction != null && processingInstruction.startsWith("@")) {
+                    root.add((xPath + "[" + processingInstruction + "]").split(PATH_SEPARATOR));
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the node above the root element, which has no path
+     */
+    PathNode getRoot() {
+        return root;
+    }
+
+    final class PathNode {
+        private final String path;
+        private final String mappedPath;
+        private final boolean hasAttributes;
+        private final XPathMapping mapping;
+        private final Map<String, PathNode> children = new HashMap<>();
+
+        private PathNode() {
+            this.path = null;
+            this.mappedPath = null;
+            this.hasAttributes = false;
+            this.mapping = null;
+        }
+
+        private PathNode(final PathNode parent, final String element) {
+            this.path = parent.path == null ? element : parent.path + PATH_SEPARATOR + element;
+            int attributes = element.indexOf('[');
+            if (parent.hasAttributes) {
+                this.mappedPath = parent.mappedPath;
+            } else if (attributes >= 0) {
+                String name = element.substring(0, attributes);
+                this.mappedPath = parent.mappedPath == null ? name : parent.mappedPath + PATH_SEPARATOR + name;
+            } else {
+                this.mappedPath = path;
+            }
+            this.hasAttributes = parent.hasAttributes || attributes >= 0;
+            this.mapping = mappings.getByXPath(mappedPath);
+        }
+
+        private void add(final String[] elements) {
+            PathNode current = this;
+            for (String element : elements) {
+                PathNode child = current.children.get(element);
+                if (child == null) {
+                    child = new PathNode(current, element);
+                    current.children.put(element, child);
+                }
+                current = child;
+            }
+        }
+
+        /**
+         * @param element the element's name and active attributes
+         */
+        PathNode getChild(final String element) {
+            PathNode child = children.get(element);
+            return child == null ? new PathNode(this, element) : child;
+        }
+
+        String getPath() {
+            return path;
+        }
+
+        /**
+         * @return the mapping of the text of this element, or null if it has none
+         */
+        XPathMapping getMapping() {
+            return mapping;
+        }
+    }
+}
@@ -1,7 +1,5 @@
 package uk.gov.dwp.carersallowance.xml;
 
-import java.io.IOException;
-import java.net.URL;
 import java.util.*;
 
 import javax.xml.parsers.DocumentBuilder;
@@ -15,6 +13,7 @@ import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.context.MessageSource;
+import org.springframework.context.i18n.LocaleContextHolder;
 import org.springframework.context.NoSuchMessageException;
 import org.w3c.dom.Attr;
 import org.w3c.dom.Document;
@@ -25,48 +24,72 @@ import org.w3c.dom.NodeList;
 
 import uk.gov.dwp.carersallowance.session.IllegalFieldValueException;
 import uk.gov.dwp.carersallowance.utils.C3Constants;
-import uk.gov.dwp.carersallowance.utils.LoadFile;
 import uk.gov.dwp.carersallowance.utils.Parameters;
+import uk.gov.dwp.carersallowance.utils.xml.CompactXmlWriter;
 import uk.gov.dwp.carersallowance.utils.xml.XPathMapping;
 import uk.gov.dwp.carersallowance.utils.xml.XPathMappingList;
 import uk.gov.dwp.carersallowance.utils.xml.XmlPrettyPrinter;
 
+/**
+ * Renders a map of values as XML using the XPath mappings of the MappingRegistry, which are read once at startup,
+ * and for each field collection the collection's own mappings. The mappings are not changed after that and each
+ * document is built on its own, so one builder can render any number of claims at the same time.
+ */
 public class XmlBuilder {
     private static final Logger LOG = LoggerFactory.getLogger(XmlBuilder.class);
 
     private static final String PATH_SEPARATOR = "/";
+    // the document's children by name while it is being built, see getNamedNode
+    private static final String CHILD_INDEX = XmlBuilder.class.getName() + ".childIndex";
+    // looked up once, DocumentBuilderFactory.newInstance searches the classpath every time
+    private static final DocumentBuilderFactory DOCUMENT_BUILDER_FACTORY = DocumentBuilderFactory.newInstance();
 
-    private Document document;
-    private Map<String, XPathMappingList> valueMappings;
+    private final MappingRegistry mappingRegistry;
+    private final Map<String, String[]> pathElements;
     private final MessageSource messageSource;
     private final ServerSideResolveArgs serverSideResolveArgs;
-    protected String xmlMapping;
     private final String rootNodeName;
 
-    public XmlBuilder(final String rootNodeName, final MessageSource messageSource, final ServerSideResolveArgs serverSideResolveArgs, final String xmlMapping) throws ParserConfigurationException, IOException, XPathMappingList.MappingException {
+    public XmlBuilder(final String rootNodeName, final MessageSource messageSource, final ServerSideResolveArgs serverSideResolveArgs, final MappingRegistry mappingRegistry) {
         this.messageSource = messageSource;
         this.serverSideResolveArgs = serverSideResolveArgs;
-        this.xmlMapping = xmlMapping;
         this.rootNodeName = rootNodeName;
-        Parameters.validateMandatoryArgs(new Object[]{rootNodeName}, new String[]{ "rootNodeName" });
-        this.valueMappings = loadXPathMappings(null, xmlMapping);
+        Parameters.validateMandatoryArgs(new Object[]{rootNodeName, mappingRegistry}, new String[]{ "rootNodeName", "mappingRegistry" });
+        this.mappingRegistry = mappingRegistry;
+        this.pathElements = Collections.unmodifiableMap(splitPaths(mappingRegistry.getAllMappings()));
     }
 
-    public void loadValuesIntoXML(final Map<String, Object> values) throws ParserConfigurationException {
-        Map<String, String> namespaces = getNamespaces();
-        document = createDocument(rootNodeName, namespaces);
-        addAdditionalValues(values);
-        addNodes(values, null, document);
+    /**
+     * @return the elements of every mapped xpath and of its parent, where field collections are added
+     */
+    private static Map<String, String[]> splitPaths(final Collection<XPathMappingList> mappings) {
+        Map<String, String[]> paths = new HashMap<>();
+        for (XPathMappingList mappingList : mappings) {
+            for (XPathMapping mapping : mappingList.getList()) {
+                String xPath = mapping.getXpath();
+                if (StringUtils.isNotBlank(xPath)) {
+                    paths.put(xPath, xPath.split(PATH_SEPARATOR));
+                    String parent = StringUtils.substringBeforeLast(xPath, PATH_SEPARATOR);
+                    paths.put(parent, parent.split(PATH_SEPARATOR));
+                }
+            }
+        }
+        return paths;
     }
 
-    protected Map<String, XPathMappingList> loadXPathMappings(final String elementName, final String xmlMapping) throws IOException, XPathMappingList.MappingException {
-        Map<String, XPathMappingList> mappings = new HashMap<>();
-        URL claimTemplateUrl = this.getClass().getClassLoader().getResource(xmlMapping);
-        List<String> xmlMappings = LoadFile.readLines(claimTemplateUrl);
-        XPathMappingList valueMappings = new XPathMappingList();
-        valueMappings.add(xmlMappings);
-        mappings.put(elementName, valueMappings);
-        return mappings;
+    /**
+     * Build a new document from the values, which are not changed.
+     */
+    public Document buildDocument(final Map<String, Object> values) throws ParserConfigurationException {
+        Map<String, String> namespaces = getNamespaces();
+        Document document = createDocument(rootNodeName, namespaces);
+        document.setUserData(CHILD_INDEX, new IdentityHashMap<Node, Map<String, Node>>(), null);
+        try {
+            addNodes(addAdditionalValues(values), null, document);
+        } finally {
+            document.setUserData(CHILD_INDEX, null, null);
+        }
+        return document;
     }
 
     protected Map<String, String> getNamespaces() {
@@ -75,8 +98,10 @@ public class XmlBuilder {
     }
 
     private Document createDocument(final String rootNodeName, final Map<String, String> namespaces) throws ParserConfigurationException {
-        DocumentBuilderFactory docFactory = DocumentBuilderFactory.newInstance();
-        DocumentBuilder docBuilder = docFactory.newDocumentBuilder();
+        DocumentBuilder docBuilder;
+        synchronized (DOCUMENT_BUILDER_FACTORY) {
+            docBuilder = DOCUMENT_BUILDER_FACTORY.newDocumentBuilder();
+        }
 
         Document doc = docBuilder.newDocument();
         Element rootNode = doc.createElement(rootNodeName);
@@ -105,7 +130,7 @@ public class XmlBuilder {
             return;
         }
 
-        XPathMappingList mappingList = valueMappings.get(mappingName);
+        XPathMappingList mappingList = mappingName == null ? mappingRegistry.getMappings() : mappingRegistry.getCollectionMappings(mappingName);
         if (mappingList == null) {
             throw new IllegalArgumentException("Unknown mapping: " + mappingName);
         }
@@ -141,7 +166,7 @@ public class XmlBuilder {
                 } else if (value instanceof List) {
                     // field collection, we can't reliably assert the parameterized types, so will go with <?>
                     List<Map<String, Object>> fieldCollectionList = castFieldCollectionList(value);
-                    add(fieldCollectionList, document, valueKey, xpath);
+                    add(fieldCollectionList, ownerDocument(localRootNode), valueKey, xpath);
                 } else {
                     throw new IllegalFieldValueException("Unsupported value class: " + value.getClass().getName(), (String) null, (String[]) null);
                 }
@@ -192,7 +217,7 @@ public class XmlBuilder {
                 newQuestionKey = StringUtils.substringBefore(processingInstruction, "\")").replace("messages(\"", "");
             }
             Object[] parameters = getParameters(newQuestionKey, values);
-            questionMessage = messageSource.getMessage(newQuestionKey, parameters, Locale.getDefault());
+            questionMessage = messageSource.getMessage(newQuestionKey, parameters, LocaleContextHolder.getLocale());
         } catch (NoSuchMessageException e) {
             LOG.error("NoSuchMessageException thrown looking for message for key:" + newQuestionKey);
             questionMessage = "ERROR " + newQuestionKey + " - message not found";
@@ -205,7 +230,7 @@ public class XmlBuilder {
 
     private Object[] getParameters(final String questionKey, final Map<String, Object> values) {
         try {
-            final String expression = messageSource.getMessage(questionKey + ".args", null, null, Locale.getDefault());
+            final String expression = messageSource.getMessage(questionKey + ".args", null, null, LocaleContextHolder.getLocale());
             List<Object> expressions = serverSideResolveArgs.evaluateExpressions(expression, values);
             return (expression == null) ? null : expressions.toArray();
         } catch (NoSuchMessageException e) {
@@ -244,7 +269,7 @@ public class XmlBuilder {
             node = getNamedNode(xPath, null, false, localRootNode);
         }
         if (isValueEmpty(value) == false) {
-            Node textNode = document.createTextNode(value.replace(C3Constants.YES, "Yes").replace(C3Constants.NO, "No"));
+            Node textNode = ownerDocument(localRootNode).createTextNode(value.replace(C3Constants.YES, "Yes").replace(C3Constants.NO, "No"));
             node.appendChild(textNode);
         }
 
@@ -265,7 +290,7 @@ public class XmlBuilder {
                 Element childNode = document.createElement(elementNameToUse);
                 addNodes(fieldCollection, mappingNameToUse, childNode);
                 Node node = getNamedNode(xPathToUse, null, false, document);
-                node.appendChild(childNode);
+                appendChild(node, childNode);
             }
         } catch (Exception e) {
             LOG.error("Unable to add collection.", e);
@@ -330,20 +355,23 @@ public class XmlBuilder {
      * Return a pre-existing child to this specific node that matches the childName and attributes, or if
      * it does not exist: create a new child node if create = true, otherwise return null;
      *
+     * While a document is being built each node's children are indexed by name, so every step of the xPath is one
+     * lookup rather than a scan of the children, and the xPaths of the mappings are split once when they are loaded.
+     *
      * @param localRootNode the rootNode used for xPath calculations
      * @return
      */
     protected Node getNamedNode(final String xPath, final Map<String, String> attributes, final Boolean attrExactMatch, final Node localRootNode) {
-        //remove Line from path
-        String[] pathElements = xPath.split(PATH_SEPARATOR);
+        String[] pathElements = getPathElements(xPath);
+        Map<Node, Map<String, Node>> childIndex = getChildIndex(localRootNode);
         Node current = localRootNode;
         for (int index = 0; index < pathElements.length; index++) {
             String element = pathElements[index];
             Node childNode;
             if (attributes != null && index == pathElements.length -1) {
-                childNode = getNamedNode(current, element, true, attributes, attrExactMatch);
+                childNode = getNamedNode(current, element, true, attributes, attrExactMatch, childIndex);
             } else {
-                childNode = getNamedNode(current, element, true, null, false);
+                childNode = getNamedNode(current, element, true, null, false, childIndex);
             }
             if (childNode == null) {
                 throw new IllegalStateException("Unable to create node(" + element + ") at: " + subpath(xPath, 0, index));
@@ -354,86 +382,95 @@ public class XmlBuilder {
         return current;
     }
 
+    private String[] getPathElements(final String xPath) {
+        String[] elements = pathElements.get(xPath);
+        return elements == null ? xPath.split(PATH_SEPARATOR) : elements;
+    }
+
     /**
      * Return a pre-existing child to this specific node that matches the childName and attributes, or if
      * it does not exist: create a new child node if create = true, otherwise return null;
+     * Only the first child with the name is considered.
      *
      * @return
      */
-    private Node getNamedNode(final Node node, final String childName, final Boolean create, final Map<String, String> attributes, final Boolean attrExactMatch) {
+    private Node getNamedNode(final Node node, final String childName, final Boolean create, final Map<String, String> attributes, final Boolean attrExactMatch, final Map<Node, Map<String, Node>> childIndex) {
         if (node == null || childName == null) {
             return null;
         }
 
-        Boolean hasChild = Boolean.FALSE;
-        Boolean attributesMatch = Boolean.TRUE;
-        Node child = null;
-        NodeList children = node.getChildNodes();
-        for (int index = 0; index < children.getLength(); index++) {
-            attributesMatch = Boolean.TRUE;
-            child = children.item(index);
-            hasChild = Boolean.FALSE;
-            String name = child.getNodeName();
-            if (childName.equals(name)) {
-                if (attributes != null || attrExactMatch) {
-                    Map<String, String> childAttrMap = attrsToMap(child.getAttributes());
-                    attributesMatch = attrsMatch(childAttrMap, attributes, attrExactMatch);
-                    if (!attributesMatch) {
-                        break;
-                    }
-                }
-                hasChild = Boolean.TRUE;
-                break;
-            }
+        Node child = childIndex == null ? getFirstChild(node, childName) : getIndexedChildren(node, childIndex).get(childName);
+        boolean attributesMatch = true;
+        if (child != null && (attributes != null || attrExactMatch)) {
+            attributesMatch = attrsMatch(child.getAttributes(), attributes, attrExactMatch);
         }
 
-        if ((create && !hasChild) || (create && !attributesMatch)) {
-            // we can use node.getOwnerDocument also
-            Element childNode = document.createElement(childName);
-            node.appendChild(childNode);
-            if (attributes != null) {
-                for (Map.Entry<String, String> attribute : attributes.entrySet()) {
-                    //attributes not in schema
-                    //childNode.setAttribute(attribute.getKey(), attribute.getValue());
-                }
-            }
+        if (create && (child == null || !attributesMatch)) {
+            Element childNode = ownerDocument(node).createElement(childName);
+            //attributes not in schema, so not added to childNode
+            appendChild(node, childNode);
             return childNode;
         }
 
-        return hasChild ? child : null;
+        return attributesMatch ? child : null;
     }
 
-    private boolean attrsMatch(final Map<String, String> childAttrs, final Map<String, String> attributes, final Boolean attrExactMatch) {
-        if (attrExactMatch) {
-            return childAttrs.equals(attributes);
+    private static Node getFirstChild(final Node node, final String childName) {
+        for (Node child = node.getFirstChild(); child != null; child = child.getNextSibling()) {
+            if (childName.equals(child.getNodeName())) {
+                return child;
+            }
         }
+        return null;
+    }
 
-        for (Map.Entry<String, String> entry : attributes.entrySet()) {
-            String key = entry.getKey();
-            String value = entry.getValue();
-            if ((childAttrs.containsKey(key) == false)
-                    || (Objects.equals(childAttrs.get(key), value) == false)) {
-                return false;
+    private static Map<Node, Map<String, Node>> getChildIndex(final Node node) {
+        @SuppressWarnings("unchecked")
+        Map<Node, Map<String, Node>> childIndex = (Map<Node, Map<String, Node>>) ownerDocument(node).getUserData(CHILD_INDEX);
+        return childIndex;
+    }
+
+    /**
+     * @return the first child of the node with each name, indexing the node's children the first time it is used
+     */
+    private static Map<String, Node> getIndexedChildren(final Node node, final Map<Node, Map<String, Node>> childIndex) {
+        Map<String, Node> children = childIndex.get(node);
+        if (children == null) {
+            children = new HashMap<>();
+            for (Node child = node.getFirstChild(); child != null; child = child.getNextSibling()) {
+                children.putIfAbsent(child.getNodeName(), child);
             }
+            childIndex.put(node, children);
         }
-        return true;
-
+        return children;
     }
 
-    private Map<String, String> attrsToMap(final NamedNodeMap rawAttrMap) {
-        if (rawAttrMap == null) {
-            return null;
+    /**
+     * Append the child, keeping the index of the document's children up to date while it is being built.
+     */
+    protected void appendChild(final Node parent, final Node child) {
+        parent.appendChild(child);
+        Map<Node, Map<String, Node>> childIndex = getChildIndex(parent);
+        if (childIndex != null) {
+            Map<String, Node> children = childIndex.get(parent);
+            if (children != null) {
+                children.putIfAbsent(child.getNodeName(), child);
+            }
         }
+    }
 
-        Map<String, String> map = new HashMap<>();
-        for (int index = 0; index < rawAttrMap.getLength(); index++) {
-            Node attr = rawAttrMap.item(index);
-            String name = attr.getNodeName();
-            String value = attr.getNodeValue();
-            map.put(name, value);
+    private boolean attrsMatch(final NamedNodeMap childAttrs, final Map<String, String> attributes, final Boolean attrExactMatch) {
+        if (attrExactMatch && (attributes == null || childAttrs.getLength() != attributes.size())) {
+            return false;
         }
 
-        return map;
+        for (Map.Entry<String, String> entry : attributes.entrySet()) {
+            Node attr = childAttrs.getNamedItem(entry.getKey());
+            if (attr == null || Objects.equals(attr.getNodeValue(), entry.getValue()) == false) {
+                return false;
+            }
+        }
+        return true;
     }
 
     private boolean isValueEmpty(final Object value) {
@@ -449,15 +486,26 @@ public class XmlBuilder {
         return false;
     }
 
-    public String render(final Boolean includeXmlDeclaration, final Boolean prettyPrint) throws InstantiationException {
-        String xml = XmlPrettyPrinter.xmlToString(document, prettyPrint, includeXmlDeclaration);
-        return xml;
+    private static Document ownerDocument(final Node node) {
+        return node instanceof Document ? (Document) node : node.getOwnerDocument();
     }
 
-    protected void addAdditionalValues(final Map<String, Object> values) {
+    public String render(final Map<String, Object> values, final Boolean includeXmlDeclaration, final Boolean prettyPrint) throws ParserConfigurationException, InstantiationException {
+        Document document = buildDocument(values);
+        if (prettyPrint) {
+            return XmlPrettyPrinter.xmlToString(document, true, includeXmlDeclaration);
+        }
+        return CompactXmlWriter.xmlToString(document, includeXmlDeclaration);
     }
 
-    public String getNodeValue(final String nodepath) {
+    /**
+     * @return the values to render, a copy of values if there are any to add
+     */
+    protected Map<String, Object> addAdditionalValues(final Map<String, Object> values) {
+        return values;
+    }
+
+    public static String getNodeValue(final Document document, final String nodepath) {
         XPath xpath = XPathFactory.newInstance().newXPath();
         String nodevalue = null;
         try {
@@ -467,12 +515,4 @@ public class XmlBuilder {
         }
         return nodevalue;
     }
-
-    public Document getDocument() {
-        return document;
-    }
-
-    protected Map<String, XPathMappingList> getValueMappings() {
-        return valueMappings;
-    }
 }
\ No newline at end of file
@@ -7,11 +7,9 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.MessageSource;
 import org.springframework.stereotype.Component;
 import org.w3c.dom.*;
-import uk.gov.dwp.carersallowance.utils.xml.XPathMappingList;
 
 import javax.inject.Inject;
 import javax.xml.parsers.ParserConfigurationException;
-import java.io.IOException;
 import java.util.*;
 
 @Component
@@ -24,16 +22,17 @@ public class XmlClaimBuilder extends XmlBuilder {
     public XmlClaimBuilder(@Value("${xml.root.node}") final String rootNodeName,
                            final MessageSource messageSource,
                            final ServerSideResolveArgs serverSideResolveArgs,
-                           @Value("${xml.mapping}") final String xmlMapping,
-                           @Value("${assisted.decision.max.age}") final Integer maxAge) throws ParserConfigurationException, IOException, XPathMappingList.MappingException {
-        super(rootNodeName, messageSource, serverSideResolveArgs, xmlMapping);
+                           final MappingRegistry mappingRegistry,
+                           @Value("${assisted.decision.max.age}") final Integer maxAge) {
+        super(rootNodeName, messageSource, serverSideResolveArgs, mappingRegistry);
         this.maxAge = maxAge;
     }
 
     @Override
-    public void loadValuesIntoXML(final Map<String, Object> values) throws ParserConfigurationException {
-        super.loadValuesIntoXML(values);
-        updateBreaks(getDocument());
+    public Document buildDocument(final Map<String, Object> values) throws ParserConfigurationException {
+        Document document = super.buildDocument(values);
+        updateBreaks(document);
+        return document;
     }
 
     private void updateBreaks(final Document document) {
@@ -97,20 +96,17 @@ public class XmlClaimBuilder extends XmlBuilder {
             String elementNameToUse = elementName;
             String xPathToUse = xPath;
             String mappingNameToUse = elementName;
-            replaceCarerCaree(fieldCollectionList);
-            for (int index = 0; index < fieldCollectionList.size(); index++) {
-                Map<String, Object> fieldCollection = fieldCollectionList.get(index);
+            for (Map<String, Object> fieldCollection : replaceCarerCaree(fieldCollectionList)) {
                 if (elementName.startsWith("breaks")) {
                     //remove end of xPath and use CareBreak as element name
                     elementNameToUse = "CareBreak";
                     xPathToUse = StringUtils.substringBeforeLast(xPath, "/");
                     mappingNameToUse = getMappingNameToUse(fieldCollection, elementName);
-                    getValueMappings().putIfAbsent(mappingNameToUse, loadXPathMappings(mappingNameToUse, xmlMapping + "." + mappingNameToUse.toLowerCase()).get(mappingNameToUse));
                 }
                 Element childNode = document.createElement(elementNameToUse);
                 addNodes(fieldCollection, mappingNameToUse, childNode);
                 Node node = getNamedNode(xPathToUse, null, false, document);
-                node.appendChild(childNode);
+                appendChild(node, childNode);
             }
         } catch (Exception e) {
             LOG.error("Unable to add collection.", e);
@@ -127,22 +123,30 @@ public class XmlClaimBuilder extends XmlBuilder {
     }
 
     @Override
-    protected void addAdditionalValues(final Map<String, Object> values) {
+    protected Map<String, Object> addAdditionalValues(final Map<String, Object> values) {
         AssistedDecision assistedDecision = new AssistedDecision(maxAge, values);
-        values.put("assistedDecisionReason", assistedDecision.getReason());
-        values.put("assistedDecisionDecision", assistedDecision.getDecision());
+        Map<String, Object> allValues = new HashMap<>(values);
+        allValues.put("assistedDecisionReason", assistedDecision.getReason());
+        allValues.put("assistedDecisionDecision", assistedDecision.getDecision());
+        return allValues;
     }
 
-    private void replaceCarerCaree(final List<Map<String, Object>> fieldCollectionList) {
+    /**
+     * @return copies of the field collections, the session's own are not changed
+     */
+    private List<Map<String, Object>> replaceCarerCaree(final List<Map<String, Object>> fieldCollectionList) {
+        List<Map<String, Object>> replaced = new ArrayList<>(fieldCollectionList.size());
         for (Map<String, Object> fieldCollection : fieldCollectionList) {
-            for (String key : fieldCollection.keySet()) {
-                Object value = fieldCollection.get(key);
-                if ("Carer".equals(value)) {
-                    fieldCollection.put(key, "You");
-                } else if ("Caree".equals(value)) {
-                    fieldCollection.put(key, "@dpname");
+            Map<String, Object> copy = new HashMap<>(fieldCollection);
+            for (Map.Entry<String, Object> entry : copy.entrySet()) {
+                if ("Carer".equals(entry.getValue())) {
+                    entry.setValue("You");
+                } else if ("Caree".equals(entry.getValue())) {
+                    entry.setValue("@dpname");
                 }
             }
+            replaced.add(copy);
         }
+        return replaced;
     }
 }
\ No newline at end of file
@@ -1,6 +1,5 @@
 package uk.gov.dwp.carersallowance.xml;
 
-import java.net.URL;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
@@ -20,8 +19,8 @@ public class XmlClaimReader extends XmlReader {
 
     private String fileSuffix;
 
-    public XmlClaimReader(final String xmlFile, final Boolean sessionVariablesOnly, final URL mappingFile) throws Exception {
-        super(xmlFile, sessionVariablesOnly, mappingFile);
+    public XmlClaimReader(final String xmlFile, final Boolean sessionVariablesOnly, final MappingRegistry mappingRegistry) throws Exception {
+        super(xmlFile, sessionVariablesOnly, mappingRegistry);
     }
 
     public XmlClaimReader(final String xml, final XPathMappingList valueMapping, final Boolean sessionVariablesOnly) throws InstantiationException {
@@ -79,21 +78,13 @@ public class XmlClaimReader extends XmlReader {
     private void addJobDetails(final CollectionDetail collectionDetail, final Map<String, Object> latestValues, final String parentPath, final String data) {
         final String path = parentPath.replace(collectionDetail.getStartWith(), "");
         XPathMapping xPathMapping = findMapping(path, collectionDetail.getCollectionName());
-        if (xPathMapping == null) {
-            createAdditionalMappings(mappingFileName + "." + collectionDetail.getCollectionName().toLowerCase(), collectionDetail.getCollectionName());
-            xPathMapping = findMapping(path, collectionDetail.getCollectionName());
-        }
         processMapping(xPathMapping, latestValues, data);
     }
 
     private void addBreaks(final CollectionDetail collectionDetail, final Map<String, Object> latestValues, String parentPath, String data) {
         //need to decipher which type of break it is BreaksType = DPHospital/YouHospital,DPRespite/YouRespite or Other
         final String path = parentPath.replace(collectionDetail.getStartWith(), "");
-        XPathMapping xPathMapping = findMapping(path, fileSuffix);
-        if (xPathMapping == null) {
-            createAdditionalMappings(mappingFileName + ".breaks" + fileSuffix, fileSuffix);
-            xPathMapping = findMapping(path, fileSuffix);
-        }
+        XPathMapping xPathMapping = findMapping(path, "breaks" + fileSuffix);
         processMapping(xPathMapping, latestValues, data.replace("@dpname", "Caree").replace("You", "Carer"));
     }
 
@@ -6,12 +6,10 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.w3c.dom.*;
 import uk.gov.dwp.carersallowance.utils.C3Constants;
-import uk.gov.dwp.carersallowance.utils.LoadFile;
 import uk.gov.dwp.carersallowance.utils.xml.XPathMapping;
 import uk.gov.dwp.carersallowance.utils.xml.XPathMappingList;
 import uk.gov.dwp.carersallowance.utils.xml.XmlPrettyPrinter;
 
-import java.net.URL;
 import java.nio.charset.Charset;
 import java.util.*;
 
@@ -23,7 +21,7 @@ public class XmlReader {
 
 
     private static final Set<String> ACTIVE_ATTRS = new HashSet<>(Arrays.asList(new String[]{"type", "order"}));
-    private static final String PATH_SEPARATOR = "/";
+    private static final String DEFAULT_MAPPING = "default";
 
     protected Set<String> IGNORE_MAPPING = new HashSet<>();
     protected Set<String> NOT_SUPPORTED = new HashSet<>();
@@ -32,52 +30,27 @@ public class XmlReader {
     private Map<String, Object> values;
     private List<String> errors;
     private boolean sessionVariablesOnly;
-    protected String mappingFileName;
     private Document document;
-    private Map<String, XPathMappingList> valueMappings;
+    private final MappingRegistry mappingRegistry;
 
-    public XmlReader(final String xmlFile, final Boolean sessionVariablesOnly, final URL mappingFile) throws Exception {
+    public XmlReader(final String xmlFile, final Boolean sessionVariablesOnly, final MappingRegistry mappingRegistry) throws Exception {
         String xml = IOUtils.toString(XmlClaimReader.class.getClassLoader().getResourceAsStream(xmlFile), Charset.defaultCharset());
-        createSessionValues(createMappings(mappingFile), sessionVariablesOnly, xml);
-    }
-
-    private XPathMappingList createMappings(final URL mappingFile) throws Exception {
-        List<String> xmlMappings = LoadFile.readLines(mappingFile);
-        XPathMappingList xPathMappingList = new XPathMappingList();
-        xPathMappingList.add(xmlMappings);
-        this.mappingFileName = StringUtils.substringAfterLast(mappingFile.getFile(), "/");
-        return xPathMappingList;
-    }
-
-    protected void createAdditionalMappings(final String fileName, final String mappingName) {
-        try {
-            final URL xmlMappingFile = XmlClaimReader.class.getClassLoader().getResource(fileName);
-            if (xmlMappingFile != null) {
-                List<String> xmlMappings = LoadFile.readLines(xmlMappingFile);
-                if (xmlMappings != null) {
-                    XPathMappingList xPathMappingList = new XPathMappingList();
-                    xPathMappingList.add(xmlMappings);
-                    valueMappings.put(mappingName, xPathMappingList);
-                }
-            }
-        } catch (Exception e) {
-            LOG.error("Error loading file.", e);
-        }
+        this.mappingRegistry = mappingRegistry;
+        createSessionValues(sessionVariablesOnly, xml);
     }
 
     public XmlReader(final String xml, final XPathMappingList valueMapping, final Boolean sessionVariablesOnly) throws InstantiationException {
-        createSessionValues(valueMapping, sessionVariablesOnly, xml);
+        this.mappingRegistry = new MappingRegistry(valueMapping);
+        createSessionValues(sessionVariablesOnly, xml);
     }
 
-    private void createSessionValues(final XPathMappingList valueMapping, final Boolean sessionVariablesOnly, final String xml) throws InstantiationException {
+    private void createSessionValues(final Boolean sessionVariablesOnly, final String xml) throws InstantiationException {
         this.sessionVariablesOnly = sessionVariablesOnly;
         document = (Document) XmlPrettyPrinter.stringToNode(xml);
-        valueMappings = new HashMap<>();
         errors = new ArrayList<>();
         values = new HashMap<>();
         createCollectionDetails();
-        valueMappings.put("default", valueMapping);
-        parseXml(values, document.getFirstChild(), null, ACTIVE_ATTRS);
+        parseXml(values, document.getFirstChild(), mappingRegistry.getMappingTrie().getRoot(), ACTIVE_ATTRS);
     }
 
     public Map<String, Object> getValues() {
@@ -88,11 +61,15 @@ public class XmlReader {
         return errors;
     }
 
-    private void parseXml(final Map<String, Object> values, final Node node, final String parentPath, final Set<String> activeAttrsLowerCase) {
+    /**
+     * The path of each element and the mapping of its text are found from its parent's node in the MappingTrie.
+     */
+    private void parseXml(final Map<String, Object> values, final Node node, final MappingTrie.PathNode parent, final Set<String> activeAttrsLowerCase) {
         if (node == null) {
             return;
         }
 
+        String parentPath = parent.getPath();
         if (NOT_SUPPORTED.contains(parentPath)) {
             return;
         }
@@ -100,44 +77,24 @@ public class XmlReader {
         // found text node, create entry
         LOG.debug("parentPath = {}", parentPath);
         if (node instanceof CharacterData) {
-            createMapping(values, node, parentPath);
+            createMapping(values, node, parent);
         }
 
-        // otherwise create current node name
-        String nodePath = buildNodePath(node, parentPath, activeAttrsLowerCase);
-
         // iterate over node children
-        NodeList children = node.getChildNodes();
-        Map<String, Integer> siblingTotals = getSiblingCount(children);
-        Map<String, Integer> currentSiblingCount = new HashMap<>();
-
-        for (int index = 0; index < children.getLength(); index++) {
-            Node child = children.item(index);
-            String childName = child.getNodeName();
-
-            Integer childOrder;
-            if (siblingTotals.get(childName) == null || siblingTotals.get(childName) == Integer.valueOf(1)) {
-                // when there is just a single instance we don't bother with an order attribute,
-                // which is most of the time
-            } else {
-                // we use order attribute, to maintain a one to one mapping (and maintain the order)
-                childOrder = currentSiblingCount.get(childName);
-                if (childOrder == null) {
-                    childOrder = Integer.valueOf(1);
-                } else {
-                    childOrder = Integer.valueOf(childOrder.intValue() + 1);
-                }
-                currentSiblingCount.put(childName, childOrder);
+        if (node.hasChildNodes()) {
+            MappingTrie.PathNode pathNode = parent.getChild(getPathElement(node, activeAttrsLowerCase));
+            for (Node child = node.getFirstChild(); child != null; child = child.getNextSibling()) {
+                parseXml(values, child, pathNode, activeAttrsLowerCase);
             }
-            parseXml(values, child, nodePath, activeAttrsLowerCase);
         }
     }
 
-    private void createMapping(final Map<String, Object> values, final Node xml, final String parentPath) {
+    private void createMapping(final Map<String, Object> values, final Node xml, final MappingTrie.PathNode parent) {
         String data = ((CharacterData) xml).getData();
         LOG.debug("Found Text: {}", data);
 
-        XPathMapping mapping = findMapping(parentPath, "default");
+        String parentPath = parent.getPath();
+        XPathMapping mapping = parent.getMapping();
 
         if (IGNORE_MAPPING.contains(parentPath)) {
             return; // do nothing
@@ -155,32 +112,27 @@ public class XmlReader {
     protected void processMapping(final XPathMapping mapping, final Map<String, Object> values, final String data) {
         String key = mapping.getValue();
         String processingInstruction = mapping.getProcessingInstruction();
-        if (sessionVariablesOnly && key != null && (key.startsWith("/") || key.contains("."))) {
+        if (key == null) {
+            // mapped to no session variable, e.g. an element only written from the messages
+        } else if (sessionVariablesOnly && (key.startsWith("/") || key.contains("."))) {
             // do not store non-session variables
         } else if (processingInstruction != null && processingInstruction.equals("@type=\"date\"")) {
-            LOG.info("XmlClaim adding date:" + key + "->" + data);
+            LOG.info("XmlClaim adding date:{}->{}", key, data);
             createDateMapping(values, key, data);
         } else {
-            LOG.info("XmlClaim adding string:" + key + "->" + data);
+            LOG.info("XmlClaim adding string:{}->{}", key, data);
             // TODO Fixup case on yes / no to be consistent between claim and webapp
             values.put(key, data.replace("No", C3Constants.NO).replace("Yes", C3Constants.YES));
         }
     }
 
+    /**
+     * @return the mapping of the path up to its first attribute, or null if it has none
+     */
     protected XPathMapping findMapping(final String path, final String mappingName) {
         final String newPath = StringUtils.substringBefore(path, "[");
-        final XPathMappingList xPathMappingList = valueMappings.get(mappingName);
-        if (xPathMappingList != null) {
-            for (XPathMapping m : xPathMappingList.getList()) {
-                if (m != null && m.getXpath() != null && m.getXpath().equals(newPath)) {
-                    LOG.error("BIZARRE found mapping for " + newPath + " by looping but not by map lookup. Needs further investigation");
-                    LOG.info("valueMappings :" + valueMappings.toString());
-                    LOG.debug("Loop found matching xpath for parent:{}", newPath);
-                    return m;
-                }
-            }
-        }
-        return null;
+        final XPathMappingList xPathMappingList = DEFAULT_MAPPING.equals(mappingName) ? mappingRegistry.getMappings() : mappingRegistry.getCollectionMappings(mappingName);
+        return xPathMappingList == null ? null : xPathMappingList.getByXPath(newPath);
     }
 
     private void createDateMapping(final Map<String, Object> values, final String keystub, final String datestring) {
@@ -194,44 +146,18 @@ public class XmlReader {
         }
     }
 
-    private String buildNodePath(final Node xml, final String parentPath, final Set<String> activeAttrsLowerCase) {
+    /**
+     * @return the element's name and active attributes, e.g. Line[@order="1"]
+     */
+    private String getPathElement(final Node xml, final Set<String> activeAttrsLowerCase) {
         String nodeName = xml.getNodeName();
-        if (xml instanceof Element) {
-            nodeName = nodeName + getAttrsAsString((Element) xml, activeAttrsLowerCase);
-        }
-
-        String nodePath;
-        if (parentPath == null) {
-            nodePath = nodeName;
-        } else {
-            nodePath = parentPath + PATH_SEPARATOR + nodeName;
-        }
-
-        // TODO put order in here
-        return nodePath;
-    }
-
-    private Map<String, Integer> getSiblingCount(final NodeList nodes) {
-        if (nodes == null) {
-            return null;
-        }
-
-        Map<String, Integer> siblingCount = new HashMap<>();
-        for (int index = 0; index < nodes.getLength(); index++) {
-            Node node = nodes.item(index);
-            if (node instanceof CharacterData) {
-                continue;
-            }
-
-            String nodeName = node.getNodeName();
-            Integer count = siblingCount.get(nodeName);
-            if (count == null) {
-                siblingCount.put(nodeName, Integer.valueOf(1));
-            } else {
-                siblingCount.put(nodeName, Integer.valueOf(count.intValue() + 1));
+        if (xml instanceof Element && xml.hasAttributes()) {
+            String attrs = getAttrsAsString((Element) xml, activeAttrsLowerCase);
+            if (attrs.length() > 0) {
+                return nodeName + attrs;
             }
         }
-        return siblingCount;
+        return nodeName;
     }
 
     private String getAttrsAsString(final Element element, final Set<String> activeAttrsLowerCase) {
@@ -0,0 +1,262 @@
+package uk.gov.dwp.carersallowance.circuitbreaker;
+
+import com.sun.net.httpserver.HttpServer;
+import gov.dwp.carers.monitor.Counters;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.springframework.boot.actuate.metrics.GaugeService;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.Matchers.lessThan;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Runs against a local HTTP stub that answers /slow only after the client's read timeout, and /ok straight away.
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class CircuitBreakerTest {
+    private static final int READ_TIMEOUT = 100;
+    private static final long OPEN_MILLIS = 10000;
+
+    private HttpServer server;
+    private String url;
+    private RestTemplate restTemplate;
+    private TestClock clock;
+    private CircuitBreaker circuitBreaker;
+    private ExecutorService executor;
+
+    @Mock
+    private GaugeService gaugeService;
+
+    @Mock
+    private Counters counters;
+
+    @Before
+    public void setUp() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/slow", exchange -> {
+            try {
+                Thread.sleep(READ_TIMEOUT * 5);
+                exchange.sendResponseHeaders(200, -1);
+            } catch (InterruptedException | IOException e) {
+                // client has gone
+            } finally {
+                exchange.close();
+            }
+        });
+        server.createContext("/ok", exchange -> {
+            exchange.sendResponseHeaders(200, -1);
+            exchange.close();
+        });
+        server.createContext("/missing", exchange -> {
+            exchange.sendResponseHeaders(404, -1);
+            exchange.close();
+        });
+        executor = Executors.newCachedThreadPool();
+        server.setExecutor(executor);
+        server.start();
+        url = "http://localhost:" + server.getAddress().getPort();
+
+        final SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+        requestFactory.setReadTimeout(READ_TIMEOUT);
+        restTemplate = new RestTemplate(requestFactory);
+        clock = new TestClock();
+        circuitBreaker = new CircuitBreaker("sd", 1, 2, OPEN_MILLIS, gaugeService, counters, clock);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private String call(final String path) {
+        return circuitBreaker.execute(() -> {
+            restTemplate.getForEntity(url + path, String.class);
+            return path;
+        });
+    }
+
+    private void callExpectingTimeout() {
+        try {
+            call("/slow");
+            fail("expected ResourceAccessException");
+        } catch (ResourceAccessException rae) {
+            // read timed out
+        }
+    }
+
+    private void callExpectingRejection() {
+        final long start = System.nanoTime();
+        try {
+            call("/ok");
+            fail("expected CircuitBreakerRejectedException");
+        } catch (CircuitBreakerRejectedException cbre) {
+            assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), is(lessThan((long)READ_TIMEOUT)));
+        }
+    }
+
+    @Test
+    public void testOpensAfterConsecutiveTimeoutsAndFailsFast() throws Exception {
+        callExpectingTimeout();
+        assertThat(circuitBreaker.getState(), is(CircuitBreaker.State.CLOSED));
+        callExpectingTimeout();
+        assertThat(circuitBreaker.getState(), is(CircuitBreaker.State.OPEN));
+        callExpectingRejection();
+        verify(counters, times(1)).incrementMetric("circuit-sd-opened");
+        verify(counters, times(1)).incrementMetric("circuit-sd-rejected");
+    }
+
+    @Test
+    public void testSuccessResetsFailureCount() throws Exception {
+        callExpectingTimeout();
+        assertThat(call("/ok"), is("/ok"));
+        callExpectingTimeout();
+        assertThat(circuitBreaker.getState(), is(CircuitBreaker.State.CLOSED));
+    }
+
+    @Test
+    public void testClientErrorIsNotAFailure() throws Exception {
+        for (int call = 0; call < 3; call++) {
+            try {
+                call("/missing");
+                fail("expected HttpClientErrorException");
+            } catch (HttpClientErrorException hcee) {
+                assertThat(hcee.getStatusCode(), is(HttpStatus.NOT_FOUND));
+            }
+        }
+        assertThat(circuitBreaker.getState(), is(CircuitBreaker.State.CLOSED));
+    }
+
+    @Test
+    public void testHalfOpenProbeClosesOnSuccess() throws Exception {
+        callExpectingTimeout();
+        callExpectingTimeout();
+        clock.advance(OPEN_MILLIS);
+        assertThat(circuitBreaker.getState(), is(CircuitBreaker.State.HALF_OPEN));
+        assertThat(call("/ok"), is("/ok"));
+        assertThat(circuitBreaker.getState(), is(CircuitBreaker.State.CLOSED));
+    }
+
+    @Test
+    public void testHalfOpenProbeReopensOnFailure() throws Exception {
+        callExpectingTimeout();
+        callExpectingTimeout();
+        clock.advance(OPEN_MILLIS);
+        callExpectingTimeout();
+        assertThat(circuitBreaker.getState(), is(CircuitBreaker.State.OPEN));
+        callExpectingRejection();
+    }
+
+    @Test
+    public void testHalfOpenProbeReopensOnError() throws Exception {
+        callExpectingTimeout();
+        callExpectingTimeout();
+        clock.advance(OPEN_MILLIS);
+        try {
+            circuitBreaker.execute(() -> {
+                throw new OutOfMemoryError("probe");
+            });
+            fail("expected OutOfMemoryError");
+        } catch (OutOfMemoryError oome) {
+            // the probe failed
+        }
+        assertThat(circuitBreaker.getState(), is(CircuitBreaker.State.OPEN));
+        clock.advance(OPEN_MILLIS);
+        assertThat(call("/ok"), is("/ok"));
+        assertThat(circuitBreaker.getState(), is(CircuitBreaker.State.CLOSED));
+    }
+
+    @Test
+    public void testOnlyOneProbeWhileHalfOpen() throws Exception {
+        circuitBreaker = new CircuitBreaker("sd", 5, 2, OPEN_MILLIS, gaugeService, counters, clock);
+        callExpectingTimeout();
+        callExpectingTimeout();
+        clock.advance(OPEN_MILLIS);
+        final CountDownLatch probing = new CountDownLatch(1);
+        final Future<String> probe = Executors.newSingleThreadExecutor().submit(() -> circuitBreaker.execute(() -> {
+            probing.countDown();
+            restTemplate.getForEntity(url + "/slow", String.class);
+            return "probe";
+        }));
+        probing.await();
+        callExpectingRejection();
+        try {
+            probe.get();
+        } catch (Exception e) {
+            // the probe times out
+        }
+        assertThat(circuitBreaker.getState(), is(CircuitBreaker.State.OPEN));
+    }
+
+    @Test
+    public void testBulkheadRejectsCallsOverTheLimit() throws Exception {
+        final CountDownLatch inFlight = new CountDownLatch(1);
+        final Future<String> slow = Executors.newSingleThreadExecutor().submit(() -> circuitBreaker.execute(() -> {
+            inFlight.countDown();
+            restTemplate.getForEntity(url + "/slow", String.class);
+            return "slow";
+        }));
+        inFlight.await();
+        callExpectingRejection();
+        verify(counters, times(1)).incrementMetric("circuit-sd-bulkhead-full");
+        try {
+            slow.get();
+        } catch (Exception e) {
+            // the slow call times out
+        }
+        assertThat(call("/ok"), is("/ok"));
+    }
+
+    private static class TestClock extends Clock {
+        private long millis = 1000000L;
+
+        private void advance(final long by) {
+            millis += by;
+        }
+
+        @Override
+        public long millis() {
+            return millis;
+        }
+
+        @Override
+        public Instant instant() {
+            return Instant.ofEpochMilli(millis);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(final ZoneId zone) {
+            return this;
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package uk.gov.dwp.carersallowance.configuration;
+
+import gov.dwp.carers.monitor.Counters;
+import org.apache.http.HttpClientConnection;
+import org.apache.http.HttpHost;
+import org.apache.http.conn.ConnectionPoolTimeoutException;
+import org.apache.http.conn.routing.HttpRoute;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Matchers;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.springframework.boot.actuate.metrics.GaugeService;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@RunWith(MockitoJUnitRunner.class)
+public class InstrumentedConnectionManagerTest {
+    private InstrumentedConnectionManager connectionManager;
+
+    private final HttpRoute route = new HttpRoute(new HttpHost("localhost", 9015));
+
+    @Mock
+    private GaugeService gaugeService;
+
+    @Mock
+    private Counters counters;
+
+    @Before
+    public void setUp() throws Exception {
+        connectionManager = new InstrumentedConnectionManager("sd", 1, gaugeService, counters);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        connectionManager.shutdown();
+    }
+
+    @Test
+    public void testPoolIsSizedForTheRoute() throws Exception {
+        assertThat(connectionManager.getMaxTotal(), is(1));
+        assertThat(connectionManager.getMaxPerRoute(route), is(1));
+    }
+
+    @Test
+    public void testLeaseReportsWaitAndPoolUsage() throws Exception {
+        final HttpClientConnection connection = connectionManager.requestConnection(route, null).get(1, TimeUnit.SECONDS);
+        verify(gaugeService, times(1)).submit(Matchers.eq("http.pool.sd.lease.wait"), Matchers.anyDouble());
+        verify(gaugeService, times(1)).submit("http.pool.sd.leased", 1);
+        verify(gaugeService, times(1)).submit("http.pool.sd.available", 0);
+        verify(gaugeService, times(1)).submit("http.pool.sd.max", 1);
+        connectionManager.releaseConnection(connection, null, 0, TimeUnit.MILLISECONDS);
+    }
+
+    @Test
+    public void testLeaseTimeoutIsCounted() throws Exception {
+        final HttpClientConnection connection = connectionManager.requestConnection(route, null).get(1, TimeUnit.SECONDS);
+        try {
+            connectionManager.requestConnection(route, null).get(50, TimeUnit.MILLISECONDS);
+            fail("expected ConnectionPoolTimeoutException");
+        } catch (ConnectionPoolTimeoutException cpte) {
+            verify(counters, times(1)).incrementMetric("http-pool-sd-lease-timeout");
+            verify(gaugeService, times(2)).submit(Matchers.eq("http.pool.sd.lease.wait"), Matchers.anyDouble());
+        }
+        connectionManager.releaseConnection(connection, null, 0, TimeUnit.MILLISECONDS);
+    }
+}
@@ -0,0 +1,83 @@
+package uk.gov.dwp.carersallowance.configuration;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.context.i18n.LocaleContextHolder;
+import org.springframework.context.i18n.SimpleLocaleContext;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+public class LocaleContextTaskDecoratorTest {
+    private static final Locale WELSH = new Locale("cy");
+    private static final Locale ENGLISH = new Locale("en");
+
+    private LocaleContextTaskDecorator taskDecorator;
+
+    @Before
+    public void setUp() throws Exception {
+        taskDecorator = new LocaleContextTaskDecorator();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        LocaleContextHolder.resetLocaleContext();
+    }
+
+    private Runnable decorate(final Locale locale, final AtomicReference<Locale> seen) {
+        LocaleContextHolder.setLocale(locale);
+        return taskDecorator.decorate(() -> seen.set(LocaleContextHolder.getLocale()));
+    }
+
+    private static void runOnNewThread(final Runnable... runnables) throws InterruptedException {
+        final Thread[] threads = new Thread[runnables.length];
+        for (int index = 0; index < runnables.length; index++) {
+            threads[index] = new Thread(runnables[index]);
+            threads[index].start();
+        }
+        for (final Thread thread : threads) {
+            thread.join();
+        }
+    }
+
+    @Test
+    public void testTasksRunInTheLocaleTheyWereSubmittedIn() throws Exception {
+        final AtomicReference<Locale> welsh = new AtomicReference<>();
+        final AtomicReference<Locale> english = new AtomicReference<>();
+        final Runnable welshTask = decorate(WELSH, welsh);
+        final Runnable englishTask = decorate(ENGLISH, english);
+
+        runOnNewThread(welshTask, englishTask);
+        assertThat(welsh.get(), is(WELSH));
+        assertThat(english.get(), is(ENGLISH));
+    }
+
+    @Test
+    public void testLocaleIsFixedWhenTheTaskIsSubmitted() throws Exception {
+        final AtomicReference<Locale> seen = new AtomicReference<>();
+        final Locale[] requestLocale = new Locale[]{WELSH};
+        // like the request's LocaleContext, which reads the locale from the request each time
+        LocaleContextHolder.setLocaleContext(() -> requestLocale[0]);
+        final Runnable task = taskDecorator.decorate(() -> seen.set(LocaleContextHolder.getLocale()));
+        requestLocale[0] = ENGLISH;
+
+        runOnNewThread(task);
+        assertThat(seen.get(), is(WELSH));
+    }
+
+    @Test
+    public void testLocaleIsClearedAfterTheTask() throws Exception {
+        final AtomicReference<Locale> seen = new AtomicReference<>();
+        final Runnable task = decorate(WELSH, seen);
+        LocaleContextHolder.setLocaleContext(new SimpleLocaleContext(ENGLISH));
+
+        task.run();
+        assertThat(seen.get(), is(WELSH));
+        assertThat(LocaleContextHolder.getLocaleContext(), is(nullValue()));
+    }
+}
@@ -0,0 +1,179 @@
+package uk.gov.dwp.carersallowance.configuration;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.context.MessageSource;
+import org.springframework.context.support.ReloadableResourceBundleMessageSource;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+public class MessageCatalogTest {
+    private static final List<Locale> LOCALES = Arrays.asList(Locale.getDefault(), new Locale("en"), new Locale("cy"), new Locale("gb-nir"), Locale.FRANCE);
+    private static final Object[] ARGS = new Object[]{"<a>", "</a>", "three"};
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private MessageCatalog messageCatalog;
+
+    @Before
+    public void setUp() throws Exception {
+        messageCatalog = new MessageCatalog("classpath:messages");
+    }
+
+    private static Set<String> keys(final String... resources) throws IOException {
+        final Set<String> keys = new HashSet<>();
+        for (final String resource : resources) {
+            final Properties properties = new Properties();
+            try (InputStream inputStream = MessageCatalogTest.class.getClassLoader().getResourceAsStream(resource)) {
+                properties.load(inputStream);
+            }
+            keys.addAll(properties.stringPropertyNames());
+        }
+        return keys;
+    }
+
+    /**
+     * @return the message, or the exception when it is not a valid message format
+     */
+    private static String message(final MessageSource messageSource, final String key, final Object[] args, final Locale locale) {
+        try {
+            return messageSource.getMessage(key, args, null, locale);
+        } catch (IllegalArgumentException e) {
+            return e.toString();
+        }
+    }
+
+    @Test
+    public void testGivesTheSameMessagesAsReloadableResourceBundleMessageSource() throws Exception {
+        final ReloadableResourceBundleMessageSource reloadable = new ReloadableResourceBundleMessageSource();
+        reloadable.setBasenames("classpath:messages");
+        reloadable.setDefaultEncoding("UTF-8");
+        final Set<String> keys = keys("messages.properties", "messages_en.properties", "messages_cy.properties");
+        keys.add("no.such.key");
+        for (final Locale locale : LOCALES) {
+            for (final String key : keys) {
+                assertEquals(key + " " + locale, message(reloadable, key, null, locale), message(messageCatalog, key, null, locale));
+                assertEquals(key + " " + locale, message(reloadable, key, ARGS, locale), message(messageCatalog, key, ARGS, locale));
+            }
+        }
+        assertEquals(reloadable.getMessage("yes", null, null, null), messageCatalog.getMessage("yes", null, null, null));
+    }
+
+    @Test
+    public void testMissingMessageGivesTheDefault() throws Exception {
+        assertThat(messageCatalog.getMessage("no.such.key", null, null, Locale.getDefault()), is(nullValue()));
+        assertThat(messageCatalog.getMessage("no.such.key", null, "default", Locale.getDefault()), is("default"));
+    }
+
+    private void write(final File file, final String... lines) throws IOException {
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8)) {
+            for (final String line : lines) {
+                writer.write(line + "\n");
+            }
+        }
+    }
+
+    @Test
+    public void testOtherLocalesAreLookedUpInTheSupportedTablesWithoutAddingAny() throws Exception {
+        final String tables = messageCatalog.toString();
+        for (int count = 0; count < 100; count++) {
+            messageCatalog.getMessage("yes", null, null, new Locale("x" + count, "GB"));
+        }
+        assertThat(messageCatalog.toString(), is(tables));
+        final Locale welsh = new Locale("cy");
+        assertThat(messageCatalog.getMessage("yes", null, null, new Locale("cy", "GB")), is(messageCatalog.getMessage("yes", null, null, welsh)));
+        assertThat(messageCatalog.getCodes(new Locale("cy", "GB")), is(messageCatalog.getCodes(welsh)));
+        assertThat(messageCatalog.getMessage("yes", null, null, Locale.FRANCE), is(messageCatalog.getMessage("yes", null, null, Locale.getDefault())));
+    }
+
+    @Test
+    public void testReloadReplacesTheMessages() throws Exception {
+        final File base = folder.newFile("test.properties");
+        final File welsh = folder.newFile("test_cy.properties");
+        write(base, "greeting = Hello {0}", "farewell = Bye");
+        write(welsh, "greeting = Helo {0}");
+        messageCatalog = new MessageCatalog("file:" + new File(folder.getRoot(), "test").getPath());
+        final Locale cy = new Locale("cy");
+        assertThat(messageCatalog.getMessage("greeting", new Object[]{"Jo"}, null, cy), is("Helo Jo"));
+
+        write(welsh, "greeting = Shwmae {0}");
+        write(base, "greeting = Hi {0}");
+        assertThat(messageCatalog.getMessage("greeting", new Object[]{"Jo"}, null, cy), is("Helo Jo"));
+        assertThat(messageCatalog.getMessage("farewell", null, null, cy), is("Bye"));
+
+        assertThat(messageCatalog.reload(), is(1));
+        assertThat(messageCatalog.getMessage("greeting", new Object[]{"Jo"}, null, cy), is("Shwmae Jo"));
+        assertThat(messageCatalog.getMessage("greeting", new Object[]{"Jo"}, null, Locale.getDefault()), is("Hi Jo"));
+        assertThat(messageCatalog.getMessage("farewell", null, null, cy), is(nullValue()));
+    }
+
+    private MessageCatalog greetingCatalog(final String greeting) throws IOException {
+        final File base = folder.newFile("test.properties");
+        write(base, "greeting = " + greeting);
+        return new MessageCatalog("file:" + new File(folder.getRoot(), "test").getPath());
+    }
+
+    private String otherThreadMessage(final String code) {
+        return CompletableFuture.supplyAsync(() -> messageCatalog.getMessage(code, null, null, Locale.getDefault())).join();
+    }
+
+    @Test
+    public void testReloadRebuildsWhatWasBuiltFromTheMessagesBeforeAnyoneElseSeesThem() throws Exception {
+        messageCatalog = greetingCatalog("Hello");
+        final List<String> rebuilt = new ArrayList<>();
+        messageCatalog.addReloadListener(() -> {
+            rebuilt.add(messageCatalog.getMessage("greeting", null, null, Locale.getDefault()));
+            rebuilt.add(otherThreadMessage("greeting"));
+            return () -> rebuilt.add(otherThreadMessage("greeting"));
+        });
+        write(new File(folder.getRoot(), "test.properties"), "greeting = Hi");
+        messageCatalog.reload();
+        assertThat(rebuilt, is(Arrays.asList("Hi", "Hello", "Hi")));
+    }
+
+    @Test
+    public void testReloadFailsWithoutChangingAnythingWhenAnythingCannotBeRebuilt() throws Exception {
+        messageCatalog = greetingCatalog("Hello");
+        final List<String> rebuilt = new ArrayList<>();
+        messageCatalog.addReloadListener(() -> {
+            throw new IllegalArgumentException("bad validation");
+        });
+        messageCatalog.addReloadListener(() -> {
+            rebuilt.add("pages prepared");
+            return () -> rebuilt.add("pages replaced");
+        });
+        write(new File(folder.getRoot(), "test.properties"), "greeting = Hi");
+        try {
+            messageCatalog.reload();
+            fail("reload should fail");
+        } catch (IllegalStateException e) {
+            assertThat(e.getSuppressed()[0].getMessage(), is("bad validation"));
+        }
+        assertThat(rebuilt, is(Collections.singletonList("pages prepared")));
+        assertThat(messageCatalog.getMessage("greeting", null, null, Locale.getDefault()), is("Hello"));
+    }
+}
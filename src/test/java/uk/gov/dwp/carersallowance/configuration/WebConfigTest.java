@@ -0,0 +1,129 @@
+package uk.gov.dwp.carersallowance.configuration;
+
+import gov.dwp.carers.monitor.Counters;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.springframework.boot.actuate.metrics.GaugeService;
+import org.springframework.context.MessageSource;
+import org.springframework.mock.web.MockServletContext;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.support.GenericWebApplicationContext;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerAdapter;
+import uk.gov.dwp.carersallowance.controller.PageDescriptorRegistry;
+import uk.gov.dwp.carersallowance.controller.PageOrder;
+import uk.gov.dwp.carersallowance.controller.defaultcontoller.DefaultFormController;
+import uk.gov.dwp.carersallowance.encryption.ClaimEncryptionServiceImpl;
+import uk.gov.dwp.carersallowance.handler.SessionUnitOfWorkInterceptor;
+import uk.gov.dwp.carersallowance.session.CookieManager;
+import uk.gov.dwp.carersallowance.session.SessionManager;
+import uk.gov.dwp.carersallowance.session.SessionWriteBehind;
+import uk.gov.dwp.carersallowance.sessiondata.SessionDataFactory;
+import uk.gov.dwp.carersallowance.sessiondata.SessionDataMapServiceImpl;
+import uk.gov.dwp.carersallowance.transformations.TransformationManager;
+import uk.gov.dwp.carersallowance.utils.C3Constants;
+import uk.gov.dwp.carersallowance.utils.FunctionsTestUtils;
+import uk.gov.dwp.carersallowance.validations.FormValidationsRegistry;
+
+import javax.servlet.http.HttpServletRequest;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+@RunWith(MockitoJUnitRunner.class)
+public class WebConfigTest {
+    private static final String PAGE = "/about-you/your-details";
+    private static final String SESSION_ID = "1234";
+
+    private MockMvc mockMvc;
+    private SessionDataMapServiceImpl sessionDataService;
+
+    @Mock
+    private CookieManager cookieManager;
+
+    @Mock
+    private SessionDataFactory sessionDataFactory;
+
+    @Mock
+    private SessionWriteBehind sessionWriteBehind;
+
+    @Mock
+    private Counters counters;
+
+    @Mock
+    private GaugeService gaugeService;
+
+    @Before
+    public void setUp() throws Exception {
+        final MessageSource messageSource = new MessageCatalog("classpath:messages");
+        FunctionsTestUtils.initFunctions(messageSource);
+        sessionDataService = new SessionDataMapServiceImpl(90, 10000000L, counters, gaugeService);
+        sessionDataService.createSessionData(SESSION_ID, C3Constants.CLAIM);
+        when(sessionDataFactory.getSessionDataService()).thenReturn(sessionDataService);
+        when(cookieManager.getSessionIdFromCookie(any(HttpServletRequest.class))).thenReturn(SESSION_ID);
+        final SessionManager sessionManager = new SessionManager(cookieManager, sessionDataFactory, new ClaimEncryptionServiceImpl(false, messageSource),
+                "GB", "0.27", counters, sessionWriteBehind);
+
+        final PageOrder pageOrder = new PageOrder(messageSource, "claim");
+        final PageDescriptorRegistry pageDescriptorRegistry = new PageDescriptorRegistry(messageSource, pageOrder);
+        pageDescriptorRegistry.reload();
+        final FormValidationsRegistry formValidationsRegistry = new FormValidationsRegistry(messageSource, pageOrder);
+        formValidationsRegistry.compileAll();
+        final DefaultFormController controller = new DefaultFormController(sessionManager, messageSource, new TransformationManager(messageSource), pageOrder,
+                formValidationsRegistry, pageDescriptorRegistry);
+
+        final WebConfig webConfig = new WebConfig(new SessionUnitOfWorkInterceptor(sessionManager));
+        final GenericWebApplicationContext applicationContext = new GenericWebApplicationContext(new MockServletContext());
+        applicationContext.getBeanFactory().registerSingleton("defaultFormController", controller);
+        applicationContext.refresh();
+        // as the beans would be if WebConfig created them
+        register(applicationContext, "filteredRequestMappingHandlerMapping", webConfig.addRequestHandler());
+        register(applicationContext, "requestMappingHandlerAdapter", new RequestMappingHandlerAdapter());
+        register(applicationContext, "viewResolver", webConfig.viewResolver());
+        mockMvc = MockMvcBuilders.webAppContextSetup(applicationContext).build();
+    }
+
+    private static void register(final GenericWebApplicationContext applicationContext, final String name, final Object bean) {
+        applicationContext.getBeanFactory().registerSingleton(name, applicationContext.getBeanFactory().initializeBean(bean, name));
+    }
+
+    private static MockHttpServletRequestBuilder postYourDetails(final String firstName) {
+        return post(PAGE).servletPath(PAGE)
+                .param("pageName", PAGE)
+                .param("carerTitle", "Mr")
+                .param("carerFirstName", firstName)
+                .param("carerMiddleName", "")
+                .param("carerSurname", "Bloggs")
+                .param("carerNationalInsuranceNumber", "AB123456C")
+                .param("carerDateOfBirth_day", "1")
+                .param("carerDateOfBirth_month", "1")
+                .param("carerDateOfBirth_year", "1970");
+    }
+
+    @Test
+    public void testDataDrivenPagesLoadTheSessionOnceForTheRequest() throws Exception {
+        // re-showing the form with its errors reads the session again
+        mockMvc.perform(postYourDetails(""));
+        verify(counters, times(1)).incrementMetric("session-load-count");
+        verify(counters, times(1)).incrementMetric("session-reuse-count");
+    }
+
+    @Test
+    public void testDataDrivenPagesSaveTheSessionWhenTheRequestCompletes() throws Exception {
+        mockMvc.perform(postYourDetails("Joe"));
+        verify(counters, times(1)).incrementMetric("session-load-count");
+        verify(counters, times(1)).incrementMetric("session-flush-count");
+        verify(counters, never()).incrementMetric("session-flush-skipped-count");
+        assertThat(sessionDataService.getSessionData(SESSION_ID).getAttribute("carerFirstName"), is((Object)"Joe"));
+    }
+}
@@ -0,0 +1,75 @@
+package uk.gov.dwp.carersallowance.configuration;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.mock.web.MockServletContext;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.support.AnnotationConfigWebApplicationContext;
+import org.springframework.web.servlet.config.annotation.EnableWebMvc;
+import uk.gov.dwp.carersallowance.admin.controller.MessageCatalogController;
+
+import java.util.Collections;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.reset;
+import static org.mockito.Mockito.verify;
+import static org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers.springSecurity;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class WebSecurityConfigTest {
+    private static final MessageCatalog MESSAGE_CATALOG = mock(MessageCatalog.class);
+
+    private AnnotationConfigWebApplicationContext applicationContext;
+    private MockMvc mockMvc;
+
+    @Configuration
+    @EnableWebMvc
+    static class ReloadConfig {
+        @Bean
+        public MessageCatalogController messageCatalogController() {
+            return new MessageCatalogController(MESSAGE_CATALOG, true);
+        }
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        reset(MESSAGE_CATALOG);
+        applicationContext = new AnnotationConfigWebApplicationContext();
+        applicationContext.setServletContext(new MockServletContext());
+        applicationContext.getEnvironment().getPropertySources()
+                .addFirst(new MapPropertySource("test", Collections.singletonMap("messages.reload.addresses", "127.0.0.1, 10.1.0.0/16")));
+        applicationContext.register(WebSecurityConfig.class, ReloadConfig.class);
+        applicationContext.refresh();
+        mockMvc = MockMvcBuilders.webAppContextSetup(applicationContext).apply(springSecurity()).build();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        applicationContext.close();
+    }
+
+    @Test
+    public void testMessagesCanBeReloadedFromTheAllowedAddresses() throws Exception {
+        mockMvc.perform(post(MessageCatalogController.RELOAD_PAGE)).andExpect(status().isOk());
+        mockMvc.perform(post(MessageCatalogController.RELOAD_PAGE).with(request -> {
+            request.setRemoteAddr("10.1.2.3");
+            return request;
+        })).andExpect(status().isOk());
+    }
+
+    @Test
+    public void testMessagesCannotBeReloadedFromAnyOtherAddress() throws Exception {
+        mockMvc.perform(post(MessageCatalogController.RELOAD_PAGE).with(request -> {
+            request.setRemoteAddr("192.168.1.2");
+            return request;
+        })).andExpect(status().isForbidden());
+        verify(MESSAGE_CATALOG, never()).reload();
+    }
+}
@@ -1,16 +1,43 @@
 package uk.gov.dwp.carersallowance.controller;
 
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThat;
 
 import java.io.File;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import javax.servlet.http.HttpServletRequest;
 
 import org.junit.Test;
+import org.springframework.context.MessageSource;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.ui.ExtendedModelMap;
+
+import uk.gov.dwp.carersallowance.controller.defaultcontoller.DefaultFormController;
+import uk.gov.dwp.carersallowance.session.SessionManager;
+import uk.gov.dwp.carersallowance.sessiondata.Session;
+import uk.gov.dwp.carersallowance.transformations.TransformationManager;
+import uk.gov.dwp.carersallowance.utils.FunctionsTestUtils;
+import uk.gov.dwp.carersallowance.utils.MessageSourceTestUtils;
+import uk.gov.dwp.carersallowance.validations.FormValidationsRegistry;
+import uk.gov.dwp.carersallowance.validations.ValidationError;
+import uk.gov.dwp.carersallowance.validations.ValidationSummary;
 
 public class AbstractFormControllerTest {
+    private static final String PAGE = "/about-you/your-details";
+    private static final int THREADS = 16;
+    private static final int POSTS_PER_THREAD = 200;
+
     /**
      * Verify that all the field names used by the controllers are unique.
      *
@@ -30,6 +57,103 @@ public class AbstractFormControllerTest {
         assertEquals(errors.toString(), 0, errors.size());
     }
 
+    /**
+     * One controller serves every request thread, so each post must get back only the errors in its own values.
+     */
+    @Test
+    public void testConcurrentPostsOnlySeeTheirOwnErrors() throws Exception {
+        final MessageSource messageSource = MessageSourceTestUtils.loadMessageSource("messages.properties");
+        FunctionsTestUtils.initFunctions(messageSource);
+        final PageOrder pageOrder = new PageOrder(messageSource, "claim");
+        final DefaultFormController controller = new DefaultFormController(new RequestSessionManager(), messageSource,
+                new TransformationManager(messageSource), pageOrder, new FormValidationsRegistry(messageSource, pageOrder),
+                new PageDescriptorRegistry(messageSource, pageOrder));
+
+        final ExtendedModelMap validModel = new ExtendedModelMap();
+        final String nextPage = controller.postForm(post(true), validModel);
+        assertThat(validModel.get("validationErrors"), is(nullValue()));
+        final List<String> expectedErrors = errorIds(post(false), controller);
+        assertThat(expectedErrors.size(), is(5));
+
+        final CountDownLatch start = new CountDownLatch(1);
+        final ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        final List<Future<Integer>> results = new ArrayList<>();
+        for (int thread = 0; thread < THREADS; thread++) {
+            final boolean valid = thread % 2 == 0;
+            results.add(executor.submit(new Callable<Integer>() {
+                @Override
+                public Integer call() throws Exception {
+                    start.await();
+                    for (int post = 0; post < POSTS_PER_THREAD; post++) {
+                        if (valid) {
+                            final ExtendedModelMap model = new ExtendedModelMap();
+                            assertEquals(nextPage, controller.postForm(post(true), model));
+                            assertEquals(null, model.get("validationErrors"));
+                        } else {
+                            assertEquals(expectedErrors, errorIds(post(false), controller));
+                        }
+                    }
+                    return POSTS_PER_THREAD;
+                }
+            }));
+        }
+        start.countDown();
+        int posts = 0;
+        for (final Future<Integer> result : results) {
+            posts += result.get();
+        }
+        executor.shutdown();
+        assertThat(posts, is(THREADS * POSTS_PER_THREAD));
+    }
+
+    private static MockHttpServletRequest post(final boolean valid) {
+        final MockHttpServletRequest request = new MockHttpServletRequest("POST", PAGE);
+        request.setServletPath(PAGE);
+        request.addParameter("pageName", PAGE);
+        request.addParameter("carerTitle", valid ? "Mr" : "");
+        request.addParameter("carerFirstName", valid ? "Joe" : "");
+        request.addParameter("carerMiddleName", "");
+        request.addParameter("carerSurname", valid ? "Bloggs" : "");
+        request.addParameter("carerNationalInsuranceNumber", valid ? "AB123456C" : "");
+        request.addParameter("carerDateOfBirth_day", valid ? "1" : "");
+        request.addParameter("carerDateOfBirth_month", valid ? "1" : "");
+        request.addParameter("carerDateOfBirth_year", valid ? "1970" : "");
+        return request;
+    }
+
+    private static List<String> errorIds(final HttpServletRequest request, final DefaultFormController controller) {
+        final ExtendedModelMap model = new ExtendedModelMap();
+        controller.postForm(request, model);
+        final List<String> ids = new ArrayList<>();
+        for (final ValidationError error : ((ValidationSummary)model.get("validationErrors")).getFormErrors()) {
+            ids.add(error.getId());
+        }
+        return ids;
+    }
+
+    /**
+     * Gives every request a new empty session.
+     */
+    private static class RequestSessionManager extends SessionManager {
+        private RequestSessionManager() {
+            super(null, null, null, null, null, null, null);
+        }
+
+        @Override
+        public String getSessionIdFromCookie(final HttpServletRequest request) {
+            return "12345";
+        }
+
+        @Override
+        public Session getSession(final String sessionId) {
+            return new Session(sessionId);
+        }
+
+        @Override
+        public void saveSession(final Session session) {
+        }
+    }
+
     private void buildFieldMap(Map<String, String> fields, File dir, String packageName, List<String> errors) {
 //        if(fields == null || dir == null || dir.exists() == false || dir.isDirectory() == false) {
 //            return;
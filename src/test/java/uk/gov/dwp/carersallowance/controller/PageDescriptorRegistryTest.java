@@ -0,0 +1,104 @@
+package uk.gov.dwp.carersallowance.controller;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.context.support.StaticMessageSource;
+import uk.gov.dwp.carersallowance.configuration.MessageCatalog;
+import uk.gov.dwp.carersallowance.session.FieldCollection;
+import uk.gov.dwp.carersallowance.utils.MessageSourceTestUtils;
+
+import java.util.Locale;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.junit.Assert.assertThat;
+
+public class PageDescriptorRegistryTest {
+    private static final String PAGE = "/about-you/your-details";
+    private static final String PAGE_WITH_ADDITIONAL_FIELDS = "/breaks/breaks-in-care";
+    private static final String PAGE_NOT_IN_THE_PAGE_ORDER = "/thankyou/apply-carers";
+
+    private StaticMessageSource messageSource;
+    private PageDescriptorRegistry registry;
+
+    @Before
+    public void setUp() throws Exception {
+        messageSource = (StaticMessageSource)MessageSourceTestUtils.loadMessageSource("messages.properties");
+        registry = new PageDescriptorRegistry(messageSource, new PageOrder(messageSource, "claim"));
+        registry.reload();
+    }
+
+    @Test
+    public void testReadsEveryPageOfTheClaimAtStartup() throws Exception {
+        assertThat(registry.size(), is(greaterThan(30)));
+        final PageDescriptor page = registry.getPageDescriptor(PAGE);
+        assertThat(page.getPageName(), is(PAGE));
+        assertThat(page.getFields(), is(FieldCollection.getFields(messageSource, PAGE)));
+        assertThat(page.getAdditionalFields(), is(nullValue()));
+        assertThat(registry.getPageDescriptor(PAGE), is(sameInstance(page)));
+    }
+
+    @Test
+    public void testReadsTheAdditionalModelFields() throws Exception {
+        assertThat(registry.getPageDescriptor(PAGE_WITH_ADDITIONAL_FIELDS).getAdditionalFields(),
+                is(new String[]{"breakshospital", "breaksrespite", "breaksother"}));
+    }
+
+    @Test
+    public void testReadsOtherPagesWhenFirstRequested() throws Exception {
+        final int size = registry.size();
+        final PageDescriptor page = registry.getPageDescriptor(PAGE_NOT_IN_THE_PAGE_ORDER);
+        assertThat(page.getFields(), is(FieldCollection.getFields(messageSource, PAGE_NOT_IN_THE_PAGE_ORDER)));
+        assertThat(registry.size(), is(size + 1));
+        assertThat(registry.getPageDescriptor(PAGE_NOT_IN_THE_PAGE_ORDER), is(sameInstance(page)));
+    }
+
+    @Test
+    public void testPathsThatAreNotPagesAreNotKept() throws Exception {
+        final int size = registry.size();
+        assertThat(registry.getPageDescriptor("/no/such/page"), is(nullValue()));
+        assertThat(registry.getFields("/no/such/page"), is(nullValue()));
+        assertThat(registry.getPageDescriptor(null), is(nullValue()));
+        assertThat(registry.size(), is(size));
+    }
+
+    @Test
+    public void testReadsEveryPageOfAMessageCatalogAtStartup() throws Exception {
+        final MessageCatalog messageCatalog = new MessageCatalog("classpath:messages");
+        registry = new PageDescriptorRegistry(messageCatalog, new PageOrder(messageCatalog, "claim"));
+        registry.reload();
+        final int size = registry.size();
+        assertThat(registry.getPageDescriptor(PAGE_NOT_IN_THE_PAGE_ORDER).getFields(),
+                is(FieldCollection.getFields(messageCatalog, PAGE_NOT_IN_THE_PAGE_ORDER)));
+        assertThat(registry.getPageDescriptor("/no/such/page"), is(nullValue()));
+        assertThat(registry.size(), is(size));
+    }
+
+    @Test
+    public void testReloadReadsThePagesAgain() throws Exception {
+        final PageDescriptor page = registry.getPageDescriptor(PAGE);
+        messageSource.addMessage(PAGE + ".fields", Locale.getDefault(), "carerTitle, carerSurname");
+        assertThat(registry.getPageDescriptor(PAGE), is(sameInstance(page)));
+
+        registry.reload();
+        final PageDescriptor reloaded = registry.getPageDescriptor(PAGE);
+        assertThat(reloaded, is(not(sameInstance(page))));
+        assertThat(reloaded.getFields(), is(new String[]{"carerTitle", "carerSurname"}));
+    }
+
+    @Test
+    public void testReloadingTheMessageCatalogReadsThePagesAgain() throws Exception {
+        final MessageCatalog messageCatalog = new MessageCatalog("classpath:messages");
+        registry = new PageDescriptorRegistry(messageCatalog, new PageOrder(messageCatalog, "claim"));
+        registry.reload();
+        final PageDescriptor page = registry.getPageDescriptor(PAGE);
+
+        messageCatalog.reload();
+        final PageDescriptor reloaded = registry.getPageDescriptor(PAGE);
+        assertThat(reloaded, is(not(sameInstance(page))));
+        assertThat(reloaded.getFields(), is(page.getFields()));
+    }
+}
@@ -1,6 +1,9 @@
 package uk.gov.dwp.carersallowance.controller;
 
+import java.io.File;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.text.ParseException;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -8,14 +11,18 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
 
 import org.junit.Assert;
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.springframework.context.MessageSource;
 
+import uk.gov.dwp.carersallowance.configuration.MessageCatalog;
 import uk.gov.dwp.carersallowance.sessiondata.Session;
 import uk.gov.dwp.carersallowance.utils.KeyValue;
 import uk.gov.dwp.carersallowance.utils.MessageSourceTestUtils;
@@ -32,6 +39,9 @@ import uk.gov.dwp.carersallowance.utils.Parameters;
 public class PageOrderTest {
     private static final String MESSAGE_PROPERTIES = "messages.properties";
 
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
     private final static String[] FORM_PAGES_FULL_LIST = {
             "/allowance/benefits",
             "/allowance/eligibility",
@@ -273,6 +283,27 @@ public class PageOrderTest {
 //
 //        Assert.assertEquals(PAGE_AFTER_BREAKS, nextPage);
     }
+    @Test
+    public void breaksSubformLoopsUntilItsExitConditionTest() throws ParseException {
+        Session session = new Session();
+        session.setAttribute("breaks_hospital", "yes");
+
+        Assert.assertEquals("/breaks/break-in-hospital", pageOrder.getNextPage("/breaks/breaks-in-care", session, false));
+        Assert.assertEquals("/breaks/breaks-in-care", pageOrder.getNextPage("/breaks/break-in-hospital", session, false));
+
+        session.setAttribute("moreBreaksInCare", "no");
+        session.setAttribute("breaks_none", "none");
+        Assert.assertEquals("/education/your-course-details", pageOrder.getNextPage("/breaks/break-in-hospital", session, false));
+    }
+
+    @Test
+    public void breaksSubformPreviousReturnsToTheParentTest() throws ParseException {
+        Session session = new Session();
+        session.setAttribute("breaks_hospital", "yes");
+
+        Assert.assertEquals(PAGE_AFTER_BREAKS, pageOrder.getPreviousPage("/breaks/breaks-in-care", session));
+    }
+
     @Test
     public void employmentDependencyNotSatisfiedNextTest() throws ParseException {
         Session session = new Session();
@@ -442,4 +473,31 @@ public class PageOrderTest {
     }
 
     // TODO probably need to do some more tests with different page lists (various pathological cases)
+
+    private File writeMessages(final String... lines) throws IOException {
+        final File file = new File(folder.getRoot(), "test.properties");
+        Files.write(file.toPath(), Arrays.asList(lines), StandardCharsets.UTF_8);
+        return file;
+    }
+
+    @Test
+    public void reloadThatChangesThePageFlowIsRefusedTest() throws Exception {
+        writeMessages("form.test.pages = /one, /two", "greeting = Hello");
+        final MessageCatalog messageCatalog = new MessageCatalog("file:" + new File(folder.getRoot(), "test").getPath());
+        final PageOrder testPageOrder = new PageOrder(messageCatalog, "test");
+
+        writeMessages("form.test.pages = /one, /three, /two", "greeting = Hi");
+        try {
+            messageCatalog.reload();
+            Assert.fail("reload should be refused");
+        } catch (IllegalStateException e) {
+            Assert.assertTrue(e.getSuppressed()[0].getMessage(), e.getSuppressed()[0].getMessage().contains("form.test.pages"));
+        }
+        Assert.assertEquals("Hello", messageCatalog.getMessage("greeting", null, null, Locale.getDefault()));
+        Assert.assertEquals(Arrays.asList("/one", "/two"), testPageOrder.getAllPages());
+
+        writeMessages("form.test.pages = /one, /two", "greeting = Hi");
+        messageCatalog.reload();
+        Assert.assertEquals("Hi", messageCatalog.getMessage("greeting", null, null, Locale.getDefault()));
+    }
 }
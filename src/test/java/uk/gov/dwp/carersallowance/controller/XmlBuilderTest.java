@@ -6,9 +6,12 @@ import org.mockito.Mock;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.context.MessageSource;
+import org.w3c.dom.Document;
 import uk.gov.dwp.carersallowance.utils.C3Constants;
 import uk.gov.dwp.carersallowance.utils.xml.ClaimXmlUtil;
+import uk.gov.dwp.carersallowance.xml.MappingRegistry;
 import uk.gov.dwp.carersallowance.xml.ServerSideResolveArgs;
+import uk.gov.dwp.carersallowance.xml.XmlBuilder;
 import uk.gov.dwp.carersallowance.xml.XmlClaimBuilder;
 
 import javax.servlet.http.HttpServletRequest;
@@ -53,9 +56,9 @@ public class XmlBuilderTest {
     @Test
     public void testDocument() {
         try {
-            XmlClaimBuilder xmlBuilder = new XmlClaimBuilder("DWPBody", messageSource, serverSideResolveArgs, "xml.mapping.claim", 65);
-            xmlBuilder.loadValuesIntoXML(sessionMap);
-            assertThat(xmlBuilder.getNodeValue("/DWPBody/Version"), is(xmlVersion));
+            XmlClaimBuilder xmlBuilder = new XmlClaimBuilder("DWPBody", messageSource, serverSideResolveArgs, new MappingRegistry("xml.mapping.claim"), 65);
+            Document document = xmlBuilder.buildDocument(sessionMap);
+            assertThat(XmlBuilder.getNodeValue(document, "/DWPBody/Version"), is(xmlVersion));
         } catch (Exception e) {
             LOG.error("Exception calling XmlBuilder :", e);
         }
@@ -64,9 +67,8 @@ public class XmlBuilderTest {
     @Test
     public void testXml() {
         try {
-            XmlClaimBuilder xmlBuilder = new XmlClaimBuilder("DWPBody", messageSource, serverSideResolveArgs, "xml.mapping.claim", 65);
-            xmlBuilder.loadValuesIntoXML(sessionMap);
-            String xml = xmlBuilder.render(true, false);
+            XmlClaimBuilder xmlBuilder = new XmlClaimBuilder("DWPBody", messageSource, serverSideResolveArgs, new MappingRegistry("xml.mapping.claim"), 65);
+            String xml = xmlBuilder.render(sessionMap, true, false);
             assertTrue(xml.startsWith("<?xml"));
             assertTrue(xml.contains("<DWPBody"));
         } catch (Exception e) {
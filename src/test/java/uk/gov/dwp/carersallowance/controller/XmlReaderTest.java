@@ -6,6 +6,7 @@ import org.junit.Test;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import uk.gov.dwp.carersallowance.utils.C3Constants;
+import uk.gov.dwp.carersallowance.utils.ClaimTestUtils;
 import uk.gov.dwp.carersallowance.utils.LoadFile;
 import uk.gov.dwp.carersallowance.utils.xml.XPathMappingList;
 import uk.gov.dwp.carersallowance.xml.XmlReader;
@@ -16,6 +17,7 @@ import java.nio.charset.Charset;
 import java.util.*;
 
 import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.notNullValue;
 import static org.junit.Assert.assertThat;
 
 public class XmlReaderTest {
@@ -79,4 +81,11 @@ public class XmlReaderTest {
         assertThat(sessionValues.get("thirdParty"), is(C3Constants.NO));
         assertThat(sessionValues.get("nameAndOrganisation"), is("Jenny Bloggs Preston carers"));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void elementsMappedToNoSessionVariableAreNotReadTest() throws Exception {
+        Map<String, Object> values = ClaimTestUtils.readReplicaClaim();
+        assertThat(values.containsKey(null), is(false));
+        assertThat(values.get("carerSurname"), is(notNullValue()));
+    }
+}
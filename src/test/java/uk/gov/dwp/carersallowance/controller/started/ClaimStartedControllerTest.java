@@ -7,6 +7,7 @@ import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
 import org.springframework.context.MessageSource;
 import org.springframework.ui.Model;
+import uk.gov.dwp.carersallowance.controller.PageDescriptorRegistry;
 import uk.gov.dwp.carersallowance.controller.PageOrder;
 import uk.gov.dwp.carersallowance.controller.defaultcontoller.DefaultFormController;
 
@@ -14,12 +15,13 @@ import uk.gov.dwp.carersallowance.session.SessionManager;
 import uk.gov.dwp.carersallowance.sessiondata.Session;
 import uk.gov.dwp.carersallowance.transformations.TransformationManager;
 import uk.gov.dwp.carersallowance.utils.MessageSourceTestUtils;
+import uk.gov.dwp.carersallowance.validations.FormValidationsRegistry;
+import uk.gov.dwp.carersallowance.xml.MappingRegistry;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Collections;
 
 import static org.hamcrest.Matchers.is;
 import static org.junit.Assert.*;
@@ -31,7 +33,6 @@ import static org.mockito.Mockito.when;
 @RunWith(MockitoJUnitRunner.class)
 public class ClaimStartedControllerTest {
     private ClaimStartedController claimStartedController;
-    private final static String MAPPING_FILE = "xml.mapping.claim";
 
     @Mock
     private HttpServletRequest request;
@@ -53,6 +54,9 @@ public class ClaimStartedControllerTest {
     @Mock
     private ChangeLanguageProcess changeLanguageProcess;
 
+    @Mock
+    private MappingRegistry mappingRegistry;
+
     @Mock
     private TransformationManager transformationManager;
 
@@ -60,19 +64,17 @@ public class ClaimStartedControllerTest {
 
     private PageOrder pageOrder;
 
-    private List<String> attributes;
-
     @Before
     public void setUp() throws Exception {
         messageSource = MessageSourceTestUtils.loadMessageSource("messages.properties");
         pageOrder = new PageOrder(messageSource, "claim");
-        defaultFormController = new DefaultFormController(sessionManager, messageSource, transformationManager, pageOrder);
+        defaultFormController = new DefaultFormController(sessionManager, messageSource, transformationManager, pageOrder, new FormValidationsRegistry(messageSource, pageOrder),
+                new PageDescriptorRegistry(messageSource, pageOrder));
 
         when(sessionManager.getSessionIdFromCookie(request)).thenReturn("12345");
         when(request.getServletPath()).thenReturn("/allowance/benefits");
         when(sessionManager.getSession(sessionManager.getSessionIdFromCookie(request))).thenReturn(session);
-        claimStartedController = new ClaimStartedController(false, "", defaultFormController, MAPPING_FILE, changeLanguageProcess, sessionManager);
-        attributes = new ArrayList<>();
+        claimStartedController = new ClaimStartedController(false, "", defaultFormController, mappingRegistry, changeLanguageProcess, sessionManager);
     }
 
     @Test
@@ -82,7 +84,7 @@ public class ClaimStartedControllerTest {
 
     @Test
     public void testPostForm() throws Exception {
-        when(session.getAttributeNames()).thenReturn(attributes);
+        when(session.getData()).thenReturn(Collections.emptyMap());
         when(request.getServletPath()).thenReturn("/allowance/benefits");
         assertThat(claimStartedController.postForm(request, model), is("redirect:/allowance/eligibility#"));
     }
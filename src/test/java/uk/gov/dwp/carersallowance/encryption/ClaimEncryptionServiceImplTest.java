@@ -7,6 +7,7 @@ import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
 import org.springframework.context.MessageSource;
 import uk.gov.dwp.carersallowance.sessiondata.Session;
+import uk.gov.dwp.carersallowance.sessiondata.SessionDelta;
 
 import java.util.Locale;
 
@@ -70,6 +71,17 @@ public class ClaimEncryptionServiceImplTest {
         assertThat(session.getAttribute("carerSurname"), is("+rtBjKWNQNI5lzdJukVKLkHMG8cfjDfmuygGKOxXgD7/zMztYTxu2ocZemomhhP9"));
     }
 
+    @Test
+    public void testEncryptDeltaLeavesSessionPlain() throws Exception {
+        when(messageSource.getMessage(anyString(), any(Object[].class), anyString(), any(Locale.class))).thenReturn("carerSurname");
+        claimEncryptionServiceImpl = new ClaimEncryptionServiceImpl(true, messageSource);
+        session.setAttribute("carerFirstName", "Joe");
+        final SessionDelta delta = claimEncryptionServiceImpl.encryptDelta(session.createDelta());
+        assertThat(delta.getChangedAttributes().get("carerSurname"), is(not("Bloggs")));
+        assertThat(delta.getChangedAttributes().get("carerFirstName"), is("Joe"));
+        assertThat(session.getAttribute("carerSurname"), is("Bloggs"));
+    }
+
     private void createSession() {
         session = new Session("8a20d772-b998-486d-ba05-fd3ef75d4fd2");
         session.setAttribute("carerSurname", "Bloggs");
@@ -0,0 +1,82 @@
+package uk.gov.dwp.carersallowance.handler;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.springframework.context.support.StaticApplicationContext;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.method.HandlerMethod;
+import uk.gov.dwp.carersallowance.controller.defaultcontoller.DefaultFormController;
+
+import javax.servlet.http.HttpServletRequest;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class FilteredRequestMappingHandlerMappingTest {
+    private FilteredRequestMappingHandlerMapping handlerMapping;
+
+    @Mock
+    private DefaultFormController defaultFormController;
+
+    @Before
+    public void setUp() throws Exception {
+        final StaticApplicationContext applicationContext = new StaticApplicationContext();
+        applicationContext.getBeanFactory().registerSingleton("defaultFormController", defaultFormController);
+        applicationContext.refresh();
+
+        handlerMapping = new FilteredRequestMappingHandlerMapping();
+        handlerMapping.setExclude("/javascript/**");
+        handlerMapping.setExclude("/**/*.css");
+        handlerMapping.setApplicationContext(applicationContext);
+        when(defaultFormController.supportsRequest(any(HttpServletRequest.class))).thenReturn(true);
+    }
+
+    private HandlerMethod getHandler(final String path) throws Exception {
+        final MockHttpServletRequest request = new MockHttpServletRequest("GET", path);
+        request.setServletPath(path);
+        return handlerMapping.getHandlerInternal(request);
+    }
+
+    @Test
+    public void testExcludesEverythingBelowAPrefix() throws Exception {
+        assertThat(getHandler("/javascript"), is(nullValue()));
+        assertThat(getHandler("/javascript/"), is(nullValue()));
+        assertThat(getHandler("/javascript/jquery/jquery.js"), is(nullValue()));
+        verify(defaultFormController, never()).supportsRequest(any(HttpServletRequest.class));
+    }
+
+    @Test
+    public void testPrefixOnlyMatchesWholePathSegments() throws Exception {
+        assertThat(getHandler("/javascript-disabled").getBean(), is((Object)defaultFormController));
+    }
+
+    @Test
+    public void testExcludesOtherPatternsWithThePathMatcher() throws Exception {
+        assertThat(getHandler("/stylesheet/main.css"), is(nullValue()));
+        verify(defaultFormController, never()).supportsRequest(any(HttpServletRequest.class));
+    }
+
+    @Test
+    public void testPagesShareTheDefaultControllersHandlerMethod() throws Exception {
+        final HandlerMethod handlerMethod = getHandler("/about-you/your-details");
+        assertThat(handlerMethod.getBean(), is((Object)defaultFormController));
+        assertThat(handlerMethod.getMethod().getName(), is("handleRequest"));
+        assertThat(getHandler("/about-you/marital-status"), is(sameInstance(handlerMethod)));
+    }
+
+    @Test
+    public void testPathsTheDefaultControllerDoesNotSupportAreNotHandled() throws Exception {
+        when(defaultFormController.supportsRequest(any(HttpServletRequest.class))).thenReturn(false);
+        assertThat(getHandler("/no/such/page"), is(nullValue()));
+    }
+}
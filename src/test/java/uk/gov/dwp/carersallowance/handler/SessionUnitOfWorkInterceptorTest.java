@@ -0,0 +1,63 @@
+package uk.gov.dwp.carersallowance.handler;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import uk.gov.dwp.carersallowance.session.SessionManager;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@RunWith(MockitoJUnitRunner.class)
+public class SessionUnitOfWorkInterceptorTest {
+    private SessionUnitOfWorkInterceptor sessionUnitOfWorkInterceptor;
+
+    @Mock
+    private SessionManager sessionManager;
+
+    @Mock
+    private HttpServletRequest request;
+
+    @Mock
+    private HttpServletResponse response;
+
+    @Before
+    public void setUp() throws Exception {
+        sessionUnitOfWorkInterceptor = new SessionUnitOfWorkInterceptor(sessionManager);
+    }
+
+    @Test
+    public void testPreHandleBeginsUnitOfWork() throws Exception {
+        assertThat(sessionUnitOfWorkInterceptor.preHandle(request, response, null), is(true));
+        verify(sessionManager).beginUnitOfWork(request);
+    }
+
+    @Test
+    public void testSavesInPostHandle() throws Exception {
+        sessionUnitOfWorkInterceptor.preHandle(request, response, null);
+        sessionUnitOfWorkInterceptor.postHandle(request, response, null, null);
+        sessionUnitOfWorkInterceptor.afterCompletion(request, response, null, null);
+        final InOrder inOrder = inOrder(sessionManager);
+        inOrder.verify(sessionManager).beginUnitOfWork(request);
+        inOrder.verify(sessionManager, times(2)).endUnitOfWork(request, true);
+        verify(sessionManager, never()).endUnitOfWork(request, false);
+    }
+
+    @Test
+    public void testSavesRequestedBeforeTheHandlerThrewAreStillWritten() throws Exception {
+        sessionUnitOfWorkInterceptor.preHandle(request, response, null);
+        sessionUnitOfWorkInterceptor.afterCompletion(request, response, null, new IllegalStateException("handler failed"));
+        verify(sessionManager).endUnitOfWork(request, true);
+        verify(sessionManager, never()).endUnitOfWork(request, false);
+    }
+}
@@ -1,20 +1,25 @@
 package uk.gov.dwp.carersallowance.monitoring;
 
 import gov.dwp.carers.CADSHealthCheck;
+import gov.dwp.carers.monitor.Counters;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.runners.MockitoJUnitRunner;
+import org.springframework.boot.actuate.metrics.GaugeService;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.client.RestClientException;
 import org.springframework.web.client.RestTemplate;
+import uk.gov.dwp.carersallowance.circuitbreaker.CircuitBreaker;
 
 import static org.hamcrest.CoreMatchers.is;
 import static org.junit.Assert.*;
 import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 /**
@@ -27,9 +32,22 @@ public class ClaimReceivedConnectionCheckTest {
     @Mock
     private RestTemplate restTemplate;
 
+    @Mock
+    private GaugeService gaugeService;
+
+    @Mock
+    private Counters counters;
+
+    private CircuitBreaker circuitBreaker;
+
     @Before
     public void setUp() throws Exception {
-        claimReceivedConnectionCheck = new ClaimReceivedConnectionCheck("c3", "4.00", "http:/localhost:9009", restTemplate);
+        circuitBreaker = new CircuitBreaker("test", 10, 2, 60000L, gaugeService, counters);
+        claimReceivedConnectionCheck = createCheck(circuitBreaker);
+    }
+
+    private ClaimReceivedConnectionCheck createCheck(final CircuitBreaker circuitBreaker) {
+        return new ClaimReceivedConnectionCheck("c3", "4.00", "http:/localhost:9009", restTemplate, circuitBreaker);
     }
 
     @Test
@@ -50,6 +68,29 @@ public class ClaimReceivedConnectionCheckTest {
         thenCheckShouldReturn(CADSHealthCheck.Result.unhealthy(new RestClientException("test")).toString());
     }
 
+    @Test
+    public void testCheckUnhealthyWhenCircuitBreakerOpen() throws Exception {
+        whenRestTemplateThrowsException();
+        claimReceivedConnectionCheck.check();
+        claimReceivedConnectionCheck.check();
+        thenCheckShouldReturn(CADSHealthCheck.Result.unhealthy("Claim received circuit breaker OPEN."));
+        verify(restTemplate, times(2)).getForEntity(anyString(), Mockito.<Class<String>>any());
+    }
+
+    @Test
+    public void testCheckIsTheProbeWhenCircuitBreakerHalfOpen() throws Exception {
+        circuitBreaker = new CircuitBreaker("test", 10, 2, 0L, gaugeService, counters);
+        claimReceivedConnectionCheck = createCheck(circuitBreaker);
+        when(restTemplate.getForEntity(anyString(), Mockito.<Class<String>>any()))
+                .thenThrow(new RestClientException("test"), new RestClientException("test"))
+                .thenReturn(new ResponseEntity("", HttpStatus.OK));
+        claimReceivedConnectionCheck.check();
+        claimReceivedConnectionCheck.check();
+        assertThat(circuitBreaker.getState(), is(CircuitBreaker.State.HALF_OPEN));
+        thenCheckShouldReturn(CADSHealthCheck.Result.healthy());
+        assertThat(circuitBreaker.getState(), is(CircuitBreaker.State.CLOSED));
+    }
+
     private void whenRestTemplateCalledReturn(final HttpStatus status) {
         final ResponseEntity<String> response = new ResponseEntity("", status);
         when(restTemplate.getForEntity(anyString(), Mockito.<Class<String>>any())).thenReturn(response);
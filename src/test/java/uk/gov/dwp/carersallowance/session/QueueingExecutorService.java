@@ -0,0 +1,84 @@
+package uk.gov.dwp.carersallowance.session;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Executor that only collects the tasks, so tests decide when the write behind workers run. Delayed tasks are
+ * collected in the same way with their delay recorded, and no future is returned for them.
+ */
+public class QueueingExecutorService extends AbstractExecutorService implements ScheduledExecutorService {
+    private final List<Runnable> queued;
+    private final List<Long> delayMillis = new ArrayList<>();
+    private boolean shutdown;
+
+    public QueueingExecutorService(final List<Runnable> queued) {
+        this.queued = queued;
+    }
+
+    /**
+     * @return the delay of each task scheduled so far, in the order they were scheduled
+     */
+    public List<Long> getDelayMillis() {
+        return delayMillis;
+    }
+
+    @Override
+    public void execute(final Runnable command) {
+        queued.add(command);
+    }
+
+    @Override
+    public ScheduledFuture<?> schedule(final Runnable command, final long delay, final TimeUnit unit) {
+        delayMillis.add(unit.toMillis(delay));
+        queued.add(command);
+        return null;
+    }
+
+    @Override
+    public <V> ScheduledFuture<V> schedule(final Callable<V> callable, final long delay, final TimeUnit unit) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public ScheduledFuture<?> scheduleAtFixedRate(final Runnable command, final long initialDelay, final long period, final TimeUnit unit) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public ScheduledFuture<?> scheduleWithFixedDelay(final Runnable command, final long initialDelay, final long delay, final TimeUnit unit) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void shutdown() {
+        shutdown = true;
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+        shutdown = true;
+        return Collections.emptyList();
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return shutdown;
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return shutdown;
+    }
+
+    @Override
+    public boolean awaitTermination(final long timeout, final TimeUnit unit) {
+        return true;
+    }
+}
@@ -1,5 +1,7 @@
 package uk.gov.dwp.carersallowance.session;
 
+import gov.dwp.carers.monitor.Counters;
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -7,22 +9,36 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.Matchers;
 import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
+import org.springframework.boot.actuate.metrics.GaugeService;
 import org.springframework.context.MessageSource;
+import org.springframework.context.i18n.LocaleContextHolder;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
 import uk.gov.dwp.carersallowance.encryption.ClaimEncryptionService;
 import uk.gov.dwp.carersallowance.encryption.ClaimEncryptionServiceImpl;
 import uk.gov.dwp.carersallowance.sessiondata.Session;
 import uk.gov.dwp.carersallowance.sessiondata.SessionDataFactory;
 import uk.gov.dwp.carersallowance.sessiondata.SessionDataMapServiceImpl;
+import uk.gov.dwp.carersallowance.sessiondata.SessionDataService;
+import uk.gov.dwp.carersallowance.sessiondata.SessionDelta;
 import uk.gov.dwp.carersallowance.utils.C3Constants;
+import uk.gov.dwp.carersallowance.xml.MappingRegistry;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
-import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
 
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
 import static org.junit.Assert.*;
+import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -33,7 +49,7 @@ import static org.mockito.Mockito.when;
 @RunWith(MockitoJUnitRunner.class)
 public class SessionManagerTest {
     private static final String XML_MAPPING_FILE = "xml.mapping.claim";
-    private URL mappingFileURL;
+    private MappingRegistry mappingRegistry;
 
     private SessionManager sessionManager;
 
@@ -48,6 +64,15 @@ public class SessionManagerTest {
     @Mock
     private MessageSource messageSource;
 
+    @Mock
+    private Counters counters;
+
+    @Mock
+    private GaugeService gaugeService;
+
+    @Mock
+    private SessionWriteBehind sessionWriteBehind;
+
     private ClaimEncryptionService claimEncryptionService;
 
     private Session session;
@@ -64,16 +89,29 @@ public class SessionManagerTest {
     @Before
     public void setUp() throws Exception {
         when(cookieManager.getApplicationVersionNumber()).thenReturn("3.15");
-        mappingFileURL = SessionManager.class.getClassLoader().getResource(XML_MAPPING_FILE);
+        mappingRegistry = new MappingRegistry(XML_MAPPING_FILE);
         session = new Session("1234");
         session.setAttribute(C3Constants.KEY, C3Constants.CLAIM);
-        sessionDataService = new SessionDataMapServiceImpl();
+        sessionDataService = new SessionDataMapServiceImpl(90, 10000000L, counters, gaugeService);
         claimEncryptionService = new ClaimEncryptionServiceImpl(false, messageSource);
         when(sessionDataFactory.getSessionDataService()).thenReturn(sessionDataService);
-        sessionManager = new SessionManager(cookieManager, sessionDataFactory, claimEncryptionService, "GB", "0.27");
+        sessionManager = new SessionManager(cookieManager, sessionDataFactory, claimEncryptionService, "GB", "0.27", counters, sessionWriteBehind);
         objectCaptor = ArgumentCaptor.forClass(Object.class);
     }
 
+    @After
+    public void tearDown() throws Exception {
+        RequestContextHolder.resetRequestAttributes();
+        LocaleContextHolder.resetLocaleContext();
+    }
+
+    private MockHttpServletRequest beginUnitOfWork() {
+        final MockHttpServletRequest servletRequest = new MockHttpServletRequest();
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(servletRequest));
+        sessionManager.beginUnitOfWork(servletRequest);
+        return servletRequest;
+    }
+
     @Test
     public void testGetSession() throws Exception {
         session = sessionDataService.createSessionData("1234", C3Constants.CLAIM);
@@ -90,7 +128,7 @@ public class SessionManagerTest {
 
     @Test
     public void testCreateSessionVariables() throws Exception {
-        sessionManager.createSessionVariables(request, response, "claimreader-claimant.xml", mappingFileURL, C3Constants.CLAIM);
+        sessionManager.createSessionVariables(request, response, "claimreader-claimant.xml", mappingRegistry, C3Constants.CLAIM);
         verify(cookieManager, times(1)).addGaCookie(request, response);
         verify(cookieManager, times(1)).addSessionCookie(Matchers.any(HttpServletResponse.class), anyString());
         verify(cookieManager, times(1)).addVersionCookie(response);
@@ -117,7 +155,7 @@ public class SessionManagerTest {
 
     @Test
     public void testLoadDefaultData() throws Exception {
-        sessionManager.createSessionVariables(request, response, "claimreader-claimdate.xml", mappingFileURL, C3Constants.CLAIM);
+        sessionManager.createSessionVariables(request, response, "claimreader-claimdate.xml", mappingRegistry, C3Constants.CLAIM);
         verify(request, times(1)).setAttribute(anyString(), objectCaptor.capture());
         final String sessionId = objectCaptor.getValue().toString();
         session = sessionManager.getSession(sessionId);
@@ -128,7 +166,7 @@ public class SessionManagerTest {
 
     @Test
     public void testLoadClaimDate() throws Exception {
-        sessionManager.createSessionVariables(request, response, "claimreader-claimdate.xml", mappingFileURL, C3Constants.CLAIM);
+        sessionManager.createSessionVariables(request, response, "claimreader-claimdate.xml", mappingRegistry, C3Constants.CLAIM);
         verify(request, times(1)).setAttribute(anyString(), objectCaptor.capture());
         final String sessionId = objectCaptor.getValue().toString();
         session = sessionManager.getSession(sessionId);
@@ -137,9 +175,19 @@ public class SessionManagerTest {
         assertThat(session.getAttribute("dateOfClaim_year"), is("2016"));
     }
 
+    @Test
+    public void testLanguageIsTakenFromTheRequestLocale() throws Exception {
+        LocaleContextHolder.setLocale(new Locale(C3Constants.WELSH_LANG));
+        sessionManager.createSessionVariables(request, response, "", mappingRegistry, C3Constants.CLAIM);
+        verify(request, times(1)).setAttribute(anyString(), objectCaptor.capture());
+        session = sessionManager.getSession(objectCaptor.getValue().toString());
+        assertThat(session.getAttribute("language"), is(C3Constants.WELSH));
+        assertThat(Locale.getDefault().getLanguage(), is(not(C3Constants.WELSH_LANG)));
+    }
+
     @Test
     public void testLoadReplicaData() throws Exception {
-        sessionManager.createSessionVariables(request, response, "claimreader-claimant.xml", mappingFileURL, C3Constants.CLAIM);
+        sessionManager.createSessionVariables(request, response, "claimreader-claimant.xml", mappingRegistry, C3Constants.CLAIM);
         verify(request, times(1)).setAttribute(anyString(), objectCaptor.capture());
         final String sessionId = objectCaptor.getValue().toString();
         session = sessionManager.getSession(sessionId);
@@ -158,11 +206,186 @@ public class SessionManagerTest {
 
     @Test
     public void testXmlVersionOverwritesReplicaData() throws Exception {
-        sessionManager = new SessionManager(cookieManager, sessionDataFactory, claimEncryptionService, "GB", "XXX");
-        sessionManager.createSessionVariables(request, response, "claimreader-claimant.xml", mappingFileURL, C3Constants.CLAIM);
+        sessionManager = new SessionManager(cookieManager, sessionDataFactory, claimEncryptionService, "GB", "XXX", counters, sessionWriteBehind);
+        sessionManager.createSessionVariables(request, response, "claimreader-claimant.xml", mappingRegistry, C3Constants.CLAIM);
         verify(request, times(1)).setAttribute(anyString(), objectCaptor.capture());
         final String sessionId = objectCaptor.getValue().toString();
         session = sessionManager.getSession(sessionId);
         assertThat(session.getAttribute("xmlVersion"), is("XXX"));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testSaveSessionSendsDeltaWhenVersionKnown() throws Exception {
+        final SessionDataService versionedService = mock(SessionDataService.class);
+        when(sessionDataFactory.getSessionDataService()).thenReturn(versionedService);
+        when(versionedService.saveSessionDataDelta(any(SessionDelta.class))).thenReturn(true);
+        session.markSaved(3L);
+        session.setAttribute("test", "test2");
+        sessionManager.saveSession(session);
+        verify(versionedService, times(1)).saveSessionDataDelta(any(SessionDelta.class));
+        verify(versionedService, never()).saveSessionData(any(Session.class));
+    }
+
+    @Test
+    public void testSaveSessionFallsBackToFullSave() throws Exception {
+        final SessionDataService versionedService = mock(SessionDataService.class);
+        when(sessionDataFactory.getSessionDataService()).thenReturn(versionedService);
+        when(versionedService.saveSessionDataDelta(any(SessionDelta.class))).thenReturn(false);
+        session.markSaved(3L);
+        session.setAttribute("test", "test2");
+        sessionManager.saveSession(session);
+        verify(versionedService, times(1)).saveSessionData(session);
+    }
+
+    @Test
+    public void testSaveSessionWithNoChangesSendsNothing() throws Exception {
+        final SessionDataService versionedService = mock(SessionDataService.class);
+        when(sessionDataFactory.getSessionDataService()).thenReturn(versionedService);
+        session.markSaved(3L);
+        sessionManager.saveSession(session);
+        verify(versionedService, never()).saveSessionDataDelta(any(SessionDelta.class));
+        verify(versionedService, never()).saveSessionData(any(Session.class));
+        verify(counters).incrementMetric("session-save-skipped-count");
+    }
+
+    @Test
+    public void testSaveSessionWithoutVersionIsFullSave() throws Exception {
+        final SessionDataService versionedService = mock(SessionDataService.class);
+        when(sessionDataFactory.getSessionDataService()).thenReturn(versionedService);
+        session.setAttribute("test", "test2");
+        sessionManager.saveSession(session);
+        verify(versionedService, never()).saveSessionDataDelta(any(SessionDelta.class));
+        verify(versionedService, times(1)).saveSessionData(session);
+    }
+
+    @Test
+    public void testGetSessionLoadsEveryTimeOutsideUnitOfWork() throws Exception {
+        sessionDataService.createSessionData("1234", C3Constants.CLAIM);
+        sessionManager.getSession("1234");
+        sessionManager.getSession("1234");
+        verify(counters, times(2)).incrementMetric("session-load-count");
+    }
+
+    @Test
+    public void testGetSessionLoadsOncePerUnitOfWork() throws Exception {
+        sessionDataService.createSessionData("1234", C3Constants.CLAIM);
+        beginUnitOfWork();
+        final Session session1 = sessionManager.getSession("1234");
+        assertSame(session1, sessionManager.getSession("1234"));
+        assertSame(session1, sessionManager.getSession("1234"));
+        verify(counters, times(1)).incrementMetric("session-load-count");
+        verify(counters, times(2)).incrementMetric("session-reuse-count");
+    }
+
+    @Test
+    public void testSaveSessionIsDeferredToEndOfUnitOfWork() throws Exception {
+        final SessionDataService versionedService = mock(SessionDataService.class);
+        when(sessionDataFactory.getSessionDataService()).thenReturn(versionedService);
+        when(versionedService.getSessionData("1234")).thenReturn(session);
+        final MockHttpServletRequest servletRequest = beginUnitOfWork();
+        final Session session1 = sessionManager.getSession("1234");
+        session1.setAttribute("test", "test2");
+        sessionManager.saveSession(session1);
+        session1.setAttribute("test", "test3");
+        sessionManager.saveSession(session1);
+        verify(versionedService, never()).saveSessionData(any(Session.class));
+
+        sessionManager.endUnitOfWork(servletRequest, true);
+        verify(versionedService, times(1)).saveSessionData(session1);
+        verify(counters, times(1)).incrementMetric("session-flush-count");
+        assertNull(servletRequest.getAttribute(SessionUnitOfWork.REQUEST_ATTRIBUTE));
+
+        sessionManager.endUnitOfWork(servletRequest, true);
+        verify(versionedService, times(1)).saveSessionData(session1);
+    }
+
+    @Test
+    public void testEndUnitOfWorkSkipsUnmodifiedSession() throws Exception {
+        final SessionDataService versionedService = mock(SessionDataService.class);
+        when(sessionDataFactory.getSessionDataService()).thenReturn(versionedService);
+        when(versionedService.getSessionData("1234")).thenReturn(session);
+        final MockHttpServletRequest servletRequest = beginUnitOfWork();
+        sessionManager.saveSession(sessionManager.getSession("1234"));
+        sessionManager.endUnitOfWork(servletRequest, true);
+        verify(versionedService, never()).saveSessionData(any(Session.class));
+        verify(counters, times(1)).incrementMetric("session-flush-skipped-count");
+    }
+
+    @Test
+    public void testEndUnitOfWorkWithoutSaveRequestDoesNotWrite() throws Exception {
+        final SessionDataService versionedService = mock(SessionDataService.class);
+        when(sessionDataFactory.getSessionDataService()).thenReturn(versionedService);
+        when(versionedService.getSessionData("1234")).thenReturn(session);
+        final MockHttpServletRequest servletRequest = beginUnitOfWork();
+        sessionManager.getSession("1234").setAttribute("test", "test2");
+        sessionManager.endUnitOfWork(servletRequest, true);
+        verify(versionedService, never()).saveSessionData(any(Session.class));
+    }
+
+    @Test
+    public void testDiscardedUnitOfWorkDoesNotWrite() throws Exception {
+        final SessionDataService versionedService = mock(SessionDataService.class);
+        when(sessionDataFactory.getSessionDataService()).thenReturn(versionedService);
+        when(versionedService.getSessionData("1234")).thenReturn(session);
+        final MockHttpServletRequest servletRequest = beginUnitOfWork();
+        final Session session1 = sessionManager.getSession("1234");
+        session1.setAttribute("test", "test2");
+        sessionManager.saveSession(session1);
+        sessionManager.endUnitOfWork(servletRequest, false);
+        verify(versionedService, never()).saveSessionData(any(Session.class));
+    }
+
+    @Test
+    public void testFlushSessionWritesNowAndDetaches() throws Exception {
+        final SessionDataService versionedService = mock(SessionDataService.class);
+        when(sessionDataFactory.getSessionDataService()).thenReturn(versionedService);
+        when(versionedService.getSessionData("1234")).thenReturn(session);
+        final MockHttpServletRequest servletRequest = beginUnitOfWork();
+        final Session session1 = sessionManager.getSession("1234");
+        session1.setAttribute("test", "test2");
+        sessionManager.flushSession(session1);
+        verify(versionedService, times(1)).saveSessionData(session1);
+
+        session1.setAttribute("test", "test3");
+        sessionManager.saveSession(session1);
+        verify(versionedService, times(2)).saveSessionData(session1);
+        sessionManager.endUnitOfWork(servletRequest, true);
+        verify(versionedService, times(2)).saveSessionData(session1);
+    }
+
+    @Test
+    public void testRemoveSessionDropsPendingSave() throws Exception {
+        final SessionDataService versionedService = mock(SessionDataService.class);
+        when(sessionDataFactory.getSessionDataService()).thenReturn(versionedService);
+        when(versionedService.getSessionData("1234")).thenReturn(session);
+        final MockHttpServletRequest servletRequest = beginUnitOfWork();
+        final Session session1 = sessionManager.getSession("1234");
+        session1.setAttribute("test", "test2");
+        sessionManager.saveSession(session1);
+        sessionManager.removeSession("1234");
+        sessionManager.endUnitOfWork(servletRequest, true);
+        verify(versionedService, times(1)).removeSessionData("1234");
+        verify(versionedService, never()).saveSessionData(any(Session.class));
+    }
+
+    @Test
+    public void testWriteBehindQueuesSaveAndReadsItBack() throws Exception {
+        final SessionDataService versionedService = mock(SessionDataService.class);
+        when(sessionDataFactory.getSessionDataService()).thenReturn(versionedService);
+        when(versionedService.getSessionData("1234")).thenReturn(session);
+        final List<Runnable> queued = new ArrayList<>();
+        final SessionWriteBehind writeBehind = new SessionWriteBehind(true, 10, sessionDataFactory, counters, gaugeService, new QueueingExecutorService(queued));
+        sessionManager = new SessionManager(cookieManager, sessionDataFactory, claimEncryptionService, "GB", "0.27", counters, writeBehind);
+
+        final Session session1 = sessionManager.getSession("1234");
+        session1.setAttribute("test", "test2");
+        sessionManager.saveSession(session1);
+        verify(versionedService, never()).saveSessionData(any(Session.class));
+        assertThat(sessionManager.getSession("1234").getAttribute("test"), is("test2"));
+
+        sessionManager.flushSession(sessionManager.getSession("1234"));
+        verify(versionedService, times(1)).saveSessionData(any(Session.class));
+        queued.forEach(Runnable::run);
+        verify(versionedService, times(1)).saveSessionData(any(Session.class));
+    }
+}
@@ -0,0 +1,237 @@
+package uk.gov.dwp.carersallowance.session;
+
+import gov.dwp.carers.monitor.Counters;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.springframework.boot.actuate.metrics.GaugeService;
+import uk.gov.dwp.carersallowance.sessiondata.Session;
+import uk.gov.dwp.carersallowance.sessiondata.SessionDataFactory;
+import uk.gov.dwp.carersallowance.sessiondata.SessionDataService;
+import uk.gov.dwp.carersallowance.sessiondata.SessionDataServiceException;
+import uk.gov.dwp.carersallowance.sessiondata.SessionDelta;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class SessionWriteBehindTest {
+    private SessionWriteBehind sessionWriteBehind;
+
+    private List<Runnable> queued;
+
+    private QueueingExecutorService executor;
+
+    @Mock
+    private SessionDataFactory sessionDataFactory;
+
+    @Mock
+    private SessionDataService sessionDataService;
+
+    @Mock
+    private Counters counters;
+
+    @Mock
+    private GaugeService gaugeService;
+
+    @Before
+    public void setUp() throws Exception {
+        queued = new ArrayList<>();
+        when(sessionDataFactory.getSessionDataService()).thenReturn(sessionDataService);
+        executor = new QueueingExecutorService(queued);
+        sessionWriteBehind = new SessionWriteBehind(true, 2, sessionDataFactory, counters, gaugeService, executor);
+    }
+
+    /**
+     * Runs the tasks queued so far, leaving any they queue (e.g. retries) for the next call.
+     */
+    private void runQueued() {
+        final List<Runnable> tasks = new ArrayList<>(queued);
+        queued.clear();
+        tasks.forEach(Runnable::run);
+    }
+
+    private Session createSession(final String sessionId, final String surname) {
+        final Session session = new Session(sessionId);
+        session.setAttribute("carerSurname", surname);
+        return session;
+    }
+
+    private List<Session> savedSessions(final int times) {
+        final ArgumentCaptor<Session> captor = ArgumentCaptor.forClass(Session.class);
+        verify(sessionDataService, times(times)).saveSessionData(captor.capture());
+        return captor.getAllValues();
+    }
+
+    @Test
+    public void testSaveIsWrittenByWorker() throws Exception {
+        final Session session = createSession("1234", "Bloggs");
+        sessionWriteBehind.save(session);
+        assertThat(session.isModified(), is(false));
+        verify(sessionDataService, never()).saveSessionData(any(Session.class));
+        assertThat(queued.size(), is(1));
+
+        runQueued();
+        assertThat(savedSessions(1).get(0).getAttribute("carerSurname"), is("Bloggs"));
+        assertThat(sessionWriteBehind.getQueueDepth(), is(0));
+        assertThat(sessionWriteBehind.getSession("1234"), is(nullValue()));
+    }
+
+    @Test
+    public void testSnapshotIsNotChangedByTheSessionOrItsReaders() throws Exception {
+        final Session session = createSession("1234", "Bloggs");
+        session.setAttribute("carerNames", new String[]{"Joe"});
+        sessionWriteBehind.save(session);
+        session.setAttribute("carerSurname", "Smith");
+        ((String[])session.getAttribute("carerNames"))[0] = "Jo";
+        ((String[])sessionWriteBehind.getSession("1234").getAttribute("carerNames"))[0] = "Jay";
+
+        runQueued();
+        final Session saved = savedSessions(1).get(0);
+        assertThat(saved.getAttribute("carerSurname"), is("Bloggs"));
+        assertThat(((String[])saved.getAttribute("carerNames"))[0], is("Joe"));
+    }
+
+    @Test
+    public void testSavesForSameSessionAreCoalesced() throws Exception {
+        sessionWriteBehind.save(createSession("1234", "Bloggs"));
+        sessionWriteBehind.save(createSession("1234", "Smith"));
+        sessionWriteBehind.save(createSession("1234", "Jones"));
+        assertThat(queued.size(), is(1));
+        assertThat(sessionWriteBehind.getSession("1234").getAttribute("carerSurname"), is("Jones"));
+
+        runQueued();
+        assertThat(savedSessions(1).get(0).getAttribute("carerSurname"), is("Jones"));
+        verify(counters, times(2)).incrementMetric("session-write-behind-coalesced");
+    }
+
+    @Test
+    public void testFullQueueWritesOnCallingThread() throws Exception {
+        sessionWriteBehind.save(createSession("1", "Bloggs"));
+        sessionWriteBehind.save(createSession("2", "Bloggs"));
+        sessionWriteBehind.save(createSession("3", "Bloggs"));
+        assertThat(queued.size(), is(2));
+        assertThat(savedSessions(1).get(0).getSessionId(), is("3"));
+        verify(counters, times(1)).incrementMetric("session-write-behind-backpressure");
+    }
+
+    @Test
+    public void testFlushWritesNowAndWorkerSkips() throws Exception {
+        sessionWriteBehind.save(createSession("1234", "Bloggs"));
+        sessionWriteBehind.flush("1234");
+        savedSessions(1);
+        runQueued();
+        savedSessions(1);
+    }
+
+    @Test
+    public void testFailedWriteIsKeptAndForcedFlushThrows() throws Exception {
+        doThrow(new SessionDataServiceException("unavailable")).when(sessionDataService).saveSessionData(any(Session.class));
+        sessionWriteBehind.save(createSession("1234", "Bloggs"));
+        runQueued();
+        assertThat(sessionWriteBehind.getSession("1234").getAttribute("carerSurname"), is("Bloggs"));
+        verify(counters, times(1)).incrementMetric("session-write-behind-failed");
+        try {
+            sessionWriteBehind.flush("1234");
+            fail("expected SessionDataServiceException");
+        } catch (SessionDataServiceException sdse) {
+            assertThat(sessionWriteBehind.getQueueDepth(), is(1));
+        }
+    }
+
+    @Test
+    public void testFailedWriteIsRetriedWithBoundedBackoff() throws Exception {
+        doThrow(new SessionDataServiceException("unavailable")).doThrow(new SessionDataServiceException("unavailable"))
+                .doReturn(null).when(sessionDataService).saveSessionData(any(Session.class));
+        sessionWriteBehind.save(createSession("1234", "Bloggs"));
+        runQueued();
+        runQueued();
+        assertThat(executor.getDelayMillis(), is(Arrays.asList(SessionWriteBehind.RETRY_MIN_MILLIS, SessionWriteBehind.RETRY_MIN_MILLIS * 2)));
+        runQueued();
+        assertThat(savedSessions(3).get(2).getAttribute("carerSurname"), is("Bloggs"));
+        assertThat(sessionWriteBehind.getQueueDepth(), is(0));
+        assertThat(queued.size(), is(0));
+
+        doThrow(new SessionDataServiceException("unavailable")).when(sessionDataService).saveSessionData(any(Session.class));
+        sessionWriteBehind.save(createSession("5678", "Bloggs"));
+        for (int attempt = 0; attempt < 10; attempt++) {
+            runQueued();
+        }
+        assertThat(executor.getDelayMillis().get(executor.getDelayMillis().size() - 1), is(SessionWriteBehind.RETRY_MAX_MILLIS));
+        assertThat(sessionWriteBehind.getSession("5678").getAttribute("carerSurname"), is("Bloggs"));
+    }
+
+    @Test
+    public void testDiscardDropsQueuedSave() throws Exception {
+        sessionWriteBehind.save(createSession("1234", "Bloggs"));
+        sessionWriteBehind.discard("1234");
+        runQueued();
+        verify(sessionDataService, never()).saveSessionData(any(Session.class));
+        assertThat(sessionWriteBehind.getSession("1234"), is(nullValue()));
+    }
+
+    @Test
+    public void testNewestSaveIsLastWrittenUnderLoad() throws Exception {
+        final Map<String, String> stored = new ConcurrentHashMap<>();
+        final SessionDataService storingService = new SessionDataService() {
+            @Override
+            public Session getSessionData(final String sessionId) {
+                return null;
+            }
+
+            @Override
+            public Session createSessionData(final String sessionId, final String claimType) {
+                return null;
+            }
+
+            @Override
+            public Session saveSessionData(final Session session) {
+                stored.put(session.getSessionId(), (String)session.getAttribute("carerSurname"));
+                return session;
+            }
+
+            @Override
+            public Boolean saveSessionDataDelta(final SessionDelta delta) {
+                return false;
+            }
+
+            @Override
+            public void removeSessionData(final String sessionId) {
+            }
+        };
+        when(sessionDataFactory.getSessionDataService()).thenReturn(storingService);
+        final ScheduledExecutorService workers = Executors.newScheduledThreadPool(4);
+        sessionWriteBehind = new SessionWriteBehind(true, 5, sessionDataFactory, counters, gaugeService, workers);
+        for (int save = 0; save < 2000; save++) {
+            sessionWriteBehind.save(createSession(String.valueOf(save % 10), String.valueOf(save)));
+        }
+        for (int session = 0; session < 10; session++) {
+            sessionWriteBehind.flush(String.valueOf(session));
+        }
+        workers.shutdown();
+        workers.awaitTermination(10, TimeUnit.SECONDS);
+        for (int session = 0; session < 10; session++) {
+            assertThat(stored.get(String.valueOf(session)), is(String.valueOf(1990 + session)));
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package uk.gov.dwp.carersallowance.sessiondata;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+public class BinarySessionCodecTest {
+    private BinarySessionCodec binarySessionCodec;
+
+    @Before
+    public void setUp() throws Exception {
+        binarySessionCodec = new BinarySessionCodec();
+    }
+
+    @Test
+    public void testRoundTripSupportedTypes() throws Exception {
+        final Map<String, Object> data = new HashMap<>();
+        data.put("carerSurname", "Bloggs");
+        data.put("carerWelsh", "Gwën £100");
+        data.put("dateOfClaim", null);
+        data.put(null, "null key");
+        data.put("isOriginGB", Boolean.TRUE);
+        data.put("beenInPreview", Boolean.FALSE);
+        data.put("benefitsAnswer", new String[]{"AA", null, ""});
+        final List<Map<String, String>> breaks = new ArrayList<>();
+        final Map<String, String> hospital = new HashMap<>();
+        hospital.put("breaks_id", "1");
+        hospital.put("breaksInCareWhereCaree", null);
+        breaks.add(hospital);
+        data.put("breaks", breaks);
+
+        final Map<String, Object> decoded = binarySessionCodec.decode(binarySessionCodec.encode(data));
+
+        assertThat(decoded.size(), is(data.size()));
+        assertThat(decoded.get("carerSurname"), is("Bloggs"));
+        assertThat(decoded.get("carerWelsh"), is("Gwën £100"));
+        assertThat(decoded.containsKey("dateOfClaim"), is(true));
+        assertThat(decoded.get("dateOfClaim"), is(nullValue()));
+        assertThat(decoded.get(null), is("null key"));
+        assertThat(decoded.get("isOriginGB"), is(Boolean.TRUE));
+        assertThat(decoded.get("beenInPreview"), is(Boolean.FALSE));
+        assertThat(Arrays.asList((String[])decoded.get("benefitsAnswer")), is(Arrays.asList("AA", null, "")));
+        assertThat(decoded.get("breaks"), is(breaks));
+    }
+
+    @Test
+    public void testEncodeWritesHeader() throws Exception {
+        final byte[] payload = binarySessionCodec.encode(new HashMap<>());
+        assertThat(BinarySessionCodec.isBinaryPayload(payload), is(true));
+        assertThat(payload[BinarySessionCodec.MAGIC.length], is(BinarySessionCodec.VERSION));
+    }
+
+    @Test
+    public void testXmlIsNotBinaryPayload() throws Exception {
+        assertThat(BinarySessionCodec.isBinaryPayload(new XStreamSessionCodec().encode(new HashMap<>())), is(false));
+    }
+
+    @Test(expected = SessionDataServiceException.class)
+    public void testUnsupportedTypeFails() throws Exception {
+        final Map<String, Object> data = new HashMap<>();
+        data.put("count", 1);
+        binarySessionCodec.encode(data);
+    }
+
+    @Test(expected = SessionDataServiceException.class)
+    public void testUnknownVersionFails() throws Exception {
+        final byte[] payload = binarySessionCodec.encode(new HashMap<>());
+        payload[BinarySessionCodec.MAGIC.length] = 99;
+        binarySessionCodec.decode(payload);
+    }
+
+    @Test(expected = SessionDataServiceException.class)
+    public void testTruncatedPayloadFails() throws Exception {
+        final Map<String, Object> data = new HashMap<>();
+        data.put("carerSurname", "Bloggs");
+        final byte[] payload = binarySessionCodec.encode(data);
+        binarySessionCodec.decode(Arrays.copyOf(payload, payload.length - 2));
+    }
+
+    private void assertCorrupt(final int... body) {
+        final byte[] payload = Arrays.copyOf(BinarySessionCodec.MAGIC, BinarySessionCodec.MAGIC.length + 1 + body.length);
+        payload[BinarySessionCodec.MAGIC.length] = BinarySessionCodec.VERSION;
+        for (int index = 0; index < body.length; index++) {
+            payload[BinarySessionCodec.MAGIC.length + 1 + index] = (byte)body[index];
+        }
+        try {
+            binarySessionCodec.decode(payload);
+            fail("expected SessionDataServiceException");
+        } catch (SessionDataServiceException sdse) {
+            // refused before anything was sized from the count
+        }
+    }
+
+    @Test
+    public void testCorruptCountsFailBeforeAllocating() throws Exception {
+        assertCorrupt(0xFF, 0xFF, 0xFF, 0xFF, 0x07);                  // Integer.MAX_VALUE entries
+        assertCorrupt(0xFF, 0xFF, 0xFF, 0xFF, 0x0F);                  // -1 entries
+        assertCorrupt(1, 2, 'k', 2, 0xFF, 0xFF, 0xFF, 0xFF, 0x07);    // a String[] value
+        assertCorrupt(1, 2, 'k', 5, 0xFF, 0xFF, 0xFF, 0xFF, 0x0F);    // a List value
+        assertCorrupt(1, 2, 'k', 6, 3);                               // a Map value
+    }
+}
@@ -0,0 +1,44 @@
+package uk.gov.dwp.carersallowance.sessiondata;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.HashMap;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+public class SessionCodecFactoryTest {
+    private XStreamSessionCodec xStreamSessionCodec;
+    private BinarySessionCodec binarySessionCodec;
+
+    @Before
+    public void setUp() throws Exception {
+        xStreamSessionCodec = new XStreamSessionCodec();
+        binarySessionCodec = new BinarySessionCodec();
+    }
+
+    @Test
+    public void testGetSessionCodecBinary() throws Exception {
+        final SessionCodecFactory sessionCodecFactory = new SessionCodecFactory(SessionCodecFactory.BINARY, xStreamSessionCodec, binarySessionCodec);
+        assertThat(sessionCodecFactory.getSessionCodec(), is(binarySessionCodec));
+    }
+
+    @Test
+    public void testGetSessionCodecXStream() throws Exception {
+        final SessionCodecFactory sessionCodecFactory = new SessionCodecFactory(SessionCodecFactory.XSTREAM, xStreamSessionCodec, binarySessionCodec);
+        assertThat(sessionCodecFactory.getSessionCodec(), is(xStreamSessionCodec));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testGetSessionCodecUnknown() throws Exception {
+        new SessionCodecFactory("json", xStreamSessionCodec, binarySessionCodec);
+    }
+
+    @Test
+    public void testReadCodecFollowsPayloadFormat() throws Exception {
+        final SessionCodecFactory sessionCodecFactory = new SessionCodecFactory(SessionCodecFactory.BINARY, xStreamSessionCodec, binarySessionCodec);
+        assertThat(sessionCodecFactory.getSessionCodec(binarySessionCodec.encode(new HashMap<>())), is(binarySessionCodec));
+        assertThat(sessionCodecFactory.getSessionCodec(xStreamSessionCodec.encode(new HashMap<>())), is(xStreamSessionCodec));
+    }
+}
@@ -0,0 +1,189 @@
+package uk.gov.dwp.carersallowance.sessiondata;
+
+import gov.dwp.carers.monitor.Counters;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@RunWith(MockitoJUnitRunner.class)
+public class SessionDataCacheTest {
+    private SessionDataCache sessionDataCache;
+
+    private TestClock clock;
+
+    @Mock
+    private Counters counters;
+
+    private Map<String, Object> data;
+
+    @Before
+    public void setUp() throws Exception {
+        clock = new TestClock();
+        sessionDataCache = new SessionDataCache(2, 1000L, true, 90, counters, clock);
+        data = new HashMap<>();
+        data.put("carerSurname", "Bloggs");
+    }
+
+    @Test
+    public void testMissWhenNotCached() throws Exception {
+        assertThat(sessionDataCache.getVersion("1234"), is(nullValue()));
+        verify(counters).incrementMetric("session-cache-miss");
+    }
+
+    @Test
+    public void testConfirmReturnsCopyAtVersion() throws Exception {
+        sessionDataCache.put("1234", data, 3L);
+        assertThat(sessionDataCache.getVersion("1234"), is(3L));
+        final Session session = sessionDataCache.confirm("1234", 3L);
+        assertThat(session.getAttribute("carerSurname"), is("Bloggs"));
+        assertThat(session.getVersion(), is(3L));
+        assertThat(session.isModified(), is(false));
+        session.setAttribute("carerSurname", "Smith");
+        assertThat(sessionDataCache.confirm("1234", 3L).getAttribute("carerSurname"), is("Bloggs"));
+        verify(counters, times(2)).incrementMetric("session-cache-hit");
+    }
+
+    @Test
+    public void testConfirmOfReplacedVersionReturnsNull() throws Exception {
+        sessionDataCache.put("1234", data, 3L);
+        sessionDataCache.put("1234", data, 4L);
+        assertThat(sessionDataCache.confirm("1234", 3L), is(nullValue()));
+    }
+
+    @Test
+    public void testFieldCollectionsAreCopied() throws Exception {
+        final List<Map<String, String>> breaks = new ArrayList<>();
+        breaks.add(new HashMap<>(Collections.singletonMap("breakId", "1")));
+        data.put("breaks", breaks);
+        sessionDataCache.put("1234", data, 3L);
+        breaks.get(0).put("breakId", "2");
+        final List<Map<String, String>> cached = (List<Map<String, String>>)sessionDataCache.confirm("1234", 3L).getAttribute("breaks");
+        assertThat(cached.get(0).get("breakId"), is("1"));
+    }
+
+    @Test
+    public void testUnversionedSessionsAreNotCached() throws Exception {
+        sessionDataCache.put("1234", data, null);
+        assertThat(sessionDataCache.size(), is(0));
+    }
+
+    @Test
+    public void testLeastRecentlyUsedIsEvicted() throws Exception {
+        sessionDataCache.put("1", data, 1L);
+        sessionDataCache.put("2", data, 1L);
+        sessionDataCache.getVersion("1");
+        sessionDataCache.put("3", data, 1L);
+        assertThat(sessionDataCache.size(), is(2));
+        assertThat(sessionDataCache.getVersion("1"), is(1L));
+        assertThat(sessionDataCache.getVersion("2"), is(nullValue()));
+        verify(counters).incrementMetric("session-cache-eviction");
+    }
+
+    @Test
+    public void testTrustedOnlyAfterRepeatedConfirmationsAndWithinTrustPeriod() throws Exception {
+        sessionDataCache.put("1234", data, 3L);
+        for (int confirmations = 0; confirmations < SessionDataCache.STICKY_CONFIRMATIONS; confirmations++) {
+            assertThat(sessionDataCache.getTrusted("1234"), is(nullValue()));
+            sessionDataCache.confirm("1234", 3L);
+        }
+        assertThat(sessionDataCache.getTrusted("1234").getAttribute("carerSurname"), is("Bloggs"));
+        assertThat(sessionDataCache.getTrusted("1234").isTrusted(), is(true));
+        clock.advance(1001);
+        assertThat(sessionDataCache.getTrusted("1234"), is(nullValue()));
+    }
+
+    @Test
+    public void testNothingIsTrustedWithoutAffinity() throws Exception {
+        sessionDataCache = new SessionDataCache(2, 1000L, false, 90, counters, clock);
+        sessionDataCache.put("1234", data, 3L);
+        for (int confirmations = 0; confirmations < SessionDataCache.STICKY_CONFIRMATIONS * 2; confirmations++) {
+            sessionDataCache.confirm("1234", 3L);
+        }
+        assertThat(sessionDataCache.getTrusted("1234"), is(nullValue()));
+    }
+
+    @Test
+    public void testStaleLosesTrust() throws Exception {
+        sessionDataCache.put("1234", data, 3L);
+        for (int confirmations = 0; confirmations < SessionDataCache.STICKY_CONFIRMATIONS; confirmations++) {
+            sessionDataCache.confirm("1234", 3L);
+        }
+        sessionDataCache.stale("1234");
+        sessionDataCache.put("1234", data, 5L);
+        assertThat(sessionDataCache.getTrusted("1234"), is(nullValue()));
+        verify(counters).incrementMetric("session-cache-stale");
+    }
+
+    @Test
+    public void testIdleSessionsExpire() throws Exception {
+        sessionDataCache.put("1234", data, 3L);
+        clock.advance(TimeUnit.MINUTES.toMillis(91));
+        assertThat(sessionDataCache.getVersion("1234"), is(nullValue()));
+    }
+
+    @Test
+    public void testApplyDeltaToBaseVersion() throws Exception {
+        data.put("carerFirstName", "Joe");
+        sessionDataCache.put("1234", data, 3L);
+        final SessionDelta delta = new SessionDelta(new Session("1234"), 3L, 1, Collections.singletonMap("carerSurname", "Smith"), Collections.singleton("carerFirstName"));
+        sessionDataCache.apply(delta, 4L);
+        final Session session = sessionDataCache.confirm("1234", 4L);
+        assertThat(session.getAttribute("carerSurname"), is("Smith"));
+        assertThat(session.getAttribute("carerFirstName"), is(nullValue()));
+    }
+
+    @Test
+    public void testApplyDeltaToOtherVersionInvalidates() throws Exception {
+        sessionDataCache.put("1234", data, 3L);
+        final SessionDelta delta = new SessionDelta(new Session("1234"), 2L, 1, Collections.singletonMap("carerSurname", "Smith"), Collections.emptySet());
+        sessionDataCache.apply(delta, 4L);
+        assertThat(sessionDataCache.size(), is(0));
+    }
+
+    private static class TestClock extends Clock {
+        private long millis = 1000000L;
+
+        private void advance(final long by) {
+            millis += by;
+        }
+
+        @Override
+        public long millis() {
+            return millis;
+        }
+
+        @Override
+        public Instant instant() {
+            return Instant.ofEpochMilli(millis);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(final ZoneId zone) {
+            return this;
+        }
+    }
+}
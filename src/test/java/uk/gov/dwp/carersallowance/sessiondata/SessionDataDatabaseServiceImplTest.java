@@ -1,18 +1,33 @@
 package uk.gov.dwp.carersallowance.sessiondata;
 
+import gov.dwp.carers.monitor.Counters;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.runners.MockitoJUnitRunner;
+import org.springframework.boot.actuate.metrics.GaugeService;
 import org.springframework.http.*;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
 import org.springframework.web.client.RestTemplate;
+import uk.gov.dwp.carersallowance.circuitbreaker.CircuitBreaker;
 import uk.gov.dwp.carersallowance.session.NoSessionException;
 import uk.gov.dwp.carersallowance.utils.C3Constants;
+import utils.XorEncryption;
+
+import javax.xml.bind.DatatypeConverter;
 
 import static org.junit.Assert.*;
+import static org.hamcrest.CoreMatchers.nullValue;
 import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.startsWith;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.hamcrest.CoreMatchers.is;
 
@@ -27,11 +42,25 @@ public class SessionDataDatabaseServiceImplTest {
     @Mock
     private RestTemplate restTemplate;
 
+    @Mock
+    private Counters counters;
+
+    @Mock
+    private GaugeService gaugeService;
+
+    private CircuitBreaker circuitBreaker;
+
     private final String sdURL = "http://localhost:9015";
+    private final String sdKey = "88a978e1-e927-4bb4-6722-18cdbc6d0516";
 
     @Before
     public void setUp() throws Exception {
-        sessionDataDatabaseServiceImpl = new SessionDataDatabaseServiceImpl(sdURL, "88a978e1-e927-4bb4-6722-18cdbc6d0516", 90, restTemplate);
+        circuitBreaker = new CircuitBreaker("sd", 10, 2, 60000L, gaugeService, counters);
+        sessionDataDatabaseServiceImpl = createService(restTemplate, 0L);
+    }
+
+    private SessionDataDatabaseServiceImpl createService(final RestTemplate restTemplate, final Long trustMillis) {
+        return new SessionDataDatabaseServiceImpl(sdURL, sdKey, 90, restTemplate, new SessionCodecFactory(SessionCodecFactory.BINARY, new XStreamSessionCodec(), new BinarySessionCodec()), new SessionDataCache(100, trustMillis, true, 90, counters), circuitBreaker);
     }
 
     @Test(expected = NoSessionException.class)
@@ -73,10 +102,222 @@ public class SessionDataDatabaseServiceImplTest {
         assertThat(session1.getSessionId(), is("8a20d772-b998-486d-ba05-fd3ef75d4fd2"));
     }
 
+    @Test
+    public void testSaveSessionDataWritesBinaryPayloadThatLoadsBack() throws Exception {
+        final ResponseEntity<String> response = new ResponseEntity("", HttpStatus.OK);
+        final ArgumentCaptor<HttpEntity> entityCaptor = ArgumentCaptor.forClass(HttpEntity.class);
+        when(restTemplate.exchange(anyString(), eq(HttpMethod.POST), entityCaptor.capture(), Mockito.<Class<String>> any())).thenReturn(response);
+        final Session session = new Session("8a20d772-b998-486d-ba05-fd3ef75d4fd2");
+        session.setAttribute("carerSurname", "Bloggs");
+        sessionDataDatabaseServiceImpl.saveSessionData(session);
+
+        final String payload = (String)entityCaptor.getValue().getBody();
+        assertThat(BinarySessionCodec.isBinaryPayload(DatatypeConverter.parseBase64Binary(payload)), is(true));
+
+        final ResponseEntity<SessionData> loadResponse = new ResponseEntity(new SessionData(session.getSessionId(), payload, "1"), HttpStatus.OK);
+        when(restTemplate.exchange(anyString(), Mockito.<HttpMethod> any(), Mockito.<HttpEntity<String>> any(), Mockito.<Class<SessionData>> any())).thenReturn(loadResponse);
+        assertThat(sessionDataDatabaseServiceImpl.getSessionData(session.getSessionId()).getAttribute("carerSurname"), is("Bloggs"));
+    }
+
+    @Test
+    public void testGetSessionDataReadsVersion() throws Exception {
+        final String payload = DatatypeConverter.printBase64Binary(new BinarySessionCodec().encode(new java.util.HashMap<>()));
+        final ResponseEntity<SessionData> response = new ResponseEntity(new SessionData("8a20d772-b998-486d-ba05-fd3ef75d4fd2", payload, "1", "12"), HttpStatus.OK);
+        when(restTemplate.exchange(anyString(), Mockito.<HttpMethod> any(), Mockito.<HttpEntity<String>> any(), Mockito.<Class<SessionData>> any())).thenReturn(response);
+        final Session session = sessionDataDatabaseServiceImpl.getSessionData("8a20d772-b998-486d-ba05-fd3ef75d4fd2");
+        assertThat(session.getVersion(), is(12L));
+        assertThat(session.isModified(), is(false));
+    }
+
+    @Test
+    public void testSaveSessionDataReadsVersionFromResponse() throws Exception {
+        final ResponseEntity<String> response = new ResponseEntity("4", HttpStatus.OK);
+        when(restTemplate.exchange(anyString(), Mockito.<HttpMethod> any(), Mockito.<HttpEntity<String>> any(), Mockito.<Class<String>> any())).thenReturn(response);
+        final Session session = new Session("8a20d772-b998-486d-ba05-fd3ef75d4fd2");
+        session.setAttribute("carerSurname", "Bloggs");
+        sessionDataDatabaseServiceImpl.saveSessionData(session);
+        assertThat(session.getVersion(), is(4L));
+        assertThat(session.isModified(), is(false));
+    }
+
+    @Test
+    public void testSaveSessionDataDeltaWithoutBaseVersion() throws Exception {
+        final Session session = new Session("8a20d772-b998-486d-ba05-fd3ef75d4fd2");
+        session.setAttribute("carerSurname", "Bloggs");
+        assertThat(sessionDataDatabaseServiceImpl.saveSessionDataDelta(session.createDelta()), is(false));
+        verify(restTemplate, never()).exchange(anyString(), Mockito.<HttpMethod> any(), Mockito.<HttpEntity<String>> any(), Mockito.<Class<String>> any());
+    }
+
+    @Test
+    public void testSaveSessionDataDeltaSendsOnlyChanges() throws Exception {
+        final ResponseEntity<String> response = new ResponseEntity("6", HttpStatus.OK);
+        final ArgumentCaptor<HttpEntity> entityCaptor = ArgumentCaptor.forClass(HttpEntity.class);
+        when(restTemplate.exchange(startsWith(sdURL + "/session/savedelta/"), eq(HttpMethod.POST), entityCaptor.capture(), Mockito.<Class<String>> any())).thenReturn(response);
+        final Session session = new Session("8a20d772-b998-486d-ba05-fd3ef75d4fd2");
+        session.setAttribute("carerSurname", "Bloggs");
+        session.setAttribute("carerFirstName", "Joe");
+        session.markSaved(5L);
+        session.setAttribute("carerSurname", "Smith");
+        session.removeAttribute("carerFirstName");
+
+        assertThat(sessionDataDatabaseServiceImpl.saveSessionDataDelta(session.createDelta()), is(true));
+        assertThat(session.getVersion(), is(6L));
+        assertThat(session.isModified(), is(false));
+
+        final java.util.Map<String, Object> changes = new BinarySessionCodec().decode(DatatypeConverter.parseBase64Binary((String)entityCaptor.getValue().getBody()));
+        assertThat(((java.util.Map)changes.get(SessionDataDatabaseServiceImpl.DELTA_CHANGED)).size(), is(1));
+        assertThat(((java.util.Map)changes.get(SessionDataDatabaseServiceImpl.DELTA_CHANGED)).get("carerSurname"), is("Smith"));
+        assertThat(changes.get(SessionDataDatabaseServiceImpl.DELTA_REMOVED), is(java.util.Arrays.asList("carerFirstName")));
+    }
+
+    @Test
+    public void testSaveSessionDataDeltaConflictNeedsFullSave() throws Exception {
+        when(restTemplate.exchange(anyString(), Mockito.<HttpMethod> any(), Mockito.<HttpEntity<String>> any(), Mockito.<Class<String>> any())).thenThrow(new HttpClientErrorException(HttpStatus.CONFLICT));
+        final Session session = new Session("8a20d772-b998-486d-ba05-fd3ef75d4fd2");
+        session.markSaved(5L);
+        session.setAttribute("carerSurname", "Smith");
+        assertThat(sessionDataDatabaseServiceImpl.saveSessionDataDelta(session.createDelta()), is(false));
+        assertThat(session.isModified(), is(true));
+    }
+
+    @Test(expected = SessionDataServiceException.class)
+    public void testSaveSessionDataDeltaServerError() throws Exception {
+        when(restTemplate.exchange(anyString(), Mockito.<HttpMethod> any(), Mockito.<HttpEntity<String>> any(), Mockito.<Class<String>> any())).thenThrow(new HttpClientErrorException(HttpStatus.BAD_REQUEST));
+        final Session session = new Session("8a20d772-b998-486d-ba05-fd3ef75d4fd2");
+        session.markSaved(5L);
+        sessionDataDatabaseServiceImpl.saveSessionDataDelta(session.createDelta());
+    }
+
+    @Test
+    public void testOpenCircuitBreakerFailsFastWithoutCallingService() throws Exception {
+        when(restTemplate.exchange(anyString(), Mockito.<HttpMethod> any(), Mockito.<HttpEntity<String>> any(), Mockito.<Class<String>> any())).thenThrow(new HttpServerErrorException(HttpStatus.SERVICE_UNAVAILABLE));
+        for (int call = 0; call < 3; call++) {
+            try {
+                sessionDataDatabaseServiceImpl.removeSessionData("8a20d772-b998-486d-ba05-fd3ef75d4fd2");
+                fail("expected SessionDataServiceException");
+            } catch (SessionDataServiceException sdse) {
+                // the first two reach the service and open the breaker, the third is rejected
+            }
+        }
+        verify(restTemplate, times(2)).exchange(anyString(), Mockito.<HttpMethod> any(), Mockito.<HttpEntity<String>> any(), Mockito.<Class<String>> any());
+        assertThat(circuitBreaker.getState(), is(CircuitBreaker.State.OPEN));
+    }
+
     @Test
     public void testRemoveSessionData() throws Exception {
         final ResponseEntity<String> response = new ResponseEntity("", HttpStatus.OK);
         when(restTemplate.exchange(anyString(), Mockito.<HttpMethod> any(), Mockito.<HttpEntity<String>> any(), Mockito.<Class<String>> any())).thenReturn(response);
         sessionDataDatabaseServiceImpl.removeSessionData("8a20d772-b998-486d-ba05-fd3ef75d4fd2");
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testLoadOfCachedSessionOnlyChecksVersion() throws Exception {
+        final SessionDataServiceStub stub = new SessionDataServiceStub();
+        final SessionDataDatabaseServiceImpl service = createService(stub.createRestTemplate(), 0L);
+        final Session session = new Session("8a20d772-b998-486d-ba05-fd3ef75d4fd2");
+        session.setAttribute("carerSurname", "Bloggs");
+        service.saveSessionData(session);
+
+        assertThat(service.getSessionData(session.getSessionId()).getAttribute("carerSurname"), is("Bloggs"));
+        final Session loaded = service.getSessionData(session.getSessionId());
+        assertThat(loaded.getAttribute("carerSurname"), is("Bloggs"));
+        assertThat(loaded.getVersion(), is(1L));
+        assertThat(stub.getRequestCount("load"), is(0));
+        assertThat(stub.getRequestCount("checkversion"), is(2));
+        verify(counters, times(2)).incrementMetric("session-cache-hit");
+    }
+
+    @Test
+    public void testSessionSavedElsewhereIsReloaded() throws Exception {
+        final SessionDataServiceStub stub = new SessionDataServiceStub();
+        final SessionDataDatabaseServiceImpl service = createService(stub.createRestTemplate(), 0L);
+        final Session session = new Session("8a20d772-b998-486d-ba05-fd3ef75d4fd2");
+        session.setAttribute("carerSurname", "Bloggs");
+        service.saveSessionData(session);
+
+        final java.util.Map<String, Object> elsewhere = new java.util.HashMap<>(session.getData());
+        elsewhere.put("carerSurname", "Smith");
+        stub.saveFromElsewhere(XorEncryption.encryptUuid(session.getSessionId(), sdKey), elsewhere);
+
+        final Session loaded = service.getSessionData(session.getSessionId());
+        assertThat(loaded.getAttribute("carerSurname"), is("Smith"));
+        assertThat(loaded.getVersion(), is(2L));
+        assertThat(stub.getRequestCount("load"), is(1));
+        verify(counters).incrementMetric("session-cache-stale");
+    }
+
+    @Test
+    public void testSavedDeltaIsAppliedToCachedSession() throws Exception {
+        final SessionDataServiceStub stub = new SessionDataServiceStub();
+        final SessionDataDatabaseServiceImpl service = createService(stub.createRestTemplate(), 0L);
+        final Session session = new Session("8a20d772-b998-486d-ba05-fd3ef75d4fd2");
+        session.setAttribute("carerSurname", "Bloggs");
+        session.setAttribute("carerFirstName", "Joe");
+        service.saveSessionData(session);
+
+        final Session loaded = service.getSessionData(session.getSessionId());
+        loaded.setAttribute("carerSurname", "Smith");
+        loaded.removeAttribute("carerFirstName");
+        assertThat(service.saveSessionDataDelta(loaded.createDelta()), is(true));
+
+        final Session reloaded = service.getSessionData(session.getSessionId());
+        assertThat(reloaded.getAttribute("carerSurname"), is("Smith"));
+        assertThat(reloaded.getAttribute("carerFirstName"), is(nullValue()));
+        assertThat(reloaded.getVersion(), is(2L));
+        assertThat(stub.getRequestCount("load"), is(0));
+    }
+
+    @Test(expected = NoSessionException.class)
+    public void testRemovedSessionIsNotServedFromCache() throws Exception {
+        final SessionDataServiceStub stub = new SessionDataServiceStub();
+        final SessionDataDatabaseServiceImpl service = createService(stub.createRestTemplate(), 60000L);
+        final Session session = new Session("8a20d772-b998-486d-ba05-fd3ef75d4fd2");
+        session.setAttribute("carerSurname", "Bloggs");
+        service.saveSessionData(session);
+        service.removeSessionData(session.getSessionId());
+        service.getSessionData(session.getSessionId());
+    }
+
+    @Test
+    public void testStickySessionIsTrustedWithoutCheck() throws Exception {
+        final SessionDataServiceStub stub = new SessionDataServiceStub();
+        final SessionDataDatabaseServiceImpl service = createService(stub.createRestTemplate(), 60000L);
+        final Session session = new Session("8a20d772-b998-486d-ba05-fd3ef75d4fd2");
+        session.setAttribute("carerSurname", "Bloggs");
+        service.saveSessionData(session);
+        for (int loads = 0; loads < 10; loads++) {
+            assertThat(service.getSessionData(session.getSessionId()).getAttribute("carerSurname"), is("Bloggs"));
+        }
+        assertThat(stub.getRequestCount("load"), is(0));
+        assertThat(stub.getRequestCount("checkversion"), is(SessionDataCache.STICKY_CONFIRMATIONS));
+    }
+
+    @Test
+    public void testConflictOnTrustedSessionAppliesTheChangesToTheLatestVersion() throws Exception {
+        final SessionDataServiceStub stub = new SessionDataServiceStub();
+        final SessionDataDatabaseServiceImpl service = createService(stub.createRestTemplate(), 60000L);
+        final Session session = new Session("8a20d772-b998-486d-ba05-fd3ef75d4fd2");
+        session.setAttribute("carerSurname", "Bloggs");
+        session.setAttribute("carerFirstName", "Joe");
+        service.saveSessionData(session);
+        for (int loads = 0; loads < SessionDataCache.STICKY_CONFIRMATIONS; loads++) {
+            service.getSessionData(session.getSessionId());
+        }
+
+        final java.util.Map<String, Object> elsewhere = new java.util.HashMap<>(session.getData());
+        elsewhere.put("carerFirstName", "Jo");
+        stub.saveFromElsewhere(XorEncryption.encryptUuid(session.getSessionId(), sdKey), elsewhere);
+
+        final Session trusted = service.getSessionData(session.getSessionId());
+        assertThat(trusted.isTrusted(), is(true));
+        trusted.setAttribute("carerSurname", "Smith");
+        assertThat(service.saveSessionDataDelta(trusted.createDelta()), is(true));
+        assertThat(trusted.getVersion(), is(3L));
+        assertThat(stub.getRequestCount("load"), is(1));
+        assertThat(stub.getRequestCount("save"), is(1));
+
+        final Session reloaded = service.getSessionData(session.getSessionId());
+        assertThat(reloaded.getAttribute("carerSurname"), is("Smith"));
+        assertThat(reloaded.getAttribute("carerFirstName"), is("Jo"));
+    }
+}
@@ -21,15 +21,24 @@ public class SessionDataFactoryTest {
     @Mock
     private SessionDataMapServiceImpl sessionDataMapService;
 
+    @Mock
+    private SessionDataOffHeapServiceImpl sessionDataOffHeapService;
+
     @Test
     public void testGetSessionDataService() throws Exception {
-        sessionDataFactory = new SessionDataFactory(false, sessionDataDatabaseService, sessionDataMapService);
+        sessionDataFactory = new SessionDataFactory(false, false, sessionDataDatabaseService, sessionDataMapService, sessionDataOffHeapService);
         assertThat(sessionDataFactory.getSessionDataService(), is(sessionDataMapService));
     }
 
     @Test
     public void testGetSessionDataServiceDB() throws Exception {
-        sessionDataFactory = new SessionDataFactory(true, sessionDataDatabaseService, sessionDataMapService);
+        sessionDataFactory = new SessionDataFactory(true, true, sessionDataDatabaseService, sessionDataMapService, sessionDataOffHeapService);
         assertThat(sessionDataFactory.getSessionDataService(), is(sessionDataDatabaseService));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testGetSessionDataServiceOffHeap() throws Exception {
+        sessionDataFactory = new SessionDataFactory(false, true, sessionDataDatabaseService, sessionDataMapService, sessionDataOffHeapService);
+        assertThat(sessionDataFactory.getSessionDataService(), is(sessionDataOffHeapService));
+    }
+}
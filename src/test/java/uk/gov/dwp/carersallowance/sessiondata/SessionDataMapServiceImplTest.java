@@ -1,23 +1,54 @@
 package uk.gov.dwp.carersallowance.sessiondata;
 
+import gov.dwp.carers.monitor.Counters;
 import org.junit.Before;
 import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.springframework.boot.actuate.metrics.GaugeService;
 import uk.gov.dwp.carersallowance.session.NoSessionException;
 import uk.gov.dwp.carersallowance.utils.C3Constants;
 
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
 import static org.hamcrest.CoreMatchers.notNullValue;
 import static org.junit.Assert.*;
 import static org.hamcrest.CoreMatchers.is;
+import static org.mockito.Matchers.anyDouble;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 
 /**
  * Created by peterwhitehead on 30/12/2016.
  */
+@RunWith(MockitoJUnitRunner.class)
 public class SessionDataMapServiceImplTest {
+    private static final long TICK_MILLIS = TimeUnit.SECONDS.toMillis(10);
+
     private SessionDataMapServiceImpl sessionDataMapServiceImpl;
 
+    private TestClock clock;
+
+    @Mock
+    private Counters counters;
+
+    @Mock
+    private GaugeService gaugeService;
+
     @Before
     public void setUp() throws Exception {
-        sessionDataMapServiceImpl = new SessionDataMapServiceImpl();
+        clock = new TestClock();
+        sessionDataMapServiceImpl = new SessionDataMapServiceImpl(90, 10000000L, counters, gaugeService, clock, TICK_MILLIS);
     }
 
     @Test
@@ -42,4 +73,110 @@ public class SessionDataMapServiceImplTest {
         sessionDataMapServiceImpl.removeSessionData("1234");
         sessionDataMapServiceImpl.getSessionData("1234");
     }
-}
\ No newline at end of file
+
+    @Test(expected = NoSessionException.class)
+    public void testIdleSessionExpires() throws Exception {
+        sessionDataMapServiceImpl.createSessionData("1234", C3Constants.CLAIM);
+        clock.advance(TimeUnit.MINUTES.toMillis(90) + TICK_MILLIS);
+        try {
+            sessionDataMapServiceImpl.getSessionData("1234");
+        } finally {
+            verify(counters).incrementMetric("session-store-expired");
+            assertThat(sessionDataMapServiceImpl.getLiveSessions(), is(0));
+            assertThat(sessionDataMapServiceImpl.getEstimatedBytes(), is(0L));
+        }
+    }
+
+    @Test
+    public void testIdleSessionsExpireWithoutAnyRequests() throws Exception {
+        final ScheduledExecutorService executor = mock(ScheduledExecutorService.class);
+        sessionDataMapServiceImpl = new SessionDataMapServiceImpl(90, 10000000L, counters, gaugeService, clock, TICK_MILLIS, executor);
+        sessionDataMapServiceImpl.start();
+        final ArgumentCaptor<Runnable> tick = ArgumentCaptor.forClass(Runnable.class);
+        verify(executor).scheduleAtFixedRate(tick.capture(), eq(TICK_MILLIS), eq(TICK_MILLIS), eq(TimeUnit.MILLISECONDS));
+
+        sessionDataMapServiceImpl.createSessionData("1234", C3Constants.CLAIM);
+        clock.advance(TimeUnit.MINUTES.toMillis(90) + TICK_MILLIS);
+        tick.getValue().run();
+        verify(counters).incrementMetric("session-store-expired");
+        assertThat(sessionDataMapServiceImpl.getLiveSessions(), is(0));
+        assertThat(sessionDataMapServiceImpl.getEstimatedBytes(), is(0L));
+    }
+
+    @Test
+    public void testActiveSessionDoesNotExpire() throws Exception {
+        sessionDataMapServiceImpl.createSessionData("1234", C3Constants.CLAIM);
+        for (int minutes = 0; minutes < 300; minutes += 30) {
+            clock.advance(TimeUnit.MINUTES.toMillis(30));
+            assertThat(sessionDataMapServiceImpl.getSessionData("1234").getSessionId(), is("1234"));
+        }
+        verify(counters, times(0)).incrementMetric("session-store-expired");
+    }
+
+    @Test
+    public void testOnlyIdleSessionsExpire() throws Exception {
+        sessionDataMapServiceImpl.createSessionData("idle", C3Constants.CLAIM);
+        clock.advance(TimeUnit.MINUTES.toMillis(60));
+        sessionDataMapServiceImpl.createSessionData("active", C3Constants.CLAIM);
+        clock.advance(TimeUnit.MINUTES.toMillis(31));
+        assertThat(sessionDataMapServiceImpl.getSessionData("active").getSessionId(), is("active"));
+        assertThat(sessionDataMapServiceImpl.getLiveSessions(), is(1));
+    }
+
+    @Test
+    public void testLeastRecentlyUsedEvictedOverBudget() throws Exception {
+        final long sessionBytes = SessionDataMapServiceImpl.estimateBytes(sessionDataMapServiceImpl.createSessionData("1", C3Constants.CLAIM));
+        sessionDataMapServiceImpl = new SessionDataMapServiceImpl(90, sessionBytes * 2, counters, gaugeService, clock, TICK_MILLIS);
+        sessionDataMapServiceImpl.createSessionData("1", C3Constants.CLAIM);
+        sessionDataMapServiceImpl.createSessionData("2", C3Constants.CLAIM);
+        sessionDataMapServiceImpl.getSessionData("1");
+        sessionDataMapServiceImpl.createSessionData("3", C3Constants.CLAIM);
+
+        assertThat(sessionDataMapServiceImpl.getLiveSessions(), is(2));
+        assertThat(sessionDataMapServiceImpl.getEstimatedBytes(), is(sessionBytes * 2));
+        assertThat(sessionDataMapServiceImpl.getSessionData("1").getSessionId(), is("1"));
+        assertThat(sessionDataMapServiceImpl.getSessionData("3").getSessionId(), is("3"));
+        verify(counters).incrementMetric("session-store-evicted");
+    }
+
+    @Test
+    public void testEstimatedBytesFollowSaves() throws Exception {
+        final Session session = sessionDataMapServiceImpl.createSessionData("1234", C3Constants.CLAIM);
+        final long created = sessionDataMapServiceImpl.getEstimatedBytes();
+        session.setAttribute("carerSurname", "Bloggs");
+        sessionDataMapServiceImpl.saveSessionData(session);
+        assertThat(sessionDataMapServiceImpl.getEstimatedBytes() > created, is(true));
+        sessionDataMapServiceImpl.removeSessionData("1234");
+        assertThat(sessionDataMapServiceImpl.getEstimatedBytes(), is(0L));
+        verify(gaugeService, atLeastOnce()).submit(eq("session.store.live"), anyDouble());
+        verify(gaugeService, atLeastOnce()).submit(eq("session.store.bytes"), anyDouble());
+    }
+
+    private static class TestClock extends Clock {
+        private long millis = 1000000L;
+
+        private void advance(final long by) {
+            millis += by;
+        }
+
+        @Override
+        public long millis() {
+            return millis;
+        }
+
+        @Override
+        public Instant instant() {
+            return Instant.ofEpochMilli(millis);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(final ZoneId zone) {
+            return this;
+        }
+    }
+}
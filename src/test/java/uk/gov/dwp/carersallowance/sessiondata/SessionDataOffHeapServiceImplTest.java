@@ -0,0 +1,198 @@
+package uk.gov.dwp.carersallowance.sessiondata;
+
+import gov.dwp.carers.monitor.Counters;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.springframework.boot.actuate.metrics.GaugeService;
+import uk.gov.dwp.carersallowance.session.NoSessionException;
+import uk.gov.dwp.carersallowance.utils.C3Constants;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.verify;
+
+@RunWith(MockitoJUnitRunner.class)
+public class SessionDataOffHeapServiceImplTest {
+    private static final long TICK_MILLIS = TimeUnit.SECONDS.toMillis(10);
+
+    private SessionDataOffHeapServiceImpl sessionDataOffHeapService;
+
+    private TestClock clock;
+
+    @Mock
+    private Counters counters;
+
+    @Mock
+    private GaugeService gaugeService;
+
+    private final SessionCodecFactory sessionCodecFactory = new SessionCodecFactory(SessionCodecFactory.BINARY, new XStreamSessionCodec(), new BinarySessionCodec());
+
+    @Before
+    public void setUp() throws Exception {
+        clock = new TestClock();
+        sessionDataOffHeapService = create(1024L * 1024, 64 * 1024);
+    }
+
+    private SessionDataOffHeapServiceImpl create(final Long maxBytes, final Integer slabBytes) {
+        return new SessionDataOffHeapServiceImpl(90, maxBytes, slabBytes, sessionCodecFactory, counters, gaugeService, clock, TICK_MILLIS);
+    }
+
+    private Session createSession(final String sessionId, final int size) {
+        final Session session = new Session(sessionId);
+        session.setAttribute("carerSurname", String.format("%0" + size + "d", 0));
+        return session;
+    }
+
+    @Test
+    public void testSaveAndGetSessionData() throws Exception {
+        final Session session = new Session("1234");
+        session.setAttribute("carerSurname", "Bloggs");
+        session.setAttribute("nationality", new String[]{"British", "Irish"});
+        final List<Map<String, String>> breaks = new ArrayList<>();
+        breaks.add(new HashMap<>(Collections.singletonMap("breakId", "1")));
+        session.setAttribute("breaks", breaks);
+        sessionDataOffHeapService.saveSessionData(session);
+        assertThat(session.isModified(), is(false));
+
+        final Session loaded = sessionDataOffHeapService.getSessionData("1234");
+        assertThat(loaded, is(not(sameInstance(session))));
+        assertThat(loaded.isModified(), is(false));
+        assertThat(loaded.getAttribute("carerSurname"), is("Bloggs"));
+        assertThat(loaded.getAttribute("nationality"), is(new String[]{"British", "Irish"}));
+        assertThat(loaded.getAttribute("breaks"), is(breaks));
+    }
+
+    @Test
+    public void testSessionsAreEncodedAndDecodedOutsideTheLock() throws Exception {
+        final List<Boolean> locked = new ArrayList<>();
+        final BinarySessionCodec codec = new BinarySessionCodec() {
+            @Override
+            public byte[] encode(final Map<String, Object> data) {
+                locked.add(Thread.holdsLock(sessionDataOffHeapService));
+                return super.encode(data);
+            }
+
+            @Override
+            public Map<String, Object> decode(final byte[] payload) {
+                locked.add(Thread.holdsLock(sessionDataOffHeapService));
+                return super.decode(payload);
+            }
+        };
+        sessionDataOffHeapService = new SessionDataOffHeapServiceImpl(90, 1024L * 1024, 64 * 1024, new SessionCodecFactory(SessionCodecFactory.BINARY, new XStreamSessionCodec(), codec),
+                counters, gaugeService, clock, TICK_MILLIS);
+        sessionDataOffHeapService.createSessionData("1234", C3Constants.CLAIM);
+        sessionDataOffHeapService.saveSessionData(sessionDataOffHeapService.getSessionData("1234"));
+        assertThat(locked, is(Arrays.asList(false, false, false)));
+    }
+
+    @Test
+    public void testCreateSessionData() throws Exception {
+        sessionDataOffHeapService.createSessionData("1234", C3Constants.CLAIM);
+        assertThat(sessionDataOffHeapService.getSessionData("1234").getAttribute(C3Constants.KEY), is(C3Constants.CLAIM));
+    }
+
+    @Test(expected = NoSessionException.class)
+    public void testRemoveSessionData() throws Exception {
+        sessionDataOffHeapService.createSessionData("1234", C3Constants.CLAIM);
+        sessionDataOffHeapService.removeSessionData("1234");
+        assertThat(sessionDataOffHeapService.getLiveBytes(), is(0L));
+        sessionDataOffHeapService.getSessionData("1234");
+    }
+
+    @Test(expected = NoSessionException.class)
+    public void testIdleSessionExpires() throws Exception {
+        sessionDataOffHeapService.createSessionData("1234", C3Constants.CLAIM);
+        clock.advance(TimeUnit.MINUTES.toMillis(90) + TICK_MILLIS);
+        sessionDataOffHeapService.getSessionData("1234");
+    }
+
+    @Test
+    public void testActiveSessionDoesNotExpire() throws Exception {
+        sessionDataOffHeapService.createSessionData("1234", C3Constants.CLAIM);
+        for (int minutes = 0; minutes < 300; minutes += 30) {
+            clock.advance(TimeUnit.MINUTES.toMillis(30));
+            assertThat(sessionDataOffHeapService.getSessionData("1234").getAttribute(C3Constants.KEY), is(C3Constants.CLAIM));
+        }
+    }
+
+    @Test
+    public void testResavesAreCompactedRatherThanGrowingTheStore() throws Exception {
+        sessionDataOffHeapService = create(2048L, 1024);
+        sessionDataOffHeapService.saveSessionData(createSession("1", 300));
+        sessionDataOffHeapService.saveSessionData(createSession("2", 300));
+        for (int save = 0; save < 50; save++) {
+            sessionDataOffHeapService.saveSessionData(createSession("1", 300 + save % 3));
+        }
+        assertThat(sessionDataOffHeapService.getLiveSessions(), is(2));
+        assertThat(sessionDataOffHeapService.getAllocatedBytes(), is(2048L));
+        assertThat(((String)sessionDataOffHeapService.getSessionData("1").getAttribute("carerSurname")).length(), is(301));
+        assertThat(((String)sessionDataOffHeapService.getSessionData("2").getAttribute("carerSurname")).length(), is(300));
+        verify(counters, atLeastOnce()).incrementMetric("session-offheap-compaction");
+    }
+
+    @Test(expected = NoSessionException.class)
+    public void testLeastRecentlyUsedEvictedWhenFull() throws Exception {
+        sessionDataOffHeapService = create(1024L, 1024);
+        sessionDataOffHeapService.saveSessionData(createSession("1", 300));
+        sessionDataOffHeapService.saveSessionData(createSession("2", 300));
+        sessionDataOffHeapService.getSessionData("1");
+        sessionDataOffHeapService.saveSessionData(createSession("3", 300));
+        sessionDataOffHeapService.saveSessionData(createSession("4", 300));
+        assertThat(sessionDataOffHeapService.getSessionData("1").getSessionId(), is("1"));
+        assertThat(sessionDataOffHeapService.getSessionData("4").getSessionId(), is("4"));
+        verify(counters, atLeastOnce()).incrementMetric("session-offheap-evicted");
+        sessionDataOffHeapService.getSessionData("2");
+    }
+
+    @Test(expected = SessionDataServiceException.class)
+    public void testSessionLargerThanSlab() throws Exception {
+        sessionDataOffHeapService = create(1024L, 1024);
+        sessionDataOffHeapService.saveSessionData(createSession("1", 2000));
+    }
+
+    private static class TestClock extends Clock {
+        private long millis = 1000000L;
+
+        private void advance(final long by) {
+            millis += by;
+        }
+
+        @Override
+        public long millis() {
+            return millis;
+        }
+
+        @Override
+        public Instant instant() {
+            return Instant.ofEpochMilli(millis);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(final ZoneId zone) {
+            return this;
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package uk.gov.dwp.carersallowance.sessiondata;
+
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.mock.http.client.MockClientHttpRequest;
+import org.springframework.mock.http.client.MockClientHttpResponse;
+import org.springframework.web.client.RestTemplate;
+
+import javax.xml.bind.DatatypeConverter;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * In memory stand in for the session data service that versions each session, answering the load, save,
+ * savedelta, checkversion and delete calls made by SessionDataDatabaseServiceImpl.
+ */
+public class SessionDataServiceStub implements ClientHttpRequestFactory {
+    private final SessionCodec codec = new BinarySessionCodec();
+    private final Map<String, Map<String, Object>> sessions = new HashMap<>();
+    private final Map<String, Long> versions = new HashMap<>();
+    private final Map<String, Integer> requestCounts = new HashMap<>();
+
+    public RestTemplate createRestTemplate() {
+        return new RestTemplate(this);
+    }
+
+    /**
+     * @return the number of requests made to the operation, e.g. "load" or "checkversion"
+     */
+    public int getRequestCount(final String operation) {
+        return requestCounts.getOrDefault(operation, 0);
+    }
+
+    /**
+     * Saves the session as another node would, moving it on to the next version.
+     */
+    public void saveFromElsewhere(final String encryptedId, final Map<String, Object> data) {
+        sessions.put(encryptedId, new HashMap<>(data));
+        versions.put(encryptedId, versions.getOrDefault(encryptedId, 0L) + 1);
+    }
+
+    @Override
+    public ClientHttpRequest createRequest(final URI uri, final HttpMethod httpMethod) throws IOException {
+        return new MockClientHttpRequest(httpMethod, uri) {
+            @Override
+            protected ClientHttpResponse executeInternal() throws IOException {
+                return handle(getURI().getPath().split("/"), getBodyAsString());
+            }
+        };
+    }
+
+    @SuppressWarnings("unchecked")
+    private ClientHttpResponse handle(final String[] path, final String body) {
+        final String operation = path[2];
+        final String id = path[3];
+        requestCounts.merge(operation, 1, Integer::sum);
+        switch (operation) {
+            case "load":
+                if (sessions.containsKey(id) == false) {
+                    return json("{}");
+                }
+                final String payload = DatatypeConverter.printBase64Binary(codec.encode(sessions.get(id)));
+                return json("{\"sessionId\":\"" + id + "\",\"payload\":\"" + payload + "\",\"minutesSinceLastActive\":\"0\",\"version\":\"" + versions.get(id) + "\"}");
+            case "save":
+                saveFromElsewhere(id, codec.decode(DatatypeConverter.parseBase64Binary(body)));
+                return text(String.valueOf(versions.get(id)), HttpStatus.OK);
+            case "savedelta":
+                if (Long.valueOf(path[4]).equals(versions.get(id)) == false) {
+                    return text("", HttpStatus.CONFLICT);
+                }
+                final Map<String, Object> changes = codec.decode(DatatypeConverter.parseBase64Binary(body));
+                final Map<String, Object> data = sessions.get(id);
+                ((List<String>)changes.get(SessionDataDatabaseServiceImpl.DELTA_REMOVED)).forEach(data::remove);
+                data.putAll((Map<String, Object>)changes.get(SessionDataDatabaseServiceImpl.DELTA_CHANGED));
+                versions.put(id, versions.get(id) + 1);
+                return text(String.valueOf(versions.get(id)), HttpStatus.OK);
+            case "checkversion":
+                return text("", Long.valueOf(path[4]).equals(versions.get(id)) ? HttpStatus.OK : HttpStatus.CONFLICT);
+            case "delete":
+                sessions.remove(id);
+                versions.remove(id);
+                return text("", HttpStatus.OK);
+            default:
+                return text("", HttpStatus.NOT_FOUND);
+        }
+    }
+
+    private ClientHttpResponse json(final String body) {
+        final MockClientHttpResponse response = new MockClientHttpResponse(body.getBytes(StandardCharsets.UTF_8), HttpStatus.OK);
+        response.getHeaders().setContentType(MediaType.APPLICATION_JSON_UTF8);
+        return response;
+    }
+
+    private ClientHttpResponse text(final String body, final HttpStatus status) {
+        final MockClientHttpResponse response = new MockClientHttpResponse(body.getBytes(StandardCharsets.UTF_8), status);
+        response.getHeaders().setContentType(MediaType.TEXT_PLAIN);
+        return response;
+    }
+}
@@ -0,0 +1,43 @@
+package uk.gov.dwp.carersallowance.sessiondata;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+public class SessionExpiryWheelTest {
+    private SessionExpiryWheel expiryWheel;
+
+    @Before
+    public void setUp() throws Exception {
+        expiryWheel = new SessionExpiryWheel(10, 100, 1000);
+    }
+
+    @Test
+    public void testDueOnlyOnceDeadlinePassed() throws Exception {
+        expiryWheel.schedule("1234", 1055);
+        assertThat(expiryWheel.advance(1055).isEmpty(), is(true));
+        assertThat(expiryWheel.advance(1059).isEmpty(), is(true));
+        assertThat(expiryWheel.advance(1060), is(Collections.singletonList("1234")));
+        assertThat(expiryWheel.advance(1200).isEmpty(), is(true));
+    }
+
+    @Test
+    public void testAdvancePastWholeWheelReturnsEverything() throws Exception {
+        expiryWheel.schedule("1", 1020);
+        expiryWheel.schedule("2", 1100);
+        assertThat(new HashSet<>(expiryWheel.advance(5000)), is(new HashSet<>(Arrays.asList("1", "2"))));
+    }
+
+    @Test
+    public void testDeadlineInThePastIsDueNextTick() throws Exception {
+        expiryWheel.advance(1500);
+        assertThat(expiryWheel.schedule("1234", 1000), is(151L));
+        assertThat(expiryWheel.advance(1510), is(Collections.singletonList("1234")));
+    }
+}
@@ -0,0 +1,81 @@
+package uk.gov.dwp.carersallowance.sessiondata;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+public class SessionFieldValuesTest {
+    private static final String[] ARRAY_VALUE = new String[]{"one", "two"};
+
+    private Session session;
+    private SessionFieldValues fieldValues;
+
+    @Before
+    public void setUp() throws Exception {
+        session = new Session("1234");
+        session.setAttribute("string", "value");
+        session.setAttribute("array", ARRAY_VALUE);
+        session.setAttribute("list", new ArrayList<>());
+        session.setAttribute("map", new HashMap<>());
+        session.markClean();
+        fieldValues = new SessionFieldValues(session);
+    }
+
+    @Test
+    public void testStringIsSeenAsSingleValue() throws Exception {
+        assertThat(fieldValues.get("string"), is(new String[]{"value"}));
+        assertThat(fieldValues.containsKey("string"), is(true));
+    }
+
+    @Test
+    public void testArrayIsSeenAsItself() throws Exception {
+        assertThat(fieldValues.get("array"), is(sameInstance(ARRAY_VALUE)));
+    }
+
+    @Test
+    public void testOtherValuesAreNotSeen() throws Exception {
+        assertThat(fieldValues.get("list"), is(nullValue()));
+        assertThat(fieldValues.containsKey("map"), is(false));
+        assertThat(fieldValues.get("missing"), is(nullValue()));
+        assertThat(fieldValues.keySet(), is(new HashSet<>(Arrays.asList("string", "array"))));
+        assertThat(fieldValues.size(), is(2));
+    }
+
+    @Test
+    public void testReflectsLaterChanges() throws Exception {
+        session.setAttribute("string", "changed");
+        session.removeAttribute("array");
+        assertThat(fieldValues.get("string"), is(new String[]{"changed"}));
+        assertThat(fieldValues.containsKey("array"), is(false));
+        assertThat(fieldValues.size(), is(1));
+    }
+
+    @Test
+    public void testReadingDoesNotMarkAttributesChanged() throws Exception {
+        for (final Map.Entry<String, String[]> entry : fieldValues.entrySet()) {
+            fieldValues.get(entry.getKey());
+        }
+        fieldValues.get("list");
+        assertThat(session.isModified(), is(false));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testIsReadOnly() throws Exception {
+        fieldValues.put("string", new String[]{"changed"});
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testEntriesCannotBeRemoved() throws Exception {
+        fieldValues.keySet().remove("string");
+    }
+}
@@ -3,7 +3,15 @@ package uk.gov.dwp.carersallowance.sessiondata;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
 import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
 import static org.junit.Assert.*;
 
 /**
@@ -46,4 +54,75 @@ public class SessionTest {
         session.removeAttribute("test");
         assertThat(session.getData().isEmpty(), is(true));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testNewSessionIsNotModified() throws Exception {
+        assertThat(session.isModified(), is(false));
+        assertThat(session.getVersion(), is(nullValue()));
+    }
+
+    @Test
+    public void testSetAttributeTracksChange() throws Exception {
+        session.setAttribute("test", "test1");
+        assertThat(session.isModified(), is(true));
+        assertThat(session.getChangedAttributeNames(), is(new HashSet<>(Arrays.asList("test"))));
+        assertThat(session.getGeneration(), is(1L));
+    }
+
+    @Test
+    public void testSetSameValueIsNotAChange() throws Exception {
+        session.setAttribute("test", "test1");
+        session.setAttribute("array", new String[]{"a", "b"});
+        session.markSaved(3L);
+        session.setAttribute("test", "test1");
+        session.setAttribute("array", new String[]{"a", "b"});
+        assertThat(session.isModified(), is(false));
+        assertThat(session.getVersion(), is(3L));
+    }
+
+    @Test
+    public void testOnlySettingFieldCollectionBackCountsAsChange() throws Exception {
+        session.setAttribute("breaks", new ArrayList<Map<String, String>>());
+        session.markClean();
+        @SuppressWarnings("unchecked")
+        final List<Map<String, String>> breaks = (List<Map<String, String>>)session.getAttribute("breaks");
+        breaks.add(new HashMap<>());
+        assertThat(session.isModified(), is(false));
+        session.setAttribute("breaks", breaks);
+        assertThat(session.getChangedAttributeNames().contains("breaks"), is(true));
+    }
+
+    @Test
+    public void testCreateDelta() throws Exception {
+        session.setAttribute("keep", "value");
+        session.setAttribute("remove", "value");
+        session.markSaved(7L);
+        session.setAttribute("change", "value2");
+        session.removeAttribute("remove");
+        session.removeAttribute("notThere");
+        final SessionDelta delta = session.createDelta();
+        assertThat(delta.getBaseVersion(), is(7L));
+        assertThat(delta.getChangedAttributes().keySet(), is(new HashSet<>(Arrays.asList("change"))));
+        assertThat(delta.getRemovedAttributes(), is(new HashSet<>(Arrays.asList("remove"))));
+    }
+
+    @Test
+    public void testMarkSavedDeltaKeepsLaterChanges() throws Exception {
+        session.markSaved(1L);
+        session.setAttribute("first", "value");
+        final SessionDelta delta = session.createDelta();
+        session.setAttribute("second", "value");
+        session.markSaved(delta, 2L);
+        assertThat(session.getVersion(), is(2L));
+        assertThat(session.isModified(), is(true));
+
+        final SessionDelta delta2 = session.createDelta();
+        session.markSaved(delta2, 3L);
+        assertThat(session.isModified(), is(false));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testGetDataIsReadOnly() throws Exception {
+        session.getData().put("test", "test1");
+    }
+}
@@ -0,0 +1,118 @@
+package uk.gov.dwp.carersallowance.submission;
+
+import gov.dwp.carers.xml.helpers.XMLMessageHelper;
+import gov.dwp.carers.xml.signing.SigningException;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.springframework.boot.actuate.metrics.GaugeService;
+import org.w3c.dom.Document;
+import org.xml.sax.InputSource;
+import uk.gov.dwp.carersallowance.configuration.MessageCatalog;
+import uk.gov.dwp.carersallowance.utils.ClaimTestUtils;
+import uk.gov.dwp.carersallowance.utils.xml.CompactXmlWriter;
+import uk.gov.dwp.carersallowance.xml.ServerSideResolveArgs;
+import uk.gov.dwp.carersallowance.xml.XmlBuilder;
+import uk.gov.dwp.carersallowance.xml.XmlClaimBuilder;
+import uk.gov.dwp.carersallowance.xml.MappingRegistry;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.transform.Transformer;
+import java.io.StringReader;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Matchers.anyDouble;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ClaimSigningPipelineTest {
+    private static final String TRANSACTION_ID = "16010000001";
+
+    private ClaimSigningPipeline pipeline;
+    private Map<String, Object> values;
+
+    @Mock
+    private XmlBuilder xmlBuilder;
+
+    @Mock
+    private XMLMessageHelper xmlMessageHelper;
+
+    @Mock
+    private GaugeService gaugeService;
+
+    private Document document;
+
+    @Mock
+    private Transformer transformer;
+
+    @Before
+    public void setUp() throws Exception {
+        values = new HashMap<>();
+        document = DocumentBuilderFactory.newInstance().newDocumentBuilder().newDocument();
+        document.appendChild(document.createElement("DWPBody"));
+        pipeline = new ClaimSigningPipeline(xmlBuilder, () -> xmlMessageHelper, gaugeService);
+        when(xmlBuilder.buildDocument(values)).thenReturn(document);
+        when(xmlMessageHelper.createDefaultTransformer()).thenReturn(transformer);
+        when(xmlMessageHelper.transformXml(transformer, document)).thenReturn("<DWPBody/>");
+        when(xmlMessageHelper.signXml("<DWPBody/>", TRANSACTION_ID)).thenReturn("<DWPBody><ds:Signature/></DWPBody>");
+    }
+
+    @Test
+    public void testSignsTheBuiltDocumentWithoutParsingItAgain() throws Exception {
+        assertThat(pipeline.buildSignedClaim(values, TRANSACTION_ID), is("<DWPBody><ds:Signature/></DWPBody>"));
+        verify(xmlMessageHelper).normaliseDocument(document);
+        verify(xmlMessageHelper, never()).createDocument(anyString());
+    }
+
+    @Test
+    public void testReusesTheTransformer() throws Exception {
+        pipeline.buildSignedClaim(values, TRANSACTION_ID);
+        pipeline.buildSignedClaim(values, TRANSACTION_ID);
+        verify(xmlMessageHelper, times(1)).createDefaultTransformer();
+        verify(xmlMessageHelper, times(2)).transformXml(transformer, document);
+    }
+
+    @Test
+    public void testSubmitsTheTimeTakenByEachStage() throws Exception {
+        pipeline.buildSignedClaim(values, TRANSACTION_ID);
+        for (final String stage : new String[]{"build", "normalise", "transform", "sign"}) {
+            verify(gaugeService).submit(eq("claim.xml." + stage), anyDouble());
+        }
+    }
+
+    @Test(expected = SigningException.class)
+    public void testFailureToSignThrowsSigningException() throws Exception {
+        when(xmlMessageHelper.signXml(anyString(), anyString())).thenThrow(new IllegalStateException("no key"));
+        pipeline.buildSignedClaim(values, TRANSACTION_ID);
+    }
+
+    @Test
+    public void testTheBuiltDocumentTransformsAsTheClaimParsedFromItsXmlDid() throws Exception {
+        final XmlClaimBuilder claimBuilder = new XmlClaimBuilder("DWPBody", new MessageCatalog("classpath:messages"), new ServerSideResolveArgs(), new MappingRegistry("xml.mapping.claim"), 65);
+        final Document built = claimBuilder.buildDocument(ClaimTestUtils.readReplicaClaim());
+        built.getDomConfig().setParameter("namespaces", Boolean.FALSE);
+
+        final DocumentBuilderFactory documentBuilderFactory = DocumentBuilderFactory.newInstance();
+        documentBuilderFactory.setNamespaceAware(true);
+        final Document parsed = documentBuilderFactory.newDocumentBuilder()
+                .parse(new InputSource(new StringReader(CompactXmlWriter.xmlToString(built, true))));
+
+        assertThat(transform(built), is(transform(parsed)));
+    }
+
+    private static String transform(final Document document) throws Exception {
+        final XMLMessageHelper helper = new XMLMessageHelper();
+        helper.normaliseDocument(document);
+        return helper.transformXml(helper.createDefaultTransformer(), document);
+    }
+}
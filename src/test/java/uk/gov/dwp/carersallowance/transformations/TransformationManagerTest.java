@@ -3,9 +3,11 @@ package uk.gov.dwp.carersallowance.transformations;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
 import org.springframework.context.MessageSource;
+import uk.gov.dwp.carersallowance.configuration.MessageCatalog;
 
 import java.util.Locale;
 
@@ -13,6 +15,9 @@ import static org.junit.Assert.*;
 import static org.hamcrest.CoreMatchers.is;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 /**
@@ -25,9 +30,12 @@ public class TransformationManagerTest {
     @Mock
     private MessageSource messageSource;
 
+    @Mock
+    private MessageCatalog messageCatalog;
+
     @Before
     public void setUp() throws Exception {
-        transformationManager = new TransformationManager();
+        transformationManager = new TransformationManager(messageSource);
     }
 
     @Test
@@ -47,4 +55,51 @@ public class TransformationManagerTest {
         when(messageSource.getMessage(anyString(), any(Object[].class), anyString(), any(Locale.class))).thenReturn("stripwhitespace");
         assertThat(transformationManager.getTransformedValue("testName", " te st Val ue ", "stripwhitespace", messageSource), is("testValue"));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testTransformationsAreAppliedInTheOrderGiven() throws Exception {
+        when(messageSource.getMessage(eq("carerNationalInsuranceNumber.validation.transformations"), any(Object[].class), anyString(), any(Locale.class))).thenReturn("uppercase, stripwhitespace");
+        assertThat(transformationManager.getTransformedValue("carerNationalInsuranceNumber", new String[]{"ab 12 34 56 c", null}, "%s.validation.transformations", messageSource),
+                is(new String[]{"AB123456C", null}));
+    }
+
+    @Test
+    public void testFieldWithoutTransformationsIsUnchanged() throws Exception {
+        assertThat(transformationManager.getTransformedValue("carerFirstName", " Joe ", "%s.transformations", messageSource), is(" Joe "));
+    }
+
+    @Test
+    public void testTransformationsAreReadOncePerField() throws Exception {
+        when(messageSource.getMessage(anyString(), any(Object[].class), anyString(), any(Locale.class))).thenReturn("uppercase");
+        for (int call = 0; call < 3; call++) {
+            transformationManager.getTransformedValue("carerPostcode", "ab1 2cd", "%s.transformations", messageSource);
+            transformationManager.getTransformedValue("carerPostcode", "ab1 2cd", "%s.validation.transformations", messageSource);
+        }
+        verify(messageSource, times(1)).getMessage(eq("carerPostcode.transformations"), any(Object[].class), anyString(), any(Locale.class));
+        verify(messageSource, times(1)).getMessage(eq("carerPostcode.validation.transformations"), any(Object[].class), anyString(), any(Locale.class));
+    }
+
+    @Test
+    public void testTransformationsAreReadAgainOnceReloaded() throws Exception {
+        when(messageSource.getMessage(anyString(), any(Object[].class), anyString(), any(Locale.class))).thenReturn("uppercase");
+        assertThat(transformationManager.getTransformedValue("carerPostcode", "ab1 2cd", "%s.transformations", messageSource), is("AB1 2CD"));
+
+        when(messageSource.getMessage(anyString(), any(Object[].class), anyString(), any(Locale.class))).thenReturn("stripwhitespace");
+        assertThat(transformationManager.getTransformedValue("carerPostcode", "ab1 2cd", "%s.transformations", messageSource), is("AB1 2CD"));
+        transformationManager.reload();
+        assertThat(transformationManager.getTransformedValue("carerPostcode", "ab1 2cd", "%s.transformations", messageSource), is("ab12cd"));
+    }
+
+    @Test
+    public void testTransformationsAreReloadedWithTheMessageCatalog() throws Exception {
+        transformationManager = new TransformationManager(messageCatalog);
+        final ArgumentCaptor<MessageCatalog.ReloadListener> reloadListener = ArgumentCaptor.forClass(MessageCatalog.ReloadListener.class);
+        verify(messageCatalog).addReloadListener(reloadListener.capture());
+
+        when(messageSource.getMessage(anyString(), any(Object[].class), anyString(), any(Locale.class))).thenReturn("uppercase");
+        assertThat(transformationManager.getTransformedValue("carerPostcode", "ab1 2cd", "%s.transformations", messageSource), is("AB1 2CD"));
+        when(messageSource.getMessage(anyString(), any(Object[].class), anyString(), any(Locale.class))).thenReturn("stripwhitespace");
+        reloadListener.getValue().prepareReload().run();
+        assertThat(transformationManager.getTransformedValue("carerPostcode", "ab1 2cd", "%s.transformations", messageSource), is("ab12cd"));
+    }
+}
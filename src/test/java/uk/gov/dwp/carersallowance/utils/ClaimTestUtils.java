@@ -0,0 +1,19 @@
+package uk.gov.dwp.carersallowance.utils;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import uk.gov.dwp.carersallowance.xml.MappingRegistry;
+import uk.gov.dwp.carersallowance.xml.XmlClaimReader;
+
+public class ClaimTestUtils {
+    public static final String REPLICA_CLAIM = "ReplicaDefaultClaim.xml";
+
+    /**
+     * @return a copy of the session values of ReplicaDefaultClaim.xml, the fully populated claim, that the caller may change
+     */
+    public static Map<String, Object> readReplicaClaim() throws Exception {
+        final XmlClaimReader claimReader = new XmlClaimReader(REPLICA_CLAIM, true, new MappingRegistry("xml.mapping.claim"));
+        return new HashMap<>(claimReader.getValues());
+    }
+}
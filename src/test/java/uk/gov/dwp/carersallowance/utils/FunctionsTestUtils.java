@@ -0,0 +1,19 @@
+package uk.gov.dwp.carersallowance.utils;
+
+import org.springframework.context.MessageSource;
+import uk.gov.dwp.carersallowance.encryption.FieldEncryptionServiceImpl;
+import uk.gov.dwp.carersallowance.jsp.Functions;
+
+import java.lang.reflect.Constructor;
+
+public class FunctionsTestUtils {
+
+    /**
+     * Functions is normally set up by Spring, validation errors need it to encrypt their field ids.
+     */
+    public static void initFunctions(final MessageSource messageSource) throws Exception {
+        final Constructor<Functions> functions = Functions.class.getDeclaredConstructor(MessageSource.class, FieldEncryptionServiceImpl.class);
+        functions.setAccessible(true);
+        functions.newInstance(messageSource, new FieldEncryptionServiceImpl("0123456789abcdef0123456789abcdef", false));
+    }
+}
@@ -0,0 +1,77 @@
+package uk.gov.dwp.carersallowance.utils.xml;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import uk.gov.dwp.carersallowance.configuration.MessageCatalog;
+import uk.gov.dwp.carersallowance.utils.ClaimTestUtils;
+import uk.gov.dwp.carersallowance.xml.ServerSideResolveArgs;
+import uk.gov.dwp.carersallowance.xml.XmlClaimBuilder;
+import uk.gov.dwp.carersallowance.xml.MappingRegistry;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+public class CompactXmlWriterTest {
+    private Document document;
+
+    @Before
+    public void setUp() throws Exception {
+        document = DocumentBuilderFactory.newInstance().newDocumentBuilder().newDocument();
+    }
+
+    private static String allCharacters() {
+        final StringBuilder characters = new StringBuilder("\t\n\r");
+        for (char character = 0x20; character < 0x100; character++) {
+            characters.append(character);
+        }
+        return characters.append(" \u20ac \ud83d\ude00 \u2028 ]]>").toString();
+    }
+
+    private void assertWrittenAsTheLSSerializerDoes() throws Exception {
+        assertThat(CompactXmlWriter.xmlToString(document, true), is(XmlPrettyPrinter.xmlToString(document, false, true)));
+        assertThat(CompactXmlWriter.xmlToString(document, false), is(XmlPrettyPrinter.xmlToString(document, false, false)));
+    }
+
+    @Test
+    public void testWritesTheClaimAsTheLSSerializerDoes() throws Exception {
+        final XmlClaimBuilder xmlBuilder = new XmlClaimBuilder("DWPBody", new MessageCatalog("classpath:messages"), new ServerSideResolveArgs(), new MappingRegistry("xml.mapping.claim"), 65);
+        document = xmlBuilder.buildDocument(ClaimTestUtils.readReplicaClaim());
+        assertWrittenAsTheLSSerializerDoes();
+    }
+
+    @Test
+    public void testEscapesTextAndAttributesAsTheLSSerializerDoes() throws Exception {
+        final Element root = document.createElement("DWPBody");
+        document.appendChild(root);
+        root.setAttribute("xmlns", "http://www.govtalk.gov.uk/dwp/carers-allowance");
+        root.setAttribute("id", allCharacters());
+        root.appendChild(document.createTextNode(allCharacters()));
+        final Element child = document.createElement("Answer");
+        root.appendChild(child);
+        child.appendChild(document.createTextNode("one & "));
+        child.appendChild(document.createTextNode("two"));
+        assertWrittenAsTheLSSerializerDoes();
+    }
+
+    @Test
+    public void testWritesElementsWithoutContentAsEmptyElements() throws Exception {
+        final Element root = document.createElement("DWPBody");
+        document.appendChild(root);
+        root.appendChild(document.createElement("Empty"));
+        root.appendChild(document.createElement("EmptyText")).appendChild(document.createTextNode(""));
+        assertThat(CompactXmlWriter.xmlToString(document, false), is("<DWPBody><Empty/><EmptyText/></DWPBody>"));
+        assertWrittenAsTheLSSerializerDoes();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRejectsCharactersThatAreNotAllowedInXml() throws Exception {
+        final Element root = document.createElement("DWPBody");
+        document.appendChild(root);
+        root.appendChild(document.createTextNode("\u0001"));
+        CompactXmlWriter.xmlToString(document, false);
+    }
+}
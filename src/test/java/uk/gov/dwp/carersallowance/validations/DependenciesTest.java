@@ -0,0 +1,102 @@
+package uk.gov.dwp.carersallowance.validations;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.context.support.StaticMessageSource;
+
+import java.text.ParseException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+public class DependenciesTest {
+    private static final String KEY_FORMAT = "%s.validation.dependency";
+    private static final List<String> FIELDS = Arrays.asList("thirdParty", "nameAndOrganisation", "organisationAddress", "carerTitle");
+
+    private StaticMessageSource messageSource;
+    private Map<String, String[]> fieldValues;
+    private int lookups;
+
+    @Before
+    public void setUp() throws Exception {
+        messageSource = new StaticMessageSource();
+        addDependency("nameAndOrganisation", "thirdParty=yes");
+        addDependency("organisationAddress", "nameAndOrganisation=given");
+        fieldValues = new HashMap<String, String[]>() {
+            @Override
+            public String[] get(final Object key) {
+                lookups++;
+                return super.get(key);
+            }
+        };
+    }
+
+    private void addDependency(final String field, final String dependency) {
+        messageSource.addMessage(String.format(KEY_FORMAT, field), Locale.getDefault(), dependency);
+    }
+
+    private Dependencies dependencies() throws ParseException {
+        return new Dependencies(messageSource, KEY_FORMAT, FIELDS, FIELDS);
+    }
+
+    @Test
+    public void testFieldWithoutDependencyIsEnabled() throws Exception {
+        assertThat(dependencies().areDependenciesFulfilled("carerTitle", fieldValues), is(true));
+    }
+
+    @Test
+    public void testFollowsTheChainOfDependantFields() throws Exception {
+        fieldValues.put("nameAndOrganisation", new String[]{"given"});
+        assertThat(dependencies().areDependenciesFulfilled("organisationAddress", fieldValues), is(false));
+        fieldValues.put("thirdParty", new String[]{"yes"});
+        assertThat(dependencies().areDependenciesFulfilled("organisationAddress", fieldValues), is(true));
+        fieldValues.put("nameAndOrganisation", new String[]{"other"});
+        assertThat(dependencies().areDependenciesFulfilled("organisationAddress", fieldValues), is(false));
+    }
+
+    @Test
+    public void testEvaluationChecksEachDependencyOnce() throws Exception {
+        fieldValues.put("thirdParty", new String[]{"yes"});
+        fieldValues.put("nameAndOrganisation", new String[]{"given"});
+        final Dependencies.Evaluation evaluation = dependencies().evaluate(fieldValues);
+        for (final String field : FIELDS) {
+            assertThat(evaluation.areDependenciesFulfilled(field), is(true));
+        }
+        assertThat(evaluation.areDependenciesFulfilled("organisationAddress"), is(true));
+        assertThat(lookups, is(2));
+    }
+
+    @Test
+    public void testAggregateDependencyDoesNotFollowTheChain() throws Exception {
+        addDependency("organisationAddress", "nameAndOrganisation=given&carerTitle=Mr");
+        fieldValues.put("nameAndOrganisation", new String[]{"given"});
+        fieldValues.put("carerTitle", new String[]{"Mr"});
+        assertThat(dependencies().areDependenciesFulfilled("organisationAddress", fieldValues), is(true));
+        assertThat(dependencies().evaluate(fieldValues).areDependenciesFulfilled("nameAndOrganisation"), is(false));
+    }
+
+    @Test
+    public void testCircularDependencyIsRejected() throws Exception {
+        addDependency("thirdParty", "organisationAddress=yes");
+        try {
+            dependencies();
+            fail("expected ParseException");
+        } catch (ParseException pe) {
+            assertThat(pe.getMessage(), containsString("Circular dependency"));
+            assertThat(pe.getMessage(), containsString("thirdParty"));
+        }
+    }
+
+    @Test(expected = ParseException.class)
+    public void testFieldDependingOnItselfIsRejected() throws Exception {
+        addDependency("carerTitle", "carerTitle=Mr");
+        dependencies();
+    }
+}
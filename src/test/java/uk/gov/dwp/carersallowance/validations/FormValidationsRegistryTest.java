@@ -0,0 +1,103 @@
+package uk.gov.dwp.carersallowance.validations;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.context.MessageSource;
+import uk.gov.dwp.carersallowance.configuration.MessageCatalog;
+import uk.gov.dwp.carersallowance.controller.PageOrder;
+import uk.gov.dwp.carersallowance.session.FieldCollection;
+import uk.gov.dwp.carersallowance.transformations.TransformationManager;
+import uk.gov.dwp.carersallowance.utils.FunctionsTestUtils;
+import uk.gov.dwp.carersallowance.utils.MessageSourceTestUtils;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.junit.Assert.assertThat;
+
+public class FormValidationsRegistryTest {
+    private static final String PAGE = "/about-you/your-details";
+    private static final String NESTED_PAGE = "/your-income/employment/job-details";
+
+    private MessageSource messageSource;
+    private PageOrder pageOrder;
+    private FormValidationsRegistry registry;
+    private TransformationManager transformationManager;
+
+    @Before
+    public void setUp() throws Exception {
+        messageSource = MessageSourceTestUtils.loadMessageSource("messages.properties");
+        transformationManager = new TransformationManager(messageSource);
+        pageOrder = new PageOrder(messageSource, "claim");
+        registry = new FormValidationsRegistry(messageSource, pageOrder);
+        registry.compileAll();
+
+        FunctionsTestUtils.initFunctions(messageSource);
+    }
+
+    private FormValidations get(final String pageName) throws Exception {
+        return registry.getFormValidations(pageName, FieldCollection.getFields(messageSource, pageName));
+    }
+
+    @Test
+    public void testCompilesEveryPageWithFieldsAtStartup() throws Exception {
+        assertThat(registry.size(), is(greaterThan(30)));
+        final int compiled = registry.size();
+        get(PAGE);
+        get(NESTED_PAGE);
+        assertThat(registry.size(), is(compiled));
+    }
+
+    @Test
+    public void testReturnsTheCompiledValidations() throws Exception {
+        final FormValidations validations = get(PAGE);
+        assertThat(validations.getFormName(), is(PAGE));
+        assertThat(get(PAGE), is(sameInstance(validations)));
+    }
+
+    @Test
+    public void testRecompilesWhenTheFieldsChange() throws Exception {
+        final FormValidations validations = get(PAGE);
+        final FormValidations recompiled = registry.getFormValidations(PAGE, new String[]{"carerTitle", "carerSurname"});
+        assertThat(recompiled, is(not(sameInstance(validations))));
+        assertThat(recompiled.getFields(), is(Arrays.asList("carerTitle", "carerSurname")));
+    }
+
+    @Test
+    public void testReloadRecompilesEveryPage() throws Exception {
+        final FormValidations validations = get(PAGE);
+        final int compiled = registry.size();
+        registry.reload();
+        assertThat(registry.size(), is(compiled));
+        assertThat(get(PAGE), is(not(sameInstance(validations))));
+    }
+
+    @Test
+    public void testRecompilesWhenTheMessageCatalogIsReloaded() throws Exception {
+        final MessageCatalog messageCatalog = new MessageCatalog("classpath:messages");
+        registry = new FormValidationsRegistry(messageCatalog, new PageOrder(messageCatalog, "claim"));
+        registry.compileAll();
+        final FormValidations validations = registry.getFormValidations(PAGE, FieldCollection.getFields(messageCatalog, PAGE));
+        messageCatalog.reload();
+        assertThat(registry.getFormValidations(PAGE, FieldCollection.getFields(messageCatalog, PAGE)), is(not(sameInstance(validations))));
+    }
+
+    @Test
+    public void testCompiledValidationsGiveTheSameErrors() throws Exception {
+        final String[] fields = FieldCollection.getFields(messageSource, PAGE);
+        final Map<String, String[]> values = new HashMap<>();
+        for (final String field : fields) {
+            values.put(field, new String[]{""});
+        }
+        values.put("carerFirstName", new String[]{"Jo"});
+        final ValidationSummary compiled = get(PAGE).validate(new ValidationSummary(), messageSource, transformationManager, values, new HashMap<>());
+        final ValidationSummary uncompiled = new FormValidations(messageSource, PAGE, fields).validate(new ValidationSummary(), messageSource, transformationManager, values, new HashMap<>());
+        assertThat(compiled.hasFormErrors(), is(true));
+        assertThat(compiled.getFormErrors().size(), is(uncompiled.getFormErrors().size()));
+    }
+}
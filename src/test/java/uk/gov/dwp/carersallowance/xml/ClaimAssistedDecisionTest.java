@@ -6,6 +6,7 @@ import org.mockito.Mock;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.context.MessageSource;
+import org.w3c.dom.Document;
 import uk.gov.dwp.carersallowance.utils.C3Constants;
 import uk.gov.dwp.carersallowance.utils.xml.ClaimXmlUtil;
 
@@ -46,10 +47,10 @@ public class ClaimAssistedDecisionTest {
 
     @Test
     public void checkClaimXmlContainsDefaultAssistedDecisionReason() throws Exception {
-        XmlClaimBuilder xmlBuilder = new XmlClaimBuilder("DWPBody", messageSource, serverSideResolveArgs, "xml.mapping.claim", 65);
-        xmlBuilder.loadValuesIntoXML(sessionMap);
-        String reason = xmlBuilder.getNodeValue("/DWPBody/DWPCATransaction/DWPCAClaim/AssistedDecisions/AssistedDecision/Reason");
-        String decision = xmlBuilder.getNodeValue("/DWPBody/DWPCATransaction/DWPCAClaim/AssistedDecisions/AssistedDecision/RecommendedDecision");
+        XmlClaimBuilder xmlBuilder = new XmlClaimBuilder("DWPBody", messageSource, serverSideResolveArgs, new MappingRegistry("xml.mapping.claim"), 65);
+        Document document = xmlBuilder.buildDocument(sessionMap);
+        String reason = XmlBuilder.getNodeValue(document, "/DWPBody/DWPCATransaction/DWPCAClaim/AssistedDecisions/AssistedDecision/Reason");
+        String decision = XmlBuilder.getNodeValue(document, "/DWPBody/DWPCATransaction/DWPCAClaim/AssistedDecisions/AssistedDecision/RecommendedDecision");
         assertThat(reason, is("Check CIS for benefits. Send Pro517 if relevant."));
         assertThat(decision, is("Potential award,show table"));
     }
@@ -57,10 +58,10 @@ public class ClaimAssistedDecisionTest {
     @Test
     public void checkClaimXmlContainsAFIPAssistedDecisionReason() throws Exception {
         sessionMap.put("benefitsAnswer", "AFIP");
-        XmlClaimBuilder xmlBuilder = new XmlClaimBuilder("DWPBody", messageSource, serverSideResolveArgs, "xml.mapping.claim", 65);
-        xmlBuilder.loadValuesIntoXML(sessionMap);
-        String reason = xmlBuilder.getNodeValue("/DWPBody/DWPCATransaction/DWPCAClaim/AssistedDecisions/AssistedDecision/Reason");
-        String decision = xmlBuilder.getNodeValue("/DWPBody/DWPCATransaction/DWPCAClaim/AssistedDecisions/AssistedDecision/RecommendedDecision");
+        XmlClaimBuilder xmlBuilder = new XmlClaimBuilder("DWPBody", messageSource, serverSideResolveArgs, new MappingRegistry("xml.mapping.claim"), 65);
+        Document document = xmlBuilder.buildDocument(sessionMap);
+        String reason = XmlBuilder.getNodeValue(document, "/DWPBody/DWPCATransaction/DWPCAClaim/AssistedDecisions/AssistedDecision/Reason");
+        String decision = XmlBuilder.getNodeValue(document, "/DWPBody/DWPCATransaction/DWPCAClaim/AssistedDecisions/AssistedDecision/RecommendedDecision");
         assertThat(reason, is("Assign to AFIP officer on CAMLite workflow."));
         assertThat(decision, is("None,show table"));
     }
@@ -6,6 +6,7 @@ import org.mockito.Mock;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.context.MessageSource;
+import org.w3c.dom.Document;
 import uk.gov.dwp.carersallowance.utils.C3Constants;
 import uk.gov.dwp.carersallowance.utils.xml.ClaimXmlUtil;
 import uk.gov.dwp.carersallowance.utils.xml.XmlPrettyPrinter;
@@ -27,6 +28,7 @@ public class ClaimHeaderItemsTest {
     private static final Logger LOG = LoggerFactory.getLogger(ClaimHeaderItemsTest.class);
 
     private XmlBuilder xmlBuilder;
+    private Document document;
     private String appVersion = "3.14";
     private String xmlVersion = "0.27";
     private String transactionId = "16011234";
@@ -50,14 +52,14 @@ public class ClaimHeaderItemsTest {
         sessionMap.put("originTag", origin);
         sessionMap.put("language", language);
 
-        xmlBuilder = new XmlClaimBuilder("DWPBody", messageSource, serverSideResolveArgs, "xml.mapping.claim", 65);
-        xmlBuilder.loadValuesIntoXML(sessionMap);
+        xmlBuilder = new XmlClaimBuilder("DWPBody", messageSource, serverSideResolveArgs, new MappingRegistry("xml.mapping.claim"), 65);
+        document = xmlBuilder.buildDocument(sessionMap);
     }
 
     @Test
     public void justDumpXml() {
         try {
-            LOG.debug(XmlPrettyPrinter.prettyPrintXml(xmlBuilder.getDocument().getFirstChild()));
+            LOG.debug(XmlPrettyPrinter.prettyPrintXml(document.getFirstChild()));
         } catch (InstantiationException e) {
             e.printStackTrace();
         }
@@ -65,32 +67,32 @@ public class ClaimHeaderItemsTest {
 
     @Test
     public void checkClaimXmlContainsSchemaVersion() {
-        assertThat(xmlBuilder.getNodeValue("/DWPBody/Version"), is(xmlVersion));
+        assertThat(XmlBuilder.getNodeValue(document, "/DWPBody/Version"), is(xmlVersion));
     }
 
     @Test
     public void checkClaimXmlContainsC3AppVersion() {
-        assertThat(xmlBuilder.getNodeValue("/DWPBody/ClaimVersion"), is(appVersion));
+        assertThat(XmlBuilder.getNodeValue(document, "/DWPBody/ClaimVersion"), is(appVersion));
     }
 
     @Test
     public void checkClaimXmlContainsOrigin() {
-        assertThat(xmlBuilder.getNodeValue("/DWPBody/Origin"), is(origin));
+        assertThat(XmlBuilder.getNodeValue(document, "/DWPBody/Origin"), is(origin));
     }
 
     @Test
     public void checkClaimXmlContainsDWPCATransactionIdAttribute() {
-        assertThat(xmlBuilder.getNodeValue("/DWPBody/DWPCATransaction/@id"), is(transactionId));
+        assertThat(XmlBuilder.getNodeValue(document, "/DWPBody/DWPCATransaction/@id"), is(transactionId));
     }
 
     @Test
     public void checkClaimXmlContainsTransactionId() {
-        assertThat(xmlBuilder.getNodeValue("/DWPBody/DWPCATransaction/TransactionId"), is(transactionId));
+        assertThat(XmlBuilder.getNodeValue(document, "/DWPBody/DWPCATransaction/TransactionId"), is(transactionId));
     }
 
     @Test
     public void checkClaimXmlContainsDateTimeGeneratedWithCorrectFormat() {
-        String dateTimeGenerated = xmlBuilder.getNodeValue("/DWPBody/DWPCATransaction/DateTimeGenerated");
+        String dateTimeGenerated = XmlBuilder.getNodeValue(document, "/DWPBody/DWPCATransaction/DateTimeGenerated");
         long dtgSecs = 0;
         try {
             DateTimeFormatter dtf = DateTimeFormatter.ofPattern("dd-MM-yyyy HH:mm", Locale.getDefault());
@@ -105,6 +107,6 @@ public class ClaimHeaderItemsTest {
 
     @Test
     public void checkClaimXmlContainsLanguage() {
-        assertThat(xmlBuilder.getNodeValue("/DWPBody/DWPCATransaction/LanguageUsed"), is(language));
+        assertThat(XmlBuilder.getNodeValue(document, "/DWPBody/DWPCATransaction/LanguageUsed"), is(language));
     }
 }
\ No newline at end of file
@@ -6,6 +6,7 @@ import org.mockito.Mock;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.context.MessageSource;
+import org.w3c.dom.Document;
 import uk.gov.dwp.carersallowance.utils.C3Constants;
 import uk.gov.dwp.carersallowance.utils.xml.ClaimXmlUtil;
 import uk.gov.dwp.carersallowance.utils.xml.XmlPrettyPrinter;
@@ -20,6 +21,7 @@ public class ClaimantTest {
     private static final Logger LOG = LoggerFactory.getLogger(ClaimantTest.class);
 
     private XmlClaimBuilder xmlBuilder;
+    private Document document;
     private String appVersion = "3.14";
     private String xmlVersion = "0.27";
     private String transactionId = "16011234";
@@ -49,14 +51,14 @@ public class ClaimantTest {
         sessionMap.put("dateOfClaim_day", "31");
         sessionMap.put("dateOfClaim_month", "12");
         sessionMap.put("dateOfClaim_year", "2016");
-        xmlBuilder = new XmlClaimBuilder("DWPBody", messageSource, serverSideResolveArgs, "xml.mapping.claim", 65);
-        xmlBuilder.loadValuesIntoXML(sessionMap);
+        xmlBuilder = new XmlClaimBuilder("DWPBody", messageSource, serverSideResolveArgs, new MappingRegistry("xml.mapping.claim"), 65);
+        document = xmlBuilder.buildDocument(sessionMap);
     }
 
     @Test
     public void justDumpXml() {
         try {
-            LOG.debug(XmlPrettyPrinter.prettyPrintXml(xmlBuilder.getDocument().getFirstChild()));
+            LOG.debug(XmlPrettyPrinter.prettyPrintXml(document.getFirstChild()));
         } catch (InstantiationException e) {
             e.printStackTrace();
         }
@@ -64,34 +66,34 @@ public class ClaimantTest {
 
     @Test
     public void checkClaimXmlContainsQualifyingBenefit() {
-        //        assertThat(xmlBuilder.getNodeValue("/DWPBody/DWPCATransaction/DWPCAClaim/QualifyingBenefit/QuestionLabel"), is("Benefits question"));
-        assertThat(xmlBuilder.getNodeValue("/DWPBody/DWPCATransaction/DWPCAClaim/QualifyingBenefit/Answer"), is("AFIP"));
+        //        assertThat(XmlBuilder.getNodeValue(document, "/DWPBody/DWPCATransaction/DWPCAClaim/QualifyingBenefit/QuestionLabel"), is("Benefits question"));
+        assertThat(XmlBuilder.getNodeValue(document, "/DWPBody/DWPCATransaction/DWPCAClaim/QualifyingBenefit/Answer"), is("AFIP"));
     }
 
     @Test
     public void checkClaimXmlContainsDateOfClaim() {
-        LOG.debug("DATEOFCLAIM node:{}", xmlBuilder.getNodeValue("/DWPBody/DWPCATransaction/DWPCAClaim/DateOfClaim"));
-        //        assertThat(xmlBuilder.getNodeValue("/DWPBody/DWPCATransaction/DWPCAClaim/DateOfClaim/QuestionLabel"), is("Benefits question"));
-        assertThat(xmlBuilder.getNodeValue("/DWPBody/DWPCATransaction/DWPCAClaim/DateOfClaim/Answer"), is("31-12-2016"));
+        LOG.debug("DATEOFCLAIM node:{}", XmlBuilder.getNodeValue(document, "/DWPBody/DWPCATransaction/DWPCAClaim/DateOfClaim"));
+        //        assertThat(XmlBuilder.getNodeValue(document, "/DWPBody/DWPCATransaction/DWPCAClaim/DateOfClaim/QuestionLabel"), is("Benefits question"));
+        assertThat(XmlBuilder.getNodeValue(document, "/DWPBody/DWPCATransaction/DWPCAClaim/DateOfClaim/Answer"), is("31-12-2016"));
     }
 
     @Test
     public void checkClaimXmlDoesContainMiddleNameQuestionIfAnswered() throws Exception {
         sessionMap.put("carerMiddleName", "Freddy");
-        XmlClaimBuilder xmlBuilder = new XmlClaimBuilder("DWPBody", messageSource, serverSideResolveArgs, "xml.mapping.claim", 65);
-        xmlBuilder.loadValuesIntoXML(sessionMap);
-        LOG.debug("Othernames node1:{}", xmlBuilder.getNodeValue("/DWPBody/DWPCATransaction/DWPCAClaim/Claimant/MiddleNames"));
-        assertThat(xmlBuilder.getNodeValue("/DWPBody/DWPCATransaction/DWPCAClaim/Claimant/MiddleNames/QuestionLabel").length() > 0, is(true));
-        assertThat(xmlBuilder.getNodeValue("/DWPBody/DWPCATransaction/DWPCAClaim/Claimant/MiddleNames/Answer"), is("Freddy"));
+        XmlClaimBuilder xmlBuilder = new XmlClaimBuilder("DWPBody", messageSource, serverSideResolveArgs, new MappingRegistry("xml.mapping.claim"), 65);
+        Document document = xmlBuilder.buildDocument(sessionMap);
+        LOG.debug("Othernames node1:{}", XmlBuilder.getNodeValue(document, "/DWPBody/DWPCATransaction/DWPCAClaim/Claimant/MiddleNames"));
+        assertThat(XmlBuilder.getNodeValue(document, "/DWPBody/DWPCATransaction/DWPCAClaim/Claimant/MiddleNames/QuestionLabel").length() > 0, is(true));
+        assertThat(XmlBuilder.getNodeValue(document, "/DWPBody/DWPCATransaction/DWPCAClaim/Claimant/MiddleNames/Answer"), is("Freddy"));
     }
 
     @Test
     public void checkClaimXmlDoesntContainMiddleNameQuestionIfNotAnswered() throws Exception {
-        XmlClaimBuilder xmlBuilder = new XmlClaimBuilder("DWPBody", messageSource, serverSideResolveArgs, "xml.mapping.claim", 65);
-        xmlBuilder.loadValuesIntoXML(sessionMap);
-        LOG.debug("Othernames node2:{}", xmlBuilder.getNodeValue("/DWPBody/DWPCATransaction/DWPCAClaim/Claimant/MiddleNames"));
-        assertThat(xmlBuilder.getNodeValue("/DWPBody/DWPCATransaction/DWPCAClaim/Claimant/MiddleNames/QuestionLabel"), is(""));
-        assertThat(xmlBuilder.getNodeValue("/DWPBody/DWPCATransaction/DWPCAClaim/Claimant/MiddleNames/Answer"), is(""));
+        XmlClaimBuilder xmlBuilder = new XmlClaimBuilder("DWPBody", messageSource, serverSideResolveArgs, new MappingRegistry("xml.mapping.claim"), 65);
+        Document document = xmlBuilder.buildDocument(sessionMap);
+        LOG.debug("Othernames node2:{}", XmlBuilder.getNodeValue(document, "/DWPBody/DWPCATransaction/DWPCAClaim/Claimant/MiddleNames"));
+        assertThat(XmlBuilder.getNodeValue(document, "/DWPBody/DWPCATransaction/DWPCAClaim/Claimant/MiddleNames/QuestionLabel"), is(""));
+        assertThat(XmlBuilder.getNodeValue(document, "/DWPBody/DWPCATransaction/DWPCAClaim/Claimant/MiddleNames/Answer"), is(""));
     }
 
 
@@ -99,21 +101,21 @@ public class ClaimantTest {
     public void checkClaimXmlContainsAddress() throws Exception {
         sessionMap.put("carerAddressLineOne", "22 Acacia Ave");
         sessionMap.put("carerPostcode", "PR12AA");
-        XmlClaimBuilder xmlBuilder = new XmlClaimBuilder("DWPBody", messageSource, serverSideResolveArgs, "xml.mapping.claim", 65);
-        xmlBuilder.loadValuesIntoXML(sessionMap);
-        LOG.debug("Address node1:", xmlBuilder.getNodeValue("/DWPBody/DWPCATransaction/DWPCAClaim/Claimant/Address"));
-        assertThat(xmlBuilder.getNodeValue("/DWPBody/DWPCATransaction/DWPCAClaim/Claimant/Address/QuestionLabel").length() > 0, is(true));
-        assertThat(xmlBuilder.getNodeValue("/DWPBody/DWPCATransaction/DWPCAClaim/Claimant/Address/Answer/Line"), is("22 Acacia Ave"));
-        assertThat(xmlBuilder.getNodeValue("/DWPBody/DWPCATransaction/DWPCAClaim/Claimant/Address/Answer/PostCode"), is("PR12AA"));
+        XmlClaimBuilder xmlBuilder = new XmlClaimBuilder("DWPBody", messageSource, serverSideResolveArgs, new MappingRegistry("xml.mapping.claim"), 65);
+        Document document = xmlBuilder.buildDocument(sessionMap);
+        LOG.debug("Address node1:", XmlBuilder.getNodeValue(document, "/DWPBody/DWPCATransaction/DWPCAClaim/Claimant/Address"));
+        assertThat(XmlBuilder.getNodeValue(document, "/DWPBody/DWPCATransaction/DWPCAClaim/Claimant/Address/QuestionLabel").length() > 0, is(true));
+        assertThat(XmlBuilder.getNodeValue(document, "/DWPBody/DWPCATransaction/DWPCAClaim/Claimant/Address/Answer/Line"), is("22 Acacia Ave"));
+        assertThat(XmlBuilder.getNodeValue(document, "/DWPBody/DWPCATransaction/DWPCAClaim/Claimant/Address/Answer/PostCode"), is("PR12AA"));
     }
 
     @Test
     public void checkyesIsMappedToYesAndnoIsMappedToNo() throws Exception {
         sessionMap.put("beforeClaimCaring", C3Constants.YES);
         sessionMap.put("carerWantsEmailContact", C3Constants.NO);
-        XmlClaimBuilder xmlBuilder = new XmlClaimBuilder("DWPBody", messageSource, serverSideResolveArgs, "xml.mapping.claim", 65);
-        xmlBuilder.loadValuesIntoXML(sessionMap);
-        assertThat(xmlBuilder.getNodeValue("DWPBody/DWPCATransaction/DWPCAClaim/Claimant/Cared35HoursBefore/Answer"), is("Yes"));
-        assertThat(xmlBuilder.getNodeValue("DWPBody/DWPCATransaction/DWPCAClaim/Claimant/WantsContactEmail/Answer"), is("No"));
+        XmlClaimBuilder xmlBuilder = new XmlClaimBuilder("DWPBody", messageSource, serverSideResolveArgs, new MappingRegistry("xml.mapping.claim"), 65);
+        Document document = xmlBuilder.buildDocument(sessionMap);
+        assertThat(XmlBuilder.getNodeValue(document, "DWPBody/DWPCATransaction/DWPCAClaim/Claimant/Cared35HoursBefore/Answer"), is("Yes"));
+        assertThat(XmlBuilder.getNodeValue(document, "DWPBody/DWPCATransaction/DWPCAClaim/Claimant/WantsContactEmail/Answer"), is("No"));
     }
 }
\ No newline at end of file
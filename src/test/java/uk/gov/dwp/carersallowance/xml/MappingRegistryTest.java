@@ -0,0 +1,58 @@
+package uk.gov.dwp.carersallowance.xml;
+
+import org.junit.Before;
+import org.junit.Test;
+import uk.gov.dwp.carersallowance.utils.xml.XPathMappingList;
+
+import java.io.IOException;
+import java.util.Collections;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+public class MappingRegistryTest {
+    private MappingRegistry mappingRegistry;
+
+    @Before
+    public void setUp() throws Exception {
+        mappingRegistry = new MappingRegistry("xml.mapping.claim");
+    }
+
+    @Test
+    public void testLoadsTheClaimMappingAndEveryCollection() throws Exception {
+        assertThat(mappingRegistry.getMappingName(), is("xml.mapping.claim"));
+        assertThat(mappingRegistry.getMappings().getXPathMap().containsKey("DWPBody/Version"), is(true));
+        for (final String collection : MappingRegistry.CLAIM_COLLECTIONS) {
+            assertThat(collection, mappingRegistry.getCollectionMappings(collection), notNullValue());
+        }
+        assertThat(mappingRegistry.getAllMappings().size(), is(MappingRegistry.CLAIM_COLLECTIONS.length + 1));
+    }
+
+    @Test
+    public void testCollectionNamesAreNotCaseSensitive() throws Exception {
+        assertThat(mappingRegistry.getCollectionMappings("jobdetails"), sameInstance(mappingRegistry.getCollectionMappings("JobDetails")));
+    }
+
+    @Test
+    public void testUnknownCollectionHasNoMappings() throws Exception {
+        assertThat(mappingRegistry.getCollectionMappings("breaksunknown"), nullValue());
+        assertThat(mappingRegistry.getCollectionMappings(null), nullValue());
+    }
+
+    @Test(expected = IOException.class)
+    public void testMissingMappingFailsAtStartup() throws Exception {
+        new MappingRegistry("xml.mapping.claim", "breaksunknown");
+    }
+
+    @Test
+    public void testMappingsWithNoCollections() throws Exception {
+        final XPathMappingList mappings = new XPathMappingList();
+        mappings.add(Collections.singletonList("carerTitle=DWPBody/DWPCATransaction/DWPCAClaim/Claimant/Title/Answer"));
+        final MappingRegistry registry = new MappingRegistry(mappings);
+        assertThat(registry.getMappings(), sameInstance(mappings));
+        assertThat(registry.getCollectionMappings("JobDetails"), nullValue());
+    }
+}
@@ -0,0 +1,69 @@
+package uk.gov.dwp.carersallowance.xml;
+
+import org.junit.Before;
+import org.junit.Test;
+import uk.gov.dwp.carersallowance.utils.xml.XPathMappingList;
+
+import java.util.Arrays;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+public class MappingTrieTest {
+    private MappingTrie.PathNode root;
+
+    @Before
+    public void setUp() throws Exception {
+        final XPathMappingList mappings = new XPathMappingList();
+        mappings.add(Arrays.asList(
+                "carerTitle = DWPBody/Claimant/Title/Answer",
+                "carerDateOfBirth = DWPBody/Claimant/DateOfBirth/Answer[@type=\"date\"]",
+                "carerAddressLineOne = DWPBody/Claimant/Address/Answer/Line[@order=\"1\"]",
+                "carerAddressLineTwo = DWPBody/Claimant/Address/Answer/Line[@order=\"2\"]"));
+        root = new MappingTrie(mappings).getRoot();
+    }
+
+    private MappingTrie.PathNode find(final String... elements) {
+        MappingTrie.PathNode node = root;
+        for (final String element : elements) {
+            node = node.getChild(element);
+        }
+        return node;
+    }
+
+    @Test
+    public void testFindsTheMappingOfAnElement() throws Exception {
+        final MappingTrie.PathNode node = find("DWPBody", "Claimant", "Title", "Answer");
+        assertThat(node.getPath(), is("DWPBody/Claimant/Title/Answer"));
+        assertThat(node.getMapping().getValue(), is("carerTitle"));
+        assertThat(node.getMapping(), sameInstance(find("DWPBody", "Claimant", "Title", "Answer").getMapping()));
+    }
+
+    @Test
+    public void testElementsWithAttributesTakeTheFirstMappingOfTheirName() throws Exception {
+        final MappingTrie.PathNode second = find("DWPBody", "Claimant", "Address", "Answer", "Line[@order=\"2\"]");
+        assertThat(second.getPath(), is("DWPBody/Claimant/Address/Answer/Line[@order=\"2\"]"));
+        assertThat(second.getMapping().getValue(), is("carerAddressLineOne"));
+        assertThat(find("DWPBody", "Claimant", "DateOfBirth", "Answer").getMapping().getValue(), is("carerDateOfBirth"));
+    }
+
+    @Test
+    public void testElementsBelowAnAttributeTakeTheMappingUpToIt() throws Exception {
+        final MappingTrie.PathNode node = find("DWPBody", "Claimant", "DateOfBirth", "Answer[@type=\"date\"]", "Day");
+        assertThat(node.getPath(), is("DWPBody/Claimant/DateOfBirth/Answer[@type=\"date\"]/Day"));
+        assertThat(node.getMapping().getValue(), is("carerDateOfBirth"));
+        assertThat(find("DWPBody", "Claimant[@type=\"main\"]", "Title", "Answer").getMapping(), nullValue());
+    }
+
+    @Test
+    public void testElementsThatAreNotMappedAreNotAdded() throws Exception {
+        final MappingTrie.PathNode node = find("DWPBody", "Caree", "CareBreak");
+        assertThat(node.getPath(), is("DWPBody/Caree/CareBreak"));
+        assertThat(node.getMapping(), nullValue());
+        assertThat(find("DWPBody", "Caree"), is(not(sameInstance(find("DWPBody", "Caree")))));
+        assertThat(find("DWPBody", "Claimant"), sameInstance(find("DWPBody", "Claimant")));
+    }
+}
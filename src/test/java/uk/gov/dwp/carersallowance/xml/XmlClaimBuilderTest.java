@@ -0,0 +1,71 @@
+package uk.gov.dwp.carersallowance.xml;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.w3c.dom.Document;
+import uk.gov.dwp.carersallowance.configuration.MessageCatalog;
+import uk.gov.dwp.carersallowance.utils.ClaimTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.junit.Assert.assertThat;
+
+public class XmlClaimBuilderTest {
+    private static final int THREADS = 4;
+    private static final int RENDERS = 40;
+
+    private XmlClaimBuilder xmlBuilder;
+    private Map<String, Object> values;
+
+    @Before
+    public void setUp() throws Exception {
+        xmlBuilder = new XmlClaimBuilder("DWPBody", new MessageCatalog("classpath:messages"), new ServerSideResolveArgs(), new MappingRegistry("xml.mapping.claim"), 65);
+        values = ClaimTestUtils.readReplicaClaim();
+    }
+
+    @Test
+    public void testRendersTheSameClaimOnManyThreads() throws Exception {
+        final byte[] expected = xmlBuilder.render(values, true, false).getBytes(StandardCharsets.UTF_8);
+        final ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            final List<Future<String>> renders = new ArrayList<>();
+            for (int count = 0; count < RENDERS; count++) {
+                renders.add(executor.submit(new Callable<String>() {
+                    @Override
+                    public String call() throws Exception {
+                        return xmlBuilder.render(values, true, false);
+                    }
+                }));
+            }
+            for (final Future<String> render : renders) {
+                assertThat(render.get().getBytes(StandardCharsets.UTF_8), is(expected));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testDoesNotChangeTheValues() throws Exception {
+        final String before = new TreeMap<>(values).toString();
+        xmlBuilder.buildDocument(values);
+        assertThat(new TreeMap<>(values).toString(), is(before));
+    }
+
+    @Test
+    public void testRendersTheBreaksAndJobDetailsWithTheirOwnMappings() throws Exception {
+        final Document document = xmlBuilder.buildDocument(values);
+        assertThat(XmlBuilder.getNodeValue(document, "count(/DWPBody/DWPCATransaction/DWPCAClaim/Caree/CareBreak)"), is(not("0")));
+        assertThat(XmlBuilder.getNodeValue(document, "count(/DWPBody/DWPCATransaction/DWPCAClaim/Incomes/Employment/JobDetails/Employer)"), is(not("0")));
+    }
+}